@@ -0,0 +1,132 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.security.Key;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.SignedInfo;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.XMLUtils;
+import org.apache.xml.security.utils.resolver.ResourceResolver;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
+import org.w3c.dom.Attr;
+import xades4j.utils.ConcurrentReferenceDigester;
+
+/**
+ * Applies a signature computing the digests of the external references
+ * concurrently. The digests are computed before {@code XMLSignature.sign} and
+ * handed to it as pre-calculated digests, through a resolver that takes precedence
+ * over the other resolvers of the signature. The resolver is removed when the
+ * signature is applied, so that the references can be dereferenced afterwards
+ * as usual. The other references are digested by {@code XMLSignature.sign},
+ * on the calling thread.
+ * @see ConcurrentReferenceDigester
+ * @author Luís
+ */
+class ConcurrentReferencesSigner
+{
+    private ConcurrentReferencesSigner()
+    {
+    }
+
+    static void sign(
+            XMLSignature signature,
+            Key signingKey,
+            Executor executor) throws XMLSecurityException
+    {
+        SignedInfo si = signature.getSignedInfo();
+        ConcurrentReferenceDigester digester = new ConcurrentReferenceDigester(executor);
+        Map<Reference, byte[]> digests = null;
+        try
+        {
+            for (int i = 0; i < si.getLength(); i++)
+            {
+                digester.tryStart(si.item(i));
+            }
+            digests = digester.awaitDigests();
+        }
+        finally
+        {
+            if (null == digests)
+            {
+                digester.cancel();
+            }
+        }
+
+        if (digests.isEmpty())
+        {
+            signature.sign(signingKey);
+            return;
+        }
+
+        // The references are resolved by their URI attribute.
+        Map<Attr, String> precalculatedDigests = new IdentityHashMap<Attr, String>(digests.size());
+        for (Map.Entry<Reference, byte[]> e : digests.entrySet())
+        {
+            Attr uriAttr = e.getKey().getElement().getAttributeNodeNS(null, Constants._ATT_URI);
+            precalculatedDigests.put(uriAttr, XMLUtils.encodeToString(e.getValue()));
+        }
+
+        ResourceResolver resolver = new ResourceResolver(new PrecalculatedDigestResolverSpi(precalculatedDigests));
+        List<ResourceResolver> resolvers = si.getPerManifestResolvers();
+        resolvers.add(0, resolver);
+        try
+        {
+            signature.sign(signingKey);
+        }
+        finally
+        {
+            resolvers.remove(resolver);
+        }
+    }
+
+    private static class PrecalculatedDigestResolverSpi extends ResourceResolverSpi
+    {
+        private final Map<Attr, String> digests;
+
+        PrecalculatedDigestResolverSpi(Map<Attr, String> digests)
+        {
+            this.digests = digests;
+        }
+
+        @Override
+        public XMLSignatureInput engineResolveURI(ResourceResolverContext context)
+        {
+            return new XMLSignatureInput(this.digests.get(context.attr));
+        }
+
+        @Override
+        public boolean engineCanResolveURI(ResourceResolverContext context)
+        {
+            return context.attr != null && this.digests.containsKey(context.attr);
+        }
+
+        @Override
+        public boolean engineIsThreadSafe()
+        {
+            return true;
+        }
+    }
+}
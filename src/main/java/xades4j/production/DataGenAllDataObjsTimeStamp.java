@@ -18,11 +18,12 @@ package xades4j.production;
 
 import xades4j.algorithms.Algorithm;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.List;
 import org.apache.xml.security.signature.Reference;
 import xades4j.properties.AllDataObjsTimeStampProperty;
 import xades4j.utils.CannotAddDataToDigestInputException;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.AllDataObjsTimeStampData;
 import xades4j.properties.data.BaseXAdESTimeStampData;
 import xades4j.providers.AlgorithmsProviderEx;
@@ -38,9 +39,9 @@ class DataGenAllDataObjsTimeStamp extends DataGenBaseTimeStamp<AllDataObjsTimeSt
 {
     @Inject
     public DataGenAllDataObjsTimeStamp(
-            TimeStampTokenProvider timeStampTokenProvider,
-            AlgorithmsProviderEx algorithmsProvider,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampTokenProvider> timeStampTokenProvider,
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
        super(algorithmsProvider, timeStampTokenProvider, timeStampDigestInputFactory);
     }
@@ -48,7 +49,7 @@ class DataGenAllDataObjsTimeStamp extends DataGenBaseTimeStamp<AllDataObjsTimeSt
     @Override
     protected void addPropSpecificTimeStampInput(
             AllDataObjsTimeStampProperty prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException
     {
         List<Reference> refs = ctx.getReferences();
@@ -18,6 +18,7 @@ package xades4j.production;
 
 import xades4j.algorithms.Algorithm;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +41,7 @@ import xades4j.providers.TimeStampTokenProvider;
 import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.utils.DOMHelper;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.utils.TimeStampDigestInputFactory;
 
 /**
@@ -51,9 +52,9 @@ class DataGenArchiveTimeStamp extends DataGenBaseTimeStamp<ArchiveTimeStampPrope
 {
     @Inject
     public DataGenArchiveTimeStamp(
-            AlgorithmsProviderEx algorithmsProvider,
-            TimeStampTokenProvider timeStampTokenProvider,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<TimeStampTokenProvider> timeStampTokenProvider,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(algorithmsProvider, timeStampTokenProvider, timeStampDigestInputFactory);
     }
@@ -61,7 +62,7 @@ class DataGenArchiveTimeStamp extends DataGenBaseTimeStamp<ArchiveTimeStampPrope
     @Override
     protected void addPropSpecificTimeStampInput(
             ArchiveTimeStampProperty prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException, PropertyDataGenerationException
     {
         Element unsignedSigPropsElem = DOMHelper.getFirstDescendant(
@@ -16,6 +16,7 @@
  */
 package xades4j.production;
 
+import com.google.inject.Provider;
 import java.security.MessageDigest;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -36,19 +37,24 @@ import xades4j.providers.X500NameStyleProvider;
  */
 class DataGenBaseCertRefs
 {
-    private final AlgorithmsProviderEx algorithmsProvider;
-    private final MessageDigestEngineProvider messageDigestProvider;
-    private final X500NameStyleProvider x500NameStyleProvider;
+    private final Provider<AlgorithmsProviderEx> algorithmsProvider;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
+    private final Provider<X500NameStyleProvider> x500NameStyleProvider;
     protected DataGenBaseCertRefs(
-            AlgorithmsProviderEx algorithmsProvider,
-            MessageDigestEngineProvider messageDigestProvider,
-            X500NameStyleProvider x500NameStyleProvider)
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<X500NameStyleProvider> x500NameStyleProvider)
     {
         this.algorithmsProvider = algorithmsProvider;
         this.messageDigestProvider = messageDigestProvider;
         this.x500NameStyleProvider = x500NameStyleProvider;
     }
 
+    protected String getDigestAlgorithmUri()
+    {
+        return this.algorithmsProvider.get().getDigestAlgorithmForReferenceProperties();
+    }
+
     protected PropertyDataObject generate(
             Collection<X509Certificate> certs,
             BaseCertRefsData certRefsData,
@@ -61,8 +67,9 @@ class DataGenBaseCertRefs
 
         try
         {
-            String digestAlgUri = this.algorithmsProvider.getDigestAlgorithmForReferenceProperties();
-            MessageDigest messageDigest = this.messageDigestProvider.getEngine(digestAlgUri);
+            String digestAlgUri = getDigestAlgorithmUri();
+            MessageDigest messageDigest = this.messageDigestProvider.get().getEngine(digestAlgUri);
+            X500NameStyleProvider x500NameStyleProvider = this.x500NameStyleProvider.get();
 
             for (X509Certificate cert : certs)
             {
@@ -74,7 +81,7 @@ class DataGenBaseCertRefs
                 byte[] digestValue = messageDigest.digest(cert.getEncoded());
 
                 certRefsData.addCertRef(new CertRef(
-                        this.x500NameStyleProvider.toString(cert.getIssuerX500Principal()),
+                        x500NameStyleProvider.toString(cert.getIssuerX500Principal()),
                         cert.getSerialNumber(),
                         digestAlgUri,
                         digestValue));
@@ -17,30 +17,40 @@
 
 package xades4j.production;
 
+import com.google.inject.Provider;
 import xades4j.algorithms.Algorithm;
 import xades4j.UnsupportedAlgorithmException;
 import xades4j.properties.QualifyingProperty;
 import xades4j.properties.data.BaseXAdESTimeStampData;
+import xades4j.utils.StreamingTimeStampDigestInput;
 import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.providers.AlgorithmsProviderEx;
+import xades4j.providers.MessageImprintTimeStampTokenProvider;
 import xades4j.providers.TimeStampTokenGenerationException;
 import xades4j.providers.TimeStampTokenProvider;
 import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.utils.TimeStampDigestInputFactory;
+import xades4j.utils.TimeStampDigestInputFactoryEx;
 
 /**
- *
+ * Base for the time-stamp property generators. The dependencies can be replaced
+ * by users and are obtained on each generation, since the generators are
+ * singletons.
  * @author Luís
  */
 abstract class DataGenBaseTimeStamp<TProp extends QualifyingProperty> implements PropertyDataObjectGenerator<TProp>
 {
-    private final AlgorithmsProviderEx algsProvider;
-    private final TimeStampTokenProvider tsTokenProvider;
-    private final TimeStampDigestInputFactory tsInputFactory;
+    private final Provider<AlgorithmsProviderEx> algsProvider;
+    private final Provider<TimeStampTokenProvider> tsTokenProvider;
+    private final Provider<TimeStampDigestInputFactory> tsInputFactory;
 
-    public DataGenBaseTimeStamp(AlgorithmsProviderEx algsProvider, TimeStampTokenProvider tsTokenProvider, TimeStampDigestInputFactory tsInputFactory)
+    public DataGenBaseTimeStamp(
+            Provider<AlgorithmsProviderEx> algsProvider,
+            Provider<TimeStampTokenProvider> tsTokenProvider,
+            Provider<TimeStampDigestInputFactory> tsInputFactory)
     {
         this.algsProvider = algsProvider;
         this.tsTokenProvider = tsTokenProvider;
@@ -50,16 +60,35 @@ abstract class DataGenBaseTimeStamp<TProp extends QualifyingProperty> implements
     @Override
     public final PropertyDataObject generatePropertyData(TProp prop, PropertiesDataGenerationContext ctx) throws PropertyDataGenerationException
     {
-        Algorithm c14n = this.algsProvider.getCanonicalizationAlgorithmForTimeStampProperties();
+        AlgorithmsProviderEx algsProvider = this.algsProvider.get();
+        TimeStampTokenProvider tsTokenProvider = this.tsTokenProvider.get();
+        TimeStampDigestInputFactory tsInputFactory = this.tsInputFactory.get();
+
+        Algorithm c14n = algsProvider.getCanonicalizationAlgorithmForTimeStampProperties();
 
         try
         {
-            TimeStampDigestInput digestInput = this.tsInputFactory.newTimeStampDigestInput(c14n);
-            addPropSpecificTimeStampInput(prop, digestInput, ctx);
+            String digestAlgUri = algsProvider.getDigestAlgorithmForTimeStampProperties();
+            TimeStampTokenRes tsTknRes;
+
+            if (tsTokenProvider instanceof MessageImprintTimeStampTokenProvider
+                    && tsInputFactory instanceof TimeStampDigestInputFactoryEx)
+            {
+                // Digest the input as it is added instead of keeping it.
+                StreamingTimeStampDigestInput digestInput = ((TimeStampDigestInputFactoryEx) tsInputFactory).newStreamingTimeStampDigestInput(c14n, ctx.getReferenceContentsCache(), digestAlgUri);
+                addPropSpecificTimeStampInput(prop, digestInput, ctx);
+
+                tsTknRes = ((MessageImprintTimeStampTokenProvider) tsTokenProvider).getTimeStampTokenForImprint(
+                        digestInput.getDigest(digestAlgUri),
+                        digestAlgUri);
+            }
+            else
+            {
+                TimeStampDigestInput digestInput = newTimeStampDigestInput(tsInputFactory, c14n, ctx);
+                addPropSpecificTimeStampInput(prop, digestInput, ctx);
 
-            TimeStampTokenRes tsTknRes = this.tsTokenProvider.getTimeStampToken(
-                    digestInput.getBytes(),
-                    this.algsProvider.getDigestAlgorithmForTimeStampProperties());
+                tsTknRes = tsTokenProvider.getTimeStampToken(digestInput.getBytes(), digestAlgUri);
+            }
             return createPropDataObj(prop, c14n, tsTknRes, ctx);
         }
         catch (UnsupportedAlgorithmException ex)
@@ -76,9 +105,21 @@ abstract class DataGenBaseTimeStamp<TProp extends QualifyingProperty> implements
         }
     }
 
+    private static TimeStampDigestInput newTimeStampDigestInput(
+            TimeStampDigestInputFactory tsInputFactory,
+            Algorithm c14n,
+            PropertiesDataGenerationContext ctx) throws UnsupportedAlgorithmException
+    {
+        if (tsInputFactory instanceof TimeStampDigestInputFactoryEx)
+        {
+            return ((TimeStampDigestInputFactoryEx) tsInputFactory).newTimeStampDigestInput(c14n, ctx.getReferenceContentsCache());
+        }
+        return tsInputFactory.newTimeStampDigestInput(c14n);
+    }
+
     protected abstract void addPropSpecificTimeStampInput(
             TProp prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException, PropertyDataGenerationException;
 
     protected abstract BaseXAdESTimeStampData createPropDataObj(
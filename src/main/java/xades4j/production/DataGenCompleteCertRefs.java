@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import xades4j.properties.CompleteCertificateRefsProperty;
 import xades4j.properties.data.CompleteCertificateRefsData;
 import xades4j.properties.data.PropertyDataObject;
@@ -34,9 +35,9 @@ class DataGenCompleteCertRefs
 {
     @Inject
     public DataGenCompleteCertRefs(
-            AlgorithmsProviderEx algorithmsProvider,
-            MessageDigestEngineProvider messageDigestProvider,
-            X500NameStyleProvider x500NameStyleProvider)
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<X500NameStyleProvider> x500NameStyleProvider)
     {
         super(algorithmsProvider, messageDigestProvider, x500NameStyleProvider);
     }
@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
@@ -25,15 +26,21 @@ import java.security.cert.X509CRL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.GregorianCalendar;
+import javax.security.auth.x500.X500Principal;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 import xades4j.properties.CompleteRevocationRefsProperty;
 import xades4j.UnsupportedAlgorithmException;
 import xades4j.properties.data.CRLRef;
 import xades4j.properties.data.CompleteRevocationRefsData;
+import xades4j.properties.data.OCSPRef;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.providers.AlgorithmsProviderEx;
 import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.providers.X500NameStyleProvider;
 import xades4j.utils.CrlExtensionsUtils;
+import xades4j.utils.OcspResponseUtils;
 
 /**
  *
@@ -41,15 +48,15 @@ import xades4j.utils.CrlExtensionsUtils;
  */
 class DataGenCompleteRevocRefs implements PropertyDataObjectGenerator<CompleteRevocationRefsProperty>
 {
-    private final MessageDigestEngineProvider messageDigestProvider;
-    private final AlgorithmsProviderEx algorithmsProvider;
-    private final X500NameStyleProvider x500NameStyleProvider;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
+    private final Provider<AlgorithmsProviderEx> algorithmsProvider;
+    private final Provider<X500NameStyleProvider> x500NameStyleProvider;
 
     @Inject
     public DataGenCompleteRevocRefs(
-            MessageDigestEngineProvider messageDigestProvider,
-            AlgorithmsProviderEx algorithmsProvider,
-            X500NameStyleProvider x500NameStyleProvider)
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<X500NameStyleProvider> x500NameStyleProvider)
     {
         this.messageDigestProvider = messageDigestProvider;
         this.algorithmsProvider = algorithmsProvider;
@@ -63,11 +70,12 @@ class DataGenCompleteRevocRefs implements PropertyDataObjectGenerator<CompleteRe
     {
         Collection<X509CRL> crls = prop.getCrls();
         Collection<CRLRef> crlRefs = new ArrayList<CRLRef>(crls.size());
-        String digestAlgUri = this.algorithmsProvider.getDigestAlgorithmForReferenceProperties();
+        String digestAlgUri = this.algorithmsProvider.get().getDigestAlgorithmForReferenceProperties();
+        X500NameStyleProvider x500NameStyleProvider = this.x500NameStyleProvider.get();
 
         try
         {
-            MessageDigest messageDigest = this.messageDigestProvider.getEngine(digestAlgUri);
+            MessageDigest messageDigest = this.messageDigestProvider.get().getEngine(digestAlgUri);
             for (X509CRL crl : crls)
             {
                 GregorianCalendar crlTime = new GregorianCalendar();
@@ -76,14 +84,31 @@ class DataGenCompleteRevocRefs implements PropertyDataObjectGenerator<CompleteRe
                 BigInteger crlNum = CrlExtensionsUtils.getCrlNumber(crl);
                
                 crlRefs.add(new CRLRef(
-                        this.x500NameStyleProvider.toString(crl.getIssuerX500Principal()),
+                        x500NameStyleProvider.toString(crl.getIssuerX500Principal()),
                         crlNum,
                         digestAlgUri,
                         digest,
                         crlTime));
             }
 
-            return new CompleteRevocationRefsData(crlRefs);
+            Collection<OCSPResp> ocspResponses = prop.getOcspResponses();
+            Collection<OCSPRef> ocspRefs = new ArrayList<OCSPRef>(ocspResponses.size());
+            for (OCSPResp resp : ocspResponses)
+            {
+                BasicOCSPResp basicResp = OcspResponseUtils.getBasicResponse(resp);
+                GregorianCalendar producedAt = new GregorianCalendar();
+                producedAt.setTime(basicResp.getProducedAt());
+                X500Principal responderName = OcspResponseUtils.getResponderName(basicResp);
+
+                ocspRefs.add(new OCSPRef(
+                        responderName == null ? null : x500NameStyleProvider.toString(responderName),
+                        OcspResponseUtils.getResponderKeyHash(basicResp),
+                        producedAt,
+                        digestAlgUri,
+                        messageDigest.digest(resp.getEncoded())));
+            }
+
+            return new CompleteRevocationRefsData(crlRefs, ocspRefs);
         }
         catch (CRLException ex)
         {
@@ -91,7 +116,11 @@ class DataGenCompleteRevocRefs implements PropertyDataObjectGenerator<CompleteRe
         }
         catch(IOException ex)
         {
-            throw new PropertyDataGenerationException(prop, "cannot parse CRL number extension", ex);
+            throw new PropertyDataGenerationException(prop, "cannot encode revocation data", ex);
+        }
+        catch (OCSPException ex)
+        {
+            throw new PropertyDataGenerationException(prop, "invalid OCSP response", ex);
         }
         catch (UnsupportedAlgorithmException ex)
         {
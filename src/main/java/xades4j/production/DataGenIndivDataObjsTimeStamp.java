@@ -19,6 +19,7 @@ package xades4j.production;
 import xades4j.algorithms.Algorithm;
 import xades4j.properties.DataObjectDesc;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -27,7 +28,7 @@ import org.apache.xml.security.signature.Reference;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.properties.IndividualDataObjsTimeStampProperty;
 import xades4j.properties.data.BaseXAdESTimeStampData;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.IndividualDataObjsTimeStampData;
 import xades4j.providers.AlgorithmsProviderEx;
 import xades4j.providers.TimeStampTokenProvider;
@@ -42,9 +43,9 @@ class DataGenIndivDataObjsTimeStamp extends DataGenBaseTimeStamp<IndividualDataO
 {
     @Inject
     public DataGenIndivDataObjsTimeStamp(
-            TimeStampTokenProvider timeStampTokenProvider,
-            AlgorithmsProviderEx algorithmsProvider,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampTokenProvider> timeStampTokenProvider,
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(algorithmsProvider, timeStampTokenProvider,timeStampDigestInputFactory);
     }
@@ -52,7 +53,7 @@ class DataGenIndivDataObjsTimeStamp extends DataGenBaseTimeStamp<IndividualDataO
     @Override
     protected void addPropSpecificTimeStampInput(
             IndividualDataObjsTimeStampProperty prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException
     {
         Collection<DataObjectDesc> targetDataObjs = prop.getTargetDataObjects();
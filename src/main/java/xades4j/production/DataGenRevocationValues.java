@@ -16,8 +16,10 @@
  */
 package xades4j.production;
 
+import java.io.IOException;
 import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 import xades4j.properties.RevocationValuesProperty;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.data.RevocationValuesData;
@@ -40,9 +42,16 @@ class DataGenRevocationValues implements PropertyDataObjectGenerator<RevocationV
             {
                 revocValuesData.addData(crl.getEncoded());
             }
+            for (OCSPResp resp : prop.getOcspResponses())
+            {
+                revocValuesData.addOcspData(resp.getEncoded());
+            }
         } catch (CRLException ex)
         {
             throw new PropertyDataGenerationException(prop, "cannot get encoded CRL", ex);
+        } catch (IOException ex)
+        {
+            throw new PropertyDataGenerationException(prop, "cannot get encoded OCSP response", ex);
         }
         return revocValuesData;
     }
@@ -18,6 +18,7 @@ package xades4j.production;
 
 import xades4j.algorithms.Algorithm;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.xml.security.utils.Constants;
@@ -34,7 +35,7 @@ import xades4j.providers.TimeStampTokenProvider;
 import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.utils.DOMHelper;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.utils.TimeStampDigestInputFactory;
 
 /**
@@ -45,9 +46,9 @@ class DataGenSigAndRefsTimeStamp extends DataGenBaseTimeStamp<SigAndRefsTimeStam
 {
     @Inject
     public DataGenSigAndRefsTimeStamp(
-            AlgorithmsProviderEx algorithmsProvider,
-            TimeStampTokenProvider timeStampTokenProvider,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<TimeStampTokenProvider> timeStampTokenProvider,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(algorithmsProvider, timeStampTokenProvider, timeStampDigestInputFactory);
     }
@@ -55,7 +56,7 @@ class DataGenSigAndRefsTimeStamp extends DataGenBaseTimeStamp<SigAndRefsTimeStam
     @Override
     protected void addPropSpecificTimeStampInput(
             SigAndRefsTimeStampProperty prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException, PropertyDataGenerationException
     {
         Element unsignedSigPropsElem = DOMHelper.getFirstDescendant(
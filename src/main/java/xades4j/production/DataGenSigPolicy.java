@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.io.IOException;
 import java.security.MessageDigest;
 import xades4j.properties.SignaturePolicyIdentifierProperty;
@@ -33,13 +34,13 @@ import xades4j.utils.MessageDigestUtils;
  */
 class DataGenSigPolicy implements PropertyDataObjectGenerator<SignaturePolicyIdentifierProperty>
 {
-    private final MessageDigestEngineProvider messageDigestProvider;
-    private final AlgorithmsProviderEx algorithmsProvider;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
+    private final Provider<AlgorithmsProviderEx> algorithmsProvider;
 
     @Inject
     public DataGenSigPolicy(
-            MessageDigestEngineProvider messageDigestProvider,
-            AlgorithmsProviderEx algorithmsProvider)
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<AlgorithmsProviderEx> algorithmsProvider)
     {
         this.messageDigestProvider = messageDigestProvider;
         this.algorithmsProvider = algorithmsProvider;
@@ -53,8 +54,8 @@ class DataGenSigPolicy implements PropertyDataObjectGenerator<SignaturePolicyIde
         try
         {
             // Digest the policy document.
-            String digestAlgUri = this.algorithmsProvider.getDigestAlgorithmForReferenceProperties();
-            MessageDigest md = this.messageDigestProvider.getEngine(digestAlgUri);
+            String digestAlgUri = this.algorithmsProvider.get().getDigestAlgorithmForReferenceProperties();
+            MessageDigest md = this.messageDigestProvider.get().getEngine(digestAlgUri);
             byte[] policyDigest = MessageDigestUtils.digestStream(md, prop.getPolicyDocumentStream());
 
             return new SignaturePolicyData(
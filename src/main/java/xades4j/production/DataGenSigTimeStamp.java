@@ -18,12 +18,13 @@ package xades4j.production;
 
 import xades4j.algorithms.Algorithm;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import org.apache.xml.security.utils.Constants;
 import org.w3c.dom.Element;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.properties.SignatureTimeStampProperty;
 import xades4j.properties.data.BaseXAdESTimeStampData;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.SignatureTimeStampData;
 import xades4j.providers.AlgorithmsProviderEx;
 import xades4j.providers.TimeStampTokenProvider;
@@ -39,9 +40,9 @@ class DataGenSigTimeStamp extends DataGenBaseTimeStamp<SignatureTimeStampPropert
 {
     @Inject
     public DataGenSigTimeStamp(
-            TimeStampTokenProvider timeStampTokenProvider,
-            AlgorithmsProviderEx algorithmsProvider,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampTokenProvider> timeStampTokenProvider,
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(algorithmsProvider, timeStampTokenProvider, timeStampDigestInputFactory);
     }
@@ -49,7 +50,7 @@ class DataGenSigTimeStamp extends DataGenBaseTimeStamp<SignatureTimeStampPropert
     @Override
     protected void addPropSpecificTimeStampInput(
             SignatureTimeStampProperty prop,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             PropertiesDataGenerationContext ctx) throws CannotAddDataToDigestInputException
     {
         Element sigValueElem = DOMHelper.getFirstDescendant(
@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import xades4j.properties.SigningCertificateProperty;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.data.SigningCertificateData;
@@ -34,9 +35,9 @@ class DataGenSigningCertificate
 {
     @Inject
     public DataGenSigningCertificate(
-            AlgorithmsProviderEx algorithmsProvider,
-            MessageDigestEngineProvider messageDigestProvider,
-            X500NameStyleProvider x500NameStyleProvider)
+            Provider<AlgorithmsProviderEx> algorithmsProvider,
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<X500NameStyleProvider> x500NameStyleProvider)
     {
         super(algorithmsProvider, messageDigestProvider, x500NameStyleProvider);
     }
@@ -46,9 +47,27 @@ class DataGenSigningCertificate
             SigningCertificateProperty prop,
             PropertiesDataGenerationContext ctx) throws PropertyDataGenerationException
     {
-        return super.generate(
-                prop.getsigningCertificateChain(),
-                new SigningCertificateData(),
-                prop);
+        SignerTemplate template = ctx.getSignerTemplate();
+        if (null == template)
+        {
+            return super.generate(
+                    prop.getsigningCertificateChain(),
+                    new SigningCertificateData(),
+                    prop);
+        }
+
+        // The certificate references are shared by all the signatures that use
+        // the template.
+        String digestAlgUri = getDigestAlgorithmUri();
+        SigningCertificateData data = template.getSigningCertificateData(prop.getsigningCertificateChain(), digestAlgUri);
+        if (null == data)
+        {
+            data = (SigningCertificateData) super.generate(
+                    prop.getsigningCertificateChain(),
+                    new SigningCertificateData(),
+                    prop);
+            template.putSigningCertificateData(prop.getsigningCertificateChain(), digestAlgUri, data);
+        }
+        return data;
     }
 }
@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import xades4j.properties.AllDataObjsCommitmentTypeProperty;
@@ -83,7 +84,7 @@ class DefaultProductionBindingsModule extends AbstractModule
         bind(BasicSignatureOptionsProvider.class).to(DefaultBasicSignatureOptionsProvider.class);
         // Will adapt from the BasicSignatureOptionsProvider in use
         bind(BasicSignatureOptions.class).toProvider(BasicSignatureOptionsProvider_DeprecatedToOptions_Adapter.class);
-        bind(MessageDigestEngineProvider.class).to(DefaultMessageDigestProvider.class);
+        bind(MessageDigestEngineProvider.class).to(DefaultMessageDigestProvider.class).in(Singleton.class);
         bind(X500NameStyleProvider.class).to(DefaultX500NameStyleProvider.class);
         bind(TimeStampTokenProvider.class).to(HttpTimeStampTokenProvider.class);
         bind(TSAHttpData.class).toInstance(new TSAHttpData("http://tss.accv.es:8318/tsa")); // Backwards compatibility
@@ -91,89 +92,93 @@ class DefaultProductionBindingsModule extends AbstractModule
         // PropertiesDataObjectsGenerator is not configurable but the individual
         // generators may have dependencies.
         bind(PropertiesDataObjectsGenerator.class).to(PropertiesDataObjectsGeneratorImpl.class);
-        bind(PropertyDataGeneratorsMapper.class).to(PropertyDataGeneratorsMapperImpl.class);
+        // The mapper keeps the providers of the generators; those bound in
+        // singleton scope return the same instance on every signature.
+        bind(PropertyDataGeneratorsMapper.class).to(PropertyDataGeneratorsMapperImpl.class).in(Singleton.class);
         // Ensure empty set when no bindings are defined
         Multibinder.newSetBinder(binder(), CustomPropertiesDataObjsStructureVerifier.class);
 
         // PropertyDataGeneratorsMapperImpl relies on the injector to get
-        // the individual generators, so they need to be bound.
+        // the individual generators, so they need to be bound. The built-in
+        // generators are stateless and get the dependencies that users may
+        // replace through providers on each use, so they are singletons.
         // - SignedSignatureProperties
         bind(new TypeLiteral<PropertyDataObjectGenerator<SigningTimeProperty>>()
         {
-        }).to(DataGenSigningTime.class);
+        }).to(DataGenSigningTime.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SignerRoleProperty>>()
         {
-        }).to(DataGenSignerRole.class);
+        }).to(DataGenSignerRole.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SigningCertificateProperty>>()
         {
-        }).to(DataGenSigningCertificate.class);
+        }).to(DataGenSigningCertificate.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SignatureProductionPlaceProperty>>()
         {
-        }).to(DataGenSigProdPlace.class);
+        }).to(DataGenSigProdPlace.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SignaturePolicyIdentifierProperty>>()
         {
-        }).to(DataGenSigPolicy.class);
+        }).to(DataGenSigPolicy.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SignaturePolicyImpliedProperty>>()
         {
-        }).to(DataGenSigPolicyImplied.class);
+        }).to(DataGenSigPolicyImplied.class).in(Singleton.class);
 
         // - SignedDataObjectProperties
         bind(new TypeLiteral<PropertyDataObjectGenerator<DataObjectFormatProperty>>()
         {
-        }).to(DataGenDataObjFormat.class);
+        }).to(DataGenDataObjFormat.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<CommitmentTypeProperty>>()
         {
-        }).to(DataGenCommitmentType.class);
+        }).to(DataGenCommitmentType.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<AllDataObjsCommitmentTypeProperty>>()
         {
-        }).to(DataGenCommitmentTypeAllDataObjs.class);
+        }).to(DataGenCommitmentTypeAllDataObjs.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<IndividualDataObjsTimeStampProperty>>()
         {
-        }).to(DataGenIndivDataObjsTimeStamp.class);
+        }).to(DataGenIndivDataObjsTimeStamp.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<AllDataObjsTimeStampProperty>>()
         {
-        }).to(DataGenAllDataObjsTimeStamp.class);
+        }).to(DataGenAllDataObjsTimeStamp.class).in(Singleton.class);
 
         // - UnsignedSignatureProperties
         bind(new TypeLiteral<PropertyDataObjectGenerator<CounterSignatureProperty>>()
         {
-        }).to(DataGenCounterSig.class);
+        }).to(DataGenCounterSig.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SignatureTimeStampProperty>>()
         {
-        }).to(DataGenSigTimeStamp.class);
+        }).to(DataGenSigTimeStamp.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<CompleteCertificateRefsProperty>>()
         {
-        }).to(DataGenCompleteCertRefs.class);
+        }).to(DataGenCompleteCertRefs.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<CompleteRevocationRefsProperty>>()
         {
-        }).to(DataGenCompleteRevocRefs.class);
+        }).to(DataGenCompleteRevocRefs.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<SigAndRefsTimeStampProperty>>()
         {
-        }).to(DataGenSigAndRefsTimeStamp.class);
+        }).to(DataGenSigAndRefsTimeStamp.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<CertificateValuesProperty>>()
         {
-        }).to(DataGenCertificateValues.class);
+        }).to(DataGenCertificateValues.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<RevocationValuesProperty>>()
         {
-        }).to(DataGenRevocationValues.class);
+        }).to(DataGenRevocationValues.class).in(Singleton.class);
 
         bind(new TypeLiteral<PropertyDataObjectGenerator<ArchiveTimeStampProperty>>()
         {
-        }).to(DataGenArchiveTimeStamp.class);
+        }).to(DataGenArchiveTimeStamp.class).in(Singleton.class);
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+/**
+ * A signature waiting for deferred time-stamping, as kept on a
+ * {@link DeferredTimeStampStore}. It contains the serialized document that
+ * contains the signature, the signature's {@code Id} and the number of failed
+ * time-stamping attempts so far.
+ * @author Luís
+ */
+public final class DeferredTimeStampEntry
+{
+    private final String signatureId;
+    private final byte[] document;
+    private final int attempts;
+
+    public DeferredTimeStampEntry(String signatureId, byte[] document, int attempts)
+    {
+        if (null == signatureId || null == document)
+        {
+            throw new NullPointerException("Signature id and document cannot be null");
+        }
+        this.signatureId = signatureId;
+        this.document = document;
+        this.attempts = attempts;
+    }
+
+    public String getSignatureId()
+    {
+        return signatureId;
+    }
+
+    public byte[] getDocument()
+    {
+        return document;
+    }
+
+    public int getAttempts()
+    {
+        return attempts;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import org.w3c.dom.Document;
+
+/**
+ * Receives the outcome of deferred time-stamping. The methods are invoked on
+ * the {@link DeferredTimeStampingQueue} worker threads.
+ * @author Luís
+ */
+public interface DeferredTimeStampListener
+{
+    /**
+     * Invoked when a signature was time-stamped. If this method throws an
+     * exception, the time-stamping is retried later.
+     * @param signatureId the signature's {@code Id}
+     * @param document a new document containing the signature, now with a
+     *      {@code SignatureTimeStamp}
+     */
+    void timeStamped(String signatureId, Document document);
+
+    /**
+     * Invoked when time-stamping fails definitely, either because the stored
+     * document is invalid or because the maximum number of attempts was reached.
+     * The signature is no longer on the queue.
+     * @param signatureId the signature's {@code Id}
+     * @param cause the last error
+     */
+    void failed(String signatureId, DeferredTimeStampingException cause);
+}
@@ -0,0 +1,54 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Durable storage for the signatures waiting on a {@link DeferredTimeStampingQueue}.
+ * Entries are saved when a signature is enqueued and after each failed attempt,
+ * and removed after the time-stamped signature is delivered or time-stamping
+ * fails definitely. On start, the queue resumes all the stored entries.
+ * <p>
+ * Implementations must be thread-safe.
+ * @see FileSystemDeferredTimeStampStore
+ * @author Luís
+ */
+public interface DeferredTimeStampStore
+{
+    /**
+     * Saves an entry, replacing any existing entry for the same signature.
+     * @param entry the entry
+     * @throws IOException if the entry cannot be saved
+     */
+    void save(DeferredTimeStampEntry entry) throws IOException;
+
+    /**
+     * Removes the entry for a signature, if any.
+     * @param signatureId the signature's {@code Id}
+     * @throws IOException if the entry cannot be removed
+     */
+    void remove(String signatureId) throws IOException;
+
+    /**
+     * Loads all the stored entries.
+     * @return the entries
+     * @throws IOException if the entries cannot be loaded
+     */
+    Collection<DeferredTimeStampEntry> loadAll() throws IOException;
+}
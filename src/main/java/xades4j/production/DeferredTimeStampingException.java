@@ -0,0 +1,38 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import xades4j.XAdES4jException;
+
+/**
+ * Thrown when a signature cannot be enqueued for deferred time-stamping or
+ * when its deferred time-stamping fails.
+ * @see DeferredTimeStampingQueue
+ * @author Luís
+ */
+public class DeferredTimeStampingException extends XAdES4jException
+{
+    public DeferredTimeStampingException(String message)
+    {
+        super(message);
+    }
+
+    public DeferredTimeStampingException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.utils.Constants;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import xades4j.XAdES4jException;
+import xades4j.properties.SignatureTimeStampProperty;
+import xades4j.properties.UnsignedProperties;
+import xades4j.properties.UnsignedSignatureProperty;
+
+/**
+ * A queue of signatures waiting to be upgraded to XAdES-T. When registered on a
+ * {@link XadesTSigningProfile} (see {@link XadesTSigningProfile#withDeferredTimeStamping(DeferredTimeStampingQueue)}),
+ * signers produce the signature without the {@code SignatureTimeStamp} property
+ * and enqueue it; the property is added later by a pool of worker threads,
+ * using a {@link XadesSignatureFormatExtender}. Signatures can also be enqueued
+ * directly.
+ * <p>
+ * The document containing the signature is serialized and saved on a
+ * {@link DeferredTimeStampStore} when the signature is enqueued, so that pending
+ * signatures survive restarts. Failed attempts are retried with exponential
+ * backoff. The time-stamped document (or the final error) is delivered to a
+ * {@link DeferredTimeStampListener}. Since the document is removed from the
+ * store only after being delivered, a signature may be delivered more than once
+ * if the application stops in between. If the listener throws an exception when
+ * the time-stamped document is delivered, the signature is kept on the store and
+ * delivered again on the next start; it is not time-stamped again until then.
+ * <p>
+ * The number of workers bounds the number of concurrent requests to the TSA.
+ * @author Luís
+ */
+public class DeferredTimeStampingQueue
+{
+    private final XadesSignatureFormatExtender formatExtender;
+    private final DeferredTimeStampStore store;
+    private final DeferredTimeStampListener listener;
+    private final int workers;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final Set<String> pending;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a new queue with 2 workers, up to 5 attempts per signature and
+     * backoff between 1 second and 5 minutes.
+     * @param formatExtender the extender used to add the time-stamps; it has to be configured with a {@code TimeStampTokenProvider}
+     * @param store the store for pending signatures
+     * @param listener the listener for the outcome of time-stamping
+     */
+    public DeferredTimeStampingQueue(
+            XadesSignatureFormatExtender formatExtender,
+            DeferredTimeStampStore store,
+            DeferredTimeStampListener listener)
+    {
+        this(formatExtender, store, listener, 2, 5, 1000, 5 * 60 * 1000);
+    }
+
+    /**
+     * @param formatExtender the extender used to add the time-stamps; it has to be configured with a {@code TimeStampTokenProvider}
+     * @param store the store for pending signatures
+     * @param listener the listener for the outcome of time-stamping
+     * @param workers the number of worker threads
+     * @param maxAttempts the maximum number of time-stamping attempts per signature
+     * @param initialBackoff the delay before the first retry, in milliseconds. It is doubled on each subsequent retry
+     * @param maxBackoff the maximum delay between retries, in milliseconds
+     */
+    public DeferredTimeStampingQueue(
+            XadesSignatureFormatExtender formatExtender,
+            DeferredTimeStampStore store,
+            DeferredTimeStampListener listener,
+            int workers,
+            int maxAttempts,
+            long initialBackoff,
+            long maxBackoff)
+    {
+        if (null == formatExtender || null == store || null == listener)
+        {
+            throw new NullPointerException("Format extender, store and listener cannot be null");
+        }
+        if (workers <= 0 || maxAttempts <= 0 || initialBackoff < 0 || maxBackoff < initialBackoff)
+        {
+            throw new IllegalArgumentException("Invalid workers, attempts or backoff");
+        }
+
+        this.formatExtender = formatExtender;
+        this.store = store;
+        this.listener = listener;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * Starts the workers and resumes the signatures on the store.
+     * @throws DeferredTimeStampingException if the stored entries cannot be loaded
+     * @throws IllegalStateException if the queue was already started
+     */
+    public synchronized void start() throws DeferredTimeStampingException
+    {
+        if (this.executor != null)
+        {
+            throw new IllegalStateException("Queue already started");
+        }
+
+        ScheduledThreadPoolExecutor ex = new ScheduledThreadPoolExecutor(this.workers);
+        ex.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = ex;
+
+        try
+        {
+            for (DeferredTimeStampEntry entry : this.store.loadAll())
+            {
+                schedule(entry, 0);
+            }
+        } catch (IOException e)
+        {
+            throw new DeferredTimeStampingException("Cannot load pending signatures", e);
+        }
+    }
+
+    /**
+     * Stops the workers. Signatures that were not time-stamped remain on the
+     * store and are resumed on the next start. Attempts in progress are allowed
+     * to finish.
+     */
+    public synchronized void shutdown()
+    {
+        if (this.executor != null)
+        {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Waits for the workers to finish after {@link #shutdown()}.
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return {@code true} if the workers finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException
+    {
+        ScheduledExecutorService ex;
+        synchronized (this)
+        {
+            ex = this.executor;
+        }
+        return null == ex || ex.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the number of signatures being handled by the workers, including
+     * those waiting for a retry.
+     * @return the number of signatures
+     */
+    public int getPendingCount()
+    {
+        return this.pending.size();
+    }
+
+    /**
+     * Enqueues a signature for time-stamping. The signature's owner document
+     * is serialized and saved on the store. If the queue is not started, the
+     * signature will be processed on start.
+     * @param signature the signature; it must have an {@code Id}
+     * @throws DeferredTimeStampingException if the signature cannot be saved
+     */
+    public void enqueue(XMLSignature signature) throws DeferredTimeStampingException
+    {
+        String signatureId = signature.getId();
+        if (null == signatureId || signatureId.length() == 0)
+        {
+            throw new IllegalArgumentException("Signatures for deferred time-stamping must have an Id");
+        }
+
+        DeferredTimeStampEntry entry = new DeferredTimeStampEntry(
+                signatureId, serialize(signature.getDocument()), 0);
+
+        // Saved under the lock so that start() either loads the entry or
+        // finds it already scheduled, but not both.
+        synchronized (this)
+        {
+            try
+            {
+                this.store.save(entry);
+            } catch (IOException ex)
+            {
+                throw new DeferredTimeStampingException("Cannot save signature for deferred time-stamping", ex);
+            }
+
+            if (this.executor != null && !this.executor.isShutdown())
+            {
+                schedule(entry, 0);
+            }
+        }
+    }
+
+    private synchronized void schedule(final DeferredTimeStampEntry entry, long delay)
+    {
+        if (this.executor.isShutdown())
+        {
+            this.pending.remove(entry.getSignatureId());
+            return;
+        }
+
+        this.pending.add(entry.getSignatureId());
+        this.executor.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                process(entry);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void process(DeferredTimeStampEntry entry)
+    {
+        Document document;
+        XMLSignature signature;
+        try
+        {
+            document = parse(entry.getDocument());
+            signature = findSignature(document, entry.getSignatureId());
+        } catch (DeferredTimeStampingException ex)
+        {
+            // Not recoverable.
+            finish(entry);
+            this.listener.failed(entry.getSignatureId(), ex);
+            return;
+        }
+
+        try
+        {
+            this.formatExtender.enrichSignature(
+                    signature,
+                    new UnsignedProperties(Collections.<UnsignedSignatureProperty>singletonList(new SignatureTimeStampProperty())));
+        } catch (XAdES4jException ex)
+        {
+            retry(entry, new DeferredTimeStampingException("Cannot add SignatureTimeStamp", ex));
+            return;
+        } catch (RuntimeException ex)
+        {
+            retry(entry, new DeferredTimeStampingException("Error on deferred time-stamping", ex));
+            return;
+        }
+
+        try
+        {
+            this.listener.timeStamped(entry.getSignatureId(), document);
+        } catch (RuntimeException ex)
+        {
+            // Not a time-stamping failure. The entry stays on the store, to be
+            // delivered again on the next start.
+            this.pending.remove(entry.getSignatureId());
+            return;
+        }
+
+        finish(entry);
+    }
+
+    private void retry(DeferredTimeStampEntry entry, DeferredTimeStampingException error)
+    {
+        int attempts = entry.getAttempts() + 1;
+        if (attempts >= this.maxAttempts)
+        {
+            finish(entry);
+            this.listener.failed(entry.getSignatureId(), error);
+            return;
+        }
+
+        DeferredTimeStampEntry updated = new DeferredTimeStampEntry(entry.getSignatureId(), entry.getDocument(), attempts);
+        try
+        {
+            this.store.save(updated);
+        } catch (IOException ex)
+        {
+            // The previous entry is still stored; the retry goes on in memory.
+        }
+
+        long backoff = this.initialBackoff;
+        for (int i = 1; i < attempts && backoff < this.maxBackoff; i++)
+        {
+            backoff *= 2;
+        }
+        schedule(updated, Math.min(backoff, this.maxBackoff));
+    }
+
+    private void finish(DeferredTimeStampEntry entry)
+    {
+        try
+        {
+            this.store.remove(entry.getSignatureId());
+        } catch (IOException ex)
+        {
+            // The entry will be resumed (and delivered again) on the next start.
+        }
+        this.pending.remove(entry.getSignatureId());
+    }
+
+    private static byte[] serialize(Document document) throws DeferredTimeStampingException
+    {
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TransformerFactory.newInstance().newTransformer().transform(
+                    new DOMSource(document),
+                    new StreamResult(out));
+            return out.toByteArray();
+        } catch (Exception ex)
+        {
+            throw new DeferredTimeStampingException("Cannot serialize signature document", ex);
+        }
+    }
+
+    private static Document parse(byte[] document) throws DeferredTimeStampingException
+    {
+        try
+        {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(true);
+            return dbf.newDocumentBuilder().parse(new ByteArrayInputStream(document));
+        } catch (Exception ex)
+        {
+            throw new DeferredTimeStampingException("Cannot parse stored signature document", ex);
+        }
+    }
+
+    private static XMLSignature findSignature(Document document, String signatureId) throws DeferredTimeStampingException
+    {
+        NodeList signatures = document.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE);
+        for (int i = 0; i < signatures.getLength(); i++)
+        {
+            Element e = (Element) signatures.item(i);
+            if (signatureId.equals(e.getAttributeNS(null, Constants._ATT_ID)))
+            {
+                try
+                {
+                    return new XMLSignature(e, "");
+                } catch (Exception ex)
+                {
+                    throw new DeferredTimeStampingException("Invalid stored signature", ex);
+                }
+            }
+        }
+        throw new DeferredTimeStampingException("Signature not found on stored document: " + signatureId);
+    }
+}
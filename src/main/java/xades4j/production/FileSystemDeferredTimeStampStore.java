@@ -0,0 +1,220 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A {@link DeferredTimeStampStore} that keeps each entry in a file in a given
+ * directory. Files are written to a temporary file, synced to disk and then
+ * renamed, so that a crash never leaves a partially written entry. On platforms
+ * where rename doesn't replace an existing file, the previous version is kept
+ * as a backup until the new one is in place; it is restored on {@code loadAll}
+ * if needed.
+ * <p>
+ * Files that cannot be read on {@code loadAll} are skipped and renamed with a
+ * {@code .corrupt} extension, so that they can be inspected.
+ * @author Luís
+ */
+public class FileSystemDeferredTimeStampStore implements DeferredTimeStampStore
+{
+    private static final String EXTENSION = ".dts";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String BACKUP_EXTENSION = ".bak";
+    private static final String CORRUPT_EXTENSION = ".corrupt";
+
+    private final File directory;
+
+    /**
+     * @param directory the directory where entries are stored. It is created if it doesn't exist
+     * @throws IOException if the directory cannot be created
+     */
+    public FileSystemDeferredTimeStampStore(File directory) throws IOException
+    {
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public void save(DeferredTimeStampEntry entry) throws IOException
+    {
+        File file = getFile(entry.getSignatureId());
+        File temp = new File(this.directory, file.getName() + TEMP_EXTENSION);
+
+        FileOutputStream fileOut = new FileOutputStream(temp);
+        DataOutputStream out = new DataOutputStream(fileOut);
+        try
+        {
+            out.writeUTF(entry.getSignatureId());
+            out.writeInt(entry.getAttempts());
+            out.writeInt(entry.getDocument().length);
+            out.write(entry.getDocument());
+            out.flush();
+            // Make sure the data is on disk before the rename is.
+            fileOut.getFD().sync();
+        } finally
+        {
+            out.close();
+        }
+
+        if (temp.renameTo(file))
+        {
+            return;
+        }
+
+        // On some platforms rename doesn't replace an existing file. Move the
+        // current file aside instead of deleting it, so that one of the versions
+        // is always there.
+        File backup = new File(this.directory, file.getName() + BACKUP_EXTENSION);
+        backup.delete();
+        if (!file.renameTo(backup) || !temp.renameTo(file))
+        {
+            temp.delete();
+            if (!file.exists())
+            {
+                backup.renameTo(file);
+            }
+            throw new IOException("Cannot save " + file);
+        }
+        backup.delete();
+    }
+
+    @Override
+    public void remove(String signatureId) throws IOException
+    {
+        File file = getFile(signatureId);
+        if (file.exists() && !file.delete())
+        {
+            throw new IOException("Cannot remove " + file);
+        }
+        new File(this.directory, file.getName() + BACKUP_EXTENSION).delete();
+    }
+
+    @Override
+    public Collection<DeferredTimeStampEntry> loadAll() throws IOException
+    {
+        restoreBackups();
+
+        File[] files = this.directory.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.endsWith(EXTENSION);
+            }
+        });
+        if (null == files)
+        {
+            throw new IOException("Cannot list " + this.directory);
+        }
+
+        Collection<DeferredTimeStampEntry> entries = new ArrayList<DeferredTimeStampEntry>(files.length);
+        for (File file : files)
+        {
+            try
+            {
+                entries.add(read(file));
+            } catch (IOException ex)
+            {
+                // Don't let one bad entry prevent the others from being resumed.
+                file.renameTo(new File(this.directory, file.getName() + CORRUPT_EXTENSION));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Restores the backups of entries whose replacement wasn't completed.
+     */
+    private void restoreBackups() throws IOException
+    {
+        File[] backups = this.directory.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.endsWith(EXTENSION + BACKUP_EXTENSION);
+            }
+        });
+        if (null == backups)
+        {
+            throw new IOException("Cannot list " + this.directory);
+        }
+
+        for (File backup : backups)
+        {
+            String name = backup.getName();
+            File file = new File(this.directory, name.substring(0, name.length() - BACKUP_EXTENSION.length()));
+            if (file.exists())
+            {
+                backup.delete();
+            } else
+            {
+                backup.renameTo(file);
+            }
+        }
+    }
+
+    private static DeferredTimeStampEntry read(File file) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try
+        {
+            String signatureId = in.readUTF();
+            int attempts = in.readInt();
+            int length = in.readInt();
+            if (length < 0 || length > file.length())
+            {
+                throw new IOException("Invalid document length");
+            }
+            byte[] document = new byte[length];
+            in.readFully(document);
+            return new DeferredTimeStampEntry(signatureId, document, attempts);
+        } catch (IOException ex)
+        {
+            throw new IOException("Cannot read " + file, ex);
+        } finally
+        {
+            in.close();
+        }
+    }
+
+    private File getFile(String signatureId)
+    {
+        try
+        {
+            return new File(this.directory, URLEncoder.encode(signatureId, "UTF-8") + EXTENSION);
+        } catch (UnsupportedEncodingException ex)
+        {
+            // UTF-8 is always supported.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -25,6 +25,8 @@ import org.apache.xml.security.keys.content.X509Data;
 import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.signature.XMLSignatureException;
 import org.apache.xml.security.transforms.Transforms;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import xades4j.UnsupportedAlgorithmException;
 import xades4j.algorithms.Algorithm;
 import xades4j.providers.AlgorithmsProviderEx;
@@ -62,62 +64,28 @@ class KeyInfoBuilder
     void buildKeyInfo(
             List<X509Certificate> signingCertificateChain,
             XMLSignature xmlSig) throws KeyingDataException, UnsupportedAlgorithmException
+    {
+        buildKeyInfo(signingCertificateChain, xmlSig, null);
+    }
+
+    /**
+     * @param template the template from which the {@code X509Data} is imported,
+     *      or {@code null} to always create it
+     */
+    void buildKeyInfo(
+            List<X509Certificate> signingCertificateChain,
+            XMLSignature xmlSig,
+            SignerTemplate template) throws KeyingDataException, UnsupportedAlgorithmException
     {
         X509Certificate signingCertificate = signingCertificateChain.get(0);
-        
-        // Check key usage.
-        // - KeyUsage[0] = digitalSignature
-        // - KeyUsage[1] = nonRepudiation
-        boolean[] keyUsage = signingCertificate.getKeyUsage();
-        if (keyUsage != null && !keyUsage[0] && !keyUsage[1])
-        {
-            throw new SigningCertKeyUsageException(signingCertificate);
-        }
 
-        try
-        {
-            signingCertificate.checkValidity();
-        } catch (CertificateException ce)
-        {
-            // CertificateExpiredException or CertificateNotYetValidException
-            throw new SigningCertValidityException(signingCertificate);
-        }
+        checkSigningCertificate(signingCertificate);
 
         if (this.basicSignatureOptions.includeSigningCertificate() != SigningCertificateMode.NONE
             || this.basicSignatureOptions.includeIssuerSerial()
             || this.basicSignatureOptions.includeSubjectName())
         {
-            X509Data x509Data = new X509Data(xmlSig.getDocument());
-            xmlSig.getKeyInfo().add(x509Data);
-
-            if (this.basicSignatureOptions.includeSigningCertificate() != SigningCertificateMode.NONE)
-            {
-                int loopLimit = this.basicSignatureOptions.includeSigningCertificate() == SigningCertificateMode.SIGNING_CERTIFICATE
-                        ? 1
-                        : signingCertificateChain.size();
-                
-                for(int i = 0; i < loopLimit; ++i)
-                {
-                    try
-                    {
-                        x509Data.addCertificate(signingCertificateChain.get(i));
-                    } 
-                    catch (XMLSecurityException ex)
-                    {
-                        throw new KeyingDataException(ex.getMessage(), ex);
-                    }
-                }
-            }
-
-            if (this.basicSignatureOptions.includeIssuerSerial())
-            {
-                x509Data.addIssuerSerial(this.x500NameStyleProvider.toString(signingCertificate.getIssuerX500Principal()), signingCertificate.getSerialNumber());
-            }
-
-            if (this.basicSignatureOptions.includeSubjectName())
-            {
-                x509Data.addSubjectName(this.x500NameStyleProvider.toString(signingCertificate.getSubjectX500Principal()));
-            }
+            xmlSig.getKeyInfo().add(getX509Data(signingCertificateChain, xmlSig, template));
         }
 
         if (this.basicSignatureOptions.includePublicKey())
@@ -150,4 +118,95 @@ class KeyInfoBuilder
             }
         }
     }
+
+    private X509Data getX509Data(
+            List<X509Certificate> signingCertificateChain,
+            XMLSignature xmlSig,
+            SignerTemplate template) throws KeyingDataException
+    {
+        if (null == template)
+        {
+            return createX509Data(signingCertificateChain, xmlSig.getDocument());
+        }
+
+        synchronized (template)
+        {
+            Element x509DataElem = template.importX509Data(signingCertificateChain, xmlSig.getDocument());
+            if (null == x509DataElem)
+            {
+                X509Data templateX509Data = createX509Data(signingCertificateChain, template.getTemplateDocument());
+                template.putX509Data(signingCertificateChain, templateX509Data.getElement());
+                x509DataElem = template.importX509Data(signingCertificateChain, xmlSig.getDocument());
+            }
+
+            try
+            {
+                return new X509Data(x509DataElem, xmlSig.getBaseURI());
+            }
+            catch (XMLSecurityException ex)
+            {
+                throw new KeyingDataException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private X509Data createX509Data(
+            List<X509Certificate> signingCertificateChain,
+            Document doc) throws KeyingDataException
+    {
+        X509Certificate signingCertificate = signingCertificateChain.get(0);
+        X509Data x509Data = new X509Data(doc);
+
+        if (this.basicSignatureOptions.includeSigningCertificate() != SigningCertificateMode.NONE)
+        {
+            int loopLimit = this.basicSignatureOptions.includeSigningCertificate() == SigningCertificateMode.SIGNING_CERTIFICATE
+                    ? 1
+                    : signingCertificateChain.size();
+            
+            for(int i = 0; i < loopLimit; ++i)
+            {
+                try
+                {
+                    x509Data.addCertificate(signingCertificateChain.get(i));
+                } 
+                catch (XMLSecurityException ex)
+                {
+                    throw new KeyingDataException(ex.getMessage(), ex);
+                }
+            }
+        }
+
+        if (this.basicSignatureOptions.includeIssuerSerial())
+        {
+            x509Data.addIssuerSerial(this.x500NameStyleProvider.toString(signingCertificate.getIssuerX500Principal()), signingCertificate.getSerialNumber());
+        }
+
+        if (this.basicSignatureOptions.includeSubjectName())
+        {
+            x509Data.addSubjectName(this.x500NameStyleProvider.toString(signingCertificate.getSubjectX500Principal()));
+        }
+
+        return x509Data;
+    }
+
+    private void checkSigningCertificate(X509Certificate signingCertificate) throws KeyingDataException
+    {
+        // Check key usage.
+        // - KeyUsage[0] = digitalSignature
+        // - KeyUsage[1] = nonRepudiation
+        boolean[] keyUsage = signingCertificate.getKeyUsage();
+        if (keyUsage != null && !keyUsage[0] && !keyUsage[1])
+        {
+            throw new SigningCertKeyUsageException(signingCertificate);
+        }
+
+        try
+        {
+            signingCertificate.checkValidity();
+        } catch (CertificateException ce)
+        {
+            // CertificateExpiredException or CertificateNotYetValidException
+            throw new SigningCertValidityException(signingCertificate);
+        }
+    }
 }
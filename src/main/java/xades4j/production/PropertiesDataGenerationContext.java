@@ -30,6 +30,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import xades4j.XAdES4jXMLSigException;
 import xades4j.utils.DOMHelper;
+import xades4j.utils.ReferenceContentsCache;
 
 /**
  * Context used during the generation of the properties low-level data (property
@@ -46,6 +47,8 @@ public class PropertiesDataGenerationContext
     private final Map<DataObjectDesc, Reference> referencesMappings;
     private final Document sigDocument;
     private XMLSignature targetXmlSignature;
+    private ReferenceContentsCache referenceContentsCache;
+    private SignerTemplate signerTemplate;
 
     /**
      * A simple constructor to be used when only unsigned signature properties
@@ -143,6 +146,26 @@ public class PropertiesDataGenerationContext
         return this.sigDocument;
     }
 
+    ReferenceContentsCache getReferenceContentsCache()
+    {
+        return this.referenceContentsCache;
+    }
+
+    void setReferenceContentsCache(ReferenceContentsCache referenceContentsCache)
+    {
+        this.referenceContentsCache = referenceContentsCache;
+    }
+
+    SignerTemplate getSignerTemplate()
+    {
+        return this.signerTemplate;
+    }
+
+    void setSignerTemplate(SignerTemplate signerTemplate)
+    {
+        this.signerTemplate = signerTemplate;
+    }
+
     /**
      * Creates a DOM {@code Element} in the signature's document. This can be useful
      * when generating {@link xades4j.properties.data.GenericDOMData} data objects.
@@ -16,26 +16,51 @@
  */
 package xades4j.production;
 
+import com.google.inject.Binding;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Provider;
 import com.google.inject.TypeLiteral;
 import com.google.inject.util.Types;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import xades4j.properties.QualifyingProperty;
 
 /**
- * Resolves the generators through the injector.
+ * Resolves the generators through the injector. The providers of the generators
+ * explicitly bound in the injector are collected upon construction into a table
+ * keyed by property class. Other property classes are resolved on first use and
+ * added to the table.
  * @author Luís
  */
 class PropertyDataGeneratorsMapperImpl implements PropertyDataGeneratorsMapper
 {
     private final Injector injector;
+    private final Map<Class<?>, Provider<?>> generators;
 
     @Inject
     public PropertyDataGeneratorsMapperImpl(Injector injector)
     {
         this.injector = injector;
+        this.generators = new ConcurrentHashMap<Class<?>, Provider<?>>();
+
+        for (Map.Entry<Key<?>, Binding<?>> e : injector.getBindings().entrySet())
+        {
+            Key<?> k = e.getKey();
+            Type t = k.getTypeLiteral().getType();
+            if (k.getAnnotationType() == null && t instanceof ParameterizedType)
+            {
+                ParameterizedType pt = (ParameterizedType) t;
+                Type arg = pt.getActualTypeArguments()[0];
+                if (pt.getRawType() == PropertyDataObjectGenerator.class && arg instanceof Class)
+                {
+                    this.generators.put((Class<?>) arg, e.getValue().getProvider());
+                }
+            }
+        }
     }
 
     @Override
@@ -44,8 +69,14 @@ class PropertyDataGeneratorsMapperImpl implements PropertyDataGeneratorsMapper
     {
         try
         {
-            ParameterizedType pt = Types.newParameterizedType(PropertyDataObjectGenerator.class, p.getClass());
-            return (PropertyDataObjectGenerator)injector.getInstance(Key.get(TypeLiteral.get(pt)));
+            Provider<?> provider = this.generators.get(p.getClass());
+            if (null == provider)
+            {
+                ParameterizedType pt = Types.newParameterizedType(PropertyDataObjectGenerator.class, p.getClass());
+                provider = injector.getProvider(Key.get(TypeLiteral.get(pt)));
+                this.generators.put(p.getClass(), provider);
+            }
+            return (PropertyDataObjectGenerator) provider.get();
         } catch (RuntimeException ex)
         {
             throw new PropertyDataGeneratorNotAvailableException(p, ex);
@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.signature.ObjectContainer;
 import org.apache.xml.security.signature.Reference;
@@ -56,6 +57,7 @@ import xades4j.providers.X500NameStyleProvider;
 import xades4j.utils.CanonicalizerUtils;
 import xades4j.utils.DOMHelper;
 import xades4j.utils.ObjectUtils;
+import xades4j.utils.ReferenceContentsCache;
 import xades4j.utils.StringUtils;
 import xades4j.utils.TransformUtils;
 import xades4j.xml.marshalling.SignedPropertiesMarshaller;
@@ -66,7 +68,7 @@ import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvide
  * Base logic for producing XAdES signatures (XAdES-BES).
  * @author Luís
  */
-class SignerBES implements XadesSigner
+class SignerBES implements XadesBatchSigner
 {
 
     static
@@ -84,6 +86,9 @@ class SignerBES implements XadesSigner
     /**/
     private final KeyInfoBuilder keyInfoBuilder;
     private final QualifyingPropertiesProcessor qualifPropsProcessor;
+    private SignerTemplate signerTemplate;
+    private long referenceContentsCacheSize = -1;
+    private Executor referenceDigestExecutor;
 
     @Inject
     protected SignerBES(
@@ -119,6 +124,34 @@ class SignerBES implements XadesSigner
         this.qualifPropsProcessor = new QualifyingPropertiesProcessor(signaturePropsProvider, dataObjPropsProvider);
     }
 
+    /**
+     * Enables or disables the caching of signer-invariant XML fragments.
+     */
+    void setUseSignerTemplate(boolean useSignerTemplate)
+    {
+        this.signerTemplate = useSignerTemplate ? new SignerTemplate() : null;
+    }
+
+    /**
+     * Enables the per-signature cache of processed references for time-stamp
+     * inputs, keeping up to the given amount of bytes in memory. A negative value
+     * disables the cache.
+     */
+    void setReferenceContentsCacheSize(long maxInMemoryBytes)
+    {
+        this.referenceContentsCacheSize = maxInMemoryBytes;
+    }
+
+    /**
+     * Sets the executor on which the digests of the external references are
+     * computed when the signature is applied. If {@code null}, the digests are
+     * computed on the calling thread.
+     */
+    void setReferenceDigestExecutor(Executor referenceDigestExecutor)
+    {
+        this.referenceDigestExecutor = referenceDigestExecutor;
+    }
+
     @Override
     public final XadesSignatureResult sign(
             SignedDataObjects signedDataObjects,
@@ -132,6 +165,67 @@ class SignerBES implements XadesSigner
             SignedDataObjects signedDataObjects,
             Node referenceNode,
             SignatureAppendingStrategy appendingStrategy) throws XAdES4jException
+    {
+        checkSignArguments(signedDataObjects, referenceNode);
+        return sign(signedDataObjects, referenceNode, appendingStrategy, getSigningMaterial(this.signerTemplate));
+    }
+
+    @Override
+    public final XadesBatchSignatureResult signBatch(
+            List<SignedDataObjects> signedDataObjects,
+            List<? extends Node> parents) throws XAdES4jException
+    {
+        return signBatch(signedDataObjects, parents, SignatureAppendingStrategies.AsLastChild);
+    }
+
+    @Override
+    public final XadesBatchSignatureResult signBatch(
+            List<SignedDataObjects> signedDataObjects,
+            List<? extends Node> referenceNodes,
+            SignatureAppendingStrategy appendingStrategy) throws XAdES4jException
+    {
+        if (null == signedDataObjects || null == referenceNodes)
+        {
+            throw new NullPointerException("Batch items cannot be null");
+        }
+        if (signedDataObjects.size() != referenceNodes.size())
+        {
+            throw new IllegalArgumentException("The number of data objects sets and reference nodes don't match");
+        }
+        for (int i = 0; i < signedDataObjects.size(); i++)
+        {
+            checkSignArguments(signedDataObjects.get(i), referenceNodes.get(i));
+        }
+
+        XadesBatchSignatureResult batchResult = new XadesBatchSignatureResult(signedDataObjects.size());
+        if (signedDataObjects.isEmpty())
+        {
+            return batchResult;
+        }
+
+        // The signing key is obtained upfront because a failure affects all
+        // the items in the batch. If the signer doesn't have a template, one is
+        // used for the batch, so that the KeyInfo contents and the SigningCertificate
+        // data are created only once.
+        SigningMaterial signingMaterial = getSigningMaterial(
+                this.signerTemplate != null ? this.signerTemplate : new SignerTemplate());
+        signingMaterial.getSigningKey(this.keyingProvider);
+
+        for (int i = 0; i < signedDataObjects.size(); i++)
+        {
+            try
+            {
+                batchResult.addResult(sign(signedDataObjects.get(i), referenceNodes.get(i), appendingStrategy, signingMaterial));
+            }
+            catch (XAdES4jException ex)
+            {
+                batchResult.addError(ex);
+            }
+        }
+        return batchResult;
+    }
+
+    private static void checkSignArguments(SignedDataObjects signedDataObjects, Node referenceNode)
     {
         if (null == referenceNode)
         {
@@ -145,26 +239,41 @@ class SignerBES implements XadesSigner
         {
             throw new IllegalArgumentException("Data objects list is empty");
         }
+    }
 
-        Document signatureDocument = DOMHelper.getOwnerDocument(referenceNode);
-
-        // Generate unique identifiers for the Signature and the SignedProperties.
-        String signatureId = String.format("xmldsig-%s", UUID.randomUUID());
-        String signedPropsId = String.format("%s-signedprops", signatureId);
-
+    private SigningMaterial getSigningMaterial(SignerTemplate template) throws XAdES4jException
+    {
         // Signing certificate chain (may contain only the signing certificate).
         List<X509Certificate> signingCertificateChain = this.keyingProvider.getSigningCertificateChain();
         if (null == signingCertificateChain || signingCertificateChain.isEmpty())
         {
             throw new SigningCertChainException("Signing certificate not provided");
         }
-        X509Certificate signingCertificate = signingCertificateChain.get(0);
+
+        return new SigningMaterial(signingCertificateChain, template);
+    }
+
+    private XadesSignatureResult sign(
+            SignedDataObjects signedDataObjects,
+            Node referenceNode,
+            SignatureAppendingStrategy appendingStrategy,
+            SigningMaterial signingMaterial) throws XAdES4jException
+    {
+        Document signatureDocument = DOMHelper.getOwnerDocument(referenceNode);
+
+        // Generate unique identifiers for the Signature and the SignedProperties.
+        String signatureId = String.format("xmldsig-%s", UUID.randomUUID());
+        String signedPropsId = String.format("%s-signedprops", signatureId);
+
+        List<X509Certificate> signingCertificateChain = signingMaterial.signingCertificateChain;
+        X509Certificate signingCertificate = signingMaterial.signingCertificate;
 
         // The XMLSignature (ds:Signature).
         XMLSignature signature = createSignature(
                 signatureDocument,
                 signedDataObjects.getBaseUri(),
-                signingCertificate.getPublicKey().getAlgorithm());
+                signingCertificate.getPublicKey().getAlgorithm(),
+                signingMaterial.template);
 
         signature.setId(signatureId);
 
@@ -177,7 +286,7 @@ class SignerBES implements XadesSigner
                 signature);
         
         /* ds:KeyInfo */
-        this.keyInfoBuilder.buildKeyInfo(signingCertificateChain, signature);
+        this.keyInfoBuilder.buildKeyInfo(signingCertificateChain, signature, signingMaterial.template);
 
         /* QualifyingProperties element */
         // Create the QualifyingProperties element
@@ -207,6 +316,7 @@ class SignerBES implements XadesSigner
         QualifyingProperties qualifProps = qualifPropsProcessor.getQualifyingProperties(
                 signedDataObjects, fsssp, fsusp);
 
+        ReferenceContentsCache refsCache = this.referenceContentsCacheSize < 0 ? null : new ReferenceContentsCache(this.referenceContentsCacheSize);
         try
         {
             // The signature needs to be appended to the document from now on because
@@ -220,6 +330,8 @@ class SignerBES implements XadesSigner
                     signedDataObjects.getDataObjectsDescs(),
                     referenceMappings,
                     signatureDocument);
+            propsDataGenCtx.setReferenceContentsCache(refsCache);
+            propsDataGenCtx.setSignerTemplate(signingMaterial.template);
             // Generate the signed properties data objects. The data objects structure
             // is verifier in the process.
             SigAndDataObjsPropertiesData signedPropsData = this.propsDataObjectsGenerator.generateSignedPropertiesData(
@@ -266,10 +378,19 @@ class SignerBES implements XadesSigner
             // Apply the signature
             try
             {
-                PrivateKey signingKey = keyingProvider.getSigningKey(signingCertificate);
-                signature.sign(signingKey);
+                if (null == this.referenceDigestExecutor)
+                {
+                    signature.sign(signingMaterial.getSigningKey(this.keyingProvider));
+                }
+                else
+                {
+                    ConcurrentReferencesSigner.sign(
+                            signature,
+                            signingMaterial.getSigningKey(this.keyingProvider),
+                            this.referenceDigestExecutor);
+                }
             }
-            catch (XMLSignatureException ex)
+            catch (XMLSecurityException ex)
             {
                 throw new XAdES4jXMLSigException(ex.getMessage(), ex);
             }
@@ -288,32 +409,61 @@ class SignerBES implements XadesSigner
                     propsDataGenCtx);
             // Marshal the unsigned properties to the final QualifyingProperties node.
             this.unsignedPropsMarshaller.marshal(unsignedPropsData, qualifyingPropsElem);
+
+            signatureProduced(signature);
         }
         catch (XAdES4jException ex)
         {
             appendingStrategy.revert(signature.getElement(), referenceNode);
             throw ex;
         }
+        finally
+        {
+            if (refsCache != null)
+            {
+                refsCache.clear();
+            }
+        }
 
         return new XadesSignatureResult(signature, qualifProps);
     }
 
-    private XMLSignature createSignature(Document signatureDocument, String baseUri, String signingKeyAlgorithm) throws XAdES4jXMLSigException, UnsupportedAlgorithmException
+    /**
+     * Invoked after a signature is complete and appended to the document. If an
+     * exception is thrown, the signature is removed from the document.
+     */
+    void signatureProduced(XMLSignature signature) throws XAdES4jException
     {
-        Algorithm signatureAlg = this.algorithmsProvider.getSignatureAlgorithm(signingKeyAlgorithm);
-        if (null == signatureAlg)
-        {
-            throw new NullPointerException("Signature algorithm not provided");
-        }
-        Element signatureAlgElem = createElementForAlgorithm(signatureAlg, Constants._TAG_SIGNATUREMETHOD, signatureDocument);
+    }
 
+    private XMLSignature createSignature(Document signatureDocument, String baseUri, String signingKeyAlgorithm, SignerTemplate template) throws XAdES4jXMLSigException, UnsupportedAlgorithmException
+    {
+        Element signatureAlgElem, canonAlgElem;
 
-        Algorithm canonAlg = this.algorithmsProvider.getCanonicalizationAlgorithmForSignature();
-        if (null == canonAlg)
+        if (null == template)
         {
-            throw new NullPointerException("Canonicalization algorithm not provided");
+            signatureAlgElem = createSignatureMethodElement(signingKeyAlgorithm, signatureDocument);
+            canonAlgElem = createCanonicalizationMethodElement(signatureDocument);
+        }
+        else
+        {
+            synchronized (template)
+            {
+                signatureAlgElem = template.importSignatureMethod(signingKeyAlgorithm, signatureDocument);
+                if (null == signatureAlgElem)
+                {
+                    template.putSignatureMethod(signingKeyAlgorithm, createSignatureMethodElement(signingKeyAlgorithm, template.getTemplateDocument()));
+                    signatureAlgElem = template.importSignatureMethod(signingKeyAlgorithm, signatureDocument);
+                }
+
+                canonAlgElem = template.importCanonicalizationMethod(signatureDocument);
+                if (null == canonAlgElem)
+                {
+                    template.putCanonicalizationMethod(createCanonicalizationMethodElement(template.getTemplateDocument()));
+                    canonAlgElem = template.importCanonicalizationMethod(signatureDocument);
+                }
+            }
         }
-        Element canonAlgElem = createElementForAlgorithm(canonAlg, Constants._TAG_CANONICALIZATIONMETHOD, signatureDocument);
 
         try
         {
@@ -325,6 +475,26 @@ class SignerBES implements XadesSigner
         }
     }
 
+    private Element createSignatureMethodElement(String signingKeyAlgorithm, Document doc) throws UnsupportedAlgorithmException
+    {
+        Algorithm signatureAlg = this.algorithmsProvider.getSignatureAlgorithm(signingKeyAlgorithm);
+        if (null == signatureAlg)
+        {
+            throw new NullPointerException("Signature algorithm not provided");
+        }
+        return createElementForAlgorithm(signatureAlg, Constants._TAG_SIGNATUREMETHOD, doc);
+    }
+
+    private Element createCanonicalizationMethodElement(Document doc) throws UnsupportedAlgorithmException
+    {
+        Algorithm canonAlg = this.algorithmsProvider.getCanonicalizationAlgorithmForSignature();
+        if (null == canonAlg)
+        {
+            throw new NullPointerException("Canonicalization algorithm not provided");
+        }
+        return createElementForAlgorithm(canonAlg, Constants._TAG_CANONICALIZATIONMETHOD, doc);
+    }
+
     private Element createElementForAlgorithm(Algorithm algorithm, String elementName, Document signatureDocument) throws UnsupportedAlgorithmException
     {
         Element algorithmElem = XMLUtils.createElementInSignatureSpace(signatureDocument, elementName);
@@ -353,4 +523,33 @@ class SignerBES implements XadesSigner
         SigningCertificateProperty scp = new SigningCertificateProperty(signingCertificateChain);
         formatSpecificSignedSigProps.add(scp);
     }
+
+    /**
+     * The signer-invariant data used on a signing operation. It is obtained once
+     * per call to {@code sign} or {@code signBatch}. The template, if any, holds
+     * the fragments shared by the signatures.
+     */
+    private static class SigningMaterial
+    {
+        private final List<X509Certificate> signingCertificateChain;
+        private final X509Certificate signingCertificate;
+        private final SignerTemplate template;
+        private PrivateKey signingKey;
+
+        SigningMaterial(List<X509Certificate> signingCertificateChain, SignerTemplate template)
+        {
+            this.signingCertificateChain = signingCertificateChain;
+            this.signingCertificate = signingCertificateChain.get(0);
+            this.template = template;
+        }
+
+        PrivateKey getSigningKey(KeyingDataProvider keyingProvider) throws XAdES4jException
+        {
+            if (null == this.signingKey)
+            {
+                this.signingKey = keyingProvider.getSigningKey(this.signingCertificate);
+            }
+            return this.signingKey;
+        }
+    }
 }
@@ -66,6 +66,13 @@ class SignerC extends SignerT
         this.validationDataProvider = validationDataProvider;
     }
 
+    @Override
+    boolean allowsDeferredTimeStamping()
+    {
+        // The SignatureTimeStamp must precede the XAdES-C properties.
+        return false;
+    }
+
     @Override
     protected void getFormatSpecificSignatureProperties(
             Collection<SignedSignatureProperty> formatSpecificSignedSigProps,
@@ -20,6 +20,7 @@ import com.google.inject.Inject;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
 import java.util.List;
+import org.apache.xml.security.signature.XMLSignature;
 import xades4j.properties.SignedSignatureProperty;
 import xades4j.properties.UnsignedSignatureProperty;
 import xades4j.XAdES4jException;
@@ -43,6 +44,7 @@ import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvide
 class SignerT extends SignerBES
 {
     private SignaturePolicyInfoProvider policyInfoProvider;
+    private DeferredTimeStampingQueue deferredTimeStamping;
 
     @Inject
     protected SignerT(
@@ -67,6 +69,30 @@ class SignerT extends SignerBES
         this.policyInfoProvider = p;
     }
 
+    @Inject(optional = true)
+    void setDeferredTimeStamping(DeferredTimeStampingQueue q)
+    {
+        if (!allowsDeferredTimeStamping())
+        {
+            throw new IllegalStateException("This signature form doesn't support deferred time-stamping");
+        }
+        this.deferredTimeStamping = q;
+    }
+
+    /**
+     * Indicates whether the signature time-stamp may be deferred. Forms that
+     * include other properties over the time-stamp need it right away.
+     */
+    boolean allowsDeferredTimeStamping()
+    {
+        return true;
+    }
+
+    private boolean isDeferredTimeStamping()
+    {
+        return this.deferredTimeStamping != null;
+    }
+
     @Override
     protected void getFormatSpecificSignatureProperties(
             Collection<SignedSignatureProperty> formatSpecificSignedSigProps,
@@ -81,7 +107,19 @@ class SignerT extends SignerBES
         {
             PropertiesUtils.addXadesEpesProperties(formatSpecificSignedSigProps, this.policyInfoProvider);
         }
-        // Add XAdES-T.
-        PropertiesUtils.addXadesTProperties(formatSpecificUnsignedSigProps);
+        // Add XAdES-T, unless the time-stamp is added later.
+        if (!isDeferredTimeStamping())
+        {
+            PropertiesUtils.addXadesTProperties(formatSpecificUnsignedSigProps);
+        }
+    }
+
+    @Override
+    void signatureProduced(XMLSignature signature) throws XAdES4jException
+    {
+        if (isDeferredTimeStamping())
+        {
+            this.deferredTimeStamping.enqueue(signature);
+        }
     }
 }
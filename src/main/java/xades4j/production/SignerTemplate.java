@@ -0,0 +1,166 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import xades4j.properties.data.SigningCertificateData;
+
+/**
+ * Holds signer-invariant XML fragments that are created once and then imported
+ * into the document of each new signature. The fragments are kept on a private
+ * document; importing creates deep copies, so the cached elements are never
+ * modified by the signatures. The template also keeps the data of the
+ * {@code SigningCertificate} property, so that the certificate digests are
+ * computed once.
+ * <p>
+ * The template assumes that the components that define the fragments (algorithms
+ * provider, algorithm parameters marshallers and basic signature options) return
+ * the same data on every signature.
+ * @see XadesSigningProfile#withSignerTemplate(boolean)
+ * @author Luís
+ */
+class SignerTemplate
+{
+    private final Document templateDocument;
+    private final Map<String, Element> signatureMethodElems;
+    private Element canonicalizationMethodElem;
+    private List<X509Certificate> x509DataCertificates;
+    private Element x509DataElem;
+    private List<X509Certificate> signingCertificateDataCertificates;
+    private String signingCertificateDataDigestAlgorithm;
+    private SigningCertificateData signingCertificateData;
+
+    SignerTemplate()
+    {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        try
+        {
+            this.templateDocument = dbf.newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+        this.signatureMethodElems = new HashMap<String, Element>(2);
+    }
+
+    /**
+     * Gets the document where the cached fragments should be created.
+     */
+    Document getTemplateDocument()
+    {
+        return this.templateDocument;
+    }
+
+    /**
+     * @return a copy of the cached {@code SignatureMethod} element in the target
+     *      document or {@code null} if there's no element for the key algorithm
+     */
+    synchronized Element importSignatureMethod(String signingKeyAlgorithm, Document targetDocument)
+    {
+        return importElement(this.signatureMethodElems.get(signingKeyAlgorithm), targetDocument);
+    }
+
+    synchronized void putSignatureMethod(String signingKeyAlgorithm, Element signatureMethodElem)
+    {
+        this.signatureMethodElems.put(signingKeyAlgorithm, signatureMethodElem);
+    }
+
+    /**
+     * @return a copy of the cached {@code CanonicalizationMethod} element in the
+     *      target document or {@code null} if it wasn't created yet
+     */
+    synchronized Element importCanonicalizationMethod(Document targetDocument)
+    {
+        return importElement(this.canonicalizationMethodElem, targetDocument);
+    }
+
+    synchronized void putCanonicalizationMethod(Element canonicalizationMethodElem)
+    {
+        this.canonicalizationMethodElem = canonicalizationMethodElem;
+    }
+
+    /**
+     * @return a copy of the cached {@code X509Data} element in the target document
+     *      or {@code null} if the element wasn't created for the given certificates
+     */
+    synchronized Element importX509Data(List<X509Certificate> signingCertificateChain, Document targetDocument)
+    {
+        if (this.x509DataElem == null || !this.x509DataCertificates.equals(signingCertificateChain))
+        {
+            return null;
+        }
+        return importElement(this.x509DataElem, targetDocument);
+    }
+
+    /**
+     * Only the last {@code X509Data} is kept, since the signing certificate chain
+     * is typically the same for all the signatures of a signer.
+     */
+    synchronized void putX509Data(List<X509Certificate> signingCertificateChain, Element x509DataElem)
+    {
+        this.x509DataCertificates = new ArrayList<X509Certificate>(signingCertificateChain);
+        this.x509DataElem = x509DataElem;
+    }
+
+    /**
+     * @return the cached {@code SigningCertificate} data or {@code null} if it
+     *      wasn't created for the given certificates and digest algorithm
+     */
+    synchronized SigningCertificateData getSigningCertificateData(Collection<X509Certificate> signingCertificateChain, String digestAlgUri)
+    {
+        if (this.signingCertificateData == null
+                || !this.signingCertificateDataDigestAlgorithm.equals(digestAlgUri)
+                || !this.signingCertificateDataCertificates.equals(new ArrayList<X509Certificate>(signingCertificateChain)))
+        {
+            return null;
+        }
+        return this.signingCertificateData;
+    }
+
+    /**
+     * The data object is shared by all the signatures; it must not be modified
+     * after being added to the template. Only the last one is kept.
+     */
+    synchronized void putSigningCertificateData(
+            Collection<X509Certificate> signingCertificateChain,
+            String digestAlgUri,
+            SigningCertificateData signingCertificateData)
+    {
+        this.signingCertificateDataCertificates = new ArrayList<X509Certificate>(signingCertificateChain);
+        this.signingCertificateDataDigestAlgorithm = digestAlgUri;
+        this.signingCertificateData = signingCertificateData;
+    }
+
+    private static Element importElement(Element elem, Document targetDocument)
+    {
+        if (null == elem)
+        {
+            return null;
+        }
+        return (Element) targetDocument.importNode(elem, true);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import xades4j.XAdES4jException;
+
+/**
+ * The result of a batch signature production. It contains one entry per item
+ * in the batch, in the same order as the items were supplied. Each entry is either
+ * a {@link XadesSignatureResult} or the exception that prevented the signature
+ * from being produced.
+ * @see XadesBatchSigner#signBatch(java.util.List, java.util.List)
+ * @author Luís
+ */
+public class XadesBatchSignatureResult
+{
+    private final List<XadesSignatureResult> results;
+    private final List<XAdES4jException> errors;
+    private int errorsCount;
+
+    XadesBatchSignatureResult(int size)
+    {
+        this.results = new ArrayList<XadesSignatureResult>(size);
+        this.errors = new ArrayList<XAdES4jException>(size);
+        this.errorsCount = 0;
+    }
+
+    void addResult(XadesSignatureResult result)
+    {
+        this.results.add(result);
+        this.errors.add(null);
+    }
+
+    void addError(XAdES4jException error)
+    {
+        this.results.add(null);
+        this.errors.add(error);
+        this.errorsCount++;
+    }
+
+    /**
+     * Gets the number of items in the batch.
+     * @return the number of items
+     */
+    public int size()
+    {
+        return this.results.size();
+    }
+
+    /**
+     * Indicates whether the signature production failed for any of the items.
+     * @return {@code true} if at least one item failed
+     */
+    public boolean hasErrors()
+    {
+        return this.errorsCount != 0;
+    }
+
+    /**
+     * Gets the result for the item at the given position.
+     * @param index the position of the item in the batch
+     * @return the signature result or {@code null} if the item failed
+     */
+    public XadesSignatureResult getResult(int index)
+    {
+        return this.results.get(index);
+    }
+
+    /**
+     * Gets the error for the item at the given position.
+     * @param index the position of the item in the batch
+     * @return the exception or {@code null} if the item was signed
+     */
+    public XAdES4jException getError(int index)
+    {
+        return this.errors.get(index);
+    }
+
+    /**
+     * Gets the results for all the items. Items that failed have a {@code null} entry.
+     * @return the unmodifiable list of results
+     */
+    public List<XadesSignatureResult> getResults()
+    {
+        return Collections.unmodifiableList(this.results);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.util.List;
+import org.w3c.dom.Node;
+import xades4j.XAdES4jException;
+
+/**
+ * A {@link XadesSigner} that can produce signatures in batches. The signer-invariant
+ * data (signing certificate chain, signing key, {@code KeyInfo} contents and
+ * {@code SigningCertificate} property data) is obtained only once for the whole
+ * batch.
+ * <p>
+ * The signers created by {@link XadesSigningProfile#newBatchSigner()} implement
+ * this interface.
+ * @see XadesBatchSignatureResult
+ * @author Luís
+ */
+public interface XadesBatchSigner extends XadesSigner
+{
+    /**
+     * Applies one signature over each set of data objects on a list, appending
+     * each signature to the corresponding node.
+     * <p>
+     * Errors on specific items don't interrupt the batch; they are reported on
+     * the corresponding position of the result. This includes the validity
+     * of the signing certificate, which is checked for each item. Errors that
+     * affect all the items, such as not being able to obtain the signing key,
+     * are thrown.
+     * @param signedDataObjects the data objects to be signed on each signature
+     * @param parents the nodes to which each signature element will be appended
+     * @return the batch result, with one entry per item
+     * @see #sign(xades4j.production.SignedDataObjects, org.w3c.dom.Node)
+     * @throws XAdES4jException if an error that affects the whole batch occurs
+     * @throws IllegalArgumentException if the lists have different sizes
+     */
+    public XadesBatchSignatureResult signBatch(
+            List<SignedDataObjects> signedDataObjects,
+            List<? extends Node> parents) throws XAdES4jException;
+
+    /**
+     * Applies one signature over each set of data objects on a list, appending
+     * each signature to the DOM tree using the given strategy and the corresponding
+     * reference node.
+     * @param signedDataObjects the data objects to be signed on each signature
+     * @param referenceNodes the nodes used as reference for the appending strategy
+     * @param appendingStrategy the appending strategy
+     * @return the batch result, with one entry per item
+     * @see #signBatch(java.util.List, java.util.List)
+     * @throws XAdES4jException if an error that affects the whole batch occurs
+     * @throws IllegalArgumentException if the lists have different sizes
+     */
+    public XadesBatchSignatureResult signBatch(
+            List<SignedDataObjects> signedDataObjects,
+            List<? extends Node> referenceNodes,
+            SignatureAppendingStrategy appendingStrategy) throws XAdES4jException;
+}
@@ -17,6 +17,7 @@
 package xades4j.production;
 
 import com.google.inject.Module;
+import java.util.concurrent.Executor;
 import xades4j.properties.QualifyingProperty;
 import xades4j.providers.X500NameStyleProvider;
 import xades4j.utils.XadesProfileCore;
@@ -75,6 +76,9 @@ import xades4j.xml.marshalling.algorithms.AlgorithmParametersBindingsModule;
 public abstract class XadesSigningProfile
 {
     private final XadesProfileCore profileCore;
+    private boolean useSignerTemplate;
+    private long referenceContentsCacheSize = -1;
+    private Executor referenceDigestExecutor;
 
     protected XadesSigningProfile(KeyingDataProvider keyingProvider)
     {
@@ -105,16 +109,123 @@ public abstract class XadesSigningProfile
      * Creates a new {@code XadesSigner} based on the current state of the profile.
      * If any changes are made after this call, the previously returned signer will
      * not be afected. Other signers can be created, accumulating the profile changes.
+     * <p>
+     * The dependency injection configuration is resolved once and reused by
+     * subsequent calls, as long as the profile isn't changed. Creating signers
+     * repeatedly from the same profile is therefore inexpensive.
      * @return a {@code XadesSigner} accordingly to this profile
      * @throws XadesProfileResolutionException if the dependencies of the signer (direct and indirect) cannot be resolved
      */
     public final XadesSigner newSigner() throws XadesProfileResolutionException
     {
-        return this.profileCore.getInstance(getSignerClass(), overridableModules, sealedModules);
+        XadesSigner signer = this.profileCore.getInstance(getSignerClass(), overridableModules, sealedModules);
+        if (this.useSignerTemplate && signer instanceof SignerBES)
+        {
+            ((SignerBES) signer).setUseSignerTemplate(true);
+        }
+        if (this.referenceContentsCacheSize >= 0 && signer instanceof SignerBES)
+        {
+            ((SignerBES) signer).setReferenceContentsCacheSize(this.referenceContentsCacheSize);
+        }
+        if (this.referenceDigestExecutor != null && signer instanceof SignerBES)
+        {
+            ((SignerBES) signer).setReferenceDigestExecutor(this.referenceDigestExecutor);
+        }
+        return signer;
+    }
+
+    /**
+     * Creates a new {@code XadesBatchSigner} based on the current state of the
+     * profile. This is the same as {@link #newSigner()}, but the resulting signer
+     * can also produce signatures in batches.
+     * @return a {@code XadesBatchSigner} accordingly to this profile
+     * @throws XadesProfileResolutionException if the dependencies of the signer (direct and indirect) cannot be resolved
+     *      or the signer doesn't support batches
+     */
+    public final XadesBatchSigner newBatchSigner() throws XadesProfileResolutionException
+    {
+        XadesSigner signer = newSigner();
+        if (!(signer instanceof XadesBatchSigner))
+        {
+            throw new XadesProfileResolutionException("The signer doesn't support batches", null);
+        }
+        return (XadesBatchSigner) signer;
     }
 
     protected abstract Class<? extends XadesSigner> getSignerClass();
 
+    /**
+     * Indicates whether the resulting signers should use a template of the
+     * signer-invariant XML fragments. When enabled, the {@code SignatureMethod}
+     * and {@code CanonicalizationMethod} elements (including algorithm parameters)
+     * and the {@code X509Data} in {@code KeyInfo} are created once per signer
+     * and then imported into each new signature, instead of being built from
+     * the configured providers on every signature. The certificate references
+     * of the {@code SigningCertificate} property are also computed once per
+     * signing certificate chain.
+     * <p>
+     * The qualifying properties are still marshalled on every signature, since
+     * they are marshalled as a whole. The data of the properties that are supplied
+     * on each signature by the providers (such as {@code SignaturePolicyIdentifier}
+     * and {@code SignerRole}) is not cached, because it may change between
+     * signatures. The template only applies to the signers of this library.
+     * <p>
+     * This should only be enabled if the algorithms provider and the algorithm
+     * parameters marshallers return the same data on every call. Default is
+     * {@code false}.
+     * @param useSignerTemplate {@code true} to cache the signer-invariant fragments
+     * @return this profile
+     */
+    public XadesSigningProfile withSignerTemplate(boolean useSignerTemplate)
+    {
+        this.useSignerTemplate = useSignerTemplate;
+        return this;
+    }
+
+    /**
+     * Enables a per-signature cache of the processed data object references for
+     * time-stamp properties. When a signature has more than one time-stamp
+     * covering the data objects (e.g. {@code AllDataObjectsTimeStamp} and
+     * {@code IndividualDataObjectsTimeStamp}), each reference is dereferenced,
+     * transformed and canonicalized only once. Cached data beyond {@code maxInMemoryBytes}
+     * is written to temporary files, which are deleted when the signature is
+     * finished. Not enabled by default.
+     * @param maxInMemoryBytes the maximum amount of cached bytes to keep in memory
+     * @return this profile
+     * @throws IllegalArgumentException if {@code maxInMemoryBytes} is negative
+     * @see xades4j.utils.ReferenceContentsCache
+     */
+    public XadesSigningProfile withReferenceContentsCache(long maxInMemoryBytes)
+    {
+        if (maxInMemoryBytes < 0)
+        {
+            throw new IllegalArgumentException("Maximum in-memory size cannot be negative");
+        }
+        this.referenceContentsCacheSize = maxInMemoryBytes;
+        return this;
+    }
+
+    /**
+     * Sets an executor on which the digests of the signed data objects are
+     * computed concurrently when the signature is applied. This applies to
+     * references without transforms whose contents are an octet-stream (e.g.
+     * detached data objects); the other references are digested on the calling
+     * thread, as usual.
+     * <p>
+     * The references are resolved on the calling thread but the resulting streams
+     * are read on the executor. Any {@code ResourceResolverSpi} used to resolve
+     * these references must return streams that can be read from other threads.
+     * Not enabled by default.
+     * @param referenceDigestExecutor the executor for digest tasks or {@code null} to compute the digests on the calling thread
+     * @return this profile
+     * @see xades4j.utils.ConcurrentReferenceDigester
+     */
+    public XadesSigningProfile withReferenceDigestExecutor(Executor referenceDigestExecutor)
+    {
+        this.referenceDigestExecutor = referenceDigestExecutor;
+        return this;
+    }
+
     /***/
     /**
      * Adds a type dependency mapping to the profile. This is tipically done from an
@@ -62,4 +62,23 @@ public class XadesTSigningProfile extends XadesSigningProfile
         withBinding(SignaturePolicyInfoProvider.class, policyInfoProviderClass);
         return this;
     }
+
+    /**
+     * Defers the addition of the {@code SignatureTimeStamp}. The resulting
+     * signers produce the signature without it (i.e. XAdES-BES/EPES) and enqueue
+     * it on the given queue, which adds the time-stamp in background and
+     * delivers the resulting XAdES-T document to its listener.
+     * <p>
+     * Deferring is not supported by the forms that add properties over the
+     * time-stamp, such as XAdES-C: for those profiles, {@link #newSigner()}
+     * fails with a {@code XadesProfileResolutionException}.
+     * @param queue the deferred time-stamping queue
+     * @return the current instance
+     */
+    public XadesTSigningProfile withDeferredTimeStamping(
+            DeferredTimeStampingQueue queue)
+    {
+        withBinding(DeferredTimeStampingQueue.class, queue);
+        return this;
+    }
 }
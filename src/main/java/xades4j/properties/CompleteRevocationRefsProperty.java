@@ -18,6 +18,8 @@ package xades4j.properties;
 
 import java.security.cert.X509CRL;
 import java.util.Collection;
+import java.util.Collections;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 
 /**
  * The {@code } property contains a sequence of references to the full set of revocation
@@ -29,13 +31,14 @@ import java.util.Collection;
  * This property is not used directly when producing a signature. Instead, it is
  * enforced by the {@link xades4j.production.XadesSigner} producing a XAdES-C.
  * <p>
- * Only CRLs are supported.
+ * CRLs and OCSP responses are supported.
  * @author Luís
  */
 public class CompleteRevocationRefsProperty extends UnsignedSignatureProperty
 {
     public static final String PROP_NAME = "CompleteRevocationRefs";
     private final Collection<X509CRL> crls;
+    private final Collection<OCSPResp> ocspResponses;
 
     /**
      * Creates an instance of the property that will result in CRL references for
@@ -45,9 +48,22 @@ public class CompleteRevocationRefsProperty extends UnsignedSignatureProperty
      */
     public CompleteRevocationRefsProperty(Collection<X509CRL> crls)
     {
-        if (null == crls)
+        this(crls, Collections.<OCSPResp>emptyList());
+    }
+
+    /**
+     * Creates an instance of the property that will result in CRL references for
+     * {@code crls} and OCSP references for {@code ocspResponses}.
+     * @param crls the set of CRLs that will have references on the property
+     * @param ocspResponses the set of OCSP responses that will have references on the property
+     * @throws NullPointerException if {@code crls} or {@code ocspResponses} are {@code null}
+     */
+    public CompleteRevocationRefsProperty(Collection<X509CRL> crls, Collection<OCSPResp> ocspResponses)
+    {
+        if (null == crls || null == ocspResponses)
             throw new NullPointerException();
         this.crls = crls;
+        this.ocspResponses = ocspResponses;
     }
 
     public Collection<X509CRL> getCrls()
@@ -55,6 +71,11 @@ public class CompleteRevocationRefsProperty extends UnsignedSignatureProperty
         return crls;
     }
 
+    public Collection<OCSPResp> getOcspResponses()
+    {
+        return ocspResponses;
+    }
+
     @Override
     public String getName()
     {
@@ -18,6 +18,8 @@ package xades4j.properties;
 
 import java.security.cert.X509CRL;
 import java.util.Collection;
+import java.util.Collections;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 
 /**
  * The {@code RevocationValues} property is an optional unsigned property and qualifies
@@ -31,12 +33,19 @@ public class RevocationValuesProperty extends UnsignedSignatureProperty
 {
     public static final String PROP_NAME = "RevocationValues";
     private final Collection<X509CRL> crls;
+    private final Collection<OCSPResp> ocspResponses;
 
     public RevocationValuesProperty(Collection<X509CRL> crls)
     {
-        if (null == crls)
+        this(crls, Collections.<OCSPResp>emptyList());
+    }
+
+    public RevocationValuesProperty(Collection<X509CRL> crls, Collection<OCSPResp> ocspResponses)
+    {
+        if (null == crls || null == ocspResponses)
             throw new NullPointerException();
         this.crls = crls;
+        this.ocspResponses = ocspResponses;
     }
 
     public Collection<X509CRL> getCrls()
@@ -44,6 +53,11 @@ public class RevocationValuesProperty extends UnsignedSignatureProperty
         return crls;
     }
 
+    public Collection<OCSPResp> getOcspResponses()
+    {
+        return ocspResponses;
+    }
+
     @Override
     public String getName()
     {
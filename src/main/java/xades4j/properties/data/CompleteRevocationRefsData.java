@@ -26,15 +26,23 @@ import java.util.Collection;
 public final class CompleteRevocationRefsData implements PropertyDataObject
 {
     private final Collection<CRLRef> crlRefs;
+    private final Collection<OCSPRef> ocspRefs;
 
-    public CompleteRevocationRefsData(Collection<CRLRef> crlRefs)
+    public CompleteRevocationRefsData(Collection<CRLRef> crlRefs, Collection<OCSPRef> ocspRefs)
     {
         this.crlRefs = new ArrayList<CRLRef>(crlRefs);
+        this.ocspRefs = new ArrayList<OCSPRef>(ocspRefs);
+    }
+
+    public CompleteRevocationRefsData(Collection<CRLRef> crlRefs)
+    {
+        this(crlRefs, new ArrayList<OCSPRef>(0));
     }
 
     public CompleteRevocationRefsData()
     {
         this.crlRefs = new ArrayList<CRLRef>(3);
+        this.ocspRefs = new ArrayList<OCSPRef>(3);
     }
 
     public void addCRLRef(CRLRef ref)
@@ -42,8 +50,18 @@ public final class CompleteRevocationRefsData implements PropertyDataObject
         this.crlRefs.add(ref);
     }
 
+    public void addOCSPRef(OCSPRef ref)
+    {
+        this.ocspRefs.add(ref);
+    }
+
     public Collection<CRLRef> getCrlRefs()
     {
         return crlRefs;
     }
+
+    public Collection<OCSPRef> getOcspRefs()
+    {
+        return ocspRefs;
+    }
 }
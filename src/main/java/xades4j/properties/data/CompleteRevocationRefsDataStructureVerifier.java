@@ -29,10 +29,15 @@ class CompleteRevocationRefsDataStructureVerifier implements PropertyDataObjectS
     @Override
     public void verifyStructure(PropertyDataObject propData) throws PropertyDataStructureException
     {
-        Collection<CRLRef> crlRefs = ((CompleteRevocationRefsData)propData).getCrlRefs();
+        CompleteRevocationRefsData revocRefsData = (CompleteRevocationRefsData)propData;
+        Collection<CRLRef> crlRefs = revocRefsData.getCrlRefs();
+        Collection<OCSPRef> ocspRefs = revocRefsData.getOcspRefs();
 
-        if (null == crlRefs || crlRefs.isEmpty())
-            throw new PropertyDataStructureException("empty CRL reference list", CompleteRevocationRefsProperty.PROP_NAME);
+        if ((null == crlRefs || crlRefs.isEmpty()) && (null == ocspRefs || ocspRefs.isEmpty()))
+            throw new PropertyDataStructureException("empty revocation reference lists", CompleteRevocationRefsProperty.PROP_NAME);
+
+        if (null == crlRefs || null == ocspRefs)
+            throw new PropertyDataStructureException("null revocation reference list", CompleteRevocationRefsProperty.PROP_NAME);
 
         for (CRLRef r : crlRefs)
         {
@@ -45,5 +50,18 @@ class CompleteRevocationRefsDataStructureVerifier implements PropertyDataObjectS
                     r.issueTime))
                 throw new PropertyDataStructureException("empty data on one or more CRL references", CompleteRevocationRefsProperty.PROP_NAME);
         }
+
+        for (OCSPRef r : ocspRefs)
+        {
+            if (null == r)
+                throw new PropertyDataStructureException("null OCSP reference", CompleteRevocationRefsProperty.PROP_NAME);
+            if (ObjectUtils.anyNull(
+                    r.producedAt,
+                    r.digestAlgUri,
+                    r.digestValue))
+                throw new PropertyDataStructureException("empty data on one or more OCSP references", CompleteRevocationRefsProperty.PROP_NAME);
+            if ((null == r.responderIdByName) == (null == r.responderIdByKey))
+                throw new PropertyDataStructureException("OCSP reference must have exactly one responder identifier", CompleteRevocationRefsProperty.PROP_NAME);
+        }
     }
 }
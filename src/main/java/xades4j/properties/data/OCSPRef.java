@@ -0,0 +1,50 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.properties.data;
+
+import java.util.GregorianCalendar;
+
+/**
+ * Reference to an OCSP response. The responder is identified either by name
+ * or by the hash of its public key.
+ * @author Luís
+ */
+public class OCSPRef
+{
+    public String responderIdByName;
+    /**
+     * The SHA-1 hash of the responder's public key, already decoded from base-64.
+     */
+    public byte[] responderIdByKey;
+    public GregorianCalendar producedAt;
+    public String digestAlgUri;
+    /**
+     * The digest value for the {@code OCSPResponse}, already decoded from base-64.
+     */
+    public byte[] digestValue;
+
+    public OCSPRef(
+            String responderIdByName, byte[] responderIdByKey, GregorianCalendar producedAt,
+            String digestAlgUri, byte[] digestValue)
+    {
+        this.responderIdByName = responderIdByName;
+        this.responderIdByKey = responderIdByKey;
+        this.producedAt = producedAt;
+        this.digestAlgUri = digestAlgUri;
+        this.digestValue = digestValue;
+    }
+}
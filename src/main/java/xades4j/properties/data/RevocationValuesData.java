@@ -16,10 +16,25 @@
  */
 package xades4j.properties.data;
 
+import java.util.ArrayList;
+import java.util.Collection;
+
 /**
- *
+ * The encoded CRLs are available through {@link #getData()}. The encoded OCSP
+ * responses ({@code OCSPResponse}) are available through {@link #getOcspData()}.
  * @author Luís
  */
 public class RevocationValuesData extends BaseEncapsulatedPKIData
 {
+    private final Collection<byte[]> ocspData = new ArrayList<byte[]>(3);
+
+    public void addOcspData(byte[] d)
+    {
+        this.ocspData.add(d);
+    }
+
+    public Collection<byte[]> getOcspData()
+    {
+        return ocspData;
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers;
+
+/**
+ * A {@code TimeStampTokenProvider} that can also get time-stamp tokens for a
+ * message imprint calculated beforehand. When the configured provider implements
+ * this interface, the library digests the time-stamp input as it is produced,
+ * instead of keeping the whole input in memory.
+ * @see xades4j.providers.impl.AbstractTimeStampTokenProvider
+ * @author Luís
+ */
+public interface MessageImprintTimeStampTokenProvider extends TimeStampTokenProvider
+{
+    /**
+     * Gets a time-stamp token for a given message imprint.
+     * @param messageImprint the digest of the time-stamp input
+     * @param digestAlgUri the digest algorithm used to calculate {@code messageImprint}
+     * @return the time-stamp token data
+     * @throws TimeStampTokenGenerationException if there's an error getting the time-stamp
+     */
+    public TimeStampTokenRes getTimeStampTokenForImprint(
+            byte[] messageImprint,
+            String digestAlgUri) throws TimeStampTokenGenerationException;
+}
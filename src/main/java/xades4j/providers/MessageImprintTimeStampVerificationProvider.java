@@ -0,0 +1,54 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers;
+
+import java.util.Date;
+
+/**
+ * A {@code TimeStampVerificationProvider} that can also verify time-stamp tokens
+ * against a message imprint calculated beforehand. When the configured provider
+ * implements this interface, the library digests the time-stamp input as it is
+ * produced, instead of keeping the whole input in memory.
+ * @see xades4j.providers.impl.DefaultTimeStampVerificationProvider
+ * @author Luís
+ */
+public interface MessageImprintTimeStampVerificationProvider extends TimeStampVerificationProvider
+{
+    /**
+     * Gets the digest algorithm of the message imprint in a time-stamp token.
+     * @param timeStampToken the encoded time-stamp token
+     * @return the URI of the digest algorithm
+     * @throws TimeStampTokenVerificationException if the token cannot be parsed or
+     *      its digest algorithm is not supported
+     */
+    public String getMessageImprintAlgorithm(
+            byte[] timeStampToken) throws TimeStampTokenVerificationException;
+
+    /**
+     * Verifies a time-stamp token. This includes verifying the message imprint
+     * and the token signature, including the TSA certificate.
+     * @param timeStampToken the encoded time-stamp token
+     * @param messageImprint the digest of the input purportedly used in time-stamp
+     *      creation, calculated from the current signature with the algorithm
+     *      returned by {@link #getMessageImprintAlgorithm(byte[])}
+     * @return the time-stamp
+     * @throws TimeStampTokenVerificationException if the token cannot be validated (see subclasses of the exception)
+     */
+    public Date verifyTokenForImprint(
+            byte[] timeStampToken,
+            byte[] messageImprint) throws TimeStampTokenVerificationException;
+}
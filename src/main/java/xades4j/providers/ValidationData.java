@@ -21,9 +21,11 @@ import java.security.cert.X509Certificate;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 
 /**
- * Container of validation data (certificates and corresponding CRLs).
+ * Container of validation data (certificates and corresponding CRLs and/or OCSP
+ * responses).
  * <p>
  * Contains the full certification chain, starting with the signing certificate
  * and endind with the trust-anchor.
@@ -33,15 +35,18 @@ public class ValidationData
 {
     private final List<X509Certificate> certs;
     private final Collection<X509CRL> crls;
+    private final Collection<OCSPResp> ocspResponses;
 
     /**
      * @param crls the CRLs used to validate the certificates in {@code certs}. Might be {@code null}.
+     * @param ocspResponses the OCSP responses used to validate the certificates in {@code certs}. Might be {@code null}.
      * @throws NullPointerException if {@code certs} is {@code null}
      * @throws IllegalArgumentException if {@code certs} is empty
      */
     public ValidationData(
             List<X509Certificate> certs,
-            Collection<X509CRL> crls)
+            Collection<X509CRL> crls,
+            Collection<OCSPResp> ocspResponses)
     {
         if (null == certs)
             throw new NullPointerException("Null cert path");
@@ -53,11 +58,27 @@ public class ValidationData
             this.crls = Collections.emptyList();
         else
             this.crls = Collections.unmodifiableCollection(crls);
+        if (null == ocspResponses)
+            this.ocspResponses = Collections.emptyList();
+        else
+            this.ocspResponses = Collections.unmodifiableCollection(ocspResponses);
+    }
+
+    /**
+     * @param crls the CRLs used to validate the certificates in {@code certs}. Might be {@code null}.
+     * @throws NullPointerException if {@code certs} is {@code null}
+     * @throws IllegalArgumentException if {@code certs} is empty
+     */
+    public ValidationData(
+            List<X509Certificate> certs,
+            Collection<X509CRL> crls)
+    {
+        this(certs, crls, null);
     }
 
     public ValidationData(List<X509Certificate> certs)
     {
-        this(certs, null);
+        this(certs, null, null);
     }
 
     public List<X509Certificate> getCerts()
@@ -69,4 +90,9 @@ public class ValidationData
     {
         return crls;
     }
+
+    public Collection<OCSPResp> getOcspResponses()
+    {
+        return ocspResponses;
+    }
 }
@@ -23,12 +23,13 @@ import org.bouncycastle.asn1.cmp.PKIStatus;
 import org.bouncycastle.tsp.*;
 import xades4j.UnsupportedAlgorithmException;
 import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.providers.MessageImprintTimeStampTokenProvider;
 import xades4j.providers.TimeStampTokenGenerationException;
-import xades4j.providers.TimeStampTokenProvider;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,7 +40,7 @@ import java.util.Map;
  *
  * @author luis
  */
-public abstract class AbstractTimeStampTokenProvider implements TimeStampTokenProvider {
+public abstract class AbstractTimeStampTokenProvider implements MessageImprintTimeStampTokenProvider {
     private static final Map<String, ASN1ObjectIdentifier> digestUriToOidMappings;
 
     static {
@@ -59,12 +60,14 @@ public abstract class AbstractTimeStampTokenProvider implements TimeStampTokenPr
 
     private final MessageDigestEngineProvider messageDigestProvider;
     private final TimeStampRequestGenerator tsRequestGenerator;
+    private final SecureRandom nonceGenerator;
 
     @Inject
     AbstractTimeStampTokenProvider(MessageDigestEngineProvider messageDigestProvider) {
         this.messageDigestProvider = messageDigestProvider;
         this.tsRequestGenerator = new TimeStampRequestGenerator();
         this.tsRequestGenerator.setCertReq(true);
+        this.nonceGenerator = new SecureRandom();
     }
 
     @Override
@@ -77,10 +80,21 @@ public abstract class AbstractTimeStampTokenProvider implements TimeStampTokenPr
             throw new TimeStampTokenGenerationException("Digest algorithm not supported", ex);
         }
 
+        return getTimeStampTokenForImprint(digest, digestAlgUri);
+    }
+
+    @Override
+    public final TimeStampTokenRes getTimeStampTokenForImprint(byte[] messageImprint, String digestAlgUri) throws TimeStampTokenGenerationException {
+        ASN1ObjectIdentifier digestAlgOid = identifierForDigest(digestAlgUri);
+        if (null == digestAlgOid) {
+            throw new TimeStampTokenGenerationException("Digest algorithm not supported: " + digestAlgUri);
+        }
+
         TimeStampRequest tsRequest = this.tsRequestGenerator.generate(
-                identifierForDigest(digestAlgUri),
-                digest,
-                BigInteger.valueOf(System.currentTimeMillis()));
+                digestAlgOid,
+                messageImprint,
+                // Random nonces, so that concurrent requests don't share them.
+                new BigInteger(64, this.nonceGenerator));
 
         TimeStampResponse tsResponse = getTimeStampResponse(tsRequest);
         if (tsResponse.getStatus() != PKIStatus.GRANTED && tsResponse.getStatus() != PKIStatus.GRANTED_WITH_MODS) {
@@ -0,0 +1,256 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import xades4j.providers.ValidationData;
+import xades4j.providers.ValidationDataException;
+import xades4j.providers.ValidationDataProvider;
+import xades4j.utils.OcspResponseUtils;
+
+/**
+ * {@code ValidationDataProvider} that caches the validation data obtained from
+ * another provider, per certificate chain. Cached data expires on the earliest
+ * {@code nextUpdate} of its CRLs and OCSP responses (or the earliest expiration
+ * of its certificates, if sooner).
+ * <p>
+ * Data that doesn't state when it is superseded, i.e. data without revocation
+ * information or with CRLs/OCSP responses without {@code nextUpdate}, is not
+ * cached by default, since newer revocation information may be published at
+ * any time. A maximum age for such data can be configured with
+ * {@link #setMaxAgeWithoutNextUpdate(long)}.
+ * <p>
+ * Optionally, cached data that was used since it was obtained can be refreshed
+ * in background some time before it expires, so that signers don't wait for the
+ * validation data. If a refresh fails, the current data is used until it expires.
+ * <p>
+ * Instances are thread-safe, provided that the underlying provider also is.
+ * @author Luís
+ */
+public class CachingValidationDataProvider implements ValidationDataProvider
+{
+    private final ValidationDataProvider validationDataProvider;
+    private final ScheduledExecutorService refreshExecutor;
+    private final long refreshBeforeExpiry;
+    private final ConcurrentMap<List<X509Certificate>, Entry> entries;
+    private volatile long maxAgeWithoutNextUpdate;
+
+    /**
+     * Creates a new instance that doesn't refresh the cached data in background.
+     * @param validationDataProvider the provider of the validation data to cache
+     */
+    public CachingValidationDataProvider(ValidationDataProvider validationDataProvider)
+    {
+        this(validationDataProvider, null, 0);
+    }
+
+    /**
+     * Creates a new instance that refreshes the cached data in background.
+     * @param validationDataProvider the provider of the validation data to cache
+     * @param refreshExecutor the executor used to refresh the data
+     * @param refreshBeforeExpiry how long, in milliseconds, before the data expires
+     *      it should be refreshed
+     */
+    public CachingValidationDataProvider(
+            ValidationDataProvider validationDataProvider,
+            ScheduledExecutorService refreshExecutor,
+            long refreshBeforeExpiry)
+    {
+        if (null == validationDataProvider)
+        {
+            throw new NullPointerException("Validation data provider cannot be null");
+        }
+        if (refreshBeforeExpiry < 0)
+        {
+            throw new IllegalArgumentException("Refresh time cannot be negative");
+        }
+        this.validationDataProvider = validationDataProvider;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshBeforeExpiry = refreshBeforeExpiry;
+        this.entries = new ConcurrentHashMap<List<X509Certificate>, Entry>();
+    }
+
+    @Override
+    public ValidationData getValidationData(
+            List<X509Certificate> certChainFragment) throws ValidationDataException
+    {
+        List<X509Certificate> key = new ArrayList<X509Certificate>(certChainFragment);
+        Entry e = this.entries.get(key);
+        if (e != null)
+        {
+            if (System.currentTimeMillis() < e.expiry)
+            {
+                e.used = true;
+                return e.data;
+            }
+            this.entries.remove(key, e);
+        }
+
+        ValidationData data = this.validationDataProvider.getValidationData(certChainFragment);
+        if (data != null)
+        {
+            store(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Sets how long data that doesn't have a {@code nextUpdate} may be cached.
+     * This applies to data without CRLs or OCSP responses and to data with
+     * CRLs or OCSP responses that don't have {@code nextUpdate}. The default
+     * is zero, i.e. such data is not cached.
+     * @param maxAge the maximum age in milliseconds
+     * @throws IllegalArgumentException if {@code maxAge} is negative
+     */
+    public void setMaxAgeWithoutNextUpdate(long maxAge)
+    {
+        if (maxAge < 0)
+        {
+            throw new IllegalArgumentException("Maximum age cannot be negative");
+        }
+        this.maxAgeWithoutNextUpdate = maxAge;
+    }
+
+    /**
+     * Removes all the cached data.
+     */
+    public void clear()
+    {
+        this.entries.clear();
+    }
+
+    private void store(final List<X509Certificate> key, ValidationData data)
+    {
+        long now = System.currentTimeMillis();
+        final Entry e = new Entry(data, getExpiry(data, now, this.maxAgeWithoutNextUpdate));
+        if (e.expiry <= now)
+        {
+            // Not cacheable; make sure outdated data isn't used either.
+            this.entries.remove(key);
+            return;
+        }
+        this.entries.put(key, e);
+
+        if (this.refreshExecutor != null)
+        {
+            long delay = e.expiry - this.refreshBeforeExpiry - now;
+            try
+            {
+                this.refreshExecutor.schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        refresh(key, e);
+                    }
+                }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex)
+            {
+                // The executor was shut down; the data is obtained on demand.
+            }
+        }
+    }
+
+    private void refresh(List<X509Certificate> key, Entry e)
+    {
+        // Only refresh data that is still in use. Otherwise, it is kept until
+        // it expires.
+        if (!e.used || this.entries.get(key) != e)
+        {
+            return;
+        }
+        try
+        {
+            ValidationData data = this.validationDataProvider.getValidationData(key);
+            if (data != null && this.entries.get(key) == e)
+            {
+                store(key, data);
+            }
+        } catch (ValidationDataException ex)
+        {
+            // Keep the current data until it expires.
+        } catch (RuntimeException ex)
+        {
+            // Keep the current data until it expires.
+        }
+    }
+
+    /**
+     * Gets the time until which the data may be cached.
+     * @param obtainedAt the time when the data was obtained
+     * @param maxAgeWithoutNextUpdate the maximum age of data that doesn't have {@code nextUpdate}
+     */
+    static long getExpiry(ValidationData data, long obtainedAt, long maxAgeWithoutNextUpdate)
+    {
+        long expiryWithoutNextUpdate = Long.MAX_VALUE - obtainedAt < maxAgeWithoutNextUpdate
+                ? Long.MAX_VALUE
+                : obtainedAt + maxAgeWithoutNextUpdate;
+
+        long expiry = Long.MAX_VALUE;
+        for (X509Certificate c : data.getCerts())
+        {
+            expiry = Math.min(expiry, c.getNotAfter().getTime());
+        }
+        if (data.getCrls().isEmpty() && data.getOcspResponses().isEmpty())
+        {
+            expiry = Math.min(expiry, expiryWithoutNextUpdate);
+        }
+        for (X509CRL crl : data.getCrls())
+        {
+            expiry = Math.min(expiry, crl.getNextUpdate() != null ? crl.getNextUpdate().getTime() : expiryWithoutNextUpdate);
+        }
+        for (OCSPResp resp : data.getOcspResponses())
+        {
+            try
+            {
+                for (SingleResp singleResp : OcspResponseUtils.getBasicResponse(resp).getResponses())
+                {
+                    expiry = Math.min(expiry, singleResp.getNextUpdate() != null ? singleResp.getNextUpdate().getTime() : expiryWithoutNextUpdate);
+                }
+            } catch (OCSPException ex)
+            {
+                // Don't cache data that can't be inspected.
+                return Long.MIN_VALUE;
+            }
+        }
+        return expiry;
+    }
+
+    private static class Entry
+    {
+        final ValidationData data;
+        final long expiry;
+        volatile boolean used;
+
+        Entry(ValidationData data, long expiry)
+        {
+            this.data = data;
+            this.expiry = expiry;
+        }
+    }
+}
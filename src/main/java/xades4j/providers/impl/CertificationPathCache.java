@@ -0,0 +1,222 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import xades4j.providers.ValidationData;
+
+/**
+ * Bounded cache of certification paths validated by {@link PKIXCertificateValidationProvider}.
+ * Entries are keyed by the fingerprint of the leaf certificate. A cached path
+ * is reused for a validation date if:
+ * <ul>
+ *  <li>it was validated with the same trust anchors;</li>
+ *  <li>the date is within the configured window of the date used when the path
+ *      was validated;</li>
+ *  <li>the date is within the validity period of all the certificates in the
+ *      path and, if revocation is enabled, of all the CRLs used (i.e. before
+ *      their {@code nextUpdate}).</li>
+ * </ul>
+ * When the capacity is exceeded, the least recently used entries are evicted.
+ * Instances are thread-safe.
+ * @see PKIXCertificateValidationProvider#setPathCache(xades4j.providers.impl.CertificationPathCache)
+ * @author Luís
+ */
+public class CertificationPathCache
+{
+    private final long validationDateWindow;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries the maximum number of cached paths
+     * @param validationDateWindow the maximum distance, in milliseconds, between
+     *      the validation date of a cached path and the dates it can be reused for
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive or
+     *      {@code validationDateWindow} is negative
+     */
+    public CertificationPathCache(final int maxEntries, long validationDateWindow)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("The maximum number of entries must be positive");
+        }
+        if (validationDateWindow < 0)
+        {
+            throw new IllegalArgumentException("The validation date window cannot be negative");
+        }
+
+        this.validationDateWindow = validationDateWindow;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of lookups that returned a cached path.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that didn't return a cached path.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the entries. The statistics are not reset.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    ValidationData get(X509Certificate leafCert, Set<TrustAnchor> trustAnchors, Date validationDate)
+    {
+        Key k = Key.of(leafCert);
+        Entry e;
+        synchronized (this)
+        {
+            e = entries.get(k);
+        }
+
+        if (e != null && e.trustAnchors == trustAnchors && e.isValidFor(validationDate, this.validationDateWindow))
+        {
+            hits.incrementAndGet();
+            return e.data;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(X509Certificate leafCert, Set<TrustAnchor> trustAnchors, Date validationDate, ValidationData data)
+    {
+        Key k = Key.of(leafCert);
+        Entry e = new Entry(trustAnchors, validationDate, data);
+        synchronized (this)
+        {
+            entries.put(k, e);
+        }
+    }
+
+    private static class Key
+    {
+        private final byte[] fingerprint;
+        private final int hash;
+
+        private Key(byte[] fingerprint)
+        {
+            this.fingerprint = fingerprint;
+            this.hash = Arrays.hashCode(fingerprint);
+        }
+
+        static Key of(X509Certificate cert)
+        {
+            try
+            {
+                return new Key(MessageDigest.getInstance("SHA-256").digest(cert.getEncoded()));
+            } catch (NoSuchAlgorithmException ex)
+            {
+                // SHA-256 is required on every Java platform.
+                throw new IllegalStateException(ex);
+            } catch (CertificateEncodingException ex)
+            {
+                throw new IllegalArgumentException("Cannot encode certificate", ex);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.equals(this.fingerprint, ((Key) o).fingerprint);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    private static class Entry
+    {
+        private final Set<TrustAnchor> trustAnchors;
+        private final long validationDate;
+        private final long notBefore;
+        private final long notAfter;
+        private final ValidationData data;
+
+        Entry(Set<TrustAnchor> trustAnchors, Date validationDate, ValidationData data)
+        {
+            this.trustAnchors = trustAnchors;
+            this.validationDate = validationDate.getTime();
+            this.data = data;
+
+            long nb = Long.MIN_VALUE, na = Long.MAX_VALUE;
+            for (X509Certificate c : data.getCerts())
+            {
+                nb = Math.max(nb, c.getNotBefore().getTime());
+                na = Math.min(na, c.getNotAfter().getTime());
+            }
+            for (X509CRL crl : data.getCrls())
+            {
+                nb = Math.max(nb, crl.getThisUpdate().getTime());
+                if (crl.getNextUpdate() != null)
+                {
+                    // The CRLs are selected if the date is before nextUpdate.
+                    na = Math.min(na, crl.getNextUpdate().getTime() - 1);
+                }
+            }
+            this.notBefore = nb;
+            this.notAfter = na;
+        }
+
+        boolean isValidFor(Date date, long window)
+        {
+            long d = date.getTime();
+            return Math.abs(d - this.validationDate) <= window && d >= this.notBefore && d <= this.notAfter;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CRLException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Set;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Revocation index of a CRL, stored in a file. The index contains the serial
+ * numbers and revocation dates of the CRL entries, sorted by serial number,
+ * in fixed-size records. The file is memory-mapped, so that lookups are done
+ * by binary search on the file contents, without creating objects per entry.
+ * <p>
+ * The CRL signature is verified when the index is compiled, and the index
+ * records the issuer's public key. This allows checking that the index applies
+ * to a given issuer without verifying the CRL signature again.
+ * <p>
+ * Indirect CRLs and delta CRLs are not supported. Instances are immutable and
+ * thread-safe.
+ * @see CrlSerialIndexRevocationChecker
+ * @see PKIXCertificateValidationProvider#setCrlSerialIndexes(java.util.Collection)
+ * @author Luís
+ */
+public final class CrlSerialIndex
+{
+    private static final int MAGIC = 0x58344349; // "X4CI"
+    private static final int VERSION = 1;
+    private static final long NO_NEXT_UPDATE = Long.MAX_VALUE;
+    private static final int DATE_SIZE = 8;
+
+    private final X500Principal issuer;
+    private final byte[] issuerKeyHash;
+    private final long thisUpdate;
+    private final long nextUpdate;
+    private final int serialWidth;
+    private final int recordSize;
+    private final int count;
+    private final ByteBuffer records;
+
+    private CrlSerialIndex(
+            X500Principal issuer,
+            byte[] issuerKeyHash,
+            long thisUpdate,
+            long nextUpdate,
+            int serialWidth,
+            int count,
+            ByteBuffer records)
+    {
+        this.issuer = issuer;
+        this.issuerKeyHash = issuerKeyHash;
+        this.thisUpdate = thisUpdate;
+        this.nextUpdate = nextUpdate;
+        this.serialWidth = serialWidth;
+        this.recordSize = serialWidth + DATE_SIZE;
+        this.count = count;
+        this.records = records;
+    }
+
+    /**
+     * Compiles a CRL into an index file and opens it. The signature of the CRL
+     * is verified using the issuer's certificate.
+     * @param crl the CRL
+     * @param issuerCert the certificate of the CRL issuer
+     * @param indexFile the file where the index is written
+     * @return the index
+     * @throws CRLException if the CRL signature is not valid or the CRL is not supported
+     * @throws IOException if the index file cannot be written
+     */
+    public static CrlSerialIndex compile(
+            X509CRL crl,
+            X509Certificate issuerCert,
+            File indexFile) throws CRLException, IOException
+    {
+        if (!crl.getIssuerX500Principal().equals(issuerCert.getSubjectX500Principal()))
+        {
+            throw new CRLException("The certificate doesn't belong to the CRL issuer");
+        }
+        try
+        {
+            crl.verify(issuerCert.getPublicKey());
+        } catch (CRLException ex)
+        {
+            throw ex;
+        } catch (Exception ex)
+        {
+            throw new CRLException("Invalid CRL signature from " + crl.getIssuerX500Principal().getName(), ex);
+        }
+        if (crl.getExtensionValue("2.5.29.27") != null)
+        {
+            throw new CRLException("Delta CRLs are not supported");
+        }
+
+        // Collect the entries into primitive arrays.
+        Set<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+        int n = entries == null ? 0 : entries.size();
+        byte[][] serials = new byte[n][];
+        long[] dates = new long[n];
+        int width = 1;
+        int i = 0;
+        if (entries != null)
+        {
+            for (X509CRLEntry e : entries)
+            {
+                X500Principal certIssuer = e.getCertificateIssuer();
+                if (certIssuer != null && !certIssuer.equals(crl.getIssuerX500Principal()))
+                {
+                    throw new CRLException("Indirect CRLs are not supported");
+                }
+                serials[i] = e.getSerialNumber().toByteArray();
+                dates[i] = e.getRevocationDate().getTime();
+                width = Math.max(width, serials[i].length);
+                i++;
+            }
+        }
+
+        byte[] sorted = new byte[n * width];
+        for (i = 0; i < n; i++)
+        {
+            signExtend(serials[i], sorted, i * width, width);
+            serials[i] = null;
+        }
+        int[] order = sortRecords(sorted, width, n);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try
+        {
+            byte[] issuerEnc = crl.getIssuerX500Principal().getEncoded();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(crl.getThisUpdate().getTime());
+            out.writeLong(crl.getNextUpdate() == null ? NO_NEXT_UPDATE : crl.getNextUpdate().getTime());
+            out.write(hashKey(issuerCert.getPublicKey()));
+            out.writeInt(issuerEnc.length);
+            out.write(issuerEnc);
+            out.writeInt(width);
+            out.writeInt(n);
+            for (i = 0; i < n; i++)
+            {
+                out.write(sorted, order[i] * width, width);
+                out.writeLong(dates[order[i]]);
+            }
+        } finally
+        {
+            out.close();
+        }
+
+        return open(indexFile);
+    }
+
+    /**
+     * Opens a previously compiled index file.
+     * @param indexFile the file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    public static CrlSerialIndex open(File indexFile) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+        MappedByteBuffer buf;
+        try
+        {
+            // The mapping remains valid after the channel is closed.
+            buf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally
+        {
+            raf.close();
+        }
+
+        try
+        {
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+            {
+                throw new IOException("Not a CRL index file: " + indexFile);
+            }
+            long thisUpdate = buf.getLong();
+            long nextUpdate = buf.getLong();
+            byte[] issuerKeyHash = new byte[32];
+            buf.get(issuerKeyHash);
+            byte[] issuerEnc = new byte[buf.getInt()];
+            buf.get(issuerEnc);
+            int width = buf.getInt();
+            int n = buf.getInt();
+            if (width <= 0 || n < 0 || buf.remaining() != (long) n * (width + DATE_SIZE))
+            {
+                throw new IOException("Corrupted CRL index file: " + indexFile);
+            }
+            return new CrlSerialIndex(
+                    new X500Principal(issuerEnc), issuerKeyHash, thisUpdate, nextUpdate,
+                    width, n, buf.slice());
+        } catch (RuntimeException ex)
+        {
+            // BufferUnderflowException, NegativeArraySizeException, IllegalArgumentException.
+            throw new IOException("Corrupted CRL index file: " + indexFile, ex);
+        }
+    }
+
+    public X500Principal getIssuer()
+    {
+        return issuer;
+    }
+
+    public Date getThisUpdate()
+    {
+        return new Date(thisUpdate);
+    }
+
+    /**
+     * @return the next update or {@code null} if the CRL didn't have one
+     */
+    public Date getNextUpdate()
+    {
+        return nextUpdate == NO_NEXT_UPDATE ? null : new Date(nextUpdate);
+    }
+
+    /**
+     * Gets the number of entries in the CRL.
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Indicates whether the CRL can be used at the given date, i.e. whether the
+     * date is equal or later than {@code thisUpdate} and earlier than {@code nextUpdate}.
+     */
+    public boolean isValidAt(Date date)
+    {
+        long d = date.getTime();
+        return d >= thisUpdate && d < nextUpdate;
+    }
+
+    /**
+     * Checks whether a certificate was revoked at the given date.
+     * @param serial the serial number of the certificate
+     * @param date the date
+     * @return {@code true} if the certificate is in the CRL with a revocation
+     *      date that is not later than {@code date}
+     */
+    public boolean isRevoked(BigInteger serial, Date date)
+    {
+        byte[] raw = serial.toByteArray();
+        if (raw.length > serialWidth)
+        {
+            return false;
+        }
+        byte[] key = new byte[serialWidth];
+        signExtend(raw, key, 0, serialWidth);
+
+        int lo = 0, hi = count - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(records, mid * recordSize, key);
+            if (c < 0)
+            {
+                lo = mid + 1;
+            }
+            else if (c > 0)
+            {
+                hi = mid - 1;
+            }
+            else
+            {
+                return records.getLong(mid * recordSize + serialWidth) <= date.getTime();
+            }
+        }
+        return false;
+    }
+
+    boolean isIssuedBy(PublicKey issuerKey)
+    {
+        return Arrays.equals(issuerKeyHash, hashKey(issuerKey));
+    }
+
+    static byte[] hashKey(PublicKey key)
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+        } catch (NoSuchAlgorithmException ex)
+        {
+            // SHA-256 is required on every Java platform.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes a two's complement big-endian number into a fixed width field.
+     */
+    private static void signExtend(byte[] raw, byte[] dest, int offset, int width)
+    {
+        byte pad = raw[0] < 0 ? (byte) 0xFF : 0;
+        int padLength = width - raw.length;
+        Arrays.fill(dest, offset, offset + padLength, pad);
+        System.arraycopy(raw, 0, dest, offset + padLength, raw.length);
+    }
+
+    private static int compare(ByteBuffer records, int offset, byte[] key)
+    {
+        // Signed comparison of the first byte; unsigned for the remaining.
+        int c = records.get(offset) - key[0];
+        for (int j = 1; c == 0 && j < key.length; j++)
+        {
+            c = (records.get(offset + j) & 0xFF) - (key[j] & 0xFF);
+        }
+        return c;
+    }
+
+    /**
+     * Sorts the records by serial number (heapsort over the record indexes).
+     * @return the indexes of the records, in order
+     */
+    private static int[] sortRecords(byte[] serials, int width, int n)
+    {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = i;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(serials);
+        byte[] tmp = new byte[width];
+        for (int i = n / 2 - 1; i >= 0; i--)
+        {
+            siftDown(buf, width, order, i, n, tmp);
+        }
+        for (int end = n - 1; end > 0; end--)
+        {
+            int t = order[0];
+            order[0] = order[end];
+            order[end] = t;
+            siftDown(buf, width, order, 0, end, tmp);
+        }
+        return order;
+    }
+
+    private static void siftDown(ByteBuffer buf, int width, int[] order, int i, int n, byte[] tmp)
+    {
+        while (2 * i + 1 < n)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < n && compareRecords(buf, width, order[child + 1], order[child], tmp) > 0)
+            {
+                child++;
+            }
+            if (compareRecords(buf, width, order[i], order[child], tmp) >= 0)
+            {
+                return;
+            }
+            int t = order[i];
+            order[i] = order[child];
+            order[child] = t;
+            i = child;
+        }
+    }
+
+    private static int compareRecords(ByteBuffer buf, int width, int a, int b, byte[] tmp)
+    {
+        buf.position(b * width);
+        buf.get(tmp);
+        return compare(buf, a * width, tmp);
+    }
+}
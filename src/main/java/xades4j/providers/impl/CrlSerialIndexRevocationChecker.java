@@ -0,0 +1,179 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.PublicKey;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.Certificate;
+import java.security.cert.PKIXCertPathChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * {@code PKIXCertPathChecker} that checks the revocation status of the certificates
+ * in a path using {@link CrlSerialIndex}es. For each certificate there has to be
+ * an index from its issuer (same name and public key) that is valid at the
+ * validation date. It can be added to {@code PKIXParameters} in place of the
+ * default revocation checking (which should be disabled).
+ * <p>
+ * Only reverse checking is supported, since the issuer's public key is needed.
+ * @author Luís
+ */
+public class CrlSerialIndexRevocationChecker extends PKIXCertPathChecker
+{
+    private final Map<X500Principal, List<CrlSerialIndex>> indexesByIssuer;
+    private final Set<TrustAnchor> trustAnchors;
+    private final Date validationDate;
+    private PublicKey issuerKey;
+
+    /**
+     * @param indexes the CRL indexes
+     * @param trustAnchors the trust anchors used in the validation. The anchor
+     *      keys are used to check the indexes for the first certificate in the path
+     * @param validationDate the date for which revocation is checked
+     */
+    public CrlSerialIndexRevocationChecker(
+            Collection<CrlSerialIndex> indexes,
+            Set<TrustAnchor> trustAnchors,
+            Date validationDate)
+    {
+        this(indexByIssuer(indexes), trustAnchors, validationDate);
+    }
+
+    CrlSerialIndexRevocationChecker(
+            Map<X500Principal, List<CrlSerialIndex>> indexesByIssuer,
+            Set<TrustAnchor> trustAnchors,
+            Date validationDate)
+    {
+        this.indexesByIssuer = indexesByIssuer;
+        this.trustAnchors = trustAnchors;
+        this.validationDate = validationDate;
+    }
+
+    static Map<X500Principal, List<CrlSerialIndex>> indexByIssuer(Collection<CrlSerialIndex> indexes)
+    {
+        Map<X500Principal, List<CrlSerialIndex>> indexesByIssuer = new HashMap<X500Principal, List<CrlSerialIndex>>();
+        for (CrlSerialIndex i : indexes)
+        {
+            List<CrlSerialIndex> l = indexesByIssuer.get(i.getIssuer());
+            if (null == l)
+            {
+                l = new ArrayList<CrlSerialIndex>(1);
+                indexesByIssuer.put(i.getIssuer(), l);
+            }
+            l.add(i);
+        }
+        return Collections.unmodifiableMap(indexesByIssuer);
+    }
+
+    @Override
+    public void init(boolean forward) throws CertPathValidatorException
+    {
+        if (forward)
+        {
+            throw new CertPathValidatorException("Forward checking is not supported");
+        }
+        this.issuerKey = null;
+    }
+
+    @Override
+    public boolean isForwardCheckingSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public Set<String> getSupportedExtensions()
+    {
+        return null;
+    }
+
+    @Override
+    public void check(Certificate cert, Collection<String> unresolvedCritExts) throws CertPathValidatorException
+    {
+        X509Certificate x509Cert = (X509Certificate) cert;
+        X500Principal issuer = x509Cert.getIssuerX500Principal();
+
+        CrlSerialIndex index = findIndex(issuer);
+        if (null == index)
+        {
+            throw new CertPathValidatorException("No valid CRL found for issuer " + issuer.getName());
+        }
+        if (index.isRevoked(x509Cert.getSerialNumber(), this.validationDate))
+        {
+            throw new CertPathValidatorException("Certificate " + x509Cert.getSerialNumber() + " from " + issuer.getName() + " is revoked");
+        }
+
+        // The current certificate is the issuer of the next one.
+        this.issuerKey = x509Cert.getPublicKey();
+    }
+
+    private CrlSerialIndex findIndex(X500Principal issuer)
+    {
+        List<CrlSerialIndex> candidates = this.indexesByIssuer.get(issuer);
+        if (null == candidates)
+        {
+            return null;
+        }
+
+        List<PublicKey> issuerKeys = this.issuerKey != null
+                ? Collections.singletonList(this.issuerKey)
+                : getTrustAnchorKeys(issuer);
+        for (CrlSerialIndex index : candidates)
+        {
+            if (!index.isValidAt(this.validationDate))
+            {
+                continue;
+            }
+            for (PublicKey k : issuerKeys)
+            {
+                if (index.isIssuedBy(k))
+                {
+                    return index;
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<PublicKey> getTrustAnchorKeys(X500Principal issuer)
+    {
+        List<PublicKey> keys = new ArrayList<PublicKey>(1);
+        for (TrustAnchor ta : this.trustAnchors)
+        {
+            X509Certificate taCert = ta.getTrustedCert();
+            if (taCert != null && taCert.getSubjectX500Principal().equals(issuer))
+            {
+                keys.add(taCert.getPublicKey());
+            }
+            else if (taCert == null && issuer.equals(ta.getCA()))
+            {
+                keys.add(ta.getCAPublicKey());
+            }
+        }
+        return keys;
+    }
+}
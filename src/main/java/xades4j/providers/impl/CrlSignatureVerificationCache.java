@@ -0,0 +1,71 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.PublicKey;
+import java.security.cert.X509CRL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Records the CRLs whose signatures were successfully verified, so that the
+ * verification is done once per CRL (and issuer key) until the CRL's
+ * {@code nextUpdate}. CRLs are compared by value (their encoding), so a
+ * different CRL never matches a previous verification. Entries are held
+ * weakly and are discarded when the CRLs are no longer referenced elsewhere
+ * (e.g. removed from the {@code CertStore}s).
+ * @author Luís
+ */
+class CrlSignatureVerificationCache
+{
+    private final Map<X509CRL, Verification> verifications =
+            Collections.synchronizedMap(new WeakHashMap<X509CRL, Verification>());
+
+    boolean isVerified(X509CRL crl, PublicKey issuerKey, long now)
+    {
+        Verification v = verifications.get(crl);
+        if (null == v)
+        {
+            return false;
+        }
+        if (now >= v.expiry)
+        {
+            verifications.remove(crl);
+            return false;
+        }
+        return v.issuerKey.equals(issuerKey);
+    }
+
+    void verified(X509CRL crl, PublicKey issuerKey)
+    {
+        long expiry = crl.getNextUpdate() == null ? Long.MAX_VALUE : crl.getNextUpdate().getTime();
+        verifications.put(crl, new Verification(issuerKey, expiry));
+    }
+
+    private static class Verification
+    {
+        final PublicKey issuerKey;
+        final long expiry;
+
+        Verification(PublicKey issuerKey, long expiry)
+        {
+            this.issuerKey = issuerKey;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -24,17 +24,28 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.Security;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import xades4j.UnsupportedAlgorithmException;
 
 /**
  * The default implementation of {@code MessageDigestEngineProvider}. It supports
  * <a href="http://santuario.apache.org/">Apache Santuario</a> available algorithms
+ * <p>
+ * Instances are thread-safe; a new {@code MessageDigest} is returned on each call.
+ * This class is bound in singleton scope in the default configurations.
+ * <p>
+ * The first engine obtained for each algorithm is kept as a prototype and the
+ * following engines are clones of it, which avoids looking up the JCE providers
+ * on each call. If the engine doesn't support cloning, a new one is obtained
+ * from the provider each time.
  *
  * @author Luís
  */
 public class DefaultMessageDigestProvider implements MessageDigestEngineProvider {
     private final String messageDigestProvider;
+    private final ConcurrentMap<String, MessageDigest> prototypes = new ConcurrentHashMap<String, MessageDigest>();
 
     static {
         Init.init();
@@ -72,7 +83,27 @@ public class DefaultMessageDigestProvider implements MessageDigestEngineProvider
     @Override
     public MessageDigest getEngine(String digestAlgorithmURI) throws UnsupportedAlgorithmException
     {
+        MessageDigest prototype = this.prototypes.get(digestAlgorithmURI);
+        if (prototype != null) {
+            try {
+                // The prototype is never updated, hence it can be cloned concurrently.
+                return (MessageDigest) prototype.clone();
+            } catch (CloneNotSupportedException ex) {
+                // Not possible; only cloneable engines are stored.
+            }
+        }
+
+        MessageDigest md = createEngine(digestAlgorithmURI);
+        try {
+            this.prototypes.putIfAbsent(digestAlgorithmURI, (MessageDigest) md.clone());
+        } catch (CloneNotSupportedException ex) {
+            // Will get a new engine from the provider on each call.
+        }
+        return md;
+    }
 
+    private MessageDigest createEngine(String digestAlgorithmURI) throws UnsupportedAlgorithmException
+    {
         String digestAlgorithmName = JCEMapper.translateURItoJCEID(digestAlgorithmURI);
         if (null == digestAlgorithmName) {
             throw new UnsupportedAlgorithmException("Digest algorithm not supported by the provider", digestAlgorithmURI);
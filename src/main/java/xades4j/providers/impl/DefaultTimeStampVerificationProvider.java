@@ -46,22 +46,35 @@ import xades4j.UnsupportedAlgorithmException;
 import xades4j.XAdES4jException;
 import xades4j.providers.CertificateValidationProvider;
 import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.providers.MessageImprintTimeStampVerificationProvider;
 import xades4j.providers.TimeStampTokenDigestException;
 import xades4j.providers.TimeStampTokenSignatureException;
 import xades4j.providers.TimeStampTokenStructureException;
 import xades4j.providers.TimeStampTokenTSACertException;
 import xades4j.providers.TimeStampTokenVerificationException;
-import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.providers.ValidationData;
+import xades4j.providers.impl.TimeStampVerificationCache.VerifiedToken;
 
 /**
  * Default implementation of {@code TimeStampVerificationProvider}. It verifies
  * the token signature, including the TSA certificate, and the digest imprint.
  * <p>
  * The implementation is based on Bouncy Castle and <b>only supports DER-encoded tokens</b>.
+ * <p>
+ * Instances are thread-safe, provided that the supplied {@code CertificateValidationProvider}
+ * and {@code MessageDigestEngineProvider} also are. The Bouncy Castle JCA provider
+ * and the associated helper objects are created once and shared by all instances.
+ * <p>
+ * Tokens that were successfully verified are kept on a {@link TimeStampVerificationCache},
+ * so that verifying the same token again (e.g. the {@code SignatureTimeStamp},
+ * which is used to determine the validation date and then verified as a property)
+ * doesn't repeat the signature and TSA certificate validation. When the provider
+ * is created by a verification profile, the cache is the {@code TimeStampVerificationCache}
+ * bound in the profile, which is shared by all the verifiers of the profile.
+ * By default, a small cache with a one minute expiry is used.
  * @author Luís
  */
-public class DefaultTimeStampVerificationProvider implements TimeStampVerificationProvider
+public class DefaultTimeStampVerificationProvider implements MessageImprintTimeStampVerificationProvider
 {
 
     private static final Map<ASN1ObjectIdentifier, String> digestOidToUriMappings;
@@ -82,36 +95,134 @@ public class DefaultTimeStampVerificationProvider implements TimeStampVerificati
     {
         return digestOidToUriMappings.get(digestalgOid);
     }
+
+    private static final Provider bcProv = new BouncyCastleProvider();
+    private static final JcaSimpleSignerInfoVerifierBuilder signerInfoVerifierBuilder = new JcaSimpleSignerInfoVerifierBuilder().setProvider(bcProv);
+    private static final JcaX509CertificateConverter x509CertificateConverter = new JcaX509CertificateConverter().setProvider(bcProv);
+    private static final JcaX509CertSelectorConverter x509CertSelectorConverter = new JcaX509CertSelectorConverter();
+
     private final CertificateValidationProvider certificateValidationProvider;
     private final MessageDigestEngineProvider messageDigestProvider;
-    private final JcaSimpleSignerInfoVerifierBuilder signerInfoVerifierBuilder;
-    private final JcaX509CertificateConverter x509CertificateConverter;
-    private final JcaX509CertSelectorConverter x509CertSelectorConverter;
+    private volatile TimeStampVerificationCache verificationCache;
 
-    @Inject
     public DefaultTimeStampVerificationProvider(
             CertificateValidationProvider certificateValidationProvider,
             MessageDigestEngineProvider messageDigestProvider)
+    {
+        this(certificateValidationProvider, messageDigestProvider, new TimeStampVerificationCache(256, 60 * 1000));
+    }
+
+    /**
+     * @param certificateValidationProvider the provider used to validate the TSA certificates
+     * @param messageDigestProvider the provider of the digest engines
+     * @param verificationCache the cache of verified tokens; {@code null} to disable caching
+     */
+    @Inject
+    public DefaultTimeStampVerificationProvider(
+            CertificateValidationProvider certificateValidationProvider,
+            MessageDigestEngineProvider messageDigestProvider,
+            TimeStampVerificationCache verificationCache)
     {
         this.certificateValidationProvider = certificateValidationProvider;
         this.messageDigestProvider = messageDigestProvider;
+        this.verificationCache = verificationCache;
+    }
+
+    /**
+     * Sets the cache of verified tokens. The cache should only be shared by
+     * providers that use the same certificate validation configuration. Larger
+     * caches with longer expiry are useful when the same tokens are verified
+     * repeatedly, such as when re-verifying an archive.
+     * @param verificationCache the cache; {@code null} to disable caching
+     */
+    public void setVerificationCache(TimeStampVerificationCache verificationCache)
+    {
+        this.verificationCache = verificationCache;
+    }
+
+    @Override
+    public String getMessageImprintAlgorithm(byte[] timeStampToken) throws TimeStampTokenVerificationException
+    {
+        TimeStampToken tsToken = parseToken(timeStampToken);
+        String digestAlgUri = uriForDigest(tsToken.getTimeStampInfo().getMessageImprintAlgOID());
+        if (null == digestAlgUri)
+        {
+            throw new TimeStampTokenVerificationException("The token's digest algorithm is not supported");
+        }
+        return digestAlgUri;
+    }
 
-        Provider bcProv = new BouncyCastleProvider();
-        this.signerInfoVerifierBuilder = new JcaSimpleSignerInfoVerifierBuilder().setProvider(bcProv);
-        this.x509CertificateConverter = new JcaX509CertificateConverter().setProvider(bcProv);
-        this.x509CertSelectorConverter = new JcaX509CertSelectorConverter();
+    @Override
+    public Date verifyTokenForImprint(byte[] timeStampToken, byte[] messageImprint) throws TimeStampTokenVerificationException
+    {
+        VerifiedToken tsTokenInfo = getVerifiedToken(timeStampToken);
+        if (!Arrays.equals(messageImprint, tsTokenInfo.messageImprintDigest))
+        {
+            throw new TimeStampTokenDigestException();
+        }
+
+        return tsTokenInfo.genTime;
     }
 
     @Override
     public Date verifyToken(byte[] timeStampToken, byte[] tsDigestInput) throws TimeStampTokenVerificationException
     {
-        TimeStampToken tsToken;
+        VerifiedToken tsTokenInfo = getVerifiedToken(timeStampToken);
+
+        try
+        {
+            String digestAlgUri = uriForDigest(tsTokenInfo.messageImprintAlgOid);
+            MessageDigest md = messageDigestProvider.getEngine(digestAlgUri);
+
+            if (!Arrays.equals(md.digest(tsDigestInput), tsTokenInfo.messageImprintDigest))
+            {
+                throw new TimeStampTokenDigestException();
+            }
+        }
+        catch (UnsupportedAlgorithmException ex)
+        {
+            throw new TimeStampTokenVerificationException("The token's digest algorithm is not supported", ex);
+        }
+
+        return tsTokenInfo.genTime;
+    }
+
+    /**
+     * Gets the data of a token whose signature and TSA certificate are valid,
+     * verifying them if the token isn't cached.
+     */
+    private VerifiedToken getVerifiedToken(byte[] timeStampToken) throws TimeStampTokenVerificationException
+    {
+        TimeStampVerificationCache cache = this.verificationCache;
+        VerifiedToken verified = null == cache ? null : cache.get(timeStampToken);
+        if (verified != null)
+        {
+            return verified;
+        }
+
+        TimeStampToken tsToken = parseToken(timeStampToken);
+        verifyTokenSignature(tsToken);
+
+        org.bouncycastle.tsp.TimeStampTokenInfo tsTokenInfo = tsToken.getTimeStampInfo();
+        verified = new VerifiedToken(
+                tsTokenInfo.getGenTime(),
+                tsTokenInfo.getMessageImprintAlgOID(),
+                tsTokenInfo.getMessageImprintDigest());
+        if (cache != null)
+        {
+            cache.put(timeStampToken, verified);
+        }
+        return verified;
+    }
+
+    private static TimeStampToken parseToken(byte[] timeStampToken) throws TimeStampTokenStructureException
+    {
         try
         {
             ASN1InputStream asn1is = new ASN1InputStream(timeStampToken);
             ContentInfo tsContentInfo = ContentInfo.getInstance(asn1is.readObject());
             asn1is.close();
-            tsToken = new TimeStampToken(tsContentInfo);
+            return new TimeStampToken(tsContentInfo);
         } catch (IOException ex)
         {
             throw new TimeStampTokenStructureException("Error parsing encoded token", ex);
@@ -119,7 +230,10 @@ public class DefaultTimeStampVerificationProvider implements TimeStampVerificati
         {
             throw new TimeStampTokenStructureException("Invalid token", ex);
         }
+    }
 
+    private void verifyTokenSignature(TimeStampToken tsToken) throws TimeStampTokenVerificationException
+    {
         X509Certificate tsaCert = null;
         try
         {
@@ -127,7 +241,7 @@ public class DefaultTimeStampVerificationProvider implements TimeStampVerificati
             LinkedList<X509Certificate> certs = new LinkedList<X509Certificate>();
             for (Object certHolder : tsToken.getCertificates().getMatches(new AllCertificatesSelector()))
             {
-                certs.add(this.x509CertificateConverter.getCertificate((X509CertificateHolder) certHolder));
+                certs.add(x509CertificateConverter.getCertificate((X509CertificateHolder) certHolder));
             }
 
             ValidationData vData = this.certificateValidationProvider.validate(
@@ -148,7 +262,7 @@ public class DefaultTimeStampVerificationProvider implements TimeStampVerificati
 
         try
         {
-            tsToken.validate(this.signerInfoVerifierBuilder.build(tsaCert));
+            tsToken.validate(signerInfoVerifierBuilder.build(tsaCert));
         }
         catch (TSPValidationException ex)
         {
@@ -158,27 +272,8 @@ public class DefaultTimeStampVerificationProvider implements TimeStampVerificati
         {
             throw new TimeStampTokenVerificationException("Error when verifying the token signature", ex);
         }
-
-        org.bouncycastle.tsp.TimeStampTokenInfo tsTokenInfo = tsToken.getTimeStampInfo();
-
-        try
-        {
-            String digestAlgUri = uriForDigest(tsTokenInfo.getMessageImprintAlgOID());
-            MessageDigest md = messageDigestProvider.getEngine(digestAlgUri);
-
-            if (!Arrays.equals(md.digest(tsDigestInput), tsTokenInfo.getMessageImprintDigest()))
-            {
-                throw new TimeStampTokenDigestException();
-            }
-        }
-        catch (UnsupportedAlgorithmException ex)
-        {
-            throw new TimeStampTokenVerificationException("The token's digest algorithm is not supported", ex);
-        }
-
-        return tsTokenInfo.getGenTime();
     }
-    
+
     /** Selector selecting all certificates. */
     private static class AllCertificatesSelector implements Selector {
 
@@ -10,6 +10,8 @@ import javax.security.auth.x500.X500Principal;
 
 /**
  * <b>Experimental API</b>. It may be changed or removed in future releases.
+ * <p>
+ * Instances are thread-safe, provided that the supplied name style also is.
  * 
  * @author Artem R. Romanenko
  * @version 06.08.18
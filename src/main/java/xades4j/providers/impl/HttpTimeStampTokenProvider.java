@@ -21,22 +21,34 @@ import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.providers.TimeStampTokenGenerationException;
 import xades4j.utils.Base64;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
 
 /**
  * Implementation of {@code AbstractTimeStampTokenProvider} that gets time-stamp tokens
  * from a HTTP TSA. Requests are issued with {@code certReq} set to
  * {@code true}. If username and password are set supplied, HTTP basic
  * authenticated will be used.
+ * <p>
+ * Connections are not explicitly closed after each request, so that the
+ * underlying HTTP keep-alive cache can reuse them (including the TLS session,
+ * for HTTPS TSAs). The number of idle connections kept per TSA is controlled
+ * by the {@code http.maxConnections} system property. The number of concurrent
+ * connections and the timeouts can be configured on {@link TSAHttpData}.
  *
  * @author luis
  */
 public class HttpTimeStampTokenProvider extends AbstractTimeStampTokenProvider {
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    // Time-stamp responses are a few KB; don't trust larger Content-Length values
+    // for the initial allocation.
+    private static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
     private final TSAHttpData tsaHttpData;
     private final String base64TsaUsrAndPwd;
 
@@ -53,47 +65,103 @@ public class HttpTimeStampTokenProvider extends AbstractTimeStampTokenProvider {
     }
 
     protected byte[] getResponse(byte[] encodedRequest) throws TimeStampTokenGenerationException {
+        // The permits are shared by all the providers using the same TSAHttpData.
+        Semaphore connectionPermits = this.tsaHttpData.getConnectionPermits();
+        if (connectionPermits != null) {
+            try {
+                connectionPermits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new TimeStampTokenGenerationException("Interrupted while waiting for a TSA connection", ex);
+            }
+        }
+
+        try {
+            return doGetResponse(encodedRequest);
+        } finally {
+            if (connectionPermits != null) connectionPermits.release();
+        }
+    }
+
+    private byte[] doGetResponse(byte[] encodedRequest) throws TimeStampTokenGenerationException {
         HttpURLConnection connection = null;
         try {
             connection = createHttpConnection();
             connection.setDoInput(true);
             connection.setDoOutput(true);
+            connection.setUseCaches(false);
             connection.setRequestMethod("POST");
             connection.setRequestProperty("Content-type", "application/timestamp-query");
-            connection.setRequestProperty("Content-length", String.valueOf(encodedRequest.length));
 
             OutputStream out = connection.getOutputStream();
-            out.write(encodedRequest);
-            out.flush();
+            try {
+                out.write(encodedRequest);
+            } finally {
+                out.close();
+            }
 
             if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                // Consume the error body so that the connection can be reused.
+                InputStream error = connection.getErrorStream();
+                if (error != null) {
+                    try {
+                        readResponse(error, connection.getContentLength());
+                    } finally {
+                        error.close();
+                    }
+                }
                 throw new TimeStampTokenGenerationException(String.format("TSA returned HTTP %d %s", connection.getResponseCode(), connection.getResponseMessage()));
             }
 
-            BufferedInputStream input = null;
+            InputStream input = connection.getInputStream();
             try {
-                input = new BufferedInputStream(connection.getInputStream());
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = input.read(buffer)) > -1) {
-                    baos.write(buffer, 0, len);
-                }
-                baos.flush();
-
-                return baos.toByteArray();
+                return readResponse(input, connection.getContentLength());
             } finally {
-                if (input != null) input.close();
+                // Closing the stream after reading the whole body returns the
+                // connection to the keep-alive cache.
+                input.close();
             }
         } catch (IOException ex) {
-            throw new TimeStampTokenGenerationException("Error when connecting to the TSA", ex);
-        } finally {
+            // The connection state is unknown; don't reuse it.
             if (connection != null) connection.disconnect();
+            throw new TimeStampTokenGenerationException("Error when connecting to the TSA", ex);
+        }
+    }
+
+    /**
+     * Reads the whole response body. If the content length is known, the body
+     * is read directly into a buffer of that size, unless it is larger than
+     * {@code MAX_INITIAL_BUFFER_SIZE}; in that case, the buffer grows as data
+     * is actually received.
+     */
+    static byte[] readResponse(InputStream input, int contentLength) throws IOException {
+        if (contentLength == 0) {
+            return new byte[0];
+        }
+
+        byte[] buffer = new byte[contentLength > 0 ? Math.min(contentLength, MAX_INITIAL_BUFFER_SIZE) : DEFAULT_BUFFER_SIZE];
+        int offset = 0;
+        int len;
+        while (offset != contentLength && (len = input.read(buffer, offset, buffer.length - offset)) > -1) {
+            offset += len;
+            if (offset == buffer.length && offset != contentLength) {
+                long newLength = contentLength > 0 ? Math.min(buffer.length * 2L, contentLength) : buffer.length * 2L;
+                if (newLength > Integer.MAX_VALUE) {
+                    throw new IOException("TSA response is too large");
+                }
+                buffer = Arrays.copyOf(buffer, (int) newLength);
+            }
+        }
+        if (contentLength > 0 && offset < contentLength) {
+            throw new IOException("Unexpected end of TSA response");
         }
+        return offset == buffer.length ? buffer : Arrays.copyOf(buffer, offset);
     }
 
     private HttpURLConnection createHttpConnection() throws IOException {
         HttpURLConnection connection = (HttpURLConnection) new URL(this.temporaryGetTSAUrl()).openConnection();
+        connection.setConnectTimeout(this.tsaHttpData.getConnectTimeout());
+        connection.setReadTimeout(this.tsaHttpData.getReadTimeout());
 
         if (this.base64TsaUsrAndPwd != null) {
             connection.setRequestProperty("Authorization", "Basic " + this.base64TsaUsrAndPwd);
@@ -0,0 +1,72 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import xades4j.providers.KeyingDataProvider;
+
+/**
+ * Configuration of the in-process TSA used by {@link LocalTimeStampTokenProvider}.
+ * The first certificate of the keying data provider's chain is the TSA
+ * certificate; as required by RFC 3161, it must have a critical extended key
+ * usage extension with the time-stamping purpose only.
+ *
+ * @author Luís
+ */
+public final class LocalTSAData
+{
+    private final KeyingDataProvider keyingProvider;
+    private final String policyOid;
+    private final String signatureAlgorithm;
+
+    /**
+     * @param keyingProvider the provider of the TSA key and certificate chain
+     * @param policyOid the OID of the TSA policy included in the tokens
+     * @param signatureAlgorithm the JCA name of the signature algorithm (e.g.
+     *      {@code SHA256withRSA}); if {@code null}, SHA-256 with the key's algorithm is used
+     */
+    public LocalTSAData(KeyingDataProvider keyingProvider, String policyOid, String signatureAlgorithm)
+    {
+        if (null == keyingProvider || null == policyOid)
+        {
+            throw new NullPointerException("Keying provider and policy must be supplied");
+        }
+
+        this.keyingProvider = keyingProvider;
+        this.policyOid = policyOid;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    public LocalTSAData(KeyingDataProvider keyingProvider, String policyOid)
+    {
+        this(keyingProvider, policyOid, null);
+    }
+
+    public KeyingDataProvider getKeyingProvider()
+    {
+        return keyingProvider;
+    }
+
+    public String getPolicyOid()
+    {
+        return policyOid;
+    }
+
+    public String getSignatureAlgorithm()
+    {
+        return signatureAlgorithm;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import com.google.inject.Inject;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.SignerInfoGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TSPException;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponseGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+import xades4j.XAdES4jException;
+import xades4j.providers.KeyingDataProvider;
+import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.providers.TimeStampTokenGenerationException;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@code AbstractTimeStampTokenProvider} that issues RFC 3161
+ * time-stamp tokens in-process, using the key and certificate configured on
+ * {@link LocalTSAData}. This is intended for internal time-stamps, when the
+ * TSA key is trusted by the verifiers, and for load tests that shouldn't
+ * depend on an external TSA.
+ * <p>
+ * The requests and responses go through the same encoding and validation as
+ * with a remote TSA. Serial numbers are unique: a random per-instance prefix
+ * followed by a counter. Each thread uses its own token generator, so that
+ * tokens can be issued concurrently.
+ *
+ * @author Luís
+ */
+public class LocalTimeStampTokenProvider extends AbstractTimeStampTokenProvider {
+    private final LocalTSAData tsaData;
+    private final BigInteger serialNumberPrefix;
+    private final AtomicLong serialNumberCounter;
+    private final ThreadLocal<TimeStampResponseGenerator> responseGenerators;
+    private volatile TSAKeyingData keyingData;
+
+    @Inject
+    public LocalTimeStampTokenProvider(MessageDigestEngineProvider messageDigestProvider, LocalTSAData tsaData) {
+        super(messageDigestProvider);
+        this.tsaData = tsaData;
+        this.serialNumberPrefix = new BigInteger(62, new SecureRandom()).shiftLeft(64);
+        this.serialNumberCounter = new AtomicLong();
+        this.responseGenerators = new ThreadLocal<TimeStampResponseGenerator>();
+    }
+
+    @Override
+    byte[] getResponse(byte[] encodedRequest) throws TimeStampTokenGenerationException {
+        TimeStampRequest tsRequest;
+        try {
+            tsRequest = new TimeStampRequest(encodedRequest);
+        } catch (IOException ex) {
+            throw new TimeStampTokenGenerationException("Invalid time stamp request", ex);
+        }
+
+        try {
+            return getResponseGenerator().generate(tsRequest, nextSerialNumber(), new Date()).getEncoded();
+        } catch (TSPException ex) {
+            throw new TimeStampTokenGenerationException("Cannot generate time stamp token", ex);
+        } catch (IOException ex) {
+            throw new TimeStampTokenGenerationException("Encoding error", ex);
+        }
+    }
+
+    private BigInteger nextSerialNumber() {
+        return this.serialNumberPrefix.add(BigInteger.valueOf(this.serialNumberCounter.incrementAndGet()));
+    }
+
+    private TimeStampResponseGenerator getResponseGenerator() throws TimeStampTokenGenerationException {
+        TimeStampResponseGenerator generator = this.responseGenerators.get();
+        if (null == generator) {
+            generator = createResponseGenerator(getKeyingData());
+            this.responseGenerators.set(generator);
+        }
+        return generator;
+    }
+
+    private TimeStampResponseGenerator createResponseGenerator(TSAKeyingData kd) throws TimeStampTokenGenerationException {
+        String signatureAlgorithm = this.tsaData.getSignatureAlgorithm();
+        if (null == signatureAlgorithm) {
+            String keyAlgorithm = kd.key.getAlgorithm();
+            signatureAlgorithm = "SHA256with" + ("EC".equals(keyAlgorithm) ? "ECDSA" : keyAlgorithm);
+        }
+
+        try {
+            DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+            SignerInfoGenerator signerInfoGenerator = new JcaSignerInfoGeneratorBuilder(digestCalculatorProvider).build(
+                    new JcaContentSignerBuilder(signatureAlgorithm).build(kd.key),
+                    kd.certificate);
+            TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(
+                    signerInfoGenerator,
+                    digestCalculatorProvider.get(new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256)),
+                    new ASN1ObjectIdentifier(this.tsaData.getPolicyOid()));
+            tokenGenerator.addCertificates(new JcaCertStore(kd.certificateChain));
+            return new TimeStampResponseGenerator(tokenGenerator, TSPAlgorithms.ALLOWED);
+        } catch (Exception ex) {
+            // Invalid TSA certificate, policy OID or algorithm.
+            throw new TimeStampTokenGenerationException("Cannot initialize the local TSA", ex);
+        }
+    }
+
+    private TSAKeyingData getKeyingData() throws TimeStampTokenGenerationException {
+        TSAKeyingData kd = this.keyingData;
+        if (null == kd) {
+            synchronized (this) {
+                kd = this.keyingData;
+                if (null == kd) {
+                    kd = this.keyingData = loadKeyingData(this.tsaData.getKeyingProvider());
+                }
+            }
+        }
+        return kd;
+    }
+
+    private static TSAKeyingData loadKeyingData(KeyingDataProvider keyingProvider) throws TimeStampTokenGenerationException {
+        try {
+            List<X509Certificate> chain = keyingProvider.getSigningCertificateChain();
+            if (null == chain || chain.isEmpty()) {
+                throw new TimeStampTokenGenerationException("TSA certificate not provided");
+            }
+            PrivateKey key = keyingProvider.getSigningKey(chain.get(0));
+            return new TSAKeyingData(chain, key);
+        } catch (TimeStampTokenGenerationException ex) {
+            throw ex;
+        } catch (XAdES4jException ex) {
+            throw new TimeStampTokenGenerationException("Cannot get the TSA key and certificate", ex);
+        }
+    }
+
+    private static class TSAKeyingData {
+        final List<X509Certificate> certificateChain;
+        final X509Certificate certificate;
+        final PrivateKey key;
+
+        TSAKeyingData(List<X509Certificate> certificateChain, PrivateKey key) {
+            this.certificateChain = certificateChain;
+            this.certificate = certificateChain.get(0);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration of a set of HTTP TSAs to be used with
+ * {@link MultiTSATimeStampTokenProvider}. Each TSA is configured by a
+ * {@link TSAHttpData} (including its maximum number of concurrent connections)
+ * and a weight, which determines how often it is chosen as the first TSA for
+ * a request.
+ * <p>
+ * The state of the TSAs (connections in use, latencies and errors) is kept on
+ * this instance and shared by all the providers that use it. Hence, TSAs
+ * cannot be added after the configuration is used by a provider.
+ *
+ * @author Luís
+ */
+public final class MultiTSAHttpData
+{
+    private final List<TSAHttpData> tsas;
+    private final List<Integer> weights;
+    private long hedgeDelay;
+    private MultiTSATimeStampTokenProvider.Endpoint[] endpoints;
+
+    public MultiTSAHttpData()
+    {
+        this.tsas = new ArrayList<TSAHttpData>();
+        this.weights = new ArrayList<Integer>();
+        this.hedgeDelay = 1000;
+    }
+
+    /**
+     * Adds a TSA.
+     * @param tsa the TSA configuration
+     * @param weight the relative weight of the TSA; must be positive
+     * @return the current instance
+     * @throws IllegalStateException if the configuration is already in use
+     */
+    public synchronized MultiTSAHttpData withTSA(TSAHttpData tsa, int weight)
+    {
+        if (this.endpoints != null)
+        {
+            throw new IllegalStateException("TSAs cannot be added after the configuration is used");
+        }
+        if (null == tsa)
+        {
+            throw new NullPointerException("TSA data cannot be null");
+        }
+        if (weight <= 0)
+        {
+            throw new IllegalArgumentException("TSA weight must be positive");
+        }
+
+        this.tsas.add(tsa);
+        this.weights.add(weight);
+        return this;
+    }
+
+    /**
+     * Sets the time after which a hedged request is sent to a second TSA, used
+     * while there are not enough latency samples for the first TSA. Once there
+     * are, the 95th percentile of its latency is used instead. The default is
+     * 1 second.
+     * @param millis the delay in milliseconds; zero disables hedged requests
+     * @return the current instance
+     */
+    public MultiTSAHttpData withHedgeDelay(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException("Hedge delay must not be negative");
+        }
+        this.hedgeDelay = millis;
+        return this;
+    }
+
+    synchronized List<TSAHttpData> getTSAs()
+    {
+        return Collections.unmodifiableList(tsas);
+    }
+
+    /**
+     * Gets the state of each TSA, in the configuration order, creating it on
+     * first use.
+     */
+    synchronized MultiTSATimeStampTokenProvider.Endpoint[] getEndpoints()
+    {
+        if (null == this.endpoints)
+        {
+            this.endpoints = new MultiTSATimeStampTokenProvider.Endpoint[tsas.size()];
+            for (int i = 0; i < tsas.size(); i++)
+            {
+                this.endpoints[i] = new MultiTSATimeStampTokenProvider.Endpoint(i, tsas.get(i), weights.get(i));
+            }
+        }
+        return this.endpoints;
+    }
+
+    long getHedgeDelay()
+    {
+        return hedgeDelay;
+    }
+}
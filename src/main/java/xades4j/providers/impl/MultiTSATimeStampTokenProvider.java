@@ -0,0 +1,381 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import com.google.inject.Inject;
+import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.providers.TimeStampTokenGenerationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@code AbstractTimeStampTokenProvider} that gets time-stamp
+ * tokens from one of several HTTP TSAs, configured by {@link MultiTSAHttpData}.
+ * <p>
+ * For each request, the TSAs are ordered randomly according to their weights;
+ * TSAs that failed on their last requests are moved to the end. The first TSA
+ * that has a free connection (see {@link TSAHttpData#getMaxConnections()})
+ * is used. If it fails, the request fails over to the next TSA. If it is slower
+ * than its usual 95th percentile latency, a hedged request is sent to the next
+ * TSA and the first response is used. Requests that lose the race are allowed
+ * to complete in background, so that their latency is still accounted and the
+ * connection can be reused.
+ * <p>
+ * The connections in use, the latencies and the errors of each TSA are kept on
+ * the {@code MultiTSAHttpData}, so that they are shared by all the providers
+ * that use the same configuration, such as all the signers of a profile. The
+ * requests are issued on a shared pool of daemon threads, unless an executor
+ * is supplied.
+ * <p>
+ * The time-stamp response is validated as in the other providers, regardless
+ * of the TSA that issued it.
+ *
+ * @author Luís
+ */
+public class MultiTSATimeStampTokenProvider extends AbstractTimeStampTokenProvider {
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int FAILING_THRESHOLD = 3;
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory());
+
+    private final Endpoint[] endpoints;
+    private final HttpTimeStampTokenProvider[] transports;
+    private final long hedgeDelay;
+    private final ExecutorService executor;
+    private final Random random = new Random();
+
+    @Inject
+    public MultiTSATimeStampTokenProvider(MessageDigestEngineProvider messageDigestProvider, MultiTSAHttpData tsasData) {
+        this(messageDigestProvider, tsasData, defaultExecutor);
+    }
+
+    /**
+     * @param messageDigestProvider the digest engine provider
+     * @param tsasData the TSAs configuration
+     * @param executor the executor used to issue the HTTP requests. Requests
+     *      are issued concurrently when hedging, so it should not be
+     *      single-threaded
+     */
+    public MultiTSATimeStampTokenProvider(MessageDigestEngineProvider messageDigestProvider, MultiTSAHttpData tsasData, ExecutorService executor) {
+        super(messageDigestProvider);
+
+        if (tsasData.getTSAs().isEmpty()) {
+            throw new IllegalArgumentException("At least one TSA must be configured");
+        }
+
+        this.endpoints = tsasData.getEndpoints();
+        this.transports = new HttpTimeStampTokenProvider[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            this.transports[i] = new HttpTimeStampTokenProvider(messageDigestProvider, endpoints[i].transportData);
+        }
+        this.hedgeDelay = tsasData.getHedgeDelay();
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the current statistics of each TSA, in the configuration order. The
+     * statistics include the requests of all the providers that use the same
+     * {@code MultiTSAHttpData}.
+     * @return the statistics
+     */
+    public List<TSAStatistics> getStatistics() {
+        List<TSAStatistics> statistics = new ArrayList<TSAStatistics>(endpoints.length);
+        for (Endpoint e : endpoints) {
+            statistics.add(e.getStatistics());
+        }
+        return statistics;
+    }
+
+    @Override
+    byte[] getResponse(byte[] encodedRequest) throws TimeStampTokenGenerationException {
+        List<Endpoint> remaining = selectionOrder();
+        CompletionService<byte[]> completion = new ExecutorCompletionService<byte[]>(this.executor);
+        TimeStampTokenGenerationException lastError = null;
+
+        try {
+            Endpoint primary = submitNext(remaining, completion, encodedRequest, true);
+            long hedgeAfter = getHedgeDelay(primary);
+            int pending = 1;
+
+            while (pending > 0) {
+                Future<byte[]> done;
+                if (hedgeAfter > 0 && !remaining.isEmpty()) {
+                    done = completion.poll(hedgeAfter, TimeUnit.MILLISECONDS);
+                    if (null == done) {
+                        // At most one hedged request.
+                        hedgeAfter = 0;
+                        Endpoint hedge = submitNext(remaining, completion, encodedRequest, false);
+                        if (hedge != null) {
+                            hedge.hedgedRequests.incrementAndGet();
+                            pending++;
+                        }
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                pending--;
+
+                try {
+                    return done.get();
+                } catch (ExecutionException ex) {
+                    lastError = ex.getCause() instanceof TimeStampTokenGenerationException
+                            ? (TimeStampTokenGenerationException) ex.getCause()
+                            : new TimeStampTokenGenerationException("Error when getting time-stamp response", ex.getCause());
+                }
+
+                // Fail over if nothing else is in flight.
+                if (0 == pending && !remaining.isEmpty()) {
+                    submitNext(remaining, completion, encodedRequest, true);
+                    pending++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TimeStampTokenGenerationException("Interrupted while waiting for a TSA", ex);
+        }
+
+        throw lastError;
+    }
+
+    /**
+     * Weighted random order (keys are {@code -ln(u)/w}), with TSAs that are
+     * currently failing at the end.
+     */
+    private List<Endpoint> selectionOrder() {
+        final double[] keys = new double[endpoints.length];
+        Integer[] indexes = new Integer[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            keys[i] = -Math.log(1 - random.nextDouble()) / endpoints[i].weight;
+            if (endpoints[i].isFailing()) {
+                keys[i] += Double.MAX_VALUE / 2;
+            }
+            indexes[i] = i;
+        }
+
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(keys[i1], keys[i2]);
+            }
+        });
+
+        List<Endpoint> order = new ArrayList<Endpoint>(endpoints.length);
+        for (Integer i : indexes) {
+            order.add(endpoints[i]);
+        }
+        return order;
+    }
+
+    /**
+     * Submits the request to the first of the remaining TSAs that has a free
+     * connection. If there's none, blocks on the first one or returns
+     * {@code null}, depending on {@code mayBlock}.
+     */
+    private Endpoint submitNext(
+            List<Endpoint> remaining,
+            CompletionService<byte[]> completion,
+            byte[] encodedRequest,
+            boolean mayBlock) throws InterruptedException {
+        Endpoint selected = null;
+        for (Endpoint e : remaining) {
+            if (e.tryAcquire()) {
+                selected = e;
+                break;
+            }
+        }
+
+        if (null == selected) {
+            if (!mayBlock) {
+                return null;
+            }
+            selected = remaining.get(0);
+            selected.acquire();
+        }
+
+        remaining.remove(selected);
+        try {
+            completion.submit(new Request(selected, transports[selected.index], encodedRequest));
+        } catch (RuntimeException ex) {
+            selected.release();
+            throw ex;
+        }
+        return selected;
+    }
+
+    private long getHedgeDelay(Endpoint e) {
+        if (0 == this.hedgeDelay) {
+            return 0;
+        }
+        long p95 = e.getLatencyPercentile(95, MIN_LATENCY_SAMPLES);
+        // At least 1 ms, since 0 means no hedging.
+        return p95 < 0 ? this.hedgeDelay : Math.max(p95, 1);
+    }
+
+    private static class Request implements Callable<byte[]> {
+        private final Endpoint endpoint;
+        private final HttpTimeStampTokenProvider transport;
+        private final byte[] encodedRequest;
+
+        Request(Endpoint endpoint, HttpTimeStampTokenProvider transport, byte[] encodedRequest) {
+            this.endpoint = endpoint;
+            this.transport = transport;
+            this.encodedRequest = encodedRequest;
+        }
+
+        @Override
+        public byte[] call() throws TimeStampTokenGenerationException {
+            long start = System.nanoTime();
+            try {
+                byte[] response = transport.getResponse(encodedRequest);
+                endpoint.succeeded(System.nanoTime() - start);
+                return response;
+            } catch (TimeStampTokenGenerationException ex) {
+                endpoint.failed();
+                throw ex;
+            } finally {
+                endpoint.release();
+            }
+        }
+    }
+
+    /**
+     * The state of a TSA, shared by the providers that use the same {@code MultiTSAHttpData}.
+     */
+    static class Endpoint {
+        private final int index;
+        private final String url;
+        private final int weight;
+        private final TSAHttpData transportData;
+        private final Semaphore permits;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong hedgedRequests = new AtomicLong();
+        private volatile int consecutiveErrors;
+        // Latencies of the last successful requests, in nanoseconds.
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private int latencyCount;
+        private int nextLatency;
+
+        Endpoint(int index, TSAHttpData tsaHttpData, int weight) {
+            this.index = index;
+            this.url = tsaHttpData.getUrl();
+            this.weight = weight;
+            // Concurrency is limited here, so that a busy TSA can be skipped.
+            this.transportData = new TSAHttpData(
+                    tsaHttpData.getUrl(),
+                    tsaHttpData.getUsername(),
+                    tsaHttpData.getPassword(),
+                    tsaHttpData.getConnectTimeout(),
+                    tsaHttpData.getReadTimeout(),
+                    0);
+            // Shared with other providers that use the same TSAHttpData.
+            this.permits = tsaHttpData.getConnectionPermits();
+        }
+
+        boolean tryAcquire() {
+            return null == permits || permits.tryAcquire();
+        }
+
+        void acquire() throws InterruptedException {
+            if (permits != null) permits.acquire();
+        }
+
+        void release() {
+            if (permits != null) permits.release();
+        }
+
+        boolean isFailing() {
+            return consecutiveErrors >= FAILING_THRESHOLD;
+        }
+
+        synchronized void succeeded(long latency) {
+            requests.incrementAndGet();
+            consecutiveErrors = 0;
+            latencies[nextLatency] = latency;
+            nextLatency = (nextLatency + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+        }
+
+        synchronized void failed() {
+            requests.incrementAndGet();
+            errors.incrementAndGet();
+            consecutiveErrors++;
+        }
+
+        /**
+         * @return the percentile in milliseconds or -1 if there are less than
+         *      {@code minSamples} samples
+         */
+        synchronized long getLatencyPercentile(int percentile, int minSamples) {
+            if (latencyCount < Math.max(minSamples, 1)) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]);
+        }
+
+        synchronized long getMeanLatency() {
+            if (0 == latencyCount) {
+                return -1;
+            }
+            long total = 0;
+            for (int i = 0; i < latencyCount; i++) {
+                total += latencies[i];
+            }
+            return TimeUnit.NANOSECONDS.toMillis(total / latencyCount);
+        }
+
+        TSAStatistics getStatistics() {
+            return new TSAStatistics(
+                    url,
+                    requests.get(),
+                    errors.get(),
+                    hedgedRequests.get(),
+                    getMeanLatency(),
+                    getLatencyPercentile(95, 1));
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = defaultFactory.newThread(r);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import xades4j.providers.CannotBuildCertificationPathException;
+import xades4j.providers.CertificateValidationException;
+import xades4j.providers.CertificateValidationProvider;
+import xades4j.providers.ValidationData;
+import xades4j.utils.OcspResponseUtils;
+import xades4j.verification.UnexpectedJCAException;
+
+/**
+ * Implementation of {@code CertificateValidationProvider} that checks the revocation
+ * status of certificates using OCSP responses that were previously obtained, such
+ * as the ones that were used when the signature was created (see {@link OCSPValidationDataProvider}).
+ * The responses are returned on the {@code ValidationData}, which allows the
+ * {@code OCSPRef}s on the {@code CompleteRevocationRefs} property to be verified.
+ * <p>
+ * The certification path is obtained from a {@code CertificateValidationProvider},
+ * which should not need CRLs (e.g. have revocation disabled). Then, a response is
+ * selected for each certificate in the path, except the trust anchor. The response
+ * has to be signed by the certificate issuer or by a responder certificate issued
+ * by it for OCSP signing, and the certificate has to be good at the validation date
+ * (i.e. not revoked, or revoked afterwards). The response must not have expired
+ * (its {@code nextUpdate}) at the validation date; responses produced after the
+ * validation date are accepted, since they also cover that date.
+ * <p>
+ * Instances are thread-safe, provided that the supplied {@code CertificateValidationProvider}
+ * also is.
+ * @author Luís
+ */
+public class OCSPCertificateValidationProvider implements CertificateValidationProvider
+{
+    private final CertificateValidationProvider certificateValidationProvider;
+    private final List<BasicOCSPResp> basicResponses;
+    private final List<OCSPResp> responses;
+    private final DigestCalculatorProvider digestCalculatorProvider;
+
+    /**
+     * @param certificateValidationProvider the provider used to obtain the certification path
+     * @param ocspResponses the OCSP responses that can be used to check the
+     *      status of the certificates
+     * @throws OCSPException if any of the responses is not a successful basic response
+     */
+    public OCSPCertificateValidationProvider(
+            CertificateValidationProvider certificateValidationProvider,
+            Collection<OCSPResp> ocspResponses) throws OCSPException
+    {
+        if (null == certificateValidationProvider)
+        {
+            throw new NullPointerException("Certificate validation provider cannot be null");
+        }
+        if (null == ocspResponses)
+        {
+            throw new NullPointerException("OCSP responses cannot be null");
+        }
+        this.certificateValidationProvider = certificateValidationProvider;
+        this.responses = Collections.unmodifiableList(new ArrayList<OCSPResp>(ocspResponses));
+        this.basicResponses = new ArrayList<BasicOCSPResp>(this.responses.size());
+        for (OCSPResp resp : this.responses)
+        {
+            this.basicResponses.add(OcspResponseUtils.getBasicResponse(resp));
+        }
+        try
+        {
+            this.digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (OperatorCreationException ex)
+        {
+            // SHOULD NOT be thrown.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public ValidationData validate(
+            X509CertSelector certSelector,
+            Date validationDate,
+            Collection<X509Certificate> otherCerts) throws CertificateValidationException, UnexpectedJCAException
+    {
+        ValidationData certValidationData = this.certificateValidationProvider.validate(certSelector, validationDate, otherCerts);
+
+        List<X509Certificate> certs = certValidationData.getCerts();
+        List<OCSPResp> certsResponses = new ArrayList<OCSPResp>(certs.size() - 1);
+        // The last certificate is the trust anchor.
+        for (int i = 0; i < certs.size() - 1; i++)
+        {
+            certsResponses.add(getOcspResponse(certSelector, certs.get(i), certs.get(i + 1), validationDate));
+        }
+
+        return new ValidationData(certs, certValidationData.getCrls(), certsResponses);
+    }
+
+    private OCSPResp getOcspResponse(
+            X509CertSelector certSelector,
+            X509Certificate cert,
+            X509Certificate issuerCert,
+            Date validationDate) throws CertificateValidationException
+    {
+        X509CertificateHolder issuerHolder;
+        try
+        {
+            issuerHolder = new JcaX509CertificateHolder(issuerCert);
+        } catch (CertificateEncodingException ex)
+        {
+            throw new CertificateValidationException(certSelector, "Cannot encode certificate", ex);
+        }
+
+        for (int i = 0; i < this.basicResponses.size(); i++)
+        {
+            BasicOCSPResp basicResp = this.basicResponses.get(i);
+            SingleResp singleResp;
+            try
+            {
+                singleResp = getSingleResponse(basicResp, cert, issuerHolder);
+                if (null == singleResp ||
+                        (singleResp.getNextUpdate() != null && !validationDate.before(singleResp.getNextUpdate())))
+                {
+                    continue;
+                }
+                OCSPResponseChecks.checkResponseSignature(basicResp, issuerCert, basicResp.getProducedAt());
+            } catch (OCSPException ex)
+            {
+                // Not usable for this certificate; try the next.
+                continue;
+            }
+
+            CertificateStatus status = singleResp.getCertStatus();
+            if (status == CertificateStatus.GOOD ||
+                    (status instanceof RevokedStatus && ((RevokedStatus) status).getRevocationTime().after(validationDate)))
+            {
+                return this.responses.get(i);
+            }
+            if (status instanceof RevokedStatus)
+            {
+                throw new CannotBuildCertificationPathException(certSelector, String.format("Certificate %s from %s was revoked at %s",
+                        cert.getSerialNumber(), issuerCert.getSubjectX500Principal().getName(),
+                        ((RevokedStatus) status).getRevocationTime()), null);
+            }
+        }
+        throw new CannotBuildCertificationPathException(certSelector,
+                "No valid OCSP response for certificate " + cert.getSubjectX500Principal().getName(), null);
+    }
+
+    private SingleResp getSingleResponse(
+            BasicOCSPResp basicResp,
+            X509Certificate cert,
+            X509CertificateHolder issuerHolder) throws OCSPException
+    {
+        // The responses may identify the certificates using any hash algorithm.
+        for (SingleResp singleResp : basicResp.getResponses())
+        {
+            if (singleResp.getCertID().getSerialNumber().equals(cert.getSerialNumber()) &&
+                    singleResp.getCertID().matchesIssuer(issuerHolder, this.digestCalculatorProvider))
+            {
+                return singleResp;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+
+/**
+ * Checks on OCSP responses that are common to the providers that obtain and
+ * use them.
+ * @author Luís
+ */
+final class OCSPResponseChecks
+{
+    private OCSPResponseChecks()
+    {
+    }
+
+    /**
+     * Gets the status of a certificate in a basic response.
+     * @return the single response or {@code null} if the certificate is not included
+     */
+    static SingleResp getSingleResponse(BasicOCSPResp basicResp, CertificateID certId)
+    {
+        for (SingleResp singleResp : basicResp.getResponses())
+        {
+            if (singleResp.getCertID().equals(certId))
+            {
+                return singleResp;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that a basic response is signed by the certificate issuer or by
+     * a responder certificate issued by it for OCSP signing.
+     * @param date the date at which the responder certificate must be valid
+     * @throws OCSPException if the signature is not valid or the signer is not authorized
+     */
+    static void checkResponseSignature(
+            BasicOCSPResp basicResp,
+            X509Certificate issuerCert,
+            Date date) throws OCSPException
+    {
+        try
+        {
+            // Signed by the issuer.
+            if (basicResp.isSignatureValid(new JcaContentVerifierProviderBuilder().build(issuerCert.getPublicKey())))
+            {
+                return;
+            }
+        } catch (OperatorCreationException ex)
+        {
+            throw new OCSPException("Cannot verify OCSP response signature", ex);
+        } catch (OCSPException ex)
+        {
+            // Try the responder certificates.
+        }
+
+        // Signed by a responder authorized by the issuer.
+        JcaX509CertificateConverter converter = new JcaX509CertificateConverter();
+        for (X509CertificateHolder h : basicResp.getCerts())
+        {
+            try
+            {
+                X509Certificate responderCert = converter.getCertificate(h);
+                if (!responderCert.getIssuerX500Principal().equals(issuerCert.getSubjectX500Principal()))
+                {
+                    continue;
+                }
+                responderCert.verify(issuerCert.getPublicKey());
+                responderCert.checkValidity(date);
+                List<String> eku = responderCert.getExtendedKeyUsage();
+                if (eku != null && eku.contains(KeyPurposeId.id_kp_OCSPSigning.getId()) &&
+                        basicResp.isSignatureValid(new JcaContentVerifierProviderBuilder().build(responderCert.getPublicKey())))
+                {
+                    return;
+                }
+            } catch (Exception ex)
+            {
+                // Not a valid responder certificate; try the next.
+            }
+        }
+        throw new OCSPException("OCSP response is not signed by the certificate issuer or an authorized responder");
+    }
+}
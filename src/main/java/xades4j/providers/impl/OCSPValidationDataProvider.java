@@ -0,0 +1,314 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.DERIA5String;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import xades4j.XAdES4jException;
+import xades4j.providers.CertificateValidationProvider;
+import xades4j.providers.ValidationData;
+import xades4j.providers.ValidationDataException;
+import xades4j.providers.ValidationDataProvider;
+import xades4j.utils.OcspResponseUtils;
+
+/**
+ * Implementation of {@code ValidationDataProvider} that uses OCSP to obtain the
+ * revocation data. The certification path is obtained from a {@code CertificateValidationProvider},
+ * which should not need CRLs (e.g. have revocation disabled). Then, an OCSP response
+ * is obtained for each certificate in the path, except the trust anchor. The
+ * responses have to be signed by the certificate issuer or by a responder
+ * certificate issued by it for OCSP signing, and the certificate status has to
+ * be good.
+ * <p>
+ * The OCSP responder is the one specified on the certificates' Authority Information
+ * Access extension, unless a responder URL is configured. Requests are sent via
+ * HTTP POST; subclasses may override {@link #getResponse(java.lang.String, byte[])}
+ * to use a different transport.
+ * <p>
+ * Responses are cached by certificate ID until their {@code nextUpdate}. Responses
+ * without {@code nextUpdate} are not cached. Instances are thread-safe.
+ * @author Luís
+ */
+public class OCSPValidationDataProvider implements ValidationDataProvider
+{
+    private final CertificateValidationProvider certificateValidationProvider;
+    private final String responderUrl;
+    private final DigestCalculatorProvider digestCalculatorProvider;
+    private final ConcurrentMap<CertificateID, CachedResponse> responseCache;
+
+    /**
+     * @param certificateValidationProvider the provider used to obtain the certification path
+     * @param responderUrl the URL of the OCSP responder; if {@code null}, the
+     *      responder specified in the certificates is used
+     */
+    public OCSPValidationDataProvider(
+            CertificateValidationProvider certificateValidationProvider,
+            String responderUrl)
+    {
+        if (null == certificateValidationProvider)
+        {
+            throw new NullPointerException("Certificate validation provider cannot be null");
+        }
+        this.certificateValidationProvider = certificateValidationProvider;
+        this.responderUrl = responderUrl;
+        this.responseCache = new ConcurrentHashMap<CertificateID, CachedResponse>();
+        try
+        {
+            this.digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (OperatorCreationException ex)
+        {
+            // SHOULD NOT be thrown.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param certificateValidationProvider the provider used to obtain the certification path
+     */
+    public OCSPValidationDataProvider(CertificateValidationProvider certificateValidationProvider)
+    {
+        this(certificateValidationProvider, null);
+    }
+
+    @Override
+    public ValidationData getValidationData(
+            List<X509Certificate> certChainFragment) throws ValidationDataException
+    {
+        Date now = new Date();
+        ValidationData certValidationData;
+        try
+        {
+            X509CertSelector cs = new X509CertSelector();
+            cs.setCertificate(certChainFragment.get(0));
+            certValidationData = this.certificateValidationProvider.validate(cs, now, certChainFragment);
+        } catch (XAdES4jException ex)
+        {
+            throw new ValidationDataException("Cannot validate certificate to obtain validation data", ex);
+        }
+
+        List<X509Certificate> certs = certValidationData.getCerts();
+        List<OCSPResp> responses = new ArrayList<OCSPResp>(certs.size() - 1);
+        // The last certificate is the trust anchor.
+        for (int i = 0; i < certs.size() - 1; i++)
+        {
+            responses.add(getOcspResponse(certs.get(i), certs.get(i + 1), now));
+        }
+
+        return new ValidationData(certs, certValidationData.getCrls(), responses);
+    }
+
+    private OCSPResp getOcspResponse(
+            X509Certificate cert,
+            X509Certificate issuerCert,
+            Date now) throws ValidationDataException
+    {
+        try
+        {
+            X509CertificateHolder issuerHolder = new JcaX509CertificateHolder(issuerCert);
+            CertificateID certId = new CertificateID(
+                    this.digestCalculatorProvider.get(CertificateID.HASH_SHA1),
+                    issuerHolder,
+                    cert.getSerialNumber());
+
+            CachedResponse cached = this.responseCache.get(certId);
+            if (cached != null)
+            {
+                if (now.before(cached.nextUpdate))
+                {
+                    return cached.response;
+                }
+                this.responseCache.remove(certId, cached);
+            }
+
+            String url = this.responderUrl != null ? this.responderUrl : getResponderUrl(cert);
+            OCSPReqBuilder reqBuilder = new OCSPReqBuilder();
+            reqBuilder.addRequest(certId);
+            OCSPResp resp = new OCSPResp(getResponse(url, reqBuilder.build().getEncoded()));
+
+            SingleResp singleResp = checkResponse(resp, certId, issuerCert, now);
+            if (singleResp.getNextUpdate() != null)
+            {
+                this.responseCache.put(certId, new CachedResponse(resp, singleResp.getNextUpdate()));
+            }
+            return resp;
+        } catch (CertificateEncodingException ex)
+        {
+            throw new ValidationDataException("Cannot encode certificate", ex);
+        } catch (OperatorCreationException ex)
+        {
+            throw new ValidationDataException("Cannot create OCSP request", ex);
+        } catch (OCSPException ex)
+        {
+            throw new ValidationDataException("Invalid OCSP response for certificate " + cert.getSubjectX500Principal().getName(), ex);
+        } catch (IOException ex)
+        {
+            throw new ValidationDataException("Cannot parse OCSP response for certificate " + cert.getSubjectX500Principal().getName(), ex);
+        }
+    }
+
+    private SingleResp checkResponse(
+            OCSPResp resp,
+            CertificateID certId,
+            X509Certificate issuerCert,
+            Date now) throws OCSPException, ValidationDataException
+    {
+        BasicOCSPResp basicResp = OcspResponseUtils.getBasicResponse(resp);
+        OCSPResponseChecks.checkResponseSignature(basicResp, issuerCert, now);
+
+        SingleResp singleResp = OCSPResponseChecks.getSingleResponse(basicResp, certId);
+        if (null == singleResp)
+        {
+            throw new OCSPException("OCSP response doesn't include the certificate status");
+        }
+        if (singleResp.getThisUpdate().after(now) ||
+                (singleResp.getNextUpdate() != null && !now.before(singleResp.getNextUpdate())))
+        {
+            throw new OCSPException("OCSP response is not valid at the current time");
+        }
+
+        CertificateStatus status = singleResp.getCertStatus();
+        if (status == CertificateStatus.GOOD)
+        {
+            return singleResp;
+        }
+        if (status instanceof RevokedStatus)
+        {
+            throw new ValidationDataException(String.format("Certificate %s from %s was revoked at %s",
+                    certId.getSerialNumber(), issuerCert.getSubjectX500Principal().getName(),
+                    ((RevokedStatus) status).getRevocationTime()));
+        }
+        throw new ValidationDataException(String.format("Certificate %s from %s has unknown status",
+                certId.getSerialNumber(), issuerCert.getSubjectX500Principal().getName()));
+    }
+
+    private static String getResponderUrl(X509Certificate cert) throws ValidationDataException
+    {
+        byte[] aiaExt = cert.getExtensionValue(Extension.authorityInfoAccess.getId());
+        if (aiaExt != null)
+        {
+            AuthorityInformationAccess aia = AuthorityInformationAccess.getInstance(ASN1OctetString.getInstance(aiaExt).getOctets());
+            for (AccessDescription ad : aia.getAccessDescriptions())
+            {
+                GeneralName location = ad.getAccessLocation();
+                if (AccessDescription.id_ad_ocsp.equals(ad.getAccessMethod()) &&
+                        location.getTagNo() == GeneralName.uniformResourceIdentifier)
+                {
+                    return DERIA5String.getInstance(location.getName()).getString();
+                }
+            }
+        }
+        throw new ValidationDataException("No OCSP responder for certificate " + cert.getSubjectX500Principal().getName());
+    }
+
+    /**
+     * Sends an OCSP request to a responder.
+     * @param url the URL of the OCSP responder
+     * @param encodedRequest the DER-encoded OCSP request
+     * @return the DER-encoded OCSP response
+     * @throws ValidationDataException if the response cannot be obtained
+     */
+    protected byte[] getResponse(String url, byte[] encodedRequest) throws ValidationDataException
+    {
+        HttpURLConnection connection = null;
+        try
+        {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setDoInput(true);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-type", "application/ocsp-request");
+            connection.setRequestProperty("Content-length", String.valueOf(encodedRequest.length));
+
+            OutputStream out = connection.getOutputStream();
+            out.write(encodedRequest);
+            out.flush();
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK)
+            {
+                throw new ValidationDataException(String.format("OCSP responder returned HTTP %d %s", connection.getResponseCode(), connection.getResponseMessage()));
+            }
+
+            BufferedInputStream input = new BufferedInputStream(connection.getInputStream());
+            try
+            {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int len;
+                while ((len = input.read(buffer)) > -1)
+                {
+                    baos.write(buffer, 0, len);
+                }
+                return baos.toByteArray();
+            } finally
+            {
+                input.close();
+            }
+        } catch (IOException ex)
+        {
+            throw new ValidationDataException("Error when connecting to the OCSP responder", ex);
+        } finally
+        {
+            if (connection != null)
+            {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static class CachedResponse
+    {
+        final OCSPResp response;
+        final Date nextUpdate;
+
+        CachedResponse(OCSPResp response, Date nextUpdate)
+        {
+            this.response = response;
+            this.nextUpdate = nextUpdate;
+        }
+    }
+}
@@ -16,11 +16,13 @@
  */
 package xades4j.providers.impl;
 
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.PublicKey;
 import java.security.cert.CertPathBuilder;
 import java.security.cert.CertPathBuilderException;
 import java.security.cert.CertStore;
@@ -28,6 +30,8 @@ import java.security.cert.CertStoreException;
 import java.security.cert.CollectionCertStoreParameters;
 import java.security.cert.PKIXBuilderParameters;
 import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLSelector;
 import java.security.cert.X509CertSelector;
@@ -41,6 +45,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.security.auth.x500.X500Principal;
 import xades4j.providers.CannotBuildCertificationPathException;
 import xades4j.providers.CannotSelectCertificateException;
@@ -55,23 +60,43 @@ import xades4j.verification.UnexpectedJCAException;
  * Since the Java's PKIX API doesn't allow to access the CRLs used in the certification
  * path validation, this is manually done. There has to be a CRL for each issuer
  * in the path which is valid at the moment of validation (signature and date).
+ * The result of the CRL signature verification is kept until the CRL's next update.
+ * <p>
+ * Instances are thread-safe, provided that the supplied {@code CertStore}s also
+ * are. Each thread uses its own {@code CertPathBuilder}, since those aren't safe
+ * for concurrent use.
+ * <p>
+ * The trust anchors are read from the {@code KeyStore} once, on the first validation,
+ * and reused afterwards. This is a snapshot: trusted certificates that are later
+ * added to or removed from the {@code KeyStore} are not noticed. Use
+ * {@link #refreshTrustAnchors(java.security.KeyStore)} to replace them, e.g. after
+ * changing the {@code KeyStore}.
+ * <p>
+ * Validated certification paths may be cached by configuring a {@link CertificationPathCache}.
  * @author Luís
  */
 public class PKIXCertificateValidationProvider implements CertificateValidationProvider
 {
     private static final int DEFAULT_MAX_PATH_LENGTH = 6;
 
-    private final KeyStore trustAnchors;
+    private final KeyStore trustAnchorsStore;
+    private final AtomicReference<Set<TrustAnchor>> trustAnchors;
     private final boolean revocationEnabled;
     private final int maxPathLength;
     private final CertStore[] intermCertsAndCrls;
-    private final CertPathBuilder certPathBuilder;
+    private final ThreadLocal<CertPathBuilder> certPathBuilder;
     private final String signatureProvider;
+    private volatile CertificationPathCache pathCache;
+    private volatile Map<X500Principal, List<CrlSerialIndex>> crlSerialIndexes;
+    private volatile boolean collectCrlsWithIndexes = true;
+    private final CrlSignatureVerificationCache verifiedCrls = new CrlSignatureVerificationCache();
 
     /**
      * Initializes a new instance that uses the specified JCE providers for CertPathBuilder
      * and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param maxPathLength the maximum length of the certification paths
      * @param certPathBuilderProvider the CertPathBuilder provider
@@ -95,10 +120,11 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
             throw new NullPointerException("Trust anchors cannot be null");
         }
 
-        this.trustAnchors = trustAnchors;
+        this.trustAnchorsStore = trustAnchors;
+        this.trustAnchors = new AtomicReference<Set<TrustAnchor>>();
         this.revocationEnabled = revocationEnabled;
         this.maxPathLength = maxPathLength;
-        this.certPathBuilder = certPathBuilderProvider == null ? CertPathBuilder.getInstance("PKIX") : CertPathBuilder.getInstance("PKIX", certPathBuilderProvider);
+        this.certPathBuilder = createCertPathBuilderPerThread(certPathBuilderProvider);
         this.signatureProvider = signatureProvider;
         this.intermCertsAndCrls = intermCertsAndCrls;
     }
@@ -106,7 +132,9 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
     /**
      * Initializes a new instance that uses the specified JCE providers for CertPathBuilder
      * and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param certPathBuilderProvider the CertPathBuilder provider
      * @param signatureProvider the Signature provider
@@ -129,7 +157,9 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
     /**
      * Initializes a new instance that uses the specified JCE provider for both
      * CertPathBuilder and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param maxPathLength the maximum length of the certification paths
      * @param jceProvider the CertPathBuilder and Signature provider
@@ -152,7 +182,9 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
     /**
      * Initializes a new instance that uses the specified JCE provider for both
      * CertPathBuilder and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param jceProvider the CertPathBuilder and Signature provider
      * @param intermCertsAndCrls a set of {@code CertStore}s that contain certificates to be
@@ -173,7 +205,9 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
     /**
      * Initializes a new instance without specifying the JCE providers for CertPathBuilder
      * and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param maxPathLength the maximum length of the certification paths
      * @param intermCertsAndCrls a set of {@code CertStore}s that contain certificates to be
@@ -194,7 +228,9 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
     /**
      * Initializes a new instance without specifying the JCE providers for CertPathBuilder
      * and Signature.
-     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry}). Its
+     *      entries are read on the first validation; later changes to the keystore are
+     *      ignored unless {@link #refreshTrustAnchors(java.security.KeyStore)} is invoked
      * @param revocationEnabled whether revocation is enabled
      * @param intermCertsAndCrls a set of {@code CertStore}s that contain certificates to be
      *      used in the construction of the certification path. May contain CRLs to be used
@@ -210,24 +246,164 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
         this(trustAnchors, revocationEnabled, DEFAULT_MAX_PATH_LENGTH, null, null, intermCertsAndCrls);
     }
 
+    private static ThreadLocal<CertPathBuilder> createCertPathBuilderPerThread(
+            final String certPathBuilderProvider) throws NoSuchAlgorithmException, NoSuchProviderException
+    {
+        // Fail early if the builder isn't available.
+        createCertPathBuilder(certPathBuilderProvider);
+
+        return new ThreadLocal<CertPathBuilder>()
+        {
+            @Override
+            protected CertPathBuilder initialValue()
+            {
+                try
+                {
+                    return createCertPathBuilder(certPathBuilderProvider);
+                } catch (GeneralSecurityException ex)
+                {
+                    // SHOULD NOT be thrown; it was successful on construction.
+                    throw new IllegalStateException(ex);
+                }
+            }
+        };
+    }
+
+    private static CertPathBuilder createCertPathBuilder(String certPathBuilderProvider) throws NoSuchAlgorithmException, NoSuchProviderException
+    {
+        return certPathBuilderProvider == null ? CertPathBuilder.getInstance("PKIX") : CertPathBuilder.getInstance("PKIX", certPathBuilderProvider);
+    }
+
+    /**
+     * Replaces the trust anchors with the trusted certificate entries of the given
+     * {@code KeyStore}. The new set of trust anchors is built before being
+     * published; validations that are already in progress keep using the
+     * previous one. Cached certification paths that were built with the previous
+     * trust anchors are no longer used.
+     * @param trustAnchors the keystore with the trust-anchors ({@code TrustedCertificateEntry})
+     * @throws KeyStoreException if the keystore is not initialized
+     * @throws InvalidAlgorithmParameterException if the keystore has no trusted certificate entries
+     */
+    public void refreshTrustAnchors(KeyStore trustAnchors) throws KeyStoreException, InvalidAlgorithmParameterException
+    {
+        if (null == trustAnchors)
+        {
+            throw new NullPointerException("Trust anchors cannot be null");
+        }
+        this.trustAnchors.set(loadTrustAnchors(trustAnchors));
+    }
+
+    private static Set<TrustAnchor> loadTrustAnchors(KeyStore trustAnchors) throws KeyStoreException, InvalidAlgorithmParameterException
+    {
+        // Let the PKIX API convert the entries; the resulting set is immutable.
+        return new PKIXParameters(trustAnchors).getTrustAnchors();
+    }
+
+    private Set<TrustAnchor> getTrustAnchors(X509CertSelector certSelector) throws CannotBuildCertificationPathException
+    {
+        Set<TrustAnchor> anchors = this.trustAnchors.get();
+        if (anchors != null)
+        {
+            return anchors;
+        }
+
+        try
+        {
+            anchors = loadTrustAnchors(this.trustAnchorsStore);
+        } catch (KeyStoreException ex)
+        {
+            throw new CannotBuildCertificationPathException(certSelector, "Trust anchors KeyStore is not initialized", ex);
+        } catch (InvalidAlgorithmParameterException ex)
+        {
+            throw new CannotBuildCertificationPathException(certSelector, "Trust anchors KeyStore has no trusted certificate entries", ex);
+        }
+
+        // Don't override anchors that were concurrently loaded or refreshed.
+        return this.trustAnchors.compareAndSet(null, anchors) ? anchors : this.trustAnchors.get();
+    }
+
+    /**
+     * Sets the cache of validated certification paths. The cache should only be
+     * shared by providers that have the same trust anchors and configuration.
+     * This method should be invoked before the provider is used.
+     * @param pathCache the cache; {@code null} to disable caching
+     */
+    public void setPathCache(CertificationPathCache pathCache)
+    {
+        this.pathCache = pathCache;
+    }
+
+    /**
+     * Sets the CRL indexes used to check the revocation status of the certificates
+     * when revocation is enabled. If set, the indexes are used instead of the
+     * CRLs on the {@code CertStore}s while building the certification path. The
+     * CRLs on the {@code CertStore}s are still collected into the resulting
+     * {@code ValidationData}, which means they are loaded and have their
+     * signatures verified (once until their next update). This method should
+     * be invoked before the provider is used.
+     * @param indexes the indexes; {@code null} to use the CRLs on the {@code CertStore}s
+     * @see #setCrlSerialIndexes(java.util.Collection, boolean)
+     */
+    public void setCrlSerialIndexes(Collection<CrlSerialIndex> indexes)
+    {
+        setCrlSerialIndexes(indexes, true);
+    }
+
+    /**
+     * Sets the CRL indexes used to check the revocation status of the certificates
+     * when revocation is enabled, optionally skipping the collection of the full
+     * CRLs from the {@code CertStore}s.
+     * <p>
+     * Not collecting the CRLs avoids loading and verifying them, but the resulting
+     * {@code ValidationData} has no CRLs. That data is what the signers use to
+     * add the {@code CompleteRevocationRefs} and {@code RevocationValues}
+     * properties and what the verifier uses to check {@code CompleteRevocationRefs}.
+     * Therefore, CRLs should be collected if XAdES-C (or higher) signatures
+     * are produced or verified with this provider. This method should be invoked
+     * before the provider is used.
+     * @param indexes the indexes; {@code null} to use the CRLs on the {@code CertStore}s
+     * @param collectCrls whether to collect the CRLs on the {@code CertStore}s
+     *      into the {@code ValidationData} when the indexes are in use
+     */
+    public void setCrlSerialIndexes(Collection<CrlSerialIndex> indexes, boolean collectCrls)
+    {
+        this.collectCrlsWithIndexes = collectCrls;
+        this.crlSerialIndexes = indexes == null ? null : CrlSerialIndexRevocationChecker.indexByIssuer(indexes);
+    }
+
     @Override
     public ValidationData validate(
             X509CertSelector certSelector,
             Date validationDate,
             Collection<X509Certificate> otherCerts) throws CertificateValidationException, UnexpectedJCAException
     {
+        Set<TrustAnchor> anchors = getTrustAnchors(certSelector);
+        CertificationPathCache cache = this.pathCache;
+        X509Certificate leafCert = null;
+        if (cache != null)
+        {
+            leafCert = getLeafCertificate(certSelector, otherCerts);
+            if (leafCert != null)
+            {
+                ValidationData cached = cache.get(leafCert, anchors, validationDate);
+                if (cached != null)
+                {
+                    return cached;
+                }
+            }
+        }
+
         PKIXBuilderParameters builderParams;
         try
         {
-            builderParams = new PKIXBuilderParameters(trustAnchors, certSelector);
-        } catch (KeyStoreException ex)
-        {
-            throw new CannotBuildCertificationPathException(certSelector, "Trust anchors KeyStore is not initialized", ex);
+            builderParams = new PKIXBuilderParameters(anchors, certSelector);
         } catch (InvalidAlgorithmParameterException ex)
         {
+            // SHOULD NOT be thrown; the set of anchors is not empty.
             throw new CannotBuildCertificationPathException(certSelector, "Trust anchors KeyStore has no trusted certificate entries", ex);
         }
 
+        Map<X500Principal, List<CrlSerialIndex>> indexes = this.crlSerialIndexes;
         PKIXCertPathBuilderResult builderRes;
         try
         {
@@ -245,12 +421,20 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
                 builderParams.addCertStore(intermCertsAndCrls[i]);
             }
 
-            builderParams.setRevocationEnabled(revocationEnabled);
+            if (revocationEnabled && indexes != null)
+            {
+                builderParams.setRevocationEnabled(false);
+                builderParams.addCertPathChecker(new CrlSerialIndexRevocationChecker(indexes, anchors, validationDate));
+            }
+            else
+            {
+                builderParams.setRevocationEnabled(revocationEnabled);
+            }
             builderParams.setMaxPathLength(maxPathLength);
             builderParams.setDate(validationDate);
             builderParams.setSigProvider(this.signatureProvider);
 
-            builderRes = (PKIXCertPathBuilderResult) certPathBuilder.build(builderParams);
+            builderRes = (PKIXCertPathBuilderResult) certPathBuilder.get().build(builderParams);
         }
         catch (CertPathBuilderException ex)
         {
@@ -276,11 +460,48 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
         // - Add the trust anchor certificate.
         certPath.add(builderRes.getTrustAnchor().getTrustedCert());
 
-        if (revocationEnabled)
+        boolean collectCrls = revocationEnabled && (indexes == null || this.collectCrlsWithIndexes);
+        ValidationData validationData = collectCrls
+                ? new ValidationData(certPath, getCRLsForCertPath(certPath, validationDate))
+                : new ValidationData(certPath);
+
+        if (leafCert != null && leafCert.equals(certPath.get(0)))
+        {
+            cache.put(leafCert, anchors, validationDate, validationData);
+        }
+        return validationData;
+    }
+
+    /**
+     * Gets the certificate that is the target of the path, if it can be determined
+     * without building the path.
+     */
+    private static X509Certificate getLeafCertificate(
+            X509CertSelector certSelector,
+            Collection<X509Certificate> otherCerts)
+    {
+        if (certSelector.getCertificate() != null)
+        {
+            return certSelector.getCertificate();
+        }
+
+        X509Certificate leafCert = null;
+        if (otherCerts != null)
         {
-            return new ValidationData(certPath, getCRLsForCertPath(certPath, validationDate));
+            for (X509Certificate c : otherCerts)
+            {
+                if (certSelector.match(c))
+                {
+                    if (leafCert != null && !leafCert.equals(c))
+                    {
+                        // Ambiguous; the path builder will decide.
+                        return null;
+                    }
+                    leafCert = c;
+                }
+            }
         }
-        return new ValidationData(certPath);
+        return leafCert;
     }
 
     private Collection<X509CRL> getCRLsForCertPath(
@@ -326,20 +547,27 @@ public class PKIXCertificateValidationProvider implements CertificateValidationP
         }
 
         // Verify the CRLs' signatures. The issuers' certificates were validated
-        // as part of the cert path creation.
+        // as part of the cert path creation. Each CRL is verified once until
+        // its next update.
+        long now = System.currentTimeMillis();
         for (X509CRL crl : crls)
         {
             try
             {
-                X509Certificate crlIssuerCert = issuersCerts.get(crl.getIssuerX500Principal());
+                PublicKey crlIssuerKey = issuersCerts.get(crl.getIssuerX500Principal()).getPublicKey();
+                if (this.verifiedCrls.isVerified(crl, crlIssuerKey, now))
+                {
+                    continue;
+                }
                 if (null == this.signatureProvider)
                 {
-                    crl.verify(crlIssuerCert.getPublicKey());
+                    crl.verify(crlIssuerKey);
                 }
                 else
                 {
-                    crl.verify(crlIssuerCert.getPublicKey(), this.signatureProvider);
+                    crl.verify(crlIssuerKey, this.signatureProvider);
                 }
+                this.verifiedCrls.verified(crl, crlIssuerKey);
             }
             catch (Exception ex)
             {
@@ -16,11 +16,18 @@
  */
 package xades4j.providers.impl;
 
+import java.util.concurrent.Semaphore;
+
 /**
  * Configuration to access a TSA over HTTP. This class is typically used with
  * {@link HttpTimeStampTokenProvider} by registering an instance with the
  * appropriate URL and (optionally) username and password on the
  * signing/verification profile.
+ * <p>
+ * Optionally, connect and read timeouts can be configured, as well as the
+ * maximum number of concurrent connections to the TSA. The maximum applies to
+ * all the providers that use the same instance, such as all the signers created
+ * from a profile. Connections are kept alive and reused between requests.
  *
  * @author Luís
  */
@@ -29,8 +36,26 @@ public final class TSAHttpData
     private final String url;
     private final String username;
     private final String password;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int maxConnections;
+    private final Semaphore connectionPermits;
 
     public TSAHttpData(String url, String username, String password)
+    {
+        this(url, username, password, 0, 0, 0);
+    }
+
+    /**
+     * @param url the TSA URL
+     * @param username the username for HTTP basic authentication; may be {@code null}
+     * @param password the password for HTTP basic authentication; may be {@code null}
+     * @param connectTimeout the connect timeout in milliseconds; zero means no timeout
+     * @param readTimeout the read timeout in milliseconds; zero means no timeout
+     * @param maxConnections the maximum number of concurrent connections to the
+     *      TSA; zero means unbounded
+     */
+    public TSAHttpData(String url, String username, String password, int connectTimeout, int readTimeout, int maxConnections)
     {
         if (url == null)
         {
@@ -42,9 +67,18 @@ public final class TSAHttpData
             throw new NullPointerException("Both username and password must be supplied");
         }
 
+        if (connectTimeout < 0 || readTimeout < 0 || maxConnections < 0)
+        {
+            throw new IllegalArgumentException("Timeouts and maximum connections must not be negative");
+        }
+
         this.url = url;
         this.username = username;
         this.password = password;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnections = maxConnections;
+        this.connectionPermits = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
     }
 
     public TSAHttpData(String url)
@@ -66,4 +100,28 @@ public final class TSAHttpData
     {
         return password;
     }
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    /**
+     * The permits for the connections to the TSA, shared by the providers that
+     * use this instance; {@code null} if the number of connections is unbounded.
+     */
+    Semaphore getConnectionPermits()
+    {
+        return connectionPermits;
+    }
 }
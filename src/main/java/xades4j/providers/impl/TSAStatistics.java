@@ -0,0 +1,88 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+/**
+ * Snapshot of the request statistics of a TSA used by
+ * {@link MultiTSATimeStampTokenProvider}.
+ *
+ * @author Luís
+ */
+public final class TSAStatistics
+{
+    private final String url;
+    private final long requestCount;
+    private final long errorCount;
+    private final long hedgedRequestCount;
+    private final long meanLatency;
+    private final long latencyPercentile95;
+
+    TSAStatistics(String url, long requestCount, long errorCount, long hedgedRequestCount, long meanLatency, long latencyPercentile95)
+    {
+        this.url = url;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.hedgedRequestCount = hedgedRequestCount;
+        this.meanLatency = meanLatency;
+        this.latencyPercentile95 = latencyPercentile95;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    /**
+     * @return the number of requests sent to the TSA, including hedged requests
+     */
+    public long getRequestCount()
+    {
+        return requestCount;
+    }
+
+    public long getErrorCount()
+    {
+        return errorCount;
+    }
+
+    /**
+     * @return the number of hedged requests sent to the TSA because another TSA
+     *      was slow to respond
+     */
+    public long getHedgedRequestCount()
+    {
+        return hedgedRequestCount;
+    }
+
+    /**
+     * @return the mean latency of recent successful requests in milliseconds,
+     *      or -1 if there are none
+     */
+    public long getMeanLatency()
+    {
+        return meanLatency;
+    }
+
+    /**
+     * @return the 95th percentile of the latency of recent successful requests
+     *      in milliseconds, or -1 if there are none
+     */
+    public long getLatencyPercentile95()
+    {
+        return latencyPercentile95;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+
+/**
+ * Bounded cache of time-stamp tokens verified by {@link DefaultTimeStampVerificationProvider}.
+ * Entries are keyed by the SHA-256 hash of the encoded token and record that
+ * the token's signature and TSA certification path were successfully verified,
+ * together with the token's time and message imprint. The message imprint
+ * is still compared on each verification, so a cached token is only accepted
+ * for the data it time-stamps.
+ * <p>
+ * Entries expire after a configured age, so that changes in the status of
+ * the TSA certificate (e.g. revocation) are eventually noticed. When the
+ * capacity is exceeded, the least recently used entries are evicted.
+ * Instances are thread-safe.
+ * @see DefaultTimeStampVerificationProvider#setVerificationCache(xades4j.providers.impl.TimeStampVerificationCache)
+ * @author Luís
+ */
+public class TimeStampVerificationCache
+{
+    private final long maxAge;
+    private final Map<Key, VerifiedToken> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries the maximum number of cached tokens
+     * @param maxAge the time, in milliseconds, during which a verification result is reused
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive or
+     *      {@code maxAge} is negative
+     */
+    public TimeStampVerificationCache(final int maxEntries, long maxAge)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("The maximum number of entries must be positive");
+        }
+        if (maxAge < 0)
+        {
+            throw new IllegalArgumentException("The maximum age cannot be negative");
+        }
+
+        this.maxAge = maxAge;
+        this.entries = new LinkedHashMap<Key, VerifiedToken>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, VerifiedToken> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of lookups that returned a verified token.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that didn't return a verified token.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the entries. The statistics are not reset.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    VerifiedToken get(byte[] timeStampToken)
+    {
+        Key k = Key.of(timeStampToken);
+        VerifiedToken t;
+        synchronized (this)
+        {
+            t = entries.get(k);
+            if (t != null && System.currentTimeMillis() - t.verifiedAt > this.maxAge)
+            {
+                entries.remove(k);
+                t = null;
+            }
+        }
+
+        if (t != null)
+        {
+            hits.incrementAndGet();
+        }
+        else
+        {
+            misses.incrementAndGet();
+        }
+        return t;
+    }
+
+    void put(byte[] timeStampToken, VerifiedToken t)
+    {
+        Key k = Key.of(timeStampToken);
+        synchronized (this)
+        {
+            entries.put(k, t);
+        }
+    }
+
+    /**
+     * The data of a token whose signature and TSA certificate were verified.
+     */
+    static class VerifiedToken
+    {
+        final Date genTime;
+        final ASN1ObjectIdentifier messageImprintAlgOid;
+        final byte[] messageImprintDigest;
+        final long verifiedAt;
+
+        VerifiedToken(Date genTime, ASN1ObjectIdentifier messageImprintAlgOid, byte[] messageImprintDigest)
+        {
+            this.genTime = genTime;
+            this.messageImprintAlgOid = messageImprintAlgOid;
+            this.messageImprintDigest = messageImprintDigest;
+            this.verifiedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static class Key
+    {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private Key(byte[] hash)
+        {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        static Key of(byte[] timeStampToken)
+        {
+            try
+            {
+                return new Key(MessageDigest.getInstance("SHA-256").digest(timeStampToken));
+            } catch (NoSuchAlgorithmException ex)
+            {
+                // SHA-256 is required on every Java platform.
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.equals(this.hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
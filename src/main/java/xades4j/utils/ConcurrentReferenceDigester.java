@@ -0,0 +1,248 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.signature.XMLSignatureInput;
+
+/**
+ * Digests the data of {@code Reference}s concurrently on an executor. Only
+ * references to external octet streams without transforms (typically detached
+ * data objects) are handled: their data is resolved on the calling thread, which
+ * is the only one accessing the DOM, and the resulting streams are read and
+ * digested on the executor. The other references have to be processed by the
+ * caller.
+ * <p>
+ * This class is not thread-safe; it is meant to be used by the thread that
+ * processes a signature.
+ * @author Luís
+ */
+public class ConcurrentReferenceDigester
+{
+    private final Executor executor;
+    private final List<DigestTask> tasks;
+
+    public ConcurrentReferenceDigester(Executor executor)
+    {
+        if (null == executor)
+        {
+            throw new NullPointerException("Executor cannot be null");
+        }
+        this.executor = executor;
+        this.tasks = new ArrayList<DigestTask>();
+    }
+
+    /**
+     * Starts digesting the data of a reference, if supported.
+     * @param r the reference
+     * @return {@code true} if the digest was started; {@code false} if the reference
+     *      needs the DOM and has to be processed on the calling thread
+     * @throws XMLSecurityException if the reference cannot be resolved
+     */
+    public boolean tryStart(Reference r) throws XMLSecurityException
+    {
+        // Same-document references and references with transforms need the
+        // DOM. Anonymous references are left out because their data stream is
+        // supplied by the application.
+        String uri = r.getURI();
+        if (null == uri || uri.length() == 0 || uri.charAt(0) == '#' || r.getTransforms() != null)
+        {
+            return false;
+        }
+
+        XMLSignatureInput contents = r.getContentsBeforeTransformation();
+        if (!contents.isOctetStream())
+        {
+            return false;
+        }
+
+        InputStream is;
+        try
+        {
+            is = contents.getOctetStream();
+        }
+        catch (IOException ex)
+        {
+            throw new XMLSignatureException(ex);
+        }
+
+        DigestTask task = new DigestTask(r, new Digest(is, r.getMessageDigestAlgorithm()));
+        this.tasks.add(task);
+        try
+        {
+            this.executor.execute(task);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // Will be run on the calling thread.
+        }
+        return true;
+    }
+
+    /**
+     * Waits for all the digests that were started. The ones that the executor
+     * didn't start yet are computed on the calling thread. All the digests are
+     * awaited even if some fail, so that the streams are closed.
+     * @return the digest values of the references
+     * @throws XMLSecurityException if the data of a reference cannot be read
+     */
+    public Map<Reference, byte[]> awaitDigests() throws XMLSecurityException
+    {
+        Map<Reference, byte[]> digests = new IdentityHashMap<Reference, byte[]>(this.tasks.size());
+        XMLSecurityException firstEx = null;
+        boolean interrupted = false;
+
+        for (DigestTask task : this.tasks)
+        {
+            task.run();
+            while (true)
+            {
+                try
+                {
+                    digests.put(task.reference, task.get());
+                    break;
+                }
+                catch (InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException ex)
+                {
+                    if (null == firstEx)
+                    {
+                        firstEx = toXMLSecurityException(ex.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        this.tasks.clear();
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (firstEx != null)
+        {
+            throw firstEx;
+        }
+        return digests;
+    }
+
+    /**
+     * Cancels the digests that were not started yet, closing their streams.
+     * Used when the processing of the signature fails.
+     */
+    public void cancel()
+    {
+        for (DigestTask task : this.tasks)
+        {
+            if (task.cancel(false))
+            {
+                task.digest.close();
+            }
+        }
+        this.tasks.clear();
+    }
+
+    private static XMLSecurityException toXMLSecurityException(Throwable t)
+    {
+        if (t instanceof XMLSecurityException)
+        {
+            return (XMLSecurityException) t;
+        }
+        if (t instanceof RuntimeException)
+        {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error)
+        {
+            throw (Error) t;
+        }
+        return new XMLSignatureException((Exception) t);
+    }
+
+    private static class DigestTask extends FutureTask<byte[]>
+    {
+        private final Reference reference;
+        private final Digest digest;
+
+        DigestTask(Reference reference, Digest digest)
+        {
+            super(digest);
+            this.reference = reference;
+            this.digest = digest;
+        }
+    }
+
+    private static class Digest implements Callable<byte[]>
+    {
+        private final InputStream contents;
+        private final MessageDigestAlgorithm digestAlgorithm;
+
+        Digest(InputStream contents, MessageDigestAlgorithm digestAlgorithm)
+        {
+            this.contents = contents;
+            this.digestAlgorithm = digestAlgorithm;
+        }
+
+        @Override
+        public byte[] call() throws IOException
+        {
+            try
+            {
+                byte[] buf = new byte[8192];
+                int nRead;
+                while ((nRead = contents.read(buf)) != -1)
+                {
+                    digestAlgorithm.update(buf, 0, nRead);
+                }
+                return digestAlgorithm.digest();
+            }
+            finally
+            {
+                contents.close();
+            }
+        }
+
+        void close()
+        {
+            try
+            {
+                contents.close();
+            }
+            catch (IOException ex)
+            {
+                // Nothing to do; the processing already failed.
+            }
+        }
+    }
+}
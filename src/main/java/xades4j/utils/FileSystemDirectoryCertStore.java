@@ -19,24 +19,45 @@ package xades4j.utils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.security.InvalidAlgorithmParameterException;
-import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.cert.CRL;
 import java.security.cert.CRLException;
+import java.security.cert.CRLSelector;
+import java.security.cert.CertSelector;
 import java.security.cert.CertStore;
+import java.security.cert.CertStoreException;
+import java.security.cert.CertStoreSpi;
+import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
-import java.security.cert.CollectionCertStoreParameters;
-import java.security.cert.X509CRL;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Creates a {@code CertStore} from the contents of a file-system directory. The
  * directories are recusively searched for X509 certificates or CRLs files that
  * have one of the specified extensions. If the JCE provider is not supplied, the
  * CertificateFactory is obtained without specifying a provider.
+ * <p>
+ * The files are parsed in parallel and the resulting {@code CertStore} is indexed
+ * to speed up lookups. The contents can be updated with {@link #reload()}, which
+ * only parses the files that were added or modified; the {@code CertStore}
+ * returned by {@link #getStore()} always uses the latest successfully loaded
+ * contents. Reloads are not triggered automatically; they can be scheduled by
+ * the application (e.g. using a {@code ScheduledExecutorService}).
+ * @see IndexedCertStoreSpi
  * @author Luís
  */
 public class FileSystemDirectoryCertStore
@@ -44,7 +65,17 @@ public class FileSystemDirectoryCertStore
     private static final String[] DEFAULT_CERT_FILE_EXT = { "cer", "crt" };
     private static final String[] DEFAULT_CRL_FILE_EXT = { "crl" };
 
+    private final File dir;
+    private final String[] certsFilesExts;
+    private final String[] crlsFilesExts;
+    private final CertificateFactory cf;
     private final CertStore content;
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong failedReloadCount = new AtomicLong();
+    private volatile long lastLoadDuration;
+    private volatile Exception lastReloadFailure;
 
     /**
      * Creates a new instance over a directory. The {@code cer} and {@code crt}
@@ -131,48 +162,256 @@ public class FileSystemDirectoryCertStore
         if (!dir.exists() || !dir.isDirectory())
             throw new IllegalArgumentException("Specified path doesn't exist or doesn't refer a directory");
 
-        Collection contentList = new ArrayList();
-        transverseDirToFindContent(dir, contentList, certsFilesExts, crlsFilesExts, cf);
+        this.dir = dir;
+        this.certsFilesExts = certsFilesExts;
+        this.crlsFilesExts = crlsFilesExts;
+        this.cf = cf;
+
+        long start = System.currentTimeMillis();
+        this.snapshot = load(new Snapshot(Collections.<File, LoadedFile>emptyMap(), null));
+        this.lastLoadDuration = System.currentTimeMillis() - start;
 
         try
         {
-            this.content = CertStore.getInstance("Collection", new CollectionCertStoreParameters(contentList));
-            return;
+            this.content = IndexedCertStoreSpi.newCertStore(new SnapshotCertStoreSpi(), "FileSystemDirectory", null);
         } catch (InvalidAlgorithmParameterException ex)
         {
-        } catch (NoSuchAlgorithmException ex)
+            // SHOULD NOT be thrown; the SPI has no parameters.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Reloads the contents of the directory. Only new or modified files (based
+     * on their size and last modification time) are parsed. If there are changes,
+     * a new set of contents is published atomically to the {@code CertStore};
+     * lookups in progress are not affected. If an error occurs, the previous
+     * contents are kept.
+     * @return {@code true} if the contents changed; {@code false} otherwise
+     * @throws CertificateException if there's an error reading the certificates
+     * @throws CRLException if there's an error reading the CRLs
+     */
+    public synchronized boolean reload() throws CertificateException, CRLException
+    {
+        long start = System.currentTimeMillis();
+        try
+        {
+            if (!this.dir.isDirectory())
+                throw new CertificateException("The directory is no longer available: " + this.dir);
+
+            Snapshot previous = this.snapshot;
+            Snapshot current = load(previous);
+            this.snapshot = current;
+            this.reloadCount.incrementAndGet();
+            return current != previous;
+        } catch (CertificateException ex)
+        {
+            reloadFailed(ex);
+            throw ex;
+        } catch (CRLException ex)
+        {
+            reloadFailed(ex);
+            throw ex;
+        } catch (RuntimeException ex)
         {
+            reloadFailed(ex);
+            throw ex;
+        } finally
+        {
+            this.lastLoadDuration = System.currentTimeMillis() - start;
         }
-        // ToDo: this is a bit ugly!
-        throw new CertificateException("Error getting Collection CertStore");
     }
 
-    private void transverseDirToFindContent(
-            File dir,
-            Collection contentList,
-            String[] certsFilesExts,
-            String[] crlsFilesExts,
-            CertificateFactory cf) throws CertificateException, CRLException
+    private void reloadFailed(Exception ex)
+    {
+        this.failedReloadCount.incrementAndGet();
+        this.lastReloadFailure = ex;
+    }
+
+    /**
+     * Gets the number of successful reloads.
+     */
+    public long getReloadCount()
+    {
+        return this.reloadCount.get();
+    }
+
+    /**
+     * Gets the number of failed reloads.
+     */
+    public long getFailedReloadCount()
+    {
+        return this.failedReloadCount.get();
+    }
+
+    /**
+     * Gets the duration, in milliseconds, of the last load (initial or reload),
+     * whether it succeeded or not.
+     */
+    public long getLastLoadDuration()
+    {
+        return this.lastLoadDuration;
+    }
+
+    /**
+     * Gets the exception that caused the last failed reload.
+     * @return the exception or {@code null} if no reload has failed
+     */
+    public Exception getLastReloadFailure()
+    {
+        return this.lastReloadFailure;
+    }
+
+    /**
+     * Loads the contents of the directory, reusing the files from {@code previous}
+     * that didn't change.
+     * @return {@code previous} if nothing changed; a new snapshot otherwise
+     */
+    private Snapshot load(Snapshot previous) throws CertificateException, CRLException
+    {
+        List<File> files = new ArrayList<File>();
+        transverseDirToFindContent(this.dir, files);
+
+        Map<File, LoadedFile> loadedFiles = new HashMap<File, LoadedFile>(files.size());
+        List<File> toParse = new ArrayList<File>();
+        for (File f : files)
+        {
+            LoadedFile prev = previous.files.get(f);
+            if (prev != null && prev.lastModified == f.lastModified() && prev.length == f.length())
+                loadedFiles.put(f, prev);
+            else
+                toParse.add(f);
+        }
+
+        if (toParse.isEmpty() && loadedFiles.size() == previous.files.size())
+            return previous;
+
+        loadedFiles.putAll(parseFiles(toParse));
+
+        Collection contentList = new ArrayList(loadedFiles.size());
+        for (File f : files)
+        {
+            LoadedFile lf = loadedFiles.get(f);
+            if (lf != null)
+                contentList.add(lf.content);
+        }
+        return new Snapshot(loadedFiles, IndexedCertStoreSpi.newCertStore(contentList));
+    }
+
+    private void transverseDirToFindContent(File dir, List<File> files)
     {
         File[] dirContents = dir.listFiles();
+        if (null == dirContents)
+            // The directory was removed meanwhile.
+            return;
+
         for (int i = 0; i < dirContents.length; i++)
         {
             File f = dirContents[i];
 
             if (f.isDirectory())
-                transverseDirToFindContent(f, contentList, certsFilesExts, crlsFilesExts, cf);
-            else if (f.isFile())
+                transverseDirToFindContent(f, files);
+            else if (f.isFile() && (hasExt(f, certsFilesExts) || hasExt(f, crlsFilesExts)))
+                files.add(f);
+        }
+    }
+
+    private Map<File, LoadedFile> parseFiles(List<File> files) throws CertificateException, CRLException
+    {
+        int nTasks = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        if (nTasks <= 1)
+            return new ParseTask(files, this.cf).call();
+
+        // Each task gets its own CertificateFactory, since those aren't
+        // guaranteed to be thread-safe.
+        ExecutorService executor = Executors.newFixedThreadPool(nTasks);
+        try
+        {
+            List<Future<Map<File, LoadedFile>>> results = new ArrayList<Future<Map<File, LoadedFile>>>(nTasks);
+            for (int i = 0; i < nTasks; i++)
+            {
+                List<File> taskFiles = files.subList(i * files.size() / nTasks, (i + 1) * files.size() / nTasks);
+                CertificateFactory taskCf = CertificateFactory.getInstance(this.cf.getType(), this.cf.getProvider());
+                results.add(executor.submit(new ParseTask(taskFiles, taskCf)));
+            }
+
+            Map<File, LoadedFile> loadedFiles = new HashMap<File, LoadedFile>(files.size());
+            for (Future<Map<File, LoadedFile>> r : results)
+            {
+                loadedFiles.putAll(r.get());
+            }
+            return loadedFiles;
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new CertificateException("Interrupted while loading the directory contents", ex);
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CertificateException)
+                throw (CertificateException) cause;
+            if (cause instanceof CRLException)
+                throw (CRLException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new CertificateException(cause);
+        } finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private class ParseTask implements Callable<Map<File, LoadedFile>>
+    {
+        private final List<File> files;
+        private final CertificateFactory cf;
+
+        ParseTask(List<File> files, CertificateFactory cf)
+        {
+            this.files = files;
+            this.cf = cf;
+        }
+
+        @Override
+        public Map<File, LoadedFile> call() throws CertificateException, CRLException
+        {
+            Map<File, LoadedFile> loadedFiles = new HashMap<File, LoadedFile>(files.size());
+            for (File f : files)
+            {
                 try
                 {
-                    if (hasExt(f, certsFilesExts))
-                        contentList.add((X509Certificate)cf.generateCertificate(new FileInputStream(f)));
-                    else if (hasExt(f, crlsFilesExts))
-                        contentList.add((X509CRL)cf.generateCRL(new FileInputStream(f)));
+                    loadedFiles.put(f, parseFile(f));
                 } catch (FileNotFoundException ex)
                 {
                     // The file existed right up there! If somehow it doesn't exist
                     // now, nevermind.
                 }
+            }
+            return loadedFiles;
+        }
+
+        private LoadedFile parseFile(File f) throws FileNotFoundException, CertificateException, CRLException
+        {
+            // Get the attributes before reading, so that a concurrent modification
+            // is detected on the next reload.
+            long lastModified = f.lastModified();
+            long length = f.length();
+
+            FileInputStream is = new FileInputStream(f);
+            try
+            {
+                Object content = hasExt(f, certsFilesExts) ? cf.generateCertificate(is) : cf.generateCRL(is);
+                return new LoadedFile(lastModified, length, content);
+            } finally
+            {
+                try
+                {
+                    is.close();
+                } catch (IOException ex)
+                {
+                    // Nothing more to do.
+                }
+            }
         }
     }
 
@@ -188,11 +427,61 @@ public class FileSystemDirectoryCertStore
     }
 
     /**
-     * Gets the {@code CertStore} resulting from this instance.
+     * Gets the {@code CertStore} resulting from this instance. The store reflects
+     * the contents of the last successful load.
      * @return the {@code CertStore} containing all the certificates and CRLs that were found
      */
     public CertStore getStore()
     {
         return this.content;
     }
+
+    private static class LoadedFile
+    {
+        final long lastModified;
+        final long length;
+        final Object content;
+
+        LoadedFile(long lastModified, long length, Object content)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.content = content;
+        }
+    }
+
+    private static class Snapshot
+    {
+        final Map<File, LoadedFile> files;
+        final CertStore store;
+
+        Snapshot(Map<File, LoadedFile> files, CertStore store)
+        {
+            this.files = files;
+            this.store = store;
+        }
+    }
+
+    /**
+     * Delegates to the store of the current snapshot.
+     */
+    private class SnapshotCertStoreSpi extends CertStoreSpi
+    {
+        SnapshotCertStoreSpi() throws InvalidAlgorithmParameterException
+        {
+            super(null);
+        }
+
+        @Override
+        public Collection<? extends Certificate> engineGetCertificates(CertSelector selector) throws CertStoreException
+        {
+            return snapshot.store.getCertificates(selector);
+        }
+
+        @Override
+        public Collection<? extends CRL> engineGetCRLs(CRLSelector selector) throws CertStoreException
+        {
+            return snapshot.store.getCRLs(selector);
+        }
+    }
 }
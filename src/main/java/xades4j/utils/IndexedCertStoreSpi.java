@@ -0,0 +1,345 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.math.BigInteger;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.Provider;
+import java.security.cert.CRL;
+import java.security.cert.CRLSelector;
+import java.security.cert.CertSelector;
+import java.security.cert.CertStore;
+import java.security.cert.CertStoreParameters;
+import java.security.cert.CertStoreSpi;
+import java.security.cert.Certificate;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLSelector;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.security.auth.x500.X500Principal;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+
+/**
+ * {@code CertStoreSpi} over an in-memory collection of certificates and CRLs
+ * that are indexed for the criteria commonly used when building certification
+ * paths. Certificates are indexed by value (fingerprint), issuer and serial
+ * number, subject key identifier and subject; CRLs are indexed by issuer. When
+ * an {@code X509CertSelector} or {@code X509CRLSelector} sets one of those
+ * criteria, only the matching entries of the corresponding index are checked
+ * against the selector. Other selectors result in a linear search, as in the
+ * {@code Collection} {@code CertStore}.
+ * <p>
+ * The contents are copied on initialization. The resulting {@code CertStore}
+ * is immutable and thread-safe. Use {@link #newCertStore(java.util.Collection)}
+ * to get a {@code CertStore} that can be used wherever other stores are
+ * supported.
+ * @author Luís
+ */
+public class IndexedCertStoreSpi extends CertStoreSpi
+{
+    private static final String TYPE = "Indexed";
+    private static final Provider PROVIDER = new Provider("XAdES4j", 1.0, "XAdES4j CertStores")
+    {
+    };
+
+    /**
+     * Creates a {@code CertStore} backed by an instance of this class.
+     * @param content the certificates and CRLs to include; other objects are ignored
+     * @return the {@code CertStore}
+     */
+    public static CertStore newCertStore(Collection<?> content)
+    {
+        CollectionCertStoreParameters params = new CollectionCertStoreParameters(content);
+        try
+        {
+            return newCertStore(new IndexedCertStoreSpi(params), TYPE, params);
+        } catch (InvalidAlgorithmParameterException ex)
+        {
+            // SHOULD NOT be thrown; the parameters have the correct type.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Creates a {@code CertStore} backed by a library-provided {@code CertStoreSpi}.
+     */
+    static CertStore newCertStore(CertStoreSpi spi, String type, CertStoreParameters params)
+    {
+        return new LibraryCertStore(spi, type, params);
+    }
+
+    private static class LibraryCertStore extends CertStore
+    {
+        LibraryCertStore(CertStoreSpi spi, String type, CertStoreParameters params)
+        {
+            super(spi, PROVIDER, type, params);
+        }
+    }
+
+    private final List<X509Certificate> certs;
+    private final Set<X509Certificate> certsSet;
+    private final Map<X500Principal, List<X509Certificate>> certsBySubject;
+    private final Map<IssuerSerial, List<X509Certificate>> certsByIssuerSerial;
+    private final Map<KeyIdentifier, List<X509Certificate>> certsBySubjectKeyId;
+    private final List<X509CRL> crls;
+    private final Map<X500Principal, List<X509CRL>> crlsByIssuer;
+
+    /**
+     * @param params the {@code CollectionCertStoreParameters} with the certificates and CRLs
+     * @throws InvalidAlgorithmParameterException if {@code params} are not {@code CollectionCertStoreParameters}
+     */
+    public IndexedCertStoreSpi(CertStoreParameters params) throws InvalidAlgorithmParameterException
+    {
+        super(params);
+        if (!(params instanceof CollectionCertStoreParameters))
+        {
+            throw new InvalidAlgorithmParameterException("CollectionCertStoreParameters expected");
+        }
+        this.certs = new ArrayList<X509Certificate>();
+        this.certsSet = new HashSet<X509Certificate>();
+        this.certsBySubject = new HashMap<X500Principal, List<X509Certificate>>();
+        this.certsByIssuerSerial = new HashMap<IssuerSerial, List<X509Certificate>>();
+        this.certsBySubjectKeyId = new HashMap<KeyIdentifier, List<X509Certificate>>();
+        this.crls = new ArrayList<X509CRL>();
+        this.crlsByIssuer = new HashMap<X500Principal, List<X509CRL>>();
+
+        for (Object o : ((CollectionCertStoreParameters) params).getCollection())
+        {
+            if (o instanceof X509Certificate)
+            {
+                addCertificate((X509Certificate) o);
+            }
+            else if (o instanceof X509CRL)
+            {
+                addCRL((X509CRL) o);
+            }
+        }
+    }
+
+    private void addCertificate(X509Certificate cert)
+    {
+        if (!this.certsSet.add(cert))
+        {
+            return;
+        }
+        this.certs.add(cert);
+        addToIndex(this.certsBySubject, cert.getSubjectX500Principal(), cert);
+        addToIndex(this.certsByIssuerSerial, new IssuerSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()), cert);
+
+        KeyIdentifier ski = getSubjectKeyIdentifier(cert);
+        if (ski != null)
+        {
+            addToIndex(this.certsBySubjectKeyId, ski, cert);
+        }
+    }
+
+    private void addCRL(X509CRL crl)
+    {
+        this.crls.add(crl);
+        addToIndex(this.crlsByIssuer, crl.getIssuerX500Principal(), crl);
+    }
+
+    private static <K, V> void addToIndex(Map<K, List<V>> index, K key, V value)
+    {
+        List<V> values = index.get(key);
+        if (null == values)
+        {
+            values = new ArrayList<V>(1);
+            index.put(key, values);
+        }
+        values.add(value);
+    }
+
+    private static KeyIdentifier getSubjectKeyIdentifier(X509Certificate cert)
+    {
+        byte[] extValue = cert.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+        if (null == extValue)
+        {
+            return null;
+        }
+        try
+        {
+            // The selector criterion is the DER encoding of the extension
+            // value, which is wrapped in an OCTET STRING.
+            return new KeyIdentifier(ASN1OctetString.getInstance(extValue).getOctets());
+        } catch (IllegalArgumentException ex)
+        {
+            // Malformed extension; the certificate can still be found through
+            // the other criteria.
+            return null;
+        }
+    }
+
+    @Override
+    public Collection<? extends Certificate> engineGetCertificates(CertSelector selector)
+    {
+        if (null == selector)
+        {
+            return new ArrayList<X509Certificate>(this.certs);
+        }
+
+        Collection<X509Certificate> candidates = this.certs;
+        if (selector instanceof X509CertSelector)
+        {
+            candidates = getCandidates((X509CertSelector) selector);
+        }
+
+        List<X509Certificate> matches = new ArrayList<X509Certificate>();
+        for (X509Certificate c : candidates)
+        {
+            if (selector.match(c))
+            {
+                matches.add(c);
+            }
+        }
+        return matches;
+    }
+
+    private Collection<X509Certificate> getCandidates(X509CertSelector selector)
+    {
+        X509Certificate cert = selector.getCertificate();
+        if (cert != null)
+        {
+            return this.certsSet.contains(cert)
+                    ? Collections.singletonList(cert)
+                    : Collections.<X509Certificate>emptyList();
+        }
+
+        if (selector.getIssuer() != null && selector.getSerialNumber() != null)
+        {
+            return nonNull(this.certsByIssuerSerial.get(new IssuerSerial(selector.getIssuer(), selector.getSerialNumber())));
+        }
+
+        byte[] ski = selector.getSubjectKeyIdentifier();
+        if (ski != null)
+        {
+            return nonNull(this.certsBySubjectKeyId.get(new KeyIdentifier(ski)));
+        }
+
+        if (selector.getSubject() != null)
+        {
+            return nonNull(this.certsBySubject.get(selector.getSubject()));
+        }
+
+        return this.certs;
+    }
+
+    @Override
+    public Collection<? extends CRL> engineGetCRLs(CRLSelector selector)
+    {
+        if (null == selector)
+        {
+            return new ArrayList<X509CRL>(this.crls);
+        }
+
+        List<X509CRL> matches = new ArrayList<X509CRL>();
+        Collection<X500Principal> issuers = selector instanceof X509CRLSelector
+                ? ((X509CRLSelector) selector).getIssuers()
+                : null;
+
+        if (null == issuers)
+        {
+            addMatches(this.crls, selector, matches);
+        }
+        else
+        {
+            for (X500Principal issuer : issuers)
+            {
+                addMatches(nonNull(this.crlsByIssuer.get(issuer)), selector, matches);
+            }
+        }
+        return matches;
+    }
+
+    private static void addMatches(Collection<X509CRL> candidates, CRLSelector selector, List<X509CRL> matches)
+    {
+        for (X509CRL crl : candidates)
+        {
+            if (selector.match(crl))
+            {
+                matches.add(crl);
+            }
+        }
+    }
+
+    private static <T> List<T> nonNull(List<T> l)
+    {
+        return l != null ? l : Collections.<T>emptyList();
+    }
+
+    private static class IssuerSerial
+    {
+        private final X500Principal issuer;
+        private final BigInteger serial;
+
+        IssuerSerial(X500Principal issuer, BigInteger serial)
+        {
+            this.issuer = issuer;
+            this.serial = serial;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof IssuerSerial))
+            {
+                return false;
+            }
+            IssuerSerial other = (IssuerSerial) o;
+            return this.serial.equals(other.serial) && this.issuer.equals(other.issuer);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * this.issuer.hashCode() + this.serial.hashCode();
+        }
+    }
+
+    private static class KeyIdentifier
+    {
+        private final byte[] id;
+
+        KeyIdentifier(byte[] id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof KeyIdentifier && Arrays.equals(this.id, ((KeyIdentifier) o).id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(this.id);
+        }
+    }
+}
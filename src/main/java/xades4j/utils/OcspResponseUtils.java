@@ -0,0 +1,70 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.IOException;
+import javax.security.auth.x500.X500Principal;
+import org.bouncycastle.asn1.ocsp.ResponderID;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+/**
+ *
+ * @author Luís
+ */
+public class OcspResponseUtils
+{
+    private OcspResponseUtils()
+    {
+    }
+
+    /**
+     * Gets the basic response of a successful OCSP response.
+     * @throws OCSPException if the response is not successful or is not a basic response
+     */
+    public static BasicOCSPResp getBasicResponse(OCSPResp resp) throws OCSPException
+    {
+        if (resp.getStatus() != OCSPResp.SUCCESSFUL)
+            throw new OCSPException("OCSP response is not successful: " + resp.getStatus());
+
+        Object respObject = resp.getResponseObject();
+        if (!(respObject instanceof BasicOCSPResp))
+            throw new OCSPException("OCSP response is not a basic response");
+
+        return (BasicOCSPResp) respObject;
+    }
+
+    /**
+     * Gets the responder name, if the responder is identified by name.
+     * @return the name or {@code null}
+     */
+    public static X500Principal getResponderName(BasicOCSPResp basicResp) throws IOException
+    {
+        ResponderID responderId = basicResp.getResponderId().toASN1Primitive();
+        return responderId.getName() == null ? null : new X500Principal(responderId.getName().getEncoded());
+    }
+
+    /**
+     * Gets the hash of the responder's public key, if the responder is identified by key.
+     * @return the hash or {@code null}
+     */
+    public static byte[] getResponderKeyHash(BasicOCSPResp basicResp)
+    {
+        return basicResp.getResponderId().toASN1Primitive().getKeyHash();
+    }
+}
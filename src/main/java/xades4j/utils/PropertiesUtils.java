@@ -68,7 +68,7 @@ public class PropertiesUtils
         caCerts = new ArrayList<X509Certificate>(caCerts.subList(1, caCerts.size()));
 
         usp.add(new CompleteCertificateRefsProperty(caCerts));
-        usp.add(new CompleteRevocationRefsProperty(vData.getCrls()));
+        usp.add(new CompleteRevocationRefsProperty(vData.getCrls(), vData.getOcspResponses()));
     }
 
     public static void addXadesXProperties(
@@ -82,7 +82,7 @@ public class PropertiesUtils
             ValidationData vData)
     {
         usp.add(new CertificateValuesProperty(vData.getCerts()));
-        usp.add(new RevocationValuesProperty(vData.getCrls()));
+        usp.add(new RevocationValuesProperty(vData.getCrls(), vData.getOcspResponses()));
     }
 
     public static void addXadesAProperties(
@@ -0,0 +1,245 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.xml.security.signature.Reference;
+
+/**
+ * Cache of the octet-streams that result from processing the {@code Reference}s
+ * of a signature for time-stamp inputs (the transforms are applied and the result
+ * is canonicalized if needed). Each {@code Reference} is processed once: the
+ * first time-stamp input that needs it captures the octets while adding them;
+ * the following ones read them from the cache.
+ * <p>
+ * The cached data is kept in memory up to a configured amount of bytes. After
+ * that, new entries are spilled to temporary files. An instance is meant to be
+ * used for a single signature, being discarded afterwards with {@link #clear()}.
+ * Instances are thread-safe.
+ * <p>
+ * Only the time-stamp inputs use the cache. The digest calculation of the
+ * signature's {@code Reference}s (the {@code DigestValue}s) isn't hooked, since
+ * Santuario doesn't expose the octets it digests; each {@code Reference} is
+ * still processed once for the core signature. The most the cache reuses from
+ * that pass is the node-set left by the transforms
+ * ({@code Reference.getTransformsOutput()}), when available.
+ * @see TimeStampDigestInputFactoryEx
+ * @author Luís
+ */
+public final class ReferenceContentsCache
+{
+    /**
+     * The key for octet-stream results, which don't depend on the canonicalization.
+     */
+    static final String OCTETS_KEY = "";
+
+    private final long maxInMemoryBytes;
+    private final Map<Reference, Map<String, Object>> entries;
+    private final List<File> tempFiles;
+    private long inMemoryBytes;
+
+    /**
+     * @param maxInMemoryBytes the maximum amount of bytes to keep in memory. Entries
+     *      that don't fit are written to temporary files
+     * @throws IllegalArgumentException if {@code maxInMemoryBytes} is negative
+     */
+    public ReferenceContentsCache(long maxInMemoryBytes)
+    {
+        if (maxInMemoryBytes < 0)
+        {
+            throw new IllegalArgumentException("Maximum in-memory size cannot be negative");
+        }
+        this.maxInMemoryBytes = maxInMemoryBytes;
+        this.entries = new IdentityHashMap<Reference, Map<String, Object>>();
+        this.tempFiles = new ArrayList<File>();
+    }
+
+    /**
+     * Releases the cached data, including the temporary files.
+     */
+    public synchronized void clear()
+    {
+        this.entries.clear();
+        this.inMemoryBytes = 0;
+        for (File f : this.tempFiles)
+        {
+            f.delete();
+        }
+        this.tempFiles.clear();
+    }
+
+    /**
+     * Opens the cached octets of a {@code Reference}. The octet-stream result
+     * is returned if present; otherwise, the result for the given canonicalization.
+     * @return the stream or {@code null} if there is no data in the cache
+     */
+    InputStream open(Reference r, String c14nKey) throws FileNotFoundException
+    {
+        Object data;
+        synchronized (this)
+        {
+            Map<String, Object> refEntries = this.entries.get(r);
+            if (null == refEntries)
+            {
+                return null;
+            }
+            data = refEntries.get(OCTETS_KEY);
+            if (null == data && c14nKey != null)
+            {
+                data = refEntries.get(c14nKey);
+            }
+        }
+
+        if (null == data)
+        {
+            return null;
+        }
+        if (data instanceof byte[])
+        {
+            return new ByteArrayInputStream((byte[]) data);
+        }
+        return new FileInputStream((File) data);
+    }
+
+    /**
+     * Starts a new entry. The entry is only visible after {@link EntryOutputStream#commit()}.
+     */
+    EntryOutputStream newEntry(Reference r, String key)
+    {
+        return new EntryOutputStream(r, key);
+    }
+
+    private synchronized long getAvailableInMemoryBytes()
+    {
+        return this.maxInMemoryBytes - this.inMemoryBytes;
+    }
+
+    private synchronized void put(Reference r, String key, Object data, int inMemorySize)
+    {
+        Map<String, Object> refEntries = this.entries.get(r);
+        if (null == refEntries)
+        {
+            refEntries = new HashMap<String, Object>(2);
+            this.entries.put(r, refEntries);
+        }
+        refEntries.put(key, data);
+        this.inMemoryBytes += inMemorySize;
+    }
+
+    private synchronized void addTempFile(File f)
+    {
+        this.tempFiles.add(f);
+    }
+
+    /**
+     * Collects the data of a cache entry. Closing has no effect, since the
+     * canonicalizers close the streams they write to; the entry is finished
+     * by either {@code commit} or {@code discard}.
+     */
+    final class EntryOutputStream extends OutputStream
+    {
+        private final Reference reference;
+        private final String key;
+        private ByteArrayOutputStream buffer;
+        private File file;
+        private OutputStream fileStream;
+
+        private EntryOutputStream(Reference reference, String key)
+        {
+            this.reference = reference;
+            this.key = key;
+            this.buffer = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[]{ (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            if (this.fileStream != null)
+            {
+                this.fileStream.write(b, off, len);
+                return;
+            }
+
+            if (this.buffer.size() + len > getAvailableInMemoryBytes())
+            {
+                // Spill to a temporary file.
+                this.file = File.createTempFile("xades4j-ref", ".tmp");
+                addTempFile(this.file);
+                this.fileStream = new FileOutputStream(this.file);
+                this.buffer.writeTo(this.fileStream);
+                this.buffer = null;
+                this.fileStream.write(b, off, len);
+                return;
+            }
+
+            this.buffer.write(b, off, len);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        void commit() throws IOException
+        {
+            if (this.fileStream != null)
+            {
+                this.fileStream.close();
+                put(this.reference, this.key, this.file, 0);
+            } else
+            {
+                byte[] data = this.buffer.toByteArray();
+                put(this.reference, this.key, data, data.length);
+            }
+        }
+
+        void discard()
+        {
+            if (this.fileStream != null)
+            {
+                try
+                {
+                    this.fileStream.close();
+                } catch (IOException ex)
+                {
+                    // Ignore; the file is deleted anyway.
+                }
+                this.file.delete();
+            }
+            this.buffer = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import xades4j.UnsupportedAlgorithmException;
+
+/**
+ * Input for time-stamps that doesn't keep the octet-stream. The data is fed to
+ * the digest engines as it is added, which avoids holding potentially large
+ * inputs in memory.
+ * @see TimeStampDigestInputFactoryEx
+ * @author Luís
+ */
+public interface StreamingTimeStampDigestInput extends TimeStampDigestInputBuilder
+{
+    /**
+     * Gets the digest of the octet-stream corresponding to the actual state of
+     * the input. No more data can be added after the digests are obtained.
+     * @param digestAlgUri the URI of the digest algorithm
+     * @return the digest value (always a new instance)
+     * @throws UnsupportedAlgorithmException if the algorithm wasn't specified
+     *      when the input was created
+     */
+    byte[] getDigest(String digestAlgUri) throws UnsupportedAlgorithmException;
+}
@@ -0,0 +1,126 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import xades4j.UnsupportedAlgorithmException;
+import xades4j.algorithms.Algorithm;
+import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvider;
+
+/**
+ * Time-stamp input that only updates a set of digests as the data is added.
+ * @author Luís
+ */
+class StreamingTimeStampDigestInputImpl extends TimeStampDigestInputBase implements StreamingTimeStampDigestInput
+{
+    private final DigestsOutputStream digests;
+    private Map<String, byte[]> digestValues;
+
+    StreamingTimeStampDigestInputImpl(
+            Algorithm c14n,
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            MessageDigestEngineProvider messageDigestProvider,
+            ReferenceContentsCache refsCache,
+            String[] digestAlgUris) throws UnsupportedAlgorithmException
+    {
+        this(c14n, parametersMarshallingProvider, refsCache, new DigestsOutputStream(getEngines(messageDigestProvider, digestAlgUris)));
+    }
+
+    private StreamingTimeStampDigestInputImpl(
+            Algorithm c14n,
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            ReferenceContentsCache refsCache,
+            DigestsOutputStream digests)
+    {
+        super(c14n, parametersMarshallingProvider, refsCache, digests);
+        this.digests = digests;
+    }
+
+    private static Map<String, MessageDigest> getEngines(
+            MessageDigestEngineProvider messageDigestProvider,
+            String[] digestAlgUris) throws UnsupportedAlgorithmException
+    {
+        Map<String, MessageDigest> engines = new HashMap<String, MessageDigest>(2);
+        for (String uri : digestAlgUris)
+        {
+            if (!engines.containsKey(uri))
+            {
+                engines.put(uri, messageDigestProvider.getEngine(uri));
+            }
+        }
+        return engines;
+    }
+
+    @Override
+    void checkNotFinished()
+    {
+        if (this.digestValues != null)
+        {
+            throw new IllegalStateException("The digests were already calculated");
+        }
+    }
+
+    @Override
+    public byte[] getDigest(String digestAlgUri) throws UnsupportedAlgorithmException
+    {
+        if (null == this.digestValues)
+        {
+            Map<String, byte[]> values = new HashMap<String, byte[]>(this.digests.engines.size());
+            for (Map.Entry<String, MessageDigest> e : this.digests.engines.entrySet())
+            {
+                values.put(e.getKey(), e.getValue().digest());
+            }
+            this.digestValues = values;
+        }
+
+        byte[] value = this.digestValues.get(digestAlgUri);
+        if (null == value)
+        {
+            throw new UnsupportedAlgorithmException("Digest algorithm not specified when creating the time-stamp input", digestAlgUri);
+        }
+        return value.clone();
+    }
+
+    private static class DigestsOutputStream extends OutputStream
+    {
+        private final Map<String, MessageDigest> engines;
+
+        DigestsOutputStream(Map<String, MessageDigest> engines)
+        {
+            this.engines = engines;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            write(new byte[]{ (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            for (MessageDigest md : this.engines.values())
+            {
+                md.update(b, off, len);
+            }
+        }
+    }
+}
@@ -27,7 +27,7 @@ import org.w3c.dom.Node;
  * or {@code Reference}s.
  * @author Luís
  */
-public interface TimeStampDigestInput
+public interface TimeStampDigestInput extends TimeStampDigestInputBuilder
 {
     /**
      * Adds a {@code Reference} to the input. It is processed and the result is
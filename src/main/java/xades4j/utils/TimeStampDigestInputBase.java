@@ -0,0 +1,240 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.transforms.Transform;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import xades4j.UnsupportedAlgorithmException;
+import xades4j.algorithms.Algorithm;
+import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvider;
+
+/**
+ * Base class for time-stamp inputs. The data is written to an output stream
+ * supplied by the subclasses; the canonicalization output is written directly
+ * to it.
+ * <p>
+ * If a {@link ReferenceContentsCache} is used, the processed {@code Reference}s
+ * are read from/added to it. In that case, if the transforms of a {@code Reference}
+ * were already applied during the core signature processing and resulted in a
+ * node-set, that node-set is reused.
+ * @author Luís
+ */
+abstract class TimeStampDigestInputBase implements TimeStampDigestInputBuilder
+{
+    private final Algorithm c14n;
+    private final AlgorithmsParametersMarshallingProvider parametersMarshallingProvider;
+    private final ReferenceContentsCache refsCache;
+    private final OutputStream digestInput;
+
+    /**
+     * @param digestInput the stream where the data is written. It shouldn't be
+     *      a {@code ByteArrayOutputStream} because the canonicalizers handle
+     *      those specially; it is never closed.
+     */
+    TimeStampDigestInputBase(
+            Algorithm c14n,
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            ReferenceContentsCache refsCache,
+            OutputStream digestInput)
+    {
+        // It would be better to have a Canonicalizer passed on the constructor
+        // but it doesn't have a method that receives a XMlSignatureInput. Apache's
+        // C14N transforms have some bug circumvent checks when mapping XMLSignatureInput
+        // to the Canonicalizer methods, so it's better to keep using C14N via Transform.
+
+        this.c14n = c14n;
+        this.parametersMarshallingProvider = parametersMarshallingProvider;
+        this.refsCache = refsCache;
+        this.digestInput = digestInput;
+    }
+
+    @Override
+    public void addReference(Reference r) throws CannotAddDataToDigestInputException
+    {
+        if (null == r)
+        {
+            throw new NullPointerException();
+        }
+
+        if (this.refsCache != null)
+        {
+            addCachedReference(r);
+            return;
+        }
+
+        try
+        {
+            XMLSignatureInput refData = r.getContentsAfterTransformation();
+            addToDigestInput(refData, r.getDocument(), this.digestInput);
+
+        } catch (XMLSignatureException ex)
+        {
+            throw new CannotAddDataToDigestInputException(ex);
+        }
+    }
+
+    private void addCachedReference(Reference r) throws CannotAddDataToDigestInputException
+    {
+        Document doc = r.getDocument();
+        try
+        {
+            String c14nKey = getC14NCacheKey(doc);
+            InputStream cached = this.refsCache.open(r, c14nKey);
+            if (cached != null)
+            {
+                try
+                {
+                    checkNotFinished();
+                    StreamUtils.readWrite(cached, this.digestInput);
+                } finally
+                {
+                    cached.close();
+                }
+                return;
+            }
+
+            // Reuse the output of the core processing if it's a node-set. Octet-streams
+            // were already consumed.
+            XMLSignatureInput refData = r.getTransformsOutput();
+            if (null == refData || !(refData.isNodeSet() || refData.isElement()))
+            {
+                refData = r.getContentsAfterTransformation();
+            }
+
+            boolean isNodeSet = refData.isNodeSet() || refData.isElement();
+            if (isNodeSet && null == c14nKey)
+            {
+                // The result cannot be cached.
+                addToDigestInput(refData, doc, this.digestInput);
+                return;
+            }
+
+            ReferenceContentsCache.EntryOutputStream entry = this.refsCache.newEntry(r, isNodeSet ? c14nKey : ReferenceContentsCache.OCTETS_KEY);
+            try
+            {
+                addToDigestInput(refData, doc, new TeeOutputStream(this.digestInput, entry));
+                entry.commit();
+            } catch (CannotAddDataToDigestInputException ex)
+            {
+                entry.discard();
+                throw ex;
+            } catch (IOException ex)
+            {
+                entry.discard();
+                throw ex;
+            }
+        } catch (XMLSignatureException ex)
+        {
+            throw new CannotAddDataToDigestInputException(ex);
+        } catch (UnsupportedAlgorithmException ex)
+        {
+            throw new CannotAddDataToDigestInputException(ex);
+        } catch (IOException ex)
+        {
+            throw new CannotAddDataToDigestInputException(ex);
+        }
+    }
+
+    /**
+     * Node-set results are cached per canonicalization algorithm. Algorithms
+     * with parameters are not supported, since their equality isn't defined.
+     */
+    private String getC14NCacheKey(Document doc) throws UnsupportedAlgorithmException
+    {
+        return null == this.parametersMarshallingProvider.marshalParameters(this.c14n, doc) ? this.c14n.getUri() : null;
+    }
+
+    @Override
+    public void addNode(Node n) throws CannotAddDataToDigestInputException
+    {
+        if (null == n)
+        {
+            throw new NullPointerException();
+        }
+
+        addToDigestInput(new XMLSignatureInput(n), n.getOwnerDocument(), this.digestInput);
+    }
+
+    private void addToDigestInput(XMLSignatureInput refData, Document doc, OutputStream out) throws CannotAddDataToDigestInputException
+    {
+        checkNotFinished();
+        try
+        {
+            if (refData.isNodeSet() || refData.isElement())
+            {
+                // The canonicalizer writes directly to the output.
+                Transform c14nTransform = TransformUtils.createTransform(this.c14n, this.parametersMarshallingProvider, doc);
+                c14nTransform.performTransform(refData, out);
+            } else if (refData.isByteArray())
+            {
+                out.write(refData.getBytes());
+            } else if (refData.isOctetStream())
+            {
+                StreamUtils.readWrite(refData.getOctetStream(), out);
+            }
+        }
+        catch (Exception ex)
+        {
+            throw new CannotAddDataToDigestInputException(ex);
+        }
+    }
+
+    /**
+     * Invoked before data is added to the input.
+     * @throws IllegalStateException if no more data can be added
+     */
+    void checkNotFinished()
+    {
+    }
+
+    private static class TeeOutputStream extends OutputStream
+    {
+        private final OutputStream first, second;
+
+        TeeOutputStream(OutputStream first, OutputStream second)
+        {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            this.first.write(b);
+            this.second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            this.first.write(b, off, len);
+            this.second.write(b, off, len);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
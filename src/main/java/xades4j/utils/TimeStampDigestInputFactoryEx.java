@@ -0,0 +1,59 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import xades4j.UnsupportedAlgorithmException;
+import xades4j.algorithms.Algorithm;
+
+/**
+ * Extension of {@link TimeStampDigestInputFactory} that creates inputs that
+ * use a {@link ReferenceContentsCache} or that only keep the digests of the data.
+ * <p>
+ * This factory is intended for use on internal components and <b>may be subject
+ * to changes.</b>
+ *
+ * @author Luís
+ */
+public interface TimeStampDigestInputFactoryEx extends TimeStampDigestInputFactory
+{
+    /**
+     * Creates a new builder of timestamp inputs that uses the specified canonicalization
+     * algorithms and reads/adds the processed {@code Reference}s from/to a cache.
+     * @param c14n the canonicalization method to be used by the timestamp input when
+     *              adding XML node-sets
+     * @param refsCache the cache of processed {@code Reference}s; may be {@code null}
+     * @return the timestamp input builder
+     * @throws UnsupportedAlgorithmException if {@code c14n} is not recognized
+     * @see TimeStampDigestInput
+     */
+    TimeStampDigestInput newTimeStampDigestInput(Algorithm c14n, ReferenceContentsCache refsCache) throws UnsupportedAlgorithmException;
+
+    /**
+     * Creates a new builder of timestamp inputs that doesn't keep the octet-stream.
+     * Instead, the data is fed to the digest engines of the specified algorithms
+     * as it is added.
+     * @param c14n the canonicalization method to be used by the timestamp input when
+     *              adding XML node-sets
+     * @param refsCache the cache of processed {@code Reference}s; may be {@code null}
+     * @param digestAlgUris the URIs of the digest algorithms to be calculated
+     * @return the timestamp input builder
+     * @throws UnsupportedAlgorithmException if {@code c14n} or any of the digest
+     *      algorithms is not recognized
+     * @see StreamingTimeStampDigestInput
+     */
+    StreamingTimeStampDigestInput newStreamingTimeStampDigestInput(Algorithm c14n, ReferenceContentsCache refsCache, String... digestAlgUris) throws UnsupportedAlgorithmException;
+}
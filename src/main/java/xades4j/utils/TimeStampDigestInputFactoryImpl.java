@@ -21,23 +21,34 @@ import org.apache.xml.security.c14n.Canonicalizer;
 import org.apache.xml.security.c14n.InvalidCanonicalizerException;
 import xades4j.algorithms.Algorithm;
 import xades4j.UnsupportedAlgorithmException;
+import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvider;
 
 /**
  * @author Luís
  */
-class TimeStampDigestInputFactoryImpl implements TimeStampDigestInputFactory
+class TimeStampDigestInputFactoryImpl implements TimeStampDigestInputFactoryEx
 {
     private final AlgorithmsParametersMarshallingProvider parametersMarshallingProvider;
+    private final MessageDigestEngineProvider messageDigestProvider;
 
     @Inject
-    TimeStampDigestInputFactoryImpl(AlgorithmsParametersMarshallingProvider parametersMarshallingProvider)
+    TimeStampDigestInputFactoryImpl(
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            MessageDigestEngineProvider messageDigestProvider)
     {
         this.parametersMarshallingProvider = parametersMarshallingProvider;
+        this.messageDigestProvider = messageDigestProvider;
     }
 
     @Override
     public TimeStampDigestInput newTimeStampDigestInput(Algorithm c14n) throws UnsupportedAlgorithmException
+    {
+        return newTimeStampDigestInput(c14n, null);
+    }
+
+    @Override
+    public TimeStampDigestInput newTimeStampDigestInput(Algorithm c14n, ReferenceContentsCache refsCache) throws UnsupportedAlgorithmException
     {
         if (null == c14n)
         {
@@ -46,6 +57,23 @@ class TimeStampDigestInputFactoryImpl implements TimeStampDigestInputFactory
 
         CanonicalizerUtils.checkC14NAlgorithm(c14n);
 
-        return new TimeStampDigestInputImpl(c14n, this.parametersMarshallingProvider);
+        return new TimeStampDigestInputImpl(c14n, this.parametersMarshallingProvider, refsCache);
+    }
+
+    @Override
+    public StreamingTimeStampDigestInput newStreamingTimeStampDigestInput(Algorithm c14n, ReferenceContentsCache refsCache, String... digestAlgUris) throws UnsupportedAlgorithmException
+    {
+        if (null == c14n)
+        {
+            throw new NullPointerException("Canonicalization algorithm cannot be null");
+        }
+        if (null == digestAlgUris || digestAlgUris.length == 0)
+        {
+            throw new IllegalArgumentException("At least one digest algorithm must be specified");
+        }
+
+        CanonicalizerUtils.checkC14NAlgorithm(c14n);
+
+        return new StreamingTimeStampDigestInputImpl(c14n, this.parametersMarshallingProvider, this.messageDigestProvider, refsCache, digestAlgUris);
     }
 }
@@ -17,97 +17,64 @@
 package xades4j.utils;
 
 import java.io.ByteArrayOutputStream;
-import java.util.List;
-import org.apache.xml.security.signature.Reference;
-import org.apache.xml.security.signature.XMLSignatureException;
-import org.apache.xml.security.signature.XMLSignatureInput;
-import org.apache.xml.security.transforms.Transform;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import java.io.OutputStream;
 import xades4j.algorithms.Algorithm;
 import xades4j.xml.marshalling.algorithms.AlgorithmsParametersMarshallingProvider;
 
 /**
- *
+ * Time-stamp input that keeps the whole octet-stream.
  * @author Luís
  */
-class TimeStampDigestInputImpl implements TimeStampDigestInput
+class TimeStampDigestInputImpl extends TimeStampDigestInputBase implements TimeStampDigestInput
 {
-    private final Algorithm c14n;
-    private final AlgorithmsParametersMarshallingProvider parametersMarshallingProvider;
+    private final ByteArrayOutputStream bytes;
 
-    private final ByteArrayOutputStream digestInput;
-
-    TimeStampDigestInputImpl(Algorithm c14n, AlgorithmsParametersMarshallingProvider parametersMarshallingProvider)
+    TimeStampDigestInputImpl(
+            Algorithm c14n,
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            ReferenceContentsCache refsCache)
     {
-        // It would be better to have a Canonicalizer passed on the constructor
-        // but it doesn't have a method that receives a XMlSignatureInput. Apache's
-        // C14N transforms have some bug circumvent checks when mapping XMLSignatureInput
-        // to the Canonicalizer methods, so it's better to keep using C14N via Transform.
-
-        this.c14n = c14n;
-        this.parametersMarshallingProvider = parametersMarshallingProvider;
-        this.digestInput = new ByteArrayOutputStream();
+        this(c14n, parametersMarshallingProvider, refsCache, new ByteArrayOutputStream());
     }
 
-    @Override
-    public void addReference(Reference r) throws CannotAddDataToDigestInputException
+    private TimeStampDigestInputImpl(
+            Algorithm c14n,
+            AlgorithmsParametersMarshallingProvider parametersMarshallingProvider,
+            ReferenceContentsCache refsCache,
+            ByteArrayOutputStream bytes)
     {
-        if (null == r)
-        {
-            throw new NullPointerException();
-        }
-
-        try
-        {
-            XMLSignatureInput refData = r.getContentsAfterTransformation();
-            addToDigestInput(refData, r.getDocument());
-
-        } catch (XMLSignatureException ex)
-        {
-            throw new CannotAddDataToDigestInputException(ex);
-        }
+        super(c14n, parametersMarshallingProvider, refsCache, new BufferOutputStream(bytes));
+        this.bytes = bytes;
     }
 
     @Override
-    public void addNode(Node n) throws CannotAddDataToDigestInputException
+    public byte[] getBytes()
     {
-        if (null == n)
-        {
-            throw new NullPointerException();
-        }
-
-        addToDigestInput(new XMLSignatureInput(n), n.getOwnerDocument());
+        return this.bytes.toByteArray();
     }
 
-    private void addToDigestInput(XMLSignatureInput refData, Document doc) throws CannotAddDataToDigestInputException
+    /**
+     * Writes to a {@code ByteArrayOutputStream} without being one.
+     */
+    private static class BufferOutputStream extends OutputStream
     {
-        try
-        {
-            if (refData.isNodeSet() || refData.isElement())
-            {
-                Transform c14nTransform = TransformUtils.createTransform(this.c14n, this.parametersMarshallingProvider, doc);
-                refData = c14nTransform.performTransform(refData);
-                // Fall through to add the bytes resulting from the canonicalization.
-            }
+        private final ByteArrayOutputStream bytes;
 
-            if (refData.isByteArray())
-            {
-                digestInput.write(refData.getBytes());
-            } else if (refData.isOctetStream())
-            {
-                StreamUtils.readWrite(refData.getOctetStream(), digestInput);
-            }
+        BufferOutputStream(ByteArrayOutputStream bytes)
+        {
+            this.bytes = bytes;
         }
-        catch (Exception ex)
+
+        @Override
+        public void write(int b)
         {
-            throw new CannotAddDataToDigestInputException(ex);
+            this.bytes.write(b);
         }
-    }
 
-    @Override
-    public byte[] getBytes()
-    {
-        return digestInput.toByteArray();
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            this.bytes.write(b, off, len);
+        }
     }
 }
@@ -18,6 +18,7 @@ package xades4j.utils;
 
 import com.google.inject.Binder;
 import com.google.inject.Guice;
+import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.TypeLiteral;
@@ -48,12 +49,23 @@ public final class XadesProfileCore
     }
     /**/
     private final Collection<BindingAction> bindings;
+    /**/
+    private Injector injector;
+    private Module[] injectorOverridableModules;
+    private Module[] injectorSealedModules;
 
     public XadesProfileCore()
     {
         this.bindings = new ArrayList<BindingAction>();
     }
 
+    private synchronized void addBindingAction(BindingAction ba)
+    {
+        this.bindings.add(ba);
+        // The bindings changed; the injector needs to be created again.
+        this.injector = null;
+    }
+
     /**
      * @throws NullPointerException if {@code from} or {@code to} are null
      */
@@ -62,7 +74,7 @@ public final class XadesProfileCore
         if (null == from || null == to)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -80,7 +92,7 @@ public final class XadesProfileCore
         if (null == from || null == to)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -98,7 +110,7 @@ public final class XadesProfileCore
         if (ObjectUtils.anyNull(genericClass, genericClassParams, to))
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -118,7 +130,7 @@ public final class XadesProfileCore
         if (ObjectUtils.anyNull(genericClass, genericClassParams, to))
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -135,7 +147,7 @@ public final class XadesProfileCore
         if (null == from || null == to)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -151,7 +163,7 @@ public final class XadesProfileCore
         if (null == from || null == to)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -167,7 +179,7 @@ public final class XadesProfileCore
         if (null == key || null == value)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -183,7 +195,7 @@ public final class XadesProfileCore
         if (null == key || null == to)
             throw new NullPointerException();
 
-        this.bindings.add(new BindingAction()
+        addBindingAction(new BindingAction()
         {
             @Override
             public void bind(Binder b)
@@ -194,17 +206,47 @@ public final class XadesProfileCore
         });
     }
 
+    /**
+     * Gets an instance of the given class using the current bindings. The injector
+     * that resolves the dependencies is created on the first call and then reused
+     * while the bindings and modules stay the same. Adding a binding invalidates
+     * the injector.
+     */
     public <T> T getInstance(
             Class<T> clazz,
             Module[] overridableModules,
             Module[] sealedModules) throws XadesProfileResolutionException
     {
+        try
+        {
+            return getInjector(overridableModules, sealedModules).getInstance(clazz);
+        }
+        catch (RuntimeException ex)
+        {
+            throw new XadesProfileResolutionException(ex.getMessage(), ex);
+        }
+    }
+
+    private synchronized Injector getInjector(
+            Module[] overridableModules,
+            Module[] sealedModules)
+    {
+        if (this.injector != null
+                && this.injectorOverridableModules == overridableModules
+                && this.injectorSealedModules == sealedModules)
+        {
+            return this.injector;
+        }
+
+        // Take a snapshot of the bindings. The injector doesn't depend on further
+        // changes to the bindings collection, since those invalidate it.
+        final Collection<BindingAction> currentBindings = new ArrayList<BindingAction>(this.bindings);
         Module userBindingsModule = new Module()
         {
             @Override
             public void configure(Binder b)
             {
-                for (BindingAction ba : bindings)
+                for (BindingAction ba : currentBindings)
                 {
                     ba.bind(b);
                 }
@@ -214,13 +256,10 @@ public final class XadesProfileCore
         // Concat sealed modules with overrides module
         Module[] finalModules = Arrays.copyOf(sealedModules, sealedModules.length + 1);
         finalModules[finalModules.length - 1] = overridesModule;
-        try
-        {
-            return Guice.createInjector(finalModules).getInstance(clazz);
-        }
-        catch (RuntimeException ex)
-        {
-            throw new XadesProfileResolutionException(ex.getMessage(), ex);
-        }
+
+        this.injector = Guice.createInjector(finalModules);
+        this.injectorOverridableModules = overridableModules;
+        this.injectorSealedModules = sealedModules;
+        return this.injector;
     }
 }
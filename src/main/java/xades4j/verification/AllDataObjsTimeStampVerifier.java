@@ -17,11 +17,12 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.Collection;
 import xades4j.properties.AllDataObjsTimeStampProperty;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.properties.QualifyingProperty;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.AllDataObjsTimeStampData;
 import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.utils.TimeStampDigestInputFactory;
@@ -35,14 +36,14 @@ class AllDataObjsTimeStampVerifier extends TimeStampVerifierBase<AllDataObjsTime
 
     @Inject
     public AllDataObjsTimeStampVerifier(
-            TimeStampVerificationProvider timeStampVerifier,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampVerificationProvider> timeStampVerifier,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(timeStampVerifier, timeStampDigestInputFactory, AllDataObjsTimeStampProperty.PROP_NAME);
     }
 
     @Override
-    protected QualifyingProperty addPropSpecificTimeStampInputAndCreateProperty(AllDataObjsTimeStampData propData, TimeStampDigestInput digestInput, QualifyingPropertyVerificationContext ctx) throws CannotAddDataToDigestInputException
+    protected QualifyingProperty addPropSpecificTimeStampInputAndCreateProperty(AllDataObjsTimeStampData propData, TimeStampDigestInputBuilder digestInput, QualifyingPropertyVerificationContext ctx) throws CannotAddDataToDigestInputException
     {
         Collection<RawDataObjectDesc> dataObjs = ctx.getSignedObjectsData().getAllDataObjects();
 
@@ -0,0 +1,37 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import xades4j.properties.data.PropertyDataObject;
+
+/**
+ * Marks a {@code QualifyingPropertyVerifier} that doesn't depend on the certification
+ * path nor on the signed data objects. Properties handled by such verifiers
+ * are verified before the certification path is built and the results are reused
+ * when the remaining properties are verified. The verification context passed to
+ * these verifiers only contains the signature; the certification chain data
+ * and the signed objects data are empty.
+ * <p>
+ * The {@code SignatureTimeStamp} properties, whose time is needed to build the
+ * certification path, are always verified on that stage, whether their verifier
+ * is marked or not. This marker allows other properties to be verified there too.
+ * @param <TData> the type of data objects that the implementing class verifies
+ * @author Luís
+ */
+public interface CertificationPathIndependentVerifier<TData extends PropertyDataObject> extends QualifyingPropertyVerifier<TData>
+{
+}
@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,13 +34,13 @@ import xades4j.providers.MessageDigestEngineProvider;
  */
 class CompleteCertRefsVerifier implements QualifyingPropertyVerifier<CompleteCertificateRefsData>
 {
-    private final MessageDigestEngineProvider messageDigestProvider;
-    private final DistinguishedNameComparer dnComparer;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
+    private final Provider<DistinguishedNameComparer> dnComparer;
 
     @Inject
     public CompleteCertRefsVerifier(
-            MessageDigestEngineProvider messageDigestProvider,
-            DistinguishedNameComparer dnComparer)
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<DistinguishedNameComparer> dnComparer)
     {
         this.messageDigestProvider = messageDigestProvider;
         this.dnComparer = dnComparer;
@@ -50,6 +51,9 @@ class CompleteCertRefsVerifier implements QualifyingPropertyVerifier<CompleteCer
             CompleteCertificateRefsData propData,
             QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
     {
+        MessageDigestEngineProvider messageDigestProvider = this.messageDigestProvider.get();
+        DistinguishedNameComparer dnComparer = this.dnComparer.get();
+
         List<X509Certificate> caCerts = ctx.getCertChainData().getCertificateChain();
         caCerts = caCerts.subList(1, caCerts.size());
         Collection<CertRef> caCertRefs = propData.getCertRefs();
@@ -59,7 +63,7 @@ class CompleteCertRefsVerifier implements QualifyingPropertyVerifier<CompleteCer
 
         for (X509Certificate caCert : caCerts)
         {
-            CertRef caRef = CertRefUtils.findCertRef(caCert, caCertRefs, this.dnComparer);
+            CertRef caRef = CertRefUtils.findCertRef(caCert, caCertRefs, dnComparer);
             if (null == caRef)
                 throw new CompleteCertRefsCertNotFoundException(caCert);
             try
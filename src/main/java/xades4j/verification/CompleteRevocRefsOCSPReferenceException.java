@@ -0,0 +1,47 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+/**
+ * Thrown during the verification of the {@code CompleteRevocationRefs} property
+ * if an OCSP reference cannot be verified or is not found.
+ * @author Luís
+ */
+public class CompleteRevocRefsOCSPReferenceException extends CompleteRevocRefsVerificationException
+{
+    private final OCSPResp ocspResponse;
+    private final String msg;
+
+    public CompleteRevocRefsOCSPReferenceException(OCSPResp ocspResponse, String msg)
+    {
+        this.ocspResponse = ocspResponse;
+        this.msg = String.format("cannot verify reference for OCSP response (%s)", msg);
+    }
+
+    public OCSPResp getOcspResponse()
+    {
+        return ocspResponse;
+    }
+
+    @Override
+    protected String getVerificationMessage()
+    {
+        return this.msg;
+    }
+}
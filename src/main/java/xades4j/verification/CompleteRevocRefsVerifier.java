@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
@@ -25,14 +26,20 @@ import java.security.cert.X509CRL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import javax.security.auth.x500.X500Principal;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 
 import xades4j.properties.CompleteRevocationRefsProperty;
 import xades4j.properties.QualifyingProperty;
 import xades4j.UnsupportedAlgorithmException;
 import xades4j.properties.data.CRLRef;
 import xades4j.properties.data.CompleteRevocationRefsData;
+import xades4j.properties.data.OCSPRef;
 import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.utils.CrlExtensionsUtils;
+import xades4j.utils.OcspResponseUtils;
 
 /**
  * XAdES G.2.2.13
@@ -40,13 +47,13 @@ import xades4j.utils.CrlExtensionsUtils;
  */
 class CompleteRevocRefsVerifier implements QualifyingPropertyVerifier<CompleteRevocationRefsData>
 {
-    private final MessageDigestEngineProvider digestEngineProvider;
-    private final DistinguishedNameComparer dnComparer;
+    private final Provider<MessageDigestEngineProvider> digestEngineProvider;
+    private final Provider<DistinguishedNameComparer> dnComparer;
 
     @Inject
     public CompleteRevocRefsVerifier(
-            MessageDigestEngineProvider digestEngineProvider,
-            DistinguishedNameComparer dnComparer)
+            Provider<MessageDigestEngineProvider> digestEngineProvider,
+            Provider<DistinguishedNameComparer> dnComparer)
     {
         this.digestEngineProvider = digestEngineProvider;
         this.dnComparer = dnComparer;
@@ -57,11 +64,19 @@ class CompleteRevocRefsVerifier implements QualifyingPropertyVerifier<CompleteRe
             CompleteRevocationRefsData propData,
             QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
     {
+        MessageDigestEngineProvider digestEngineProvider = this.digestEngineProvider.get();
+        DistinguishedNameComparer dnComparer = this.dnComparer.get();
+
         Collection<X509CRL> crls = ctx.getCertChainData().getCrls();
+        Collection<OCSPResp> ocspResponses = ctx.getCertChainData().getOcspResponses();
         Collection<CRLRef> crlRefs = new ArrayList<CRLRef>(propData.getCrlRefs());
 
-        if(crls.isEmpty())
+        // The references can only be checked if the corresponding revocation data
+        // is available.
+        if(crls.isEmpty() && (ocspResponses.isEmpty() || !crlRefs.isEmpty()))
             throw new CompleteRevocRefsCRLsNotAvailableException();
+        if(ocspResponses.isEmpty() && !propData.getOcspRefs().isEmpty())
+            throw new CompleteRevocRefsOCSPResponsesNotAvailableException();
 
         for (X509CRL crl : crls)
         {
@@ -75,7 +90,7 @@ class CompleteRevocRefsVerifier implements QualifyingPropertyVerifier<CompleteRe
 
                 // Check issuer and issue time.
 
-                if (!this.dnComparer.areEqual(crl.getIssuerX500Principal(), crlRef.issuerDN) ||
+                if (!dnComparer.areEqual(crl.getIssuerX500Principal(), crlRef.issuerDN) ||
                         !crl.getThisUpdate().equals(crlRef.issueTime.getTime()))
                     continue;
                 
@@ -90,7 +105,7 @@ class CompleteRevocRefsVerifier implements QualifyingPropertyVerifier<CompleteRe
                     }
 
                     // Check digest value.
-                    MessageDigest md = this.digestEngineProvider.getEngine(crlRef.digestAlgUri);
+                    MessageDigest md = digestEngineProvider.getEngine(crlRef.digestAlgUri);
                     if (Arrays.equals(md.digest(crl.getEncoded()), crlRef.digestValue))
                     {
                         match = crlRef;
@@ -117,6 +132,64 @@ class CompleteRevocRefsVerifier implements QualifyingPropertyVerifier<CompleteRe
             crlRefs.remove(match);
         }
 
-        return new CompleteRevocationRefsProperty(crls);
+        verifyOcspRefs(ocspResponses, new ArrayList<OCSPRef>(propData.getOcspRefs()),
+                digestEngineProvider, dnComparer);
+
+        return new CompleteRevocationRefsProperty(crls, ocspResponses);
+    }
+
+    private void verifyOcspRefs(
+            Collection<OCSPResp> ocspResponses,
+            Collection<OCSPRef> ocspRefs,
+            MessageDigestEngineProvider digestEngineProvider,
+            DistinguishedNameComparer dnComparer) throws InvalidPropertyException
+    {
+        for (OCSPResp resp : ocspResponses)
+        {
+            OCSPRef match = null;
+            try
+            {
+                BasicOCSPResp basicResp = OcspResponseUtils.getBasicResponse(resp);
+                X500Principal responderName = OcspResponseUtils.getResponderName(basicResp);
+                byte[] responderKeyHash = OcspResponseUtils.getResponderKeyHash(basicResp);
+                byte[] encodedResp = resp.getEncoded();
+
+                for (OCSPRef ocspRef : ocspRefs)
+                {
+                    // Check responder and production time.
+                    if (!basicResp.getProducedAt().equals(ocspRef.producedAt.getTime()))
+                        continue;
+                    if (responderName != null && (null == ocspRef.responderIdByName || !dnComparer.areEqual(responderName, ocspRef.responderIdByName)))
+                        continue;
+                    if (responderKeyHash != null && !Arrays.equals(responderKeyHash, ocspRef.responderIdByKey))
+                        continue;
+
+                    // Check digest value.
+                    MessageDigest md = digestEngineProvider.getEngine(ocspRef.digestAlgUri);
+                    if (Arrays.equals(md.digest(encodedResp), ocspRef.digestValue))
+                    {
+                        match = ocspRef;
+                        break;
+                    }
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new CompleteRevocRefsOCSPReferenceException(resp, ex.getMessage());
+            }
+            catch (OCSPException ex)
+            {
+                throw new CompleteRevocRefsOCSPReferenceException(resp, ex.getMessage());
+            }
+            catch (UnsupportedAlgorithmException ex)
+            {
+                throw new CompleteRevocRefsOCSPReferenceException(resp, ex.getMessage());
+            }
+
+            if (null == match)
+                throw new CompleteRevocRefsOCSPReferenceException(resp, "no matching reference");
+
+            ocspRefs.remove(match);
+        }
     }
 }
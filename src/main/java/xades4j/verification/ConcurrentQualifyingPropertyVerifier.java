@@ -0,0 +1,34 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import xades4j.properties.data.PropertyDataObject;
+
+/**
+ * Marks a {@code QualifyingPropertyVerifier} that may be applied concurrently
+ * with other verifiers of the same signature, when an executor is configured
+ * in the verification profile. Implementations must be thread-safe and must
+ * only access the DOM while holding the lock returned by
+ * {@link QualifyingPropertyVerificationContext#getDocumentLock()}, since DOM
+ * implementations are not safe for concurrent readers.
+ * @param <TData> the type of data objects that the implementing class verifies
+ * @see XadesVerificationProfile#withPropertyVerificationExecutor(java.util.concurrent.Executor)
+ * @author Luís
+ */
+interface ConcurrentQualifyingPropertyVerifier<TData extends PropertyDataObject> extends QualifyingPropertyVerifier<TData>
+{
+}
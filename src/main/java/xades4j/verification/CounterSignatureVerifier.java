@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.signature.Reference;
 import org.apache.xml.security.signature.SignedInfo;
@@ -34,12 +35,12 @@ import xades4j.utils.DOMHelper;
  * XAdES section G.2.2.7
  * @author Luís
  */
-class CounterSignatureVerifier implements QualifyingPropertyVerifier<GenericDOMData>
+class CounterSignatureVerifier implements ConcurrentQualifyingPropertyVerifier<GenericDOMData>
 {
-    private final XadesVerifier verifier;
+    private final Provider<XadesVerifier> verifier;
 
     @Inject
-    CounterSignatureVerifier(XadesVerifier verifier)
+    CounterSignatureVerifier(Provider<XadesVerifier> verifier)
     {
         this.verifier = verifier;
     }
@@ -49,18 +50,44 @@ class CounterSignatureVerifier implements QualifyingPropertyVerifier<GenericDOMD
             GenericDOMData propData,
             QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
     {
+        Element sigElem;
+        synchronized (ctx.getDocumentLock())
+        {
+            sigElem = DOMHelper.getFirstChildElement(propData.getPropertyElement());
+        }
 
-
+        XadesVerifier verifier = this.verifier.get();
         XAdESVerificationResult res;
         try
         {
-            Element sigElem = DOMHelper.getFirstChildElement(propData.getPropertyElement());
-            res = verifier.verify(sigElem, null);
+            if (verifier instanceof XadesVerifierImpl)
+            {
+                // The nested verification shares the lock and only holds it
+                // while accessing the DOM.
+                res = ((XadesVerifierImpl) verifier).verify(sigElem, null, ctx.getDocumentLock());
+            }
+            else
+            {
+                synchronized (ctx.getDocumentLock())
+                {
+                    res = verifier.verify(sigElem, null);
+                }
+            }
         } catch (XAdES4jException ex)
         {
             throw new CounterSignatureXadesVerificationException(ex);
         }
 
+        synchronized (ctx.getDocumentLock())
+        {
+            return checkSignatureValueReference(res, ctx);
+        }
+    }
+
+    private static QualifyingProperty checkSignatureValueReference(
+            XAdESVerificationResult res,
+            QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
+    {
         // "Check that the enclosed signature correctly references the ds:SignatureValue
         // present in the countersigned XAdES signature."
 
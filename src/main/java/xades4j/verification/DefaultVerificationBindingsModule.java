@@ -17,6 +17,8 @@
 package xades4j.verification;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
@@ -49,6 +51,7 @@ import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.providers.SignaturePolicyDocumentProvider;
 import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.providers.impl.DefaultX500NameStyleProvider;
+import xades4j.providers.impl.TimeStampVerificationCache;
 import xades4j.utils.BuiltIn;
 import xades4j.utils.RFC4519ExtensibleStyle;
 import xades4j.utils.X500ExtensibleNameStyle;
@@ -68,15 +71,24 @@ class DefaultVerificationBindingsModule extends AbstractModule
         ParameterizedType pt = Types.newParameterizedType(QualifyingPropertyVerifier.class, dataObjectClass);
         TypeLiteral<QualifyingPropertyVerifier<TData>> tl = (TypeLiteral<QualifyingPropertyVerifier<TData>>)TypeLiteral.get(pt);
         
-        bind(tl).to(verifierClass);
-        bind(tl).annotatedWith(BuiltIn.class).to(verifierClass);
+        bind(tl).to(verifierClass).in(Singleton.class);
+        bind(tl).annotatedWith(BuiltIn.class).to(verifierClass).in(Singleton.class);
     }
 
     @Override
     protected void configure()
     {
-        bind(MessageDigestEngineProvider.class).to(DefaultMessageDigestProvider.class);
+        bind(MessageDigestEngineProvider.class).to(DefaultMessageDigestProvider.class).in(Singleton.class);
         bind(TimeStampVerificationProvider.class).to(DefaultTimeStampVerificationProvider.class);
+        // The verified tokens are shared by all the verifiers of a profile.
+        bind(TimeStampVerificationCache.class).toProvider(new Provider<TimeStampVerificationCache>()
+        {
+            @Override
+            public TimeStampVerificationCache get()
+            {
+                return new TimeStampVerificationCache(256, 60 * 1000);
+            }
+        }).in(Singleton.class);
         bind(SignaturePolicyDocumentProvider.class).toInstance(new SignaturePolicyDocumentProvider()
         {
             @Override
@@ -90,7 +102,11 @@ class DefaultVerificationBindingsModule extends AbstractModule
         // QualifyingPropertiesVerifier is not configurable but the individual
         // verifiers may have dependencies.
         bind(QualifyingPropertiesVerifier.class).to(QualifyingPropertiesVerifierImpl.class);
-        bind(QualifyingPropertyVerifiersMapper.class).to(QualifyingPropertyVerifiersMapperImpl.class);
+        // The mapper keeps the providers of the verifiers; those bound in
+        // singleton scope return the same instance on every verification. The
+        // built-in verifiers are stateless and get the dependencies that users
+        // may replace through providers on each use, so they are singletons.
+        bind(QualifyingPropertyVerifiersMapper.class).to(QualifyingPropertyVerifiersMapperImpl.class).in(Singleton.class);
         bind(X500NameStyleProvider.class).to(DefaultX500NameStyleProvider.class);
         bind(X500ExtensibleNameStyle.class).to(RFC4519ExtensibleStyle.class);
 //        customGlobalStructureVerifiers.add(new CustomPropertiesDataObjsStructureVerifier()
@@ -124,12 +140,12 @@ class DefaultVerificationBindingsModule extends AbstractModule
         MapBinder<QName, QualifyingPropertyVerifier> unkownElemsBinder = MapBinder.newMapBinder(binder(), QName.class, QualifyingPropertyVerifier.class);
         unkownElemsBinder
                 .addBinding(new QName(QualifyingProperty.XADES_XMLNS, CounterSignatureProperty.PROP_NAME))
-                .to(CounterSignatureVerifier.class);
+                .to(CounterSignatureVerifier.class).in(Singleton.class);
 
         // Verification based on XML elements names.
         bind(new TypeLiteral<QualifyingPropertyVerifier<GenericDOMData>>()
         {
-        }).to(GenericDOMDataVerifier.class);
+        }).to(GenericDOMDataVerifier.class).in(Singleton.class);
 
         // Ensure empty sets when no bindings are defined
         Multibinder.newSetBinder(binder(), RawSignatureVerifier.class);
@@ -17,6 +17,8 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.util.Providers;
 import java.util.Map;
 import javax.xml.namespace.QName;
 import org.w3c.dom.Element;
@@ -29,14 +31,19 @@ import xades4j.properties.data.GenericDOMData;
  */
 class GenericDOMDataVerifier implements QualifyingPropertyVerifier<GenericDOMData>
 {
-    private final Map<QName,QualifyingPropertyVerifier> customElemVerifiers;
+    private final Provider<Map<QName, QualifyingPropertyVerifier>> customElemVerifiers;
 
     @Inject
-    GenericDOMDataVerifier(Map<QName, QualifyingPropertyVerifier> customElemVerifiers)
+    GenericDOMDataVerifier(Provider<Map<QName, QualifyingPropertyVerifier>> customElemVerifiers)
     {
         this.customElemVerifiers = customElemVerifiers;
     }
 
+    GenericDOMDataVerifier(Map<QName, QualifyingPropertyVerifier> customElemVerifiers)
+    {
+        this(Providers.of(customElemVerifiers));
+    }
+
     @Override
     public QualifyingProperty verify(
             GenericDOMData propData,
@@ -45,7 +52,7 @@ class GenericDOMDataVerifier implements QualifyingPropertyVerifier<GenericDOMDat
         final Element propElem = propData.getPropertyElement();
         QName propElemQName = new QName(propElem.getNamespaceURI(), propElem.getLocalName());
 
-        QualifyingPropertyVerifier propVerifier = customElemVerifiers.get(propElemQName);
+        QualifyingPropertyVerifier propVerifier = customElemVerifiers.get().get(propElemQName);
         if (null == propVerifier)
             throw new InvalidPropertyException()
             {
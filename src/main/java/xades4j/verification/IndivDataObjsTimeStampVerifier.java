@@ -17,10 +17,11 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.properties.IndividualDataObjsTimeStampProperty;
 import xades4j.properties.QualifyingProperty;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.IndividualDataObjsTimeStampData;
 import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.utils.TimeStampDigestInputFactory;
@@ -34,8 +35,8 @@ class IndivDataObjsTimeStampVerifier extends TimeStampVerifierBase<IndividualDat
 {
     @Inject
     public IndivDataObjsTimeStampVerifier(
-            TimeStampVerificationProvider timeStampVerifier,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampVerificationProvider> timeStampVerifier,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(timeStampVerifier, timeStampDigestInputFactory, IndividualDataObjsTimeStampProperty.PROP_NAME);
     }
@@ -43,7 +44,7 @@ class IndivDataObjsTimeStampVerifier extends TimeStampVerifierBase<IndividualDat
     @Override
     protected QualifyingProperty addPropSpecificTimeStampInputAndCreateProperty(
             IndividualDataObjsTimeStampData propData,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             QualifyingPropertyVerificationContext ctx) throws CannotAddDataToDigestInputException, TimeStampVerificationException
     {
         SignedObjectsData dataObjsData = ctx.getSignedObjectsData();
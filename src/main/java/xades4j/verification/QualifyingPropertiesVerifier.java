@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.data.PropertyDataStructureException;
 
@@ -26,10 +27,37 @@ import xades4j.properties.data.PropertyDataStructureException;
  */
 interface QualifyingPropertiesVerifier
 {
+    /**
+     * Sets the executor used to apply the {@link ConcurrentQualifyingPropertyVerifier}s.
+     * If {@code null} (the default), all the verifiers are applied on the calling thread.
+     */
+    void setExecutor(Executor executor);
+
     /**
      * Verifies the data objects' structure and the XAdES rules.
      */
     Collection<PropertyInfo> verifyProperties(
             Collection<PropertyDataObject> unmarshalledProperties,
             QualifyingPropertyVerificationContext ctx) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException;
+
+    /**
+     * Verifies the {@code SignatureTimeStamp} properties and the properties whose
+     * verifiers are {@link CertificationPathIndependentVerifier}s. This is the
+     * first verification stage, applied before the certification path is built.
+     * The other properties are ignored.
+     */
+    Collection<PropertyInfo> verifyPropertiesBeforeCertificationPath(
+            Collection<PropertyDataObject> unmarshalledProperties,
+            QualifyingPropertyVerificationContext ctx) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException;
+
+    /**
+     * Verifies the data objects' structure and the XAdES rules. This is the
+     * second verification stage: the properties in {@code alreadyVerified},
+     * resulting from {@link #verifyPropertiesBeforeCertificationPath}, are not
+     * verified again and are included in the result as they are.
+     */
+    Collection<PropertyInfo> verifyProperties(
+            Collection<PropertyDataObject> unmarshalledProperties,
+            QualifyingPropertyVerificationContext ctx,
+            Collection<PropertyInfo> alreadyVerified) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException;
 }
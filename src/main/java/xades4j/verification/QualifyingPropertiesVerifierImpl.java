@@ -20,19 +20,33 @@ import com.google.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import xades4j.properties.QualifyingProperty;
 import xades4j.properties.data.PropertiesDataObjectsStructureVerifier;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.data.PropertyDataStructureException;
+import xades4j.properties.data.SignatureTimeStampData;
 
 /**
- *
+ * Applies the verifiers of each property. If an executor is configured, the
+ * {@link ConcurrentQualifyingPropertyVerifier}s are applied concurrently on the
+ * executor while the other verifiers are applied on the calling thread. In both
+ * cases the resulting properties are in the same order as the data objects and
+ * the error reported is the one of the first failing property on that order.
  * @author Luís
  */
 class QualifyingPropertiesVerifierImpl implements QualifyingPropertiesVerifier
 {
     private final QualifyingPropertyVerifiersMapper propertyVerifiersMapper;
     private final PropertiesDataObjectsStructureVerifier dataObjectsStructureVerifier;
+    private Executor executor;
 
     @Inject
     QualifyingPropertiesVerifierImpl(
@@ -41,6 +55,13 @@ class QualifyingPropertiesVerifierImpl implements QualifyingPropertiesVerifier
     {
         this.propertyVerifiersMapper = propertyVerifiersMapper;
         this.dataObjectsStructureVerifier = dataObjectsStructureVerifier;
+        this.executor = null;
+    }
+
+    @Override
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
     }
 
     @Override
@@ -48,21 +69,287 @@ class QualifyingPropertiesVerifierImpl implements QualifyingPropertiesVerifier
             Collection<PropertyDataObject> unmarshalledProperties,
             QualifyingPropertyVerificationContext ctx) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
     {
-        dataObjectsStructureVerifier.verifiyPropertiesDataStructure(unmarshalledProperties);
+        return verifyProperties(unmarshalledProperties, ctx, Collections.<PropertyInfo>emptyList());
+    }
+
+    @Override
+    public Collection<PropertyInfo> verifyPropertiesBeforeCertificationPath(
+            Collection<PropertyDataObject> unmarshalledProperties,
+            QualifyingPropertyVerificationContext ctx) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
+    {
+        List<PropertyDataObject> stageProps = new ArrayList<PropertyDataObject>();
 
-        Collection<PropertyInfo> props = new ArrayList<PropertyInfo>(unmarshalledProperties.size());
-        
         for (PropertyDataObject propData : unmarshalledProperties)
         {
-            QualifyingPropertyVerifier<PropertyDataObject> propVerifier = this.propertyVerifiersMapper.getVerifier(propData);
+            // The signature time-stamps are always verified here, whatever their
+            // verifier is, since their time is needed to build the certification
+            // path. Other properties are included if their verifiers allow it.
+            if (propData instanceof SignatureTimeStampData)
+            {
+                stageProps.add(propData);
+                continue;
+            }
+            try
+            {
+                if (this.propertyVerifiersMapper.isCertificationPathIndependent(propData))
+                {
+                    stageProps.add(propData);
+                }
+            }
+            catch (QualifyingPropertyVerifierNotAvailableException ex)
+            {
+                // Reported on the second stage.
+            }
+        }
+
+        if (stageProps.isEmpty())
+        {
+            return Collections.emptyList();
+        }
 
-            QualifyingProperty p = propVerifier.verify(propData, ctx);
-            if (null == p)
-                throw new PropertyVerifierErrorException(propData.getClass().getName());
+        dataObjectsStructureVerifier.verifiyPropertiesDataStructure(stageProps);
 
-            props.add(new PropertyInfo(propData, p));
+        return verifyPropertiesData(stageProps, Collections.<PropertyDataObject, PropertyInfo>emptyMap(), ctx);
+    }
+
+    @Override
+    public Collection<PropertyInfo> verifyProperties(
+            Collection<PropertyDataObject> unmarshalledProperties,
+            QualifyingPropertyVerificationContext ctx,
+            Collection<PropertyInfo> alreadyVerified) throws PropertyDataStructureException, InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
+    {
+        dataObjectsStructureVerifier.verifiyPropertiesDataStructure(unmarshalledProperties);
+
+        // Property data objects don't override equals, hence the identity map.
+        Map<PropertyDataObject, PropertyInfo> verified = new IdentityHashMap<PropertyDataObject, PropertyInfo>();
+        for (PropertyInfo p : alreadyVerified)
+        {
+            verified.put(p.getPropertyData(), p);
+        }
+
+        return verifyPropertiesData(new ArrayList<PropertyDataObject>(unmarshalledProperties), verified, ctx);
+    }
+
+    private Collection<PropertyInfo> verifyPropertiesData(
+            List<PropertyDataObject> propsData,
+            Map<PropertyDataObject, PropertyInfo> verified,
+            QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
+    {
+        Executor exec = this.executor;
+        // If the current thread holds the document lock (e.g. counter signatures)
+        // the concurrent verifiers wouldn't be able to proceed.
+        if (null == exec || Thread.holdsLock(ctx.getDocumentLock()))
+        {
+            Collection<PropertyInfo> props = new ArrayList<PropertyInfo>(propsData.size());
+
+            for (PropertyDataObject propData : propsData)
+            {
+                PropertyInfo p = verified.get(propData);
+                if (null == p)
+                {
+                    QualifyingPropertyVerifier<PropertyDataObject> propVerifier = this.propertyVerifiersMapper.getVerifier(propData);
+                    p = verifyProperty(propData, propVerifier, ctx);
+                }
+                props.add(p);
+            }
+
+            return Collections.unmodifiableCollection(props);
+        }
+
+        return verifyPropertiesDataConcurrently(propsData, verified, ctx, exec);
+    }
+
+    private Collection<PropertyInfo> verifyPropertiesDataConcurrently(
+            List<PropertyDataObject> propsData,
+            Map<PropertyDataObject, PropertyInfo> verified,
+            final QualifyingPropertyVerificationContext ctx,
+            Executor exec) throws InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
+    {
+        int nProps = propsData.size();
+        PropertyInfo[] results = new PropertyInfo[nProps];
+        Throwable[] errors = new Throwable[nProps];
+        List<FutureTask<PropertyInfo>> tasks = new ArrayList<FutureTask<PropertyInfo>>(nProps);
+        List<QualifyingPropertyVerifier<PropertyDataObject>> callerVerifiers = new ArrayList<QualifyingPropertyVerifier<PropertyDataObject>>(nProps);
+
+        // Start the concurrent verifiers.
+        for (int i = 0; i < nProps; i++)
+        {
+            final PropertyDataObject propData = propsData.get(i);
+            FutureTask<PropertyInfo> task = null;
+            QualifyingPropertyVerifier<PropertyDataObject> callerVerifier = null;
+
+            results[i] = verified.get(propData);
+            if (null == results[i])
+            {
+                try
+                {
+                    final QualifyingPropertyVerifier<PropertyDataObject> propVerifier = this.propertyVerifiersMapper.getVerifier(propData);
+                    if (propVerifier instanceof ConcurrentQualifyingPropertyVerifier)
+                    {
+                        task = new FutureTask<PropertyInfo>(new Callable<PropertyInfo>()
+                        {
+                            @Override
+                            public PropertyInfo call() throws InvalidPropertyException
+                            {
+                                return verifyProperty(propData, propVerifier, ctx);
+                            }
+                        });
+                        startTask(task, exec);
+                    }
+                    else
+                    {
+                        callerVerifier = propVerifier;
+                    }
+                }
+                catch (QualifyingPropertyVerifierNotAvailableException ex)
+                {
+                    errors[i] = ex;
+                }
+            }
+
+            tasks.add(task);
+            callerVerifiers.add(callerVerifier);
+        }
+
+        // Apply the other verifiers on this thread. Verifiers after the first
+        // known error don't need to be applied.
+        for (int i = 0; i < nProps && !hasErrors(errors, i); i++)
+        {
+            QualifyingPropertyVerifier<PropertyDataObject> propVerifier = callerVerifiers.get(i);
+            if (propVerifier != null)
+            {
+                try
+                {
+                    results[i] = verifyProperty(propsData.get(i), propVerifier, ctx);
+                }
+                catch (InvalidPropertyException ex)
+                {
+                    errors[i] = ex;
+                }
+                catch (RuntimeException ex)
+                {
+                    errors[i] = ex;
+                }
+            }
+        }
+
+        // Always wait for all the tasks, so that none is using the DOM when this
+        // method returns.
+        boolean interrupted = false;
+        for (int i = 0; i < nProps; i++)
+        {
+            FutureTask<PropertyInfo> task = tasks.get(i);
+            if (null == task)
+            {
+                continue;
+            }
+
+            // Run the task here if the executor didn't start it yet.
+            task.run();
+            while (true)
+            {
+                try
+                {
+                    results[i] = task.get();
+                    break;
+                }
+                catch (InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException ex)
+                {
+                    errors[i] = ex.getCause();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        Collection<PropertyInfo> props = new ArrayList<PropertyInfo>(nProps);
+        for (int i = 0; i < nProps; i++)
+        {
+            if (errors[i] != null)
+            {
+                throw rethrow(errors[i]);
+            }
+            props.add(results[i]);
         }
 
         return Collections.unmodifiableCollection(props);
     }
+
+    private static void startTask(FutureTask<PropertyInfo> task, Executor exec)
+    {
+        try
+        {
+            exec.execute(task);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // Will be run on the calling thread.
+        }
+    }
+
+    private static boolean hasErrors(Throwable[] errors, int end)
+    {
+        for (int i = 0; i < end; i++)
+        {
+            if (errors[i] != null)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RuntimeException rethrow(Throwable t) throws InvalidPropertyException, QualifyingPropertyVerifierNotAvailableException
+    {
+        if (t instanceof InvalidPropertyException)
+        {
+            throw (InvalidPropertyException) t;
+        }
+        if (t instanceof QualifyingPropertyVerifierNotAvailableException)
+        {
+            throw (QualifyingPropertyVerifierNotAvailableException) t;
+        }
+        if (t instanceof RuntimeException)
+        {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error)
+        {
+            throw (Error) t;
+        }
+        // Verifiers only throw InvalidPropertyException.
+        throw new IllegalStateException(t);
+    }
+
+    private static PropertyInfo verifyProperty(
+            PropertyDataObject propData,
+            QualifyingPropertyVerifier<PropertyDataObject> propVerifier,
+            QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
+    {
+        QualifyingProperty p;
+        if (propVerifier instanceof ConcurrentQualifyingPropertyVerifier)
+        {
+            // Takes the document lock only while accessing the DOM.
+            p = propVerifier.verify(propData, ctx);
+        }
+        else
+        {
+            // Other verifiers may access the DOM at any point.
+            synchronized (ctx.getDocumentLock())
+            {
+                p = propVerifier.verify(propData, ctx);
+            }
+        }
+        if (null == p)
+            throw new PropertyVerifierErrorException(propData.getClass().getName());
+
+        return new PropertyInfo(propData, p);
+    }
 }
@@ -31,11 +31,13 @@ import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import xades4j.providers.X500NameStyleProvider;
+import xades4j.utils.ReferenceContentsCache;
 
 /**
  * The context available during the verification of the qualifying properties.
@@ -47,15 +49,29 @@ public class QualifyingPropertyVerificationContext
     private final XMLSignature signature;
     private final CertificationChainData certChainData;
     private final SignedObjectsData signedObjectsData;
+    private final ReferenceContentsCache referenceContentsCache;
+    private final Object documentLock;
 
     QualifyingPropertyVerificationContext(
             XMLSignature signature,
             CertificationChainData certChainData,
             SignedObjectsData signedObjectsData)
+    {
+        this(signature, certChainData, signedObjectsData, null, new Object());
+    }
+
+    QualifyingPropertyVerificationContext(
+            XMLSignature signature,
+            CertificationChainData certChainData,
+            SignedObjectsData signedObjectsData,
+            ReferenceContentsCache referenceContentsCache,
+            Object documentLock)
     {
         this.signature = signature;
         this.certChainData = certChainData;
         this.signedObjectsData = signedObjectsData;
+        this.referenceContentsCache = referenceContentsCache;
+        this.documentLock = documentLock;
     }
 
     public XMLSignature getSignature()
@@ -73,6 +89,22 @@ public class QualifyingPropertyVerificationContext
         return signedObjectsData;
     }
 
+    ReferenceContentsCache getReferenceContentsCache()
+    {
+        return referenceContentsCache;
+    }
+
+    /**
+     * Gets the object that guards the access to the signature's document when
+     * properties are verified concurrently. It is private to the verification
+     * (and the nested verifications of counter signatures).
+     * @see ConcurrentQualifyingPropertyVerifier
+     */
+    Object getDocumentLock()
+    {
+        return documentLock;
+    }
+
     /**
      * 
      */
@@ -80,17 +112,20 @@ public class QualifyingPropertyVerificationContext
     {
         private final List<X509Certificate> certificateChain;
         private final Collection<X509CRL> crls;
+        private final Collection<OCSPResp> ocspResponses;
         private final X500Principal validationCertIssuer;
         private final BigInteger validationCertSerialNumber;
 
         CertificationChainData(
                 List<X509Certificate> certificateChain,
                 Collection<X509CRL> crls,
+                Collection<OCSPResp> ocspResponses,
                 XMLX509IssuerSerial validationCertIssuerSerial,
                 X500NameStyleProvider x500NameStyleProvider)
         {
             this.certificateChain = Collections.unmodifiableList(certificateChain);
             this.crls = Collections.unmodifiableCollection(crls);
+            this.ocspResponses = Collections.unmodifiableCollection(ocspResponses);
             if (validationCertIssuerSerial != null)
             {
                 this.validationCertIssuer = x500NameStyleProvider.fromString(validationCertIssuerSerial.getIssuerName());
@@ -112,6 +147,11 @@ public class QualifyingPropertyVerificationContext
             return crls;
         }
 
+        public Collection<OCSPResp> getOcspResponses()
+        {
+            return ocspResponses;
+        }
+
         public X500Principal getValidationCertIssuer()
         {
             return validationCertIssuer;
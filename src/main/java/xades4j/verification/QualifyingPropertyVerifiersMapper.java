@@ -26,4 +26,12 @@ interface QualifyingPropertyVerifiersMapper
 {
     <TData extends PropertyDataObject> QualifyingPropertyVerifier<TData> getVerifier(
             TData p) throws QualifyingPropertyVerifierNotAvailableException;
+
+    /**
+     * Indicates whether the verifier of the given data object is a {@link CertificationPathIndependentVerifier}.
+     * This is decided from the class of the verifier when possible, without creating
+     * a new verifier.
+     */
+    boolean isCertificationPathIndependent(
+            PropertyDataObject p) throws QualifyingPropertyVerifierNotAvailableException;
 }
@@ -16,28 +16,65 @@
  */
 package xades4j.verification;
 
+import com.google.inject.Binding;
 import com.google.inject.ConfigurationException;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Provider;
 import com.google.inject.ProvisionException;
 import com.google.inject.TypeLiteral;
+import com.google.inject.spi.ConstructorBinding;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.UntargettedBinding;
 import com.google.inject.util.Types;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import xades4j.properties.data.PropertyDataObject;
 
 /**
- *
+ * Resolves the verifiers through the injector. The providers of the verifiers
+ * explicitly bound in the injector are collected upon construction into a table
+ * keyed by property data object class. Other classes are resolved on first use
+ * and added to the table.
+ * <p>
+ * Whether a verifier is {@link CertificationPathIndependentVerifier} is decided
+ * from the implementation class in its binding, when it is known, and kept in
+ * another table, also keyed by property data object class.
  * @author Luís
  */
 class QualifyingPropertyVerifiersMapperImpl implements QualifyingPropertyVerifiersMapper
 {
     private final Injector injector;
+    private final Map<Class<?>, Provider<?>> verifiers;
+    private final Map<Class<?>, Boolean> pathIndependence;
 
     @Inject
     public QualifyingPropertyVerifiersMapperImpl(Injector injector)
     {
         this.injector = injector;
+        this.verifiers = new ConcurrentHashMap<Class<?>, Provider<?>>();
+        this.pathIndependence = new ConcurrentHashMap<Class<?>, Boolean>();
+
+        for (Map.Entry<Key<?>, Binding<?>> e : injector.getBindings().entrySet())
+        {
+            Key<?> k = e.getKey();
+            Type t = k.getTypeLiteral().getType();
+            if (k.getAnnotationType() == null && t instanceof ParameterizedType)
+            {
+                ParameterizedType pt = (ParameterizedType) t;
+                Type arg = pt.getActualTypeArguments()[0];
+                if (pt.getRawType() == QualifyingPropertyVerifier.class && arg instanceof Class)
+                {
+                    this.verifiers.put((Class<?>) arg, e.getValue().getProvider());
+                }
+            }
+        }
     }
 
     @Override
@@ -46,8 +83,14 @@ class QualifyingPropertyVerifiersMapperImpl implements QualifyingPropertyVerifie
     {
         try
         {
-            ParameterizedType pt = Types.newParameterizedType(QualifyingPropertyVerifier.class, p.getClass());
-            return (QualifyingPropertyVerifier)injector.getInstance(Key.get(TypeLiteral.get(pt)));
+            Provider<?> provider = this.verifiers.get(p.getClass());
+            if (null == provider)
+            {
+                ParameterizedType pt = Types.newParameterizedType(QualifyingPropertyVerifier.class, p.getClass());
+                provider = injector.getProvider(Key.get(TypeLiteral.get(pt)));
+                this.verifiers.put(p.getClass(), provider);
+            }
+            return (QualifyingPropertyVerifier) provider.get();
         } catch (ConfigurationException ex)
         {
         } catch (ProvisionException ex)
@@ -55,4 +98,64 @@ class QualifyingPropertyVerifiersMapperImpl implements QualifyingPropertyVerifie
         }
         throw new QualifyingPropertyVerifierNotAvailableException(p);
     }
+
+    @Override
+    public boolean isCertificationPathIndependent(
+            PropertyDataObject p) throws QualifyingPropertyVerifierNotAvailableException
+    {
+        Boolean independent = this.pathIndependence.get(p.getClass());
+        if (null == independent)
+        {
+            Class<?> verifierClass = null;
+            try
+            {
+                ParameterizedType pt = Types.newParameterizedType(QualifyingPropertyVerifier.class, p.getClass());
+                verifierClass = getImplementationClass(injector.getBinding(Key.get(TypeLiteral.get(pt))));
+            } catch (ConfigurationException ex)
+            {
+                throw new QualifyingPropertyVerifierNotAvailableException(p);
+            }
+
+            if (null == verifierClass || verifierClass.isInterface() || Modifier.isAbstract(verifierClass.getModifiers()))
+            {
+                // Implementation class not known (e.g. provider bindings).
+                independent = getVerifier(p) instanceof CertificationPathIndependentVerifier;
+            } else
+            {
+                independent = CertificationPathIndependentVerifier.class.isAssignableFrom(verifierClass);
+            }
+            this.pathIndependence.put(p.getClass(), independent);
+        }
+        return independent;
+    }
+
+    private Class<?> getImplementationClass(Binding<?> binding)
+    {
+        return binding.acceptTargetVisitor(new DefaultBindingTargetVisitor<Object, Class<?>>()
+        {
+            @Override
+            public Class<?> visit(LinkedKeyBinding<? extends Object> b)
+            {
+                return getImplementationClass(injector.getBinding(b.getLinkedKey()));
+            }
+
+            @Override
+            public Class<?> visit(InstanceBinding<? extends Object> b)
+            {
+                return b.getInstance().getClass();
+            }
+
+            @Override
+            public Class<?> visit(ConstructorBinding<? extends Object> b)
+            {
+                return b.getConstructor().getMember().getDeclaringClass();
+            }
+
+            @Override
+            public Class<?> visit(UntargettedBinding<? extends Object> b)
+            {
+                return b.getKey().getTypeLiteral().getRawType();
+            }
+        });
+    }
 }
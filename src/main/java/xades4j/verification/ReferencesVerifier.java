@@ -0,0 +1,100 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.SignedInfo;
+import xades4j.utils.ConcurrentReferenceDigester;
+
+/**
+ * Verifies the references of a signature, digesting each of them only once.
+ * <p>
+ * If an executor is supplied, the references to external octet streams that
+ * don't have transforms (typically detached data objects) are digested on the
+ * executor. The other references are verified on the calling thread.
+ * @see ConcurrentReferenceDigester
+ * @author Luís
+ */
+class ReferencesVerifier
+{
+    private ReferencesVerifier()
+    {
+    }
+
+    /**
+     * Verifies all the references.
+     * @param signedInfo the signed info of the signature
+     * @param executor the executor for the digests of the external references; may be {@code null}
+     * @return the index of the first invalid reference or -1 if all the references are valid
+     * @throws XMLSecurityException if a reference cannot be resolved or digested
+     */
+    static int verifyReferences(
+            SignedInfo signedInfo,
+            Executor executor) throws XMLSecurityException
+    {
+        int nRefs = signedInfo.getLength();
+        boolean[] results = new boolean[nRefs];
+        byte[][] expectedDigests = new byte[nRefs][];
+        ConcurrentReferenceDigester digester = null == executor ? null : new ConcurrentReferenceDigester(executor);
+        Map<Reference, byte[]> digests = null;
+
+        try
+        {
+            for (int i = 0; i < nRefs; i++)
+            {
+                Reference r = signedInfo.item(i);
+                if (digester != null && digester.tryStart(r))
+                {
+                    expectedDigests[i] = r.getDigestValue();
+                }
+                else
+                {
+                    results[i] = r.verify();
+                }
+            }
+
+            if (digester != null)
+            {
+                digests = digester.awaitDigests();
+            }
+        }
+        finally
+        {
+            if (digester != null && null == digests)
+            {
+                digester.cancel();
+            }
+        }
+
+        for (int i = 0; i < nRefs; i++)
+        {
+            if (expectedDigests[i] != null)
+            {
+                results[i] = MessageDigestAlgorithm.isEqual(expectedDigests[i], digests.get(signedInfo.item(i)));
+            }
+            if (!results[i])
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
@@ -35,16 +36,16 @@ import xades4j.utils.MessageDigestUtils;
  *
  * @author Luís
  */
-class SignaturePolicyVerifier implements QualifyingPropertyVerifier<SignaturePolicyData>
+class SignaturePolicyVerifier implements ConcurrentQualifyingPropertyVerifier<SignaturePolicyData>
 {
 
-    private final SignaturePolicyDocumentProvider policyDocumentProvider;
-    private final MessageDigestEngineProvider messageDigestProvider;
+    private final Provider<SignaturePolicyDocumentProvider> policyDocumentProvider;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
 
     @Inject
     public SignaturePolicyVerifier(
-            SignaturePolicyDocumentProvider policyDocumentProvider,
-            MessageDigestEngineProvider messageDigestProvider)
+            Provider<SignaturePolicyDocumentProvider> policyDocumentProvider,
+            Provider<MessageDigestEngineProvider> messageDigestProvider)
     {
         this.policyDocumentProvider = policyDocumentProvider;
         this.messageDigestProvider = messageDigestProvider;
@@ -55,6 +56,9 @@ class SignaturePolicyVerifier implements QualifyingPropertyVerifier<SignaturePol
             SignaturePolicyData propData,
             QualifyingPropertyVerificationContext ctx) throws SignaturePolicyVerificationException
     {
+        SignaturePolicyDocumentProvider policyDocumentProvider = this.policyDocumentProvider.get();
+        MessageDigestEngineProvider messageDigestProvider = this.messageDigestProvider.get();
+
         ObjectIdentifier policyId = propData.getIdentifier();
         if (null == policyId)
         {
@@ -62,7 +66,7 @@ class SignaturePolicyVerifier implements QualifyingPropertyVerifier<SignaturePol
         }
 
         // Get the policy document
-        InputStream sigDocStream = this.policyDocumentProvider.getSignaturePolicyDocumentStream(policyId);
+        InputStream sigDocStream = policyDocumentProvider.getSignaturePolicyDocumentStream(policyId);
         if (null == sigDocStream)
         {
             throw new SignaturePolicyNotAvailableException(policyId, null);
@@ -70,7 +74,7 @@ class SignaturePolicyVerifier implements QualifyingPropertyVerifier<SignaturePol
 
         try
         {
-            MessageDigest md = this.messageDigestProvider.getEngine(propData.getDigestAlgorithm());
+            MessageDigest md = messageDigestProvider.getEngine(propData.getDigestAlgorithm());
             byte[] sigDocDigest = MessageDigestUtils.digestStream(md, sigDocStream);
 
             // Check the document digest.
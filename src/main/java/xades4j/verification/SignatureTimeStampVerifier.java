@@ -17,12 +17,13 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import org.apache.xml.security.utils.Constants;
 import org.w3c.dom.Element;
 import xades4j.utils.CannotAddDataToDigestInputException;
 import xades4j.properties.QualifyingProperty;
 import xades4j.properties.SignatureTimeStampProperty;
-import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.properties.data.SignatureTimeStampData;
 import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.utils.DOMHelper;
@@ -30,14 +31,18 @@ import xades4j.utils.TimeStampDigestInputFactory;
 
 /**
  * XAdES section G.2.2.16.1.3
+ * <p>
+ * Only the signature value is time-stamped, so this property is verified
+ * before the certification path is built, providing the validation date.
  * @author Luís
  */
 class SignatureTimeStampVerifier extends TimeStampVerifierBase<SignatureTimeStampData>
+        implements CertificationPathIndependentVerifier<SignatureTimeStampData>
 {
     @Inject
     public SignatureTimeStampVerifier(
-            TimeStampVerificationProvider timeStampVerifier,
-            TimeStampDigestInputFactory timeStampDigestInputFactory)
+            Provider<TimeStampVerificationProvider> timeStampVerifier,
+            Provider<TimeStampDigestInputFactory> timeStampDigestInputFactory)
     {
         super(timeStampVerifier, timeStampDigestInputFactory, SignatureTimeStampProperty.PROP_NAME);
     }
@@ -45,7 +50,7 @@ class SignatureTimeStampVerifier extends TimeStampVerifierBase<SignatureTimeStam
     @Override
     protected QualifyingProperty addPropSpecificTimeStampInputAndCreateProperty(
             SignatureTimeStampData propData,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             QualifyingPropertyVerificationContext ctx) throws CannotAddDataToDigestInputException
     {
         Element sigValueElem = DOMHelper.getFirstDescendant(
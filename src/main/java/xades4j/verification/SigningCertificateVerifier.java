@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
 import java.util.Iterator;
@@ -34,13 +35,13 @@ import xades4j.verification.QualifyingPropertyVerificationContext.CertificationC
  */
 class SigningCertificateVerifier implements QualifyingPropertyVerifier<SigningCertificateData>
 {
-    private final MessageDigestEngineProvider messageDigestProvider;
-    private final DistinguishedNameComparer dnComparer;
+    private final Provider<MessageDigestEngineProvider> messageDigestProvider;
+    private final Provider<DistinguishedNameComparer> dnComparer;
 
     @Inject
     public SigningCertificateVerifier(
-            MessageDigestEngineProvider messageDigestProvider,
-            DistinguishedNameComparer dnComparer)
+            Provider<MessageDigestEngineProvider> messageDigestProvider,
+            Provider<DistinguishedNameComparer> dnComparer)
     {
         this.messageDigestProvider = messageDigestProvider;
         this.dnComparer = dnComparer;
@@ -51,6 +52,9 @@ class SigningCertificateVerifier implements QualifyingPropertyVerifier<SigningCe
             SigningCertificateData propData,
             QualifyingPropertyVerificationContext ctx) throws SigningCertificateVerificationException
     {
+        MessageDigestEngineProvider messageDigestProvider = this.messageDigestProvider.get();
+        DistinguishedNameComparer dnComparer = this.dnComparer.get();
+
         Collection<CertRef> certRefs = propData.getCertRefs();
         CertificationChainData certChainData = ctx.getCertChainData();
 
@@ -61,7 +65,7 @@ class SigningCertificateVerifier implements QualifyingPropertyVerifier<SigningCe
         // "If the verifier does not find any reference matching the signing certificate,
         // the validation of this property should be taken as failed."
         X509Certificate signingCert = certPathIter.next();
-        CertRef signingCertRef = CertRefUtils.findCertRef(signingCert, certRefs, this.dnComparer);
+        CertRef signingCertRef = CertRefUtils.findCertRef(signingCert, certRefs, dnComparer);
         if (null == signingCertRef)
             throw new SigningCertificateReferenceNotFoundException(signingCert);
 
@@ -70,7 +74,7 @@ class SigningCertificateVerifier implements QualifyingPropertyVerifier<SigningCe
         // from SigningCertificate, are the same."
         X500Principal keyInfoIssuer = certChainData.getValidationCertIssuer();
         if (keyInfoIssuer != null &&
-                (!this.dnComparer.areEqual(keyInfoIssuer, signingCertRef.issuerDN) ||
+                (!dnComparer.areEqual(keyInfoIssuer, signingCertRef.issuerDN) ||
                 !signingCertRef.serialNumber.equals(certChainData.getValidationCertSerialNumber())))
             throw new SigningCertificateIssuerSerialMismatchException(
                     signingCertRef.issuerDN,
@@ -93,7 +97,7 @@ class SigningCertificateVerifier implements QualifyingPropertyVerifier<SigningCe
         while (certPathIter.hasNext())
         {
             X509Certificate cert = certPathIter.next();
-            CertRef certRef = CertRefUtils.findCertRef(cert, certRefs, this.dnComparer);
+            CertRef certRef = CertRefUtils.findCertRef(cert, certRefs, dnComparer);
             // "Should one or more certificates in the certification path not be
             // referenced by this property, the verifier should assume that the
             // verification is successful (...)"
@@ -16,33 +16,44 @@
  */
 package xades4j.verification;
 
+import com.google.inject.Provider;
 import java.lang.reflect.Method;
 import java.util.Date;
 import java.util.List;
 import xades4j.UnsupportedAlgorithmException;
+import xades4j.algorithms.Algorithm;
 import xades4j.properties.QualifyingProperty;
 import xades4j.properties.data.BaseXAdESTimeStampData;
 import xades4j.providers.TimeStampTokenDigestException;
 import xades4j.providers.TimeStampTokenSignatureException;
 import xades4j.providers.TimeStampTokenStructureException;
 import xades4j.providers.TimeStampTokenVerificationException;
+import xades4j.providers.MessageImprintTimeStampVerificationProvider;
 import xades4j.providers.TimeStampVerificationProvider;
 import xades4j.utils.CannotAddDataToDigestInputException;
+import xades4j.utils.StreamingTimeStampDigestInput;
 import xades4j.utils.TimeStampDigestInput;
+import xades4j.utils.TimeStampDigestInputBuilder;
 import xades4j.utils.TimeStampDigestInputFactory;
+import xades4j.utils.TimeStampDigestInputFactoryEx;
 
 /**
- *
+ * Base for the time-stamp property verifiers. The dependencies can be replaced
+ * by users and are obtained on each verification, since the verifiers are
+ * singletons.
  * @author Luís
  */
-abstract class TimeStampVerifierBase<TData extends BaseXAdESTimeStampData> implements QualifyingPropertyVerifier<TData>
+abstract class TimeStampVerifierBase<TData extends BaseXAdESTimeStampData> implements ConcurrentQualifyingPropertyVerifier<TData>
 {
 
-    private final TimeStampVerificationProvider tsVerifier;
-    private final TimeStampDigestInputFactory tsInputFactory;
+    private final Provider<TimeStampVerificationProvider> tsVerifier;
+    private final Provider<TimeStampDigestInputFactory> tsInputFactory;
     private final String propName;
 
-    public TimeStampVerifierBase(TimeStampVerificationProvider tsVerifier, TimeStampDigestInputFactory tsInputFactory, String propName)
+    public TimeStampVerifierBase(
+            Provider<TimeStampVerificationProvider> tsVerifier,
+            Provider<TimeStampDigestInputFactory> tsInputFactory,
+            String propName)
     {
         this.tsVerifier = tsVerifier;
         this.tsInputFactory = tsInputFactory;
@@ -54,21 +65,58 @@ abstract class TimeStampVerifierBase<TData extends BaseXAdESTimeStampData> imple
             TData propData,
             QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
     {
+        TimeStampVerificationProvider tsVerifier = this.tsVerifier.get();
+        TimeStampDigestInputFactory tsInputFactory = this.tsInputFactory.get();
         try
         {
-            TimeStampDigestInput digestInput = this.tsInputFactory.newTimeStampDigestInput(propData.getCanonicalizationAlgorithm());
-
-            QualifyingProperty prop = addPropSpecificTimeStampInputAndCreateProperty(propData, digestInput, ctx);
-            byte[] data = digestInput.getBytes();
             /**
              * Verify the time-stamp tokens on a time-stamp property data object. All
              * the tokens are verified, but the returned time-stamp is from the last token.
              */
             List<byte[]> tokens = propData.getTimeStampTokens();
+            QualifyingProperty prop;
             Date ts = null;
-            for (byte[] tkn : tokens)
+
+            if (tsVerifier instanceof MessageImprintTimeStampVerificationProvider
+                    && tsInputFactory instanceof TimeStampDigestInputFactoryEx)
             {
-                ts = this.tsVerifier.verifyToken(tkn, data);
+                // Digest the input as it is added instead of keeping it. The
+                // algorithms are taken from the tokens beforehand.
+                MessageImprintTimeStampVerificationProvider imprintVerifier = (MessageImprintTimeStampVerificationProvider) tsVerifier;
+                String[] digestAlgUris = new String[tokens.size()];
+                for (int i = 0; i < digestAlgUris.length; i++)
+                {
+                    digestAlgUris[i] = imprintVerifier.getMessageImprintAlgorithm(tokens.get(i));
+                }
+
+                StreamingTimeStampDigestInput digestInput;
+                // Only the digest input depends on the DOM; the tokens are
+                // verified outside the lock.
+                synchronized (ctx.getDocumentLock())
+                {
+                    digestInput = ((TimeStampDigestInputFactoryEx) tsInputFactory).newStreamingTimeStampDigestInput(propData.getCanonicalizationAlgorithm(), ctx.getReferenceContentsCache(), digestAlgUris);
+                    prop = addPropSpecificTimeStampInputAndCreateProperty(propData, digestInput, ctx);
+                }
+
+                for (int i = 0; i < digestAlgUris.length; i++)
+                {
+                    ts = imprintVerifier.verifyTokenForImprint(tokens.get(i), digestInput.getDigest(digestAlgUris[i]));
+                }
+            }
+            else
+            {
+                byte[] data;
+                synchronized (ctx.getDocumentLock())
+                {
+                    TimeStampDigestInput digestInput = newTimeStampDigestInput(tsInputFactory, propData.getCanonicalizationAlgorithm(), ctx);
+                    prop = addPropSpecificTimeStampInputAndCreateProperty(propData, digestInput, ctx);
+                    data = digestInput.getBytes();
+                }
+
+                for (byte[] tkn : tokens)
+                {
+                    ts = tsVerifier.verifyToken(tkn, data);
+                }
             }
 
             // By convention all timestamp property types have a setTime(Date) method
@@ -95,9 +143,21 @@ abstract class TimeStampVerifierBase<TData extends BaseXAdESTimeStampData> imple
         }
     }
 
+    private static TimeStampDigestInput newTimeStampDigestInput(
+            TimeStampDigestInputFactory tsInputFactory,
+            Algorithm c14n,
+            QualifyingPropertyVerificationContext ctx) throws UnsupportedAlgorithmException
+    {
+        if (tsInputFactory instanceof TimeStampDigestInputFactoryEx)
+        {
+            return ((TimeStampDigestInputFactoryEx) tsInputFactory).newTimeStampDigestInput(c14n, ctx.getReferenceContentsCache());
+        }
+        return tsInputFactory.newTimeStampDigestInput(c14n);
+    }
+
     protected abstract QualifyingProperty addPropSpecificTimeStampInputAndCreateProperty(
             TData propData,
-            TimeStampDigestInput digestInput,
+            TimeStampDigestInputBuilder digestInput,
             QualifyingPropertyVerificationContext ctx) throws CannotAddDataToDigestInputException, TimeStampVerificationException;
 
     private static TimeStampVerificationException getEx(
@@ -17,6 +17,7 @@
 package xades4j.verification;
 
 import com.google.inject.Module;
+import java.util.concurrent.Executor;
 import javax.xml.namespace.QName;
 
 import xades4j.providers.X500NameStyleProvider;
@@ -68,12 +69,18 @@ public final class XadesVerificationProfile
     /**/
     private boolean acceptUnknownProperties;
     private boolean secureValidation;
+    private long referenceContentsCacheSize;
+    private Executor propertyVerificationExecutor;
+    private Executor referenceVerificationExecutor;
 
     private XadesVerificationProfile()
     {
         this.profileCore = new XadesProfileCore();
         this.acceptUnknownProperties = false;
         this.secureValidation = false;
+        this.referenceContentsCacheSize = -1;
+        this.propertyVerificationExecutor = null;
+        this.referenceVerificationExecutor = null;
         withBinding(XadesVerifier.class, XadesVerifierImpl.class);
     }
 
@@ -142,6 +149,10 @@ public final class XadesVerificationProfile
      * Creates a new {@code XadesVerifier} based on the current state of the profile.
      * If any changes are made after this call, the previously returned verifier will
      * not be affected. Other verifiers can be created, accumulating the profile changes.
+     * <p>
+     * The dependency injection configuration is resolved once and reused by
+     * subsequent calls, as long as the profile's bindings aren't changed. Creating
+     * verifiers repeatedly from the same profile is therefore inexpensive.
      * @return a {@code XadesVerifier} accordingly to this profile.
      * @throws XadesProfileResolutionException if the dependencies of the signer (direct and indirect) cannot be resolved
      */
@@ -150,6 +161,9 @@ public final class XadesVerificationProfile
         XadesVerifierImpl v = profileCore.getInstance(XadesVerifierImpl.class, overridableModules, sealedModules);
         v.setAcceptUnknownProperties(acceptUnknownProperties);
         v.setSecureValidation(secureValidation);
+        v.setReferenceContentsCacheSize(referenceContentsCacheSize);
+        v.setPropertyVerificationExecutor(propertyVerificationExecutor);
+        v.setReferenceVerificationExecutor(referenceVerificationExecutor);
         return v;
     }
 
@@ -257,6 +271,71 @@ public final class XadesVerificationProfile
         return this;
     }
 
+    /**
+     * Enables a per-signature cache of the processed data object references for
+     * time-stamp properties. When a signature has more than one time-stamp
+     * covering the data objects, each reference is dereferenced, transformed and
+     * canonicalized only once. If the core signature verification already applied
+     * the transforms of a reference and produced a node-set, that node-set is
+     * reused. Cached data beyond {@code maxInMemoryBytes} is written to temporary
+     * files, which are deleted when the verification is finished. Not enabled
+     * by default.
+     * @param maxInMemoryBytes the maximum amount of cached bytes to keep in memory
+     * @return this profile
+     * @throws IllegalArgumentException if {@code maxInMemoryBytes} is negative
+     * @see xades4j.utils.ReferenceContentsCache
+     */
+    public XadesVerificationProfile withReferenceContentsCache(long maxInMemoryBytes)
+    {
+        if (maxInMemoryBytes < 0)
+        {
+            throw new IllegalArgumentException("Maximum in-memory size cannot be negative");
+        }
+        this.referenceContentsCacheSize = maxInMemoryBytes;
+        return this;
+    }
+
+    /**
+     * Sets an executor on which independent and potentially expensive property
+     * verifiers are run concurrently: time-stamps (signature, all data objects
+     * and individual data objects), signature policy and counter signatures.
+     * The other properties are verified on the calling thread. The order of the
+     * properties on the verification result doesn't change and, if more than
+     * one property is invalid, the reported error is the same as in sequential
+     * verification. The accesses to the signature's document are serialized.
+     * <p>
+     * Tasks that were not started by the executor when they are needed are run
+     * on the calling thread. Not enabled by default.
+     * @param executor the executor or {@code null} to verify all the properties
+     *      on the calling thread
+     * @return this profile
+     */
+    public XadesVerificationProfile withPropertyVerificationExecutor(Executor executor)
+    {
+        this.propertyVerificationExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Sets an executor on which the references to external data objects are
+     * digested concurrently during core signature verification. This applies
+     * to references without transforms whose data is an octet stream, such as
+     * detached files; the data is resolved on the calling thread. The other
+     * references are verified on the calling thread.
+     * <p>
+     * Regardless of this setting, each reference is digested only once, even
+     * when the verification fails and the invalid reference is reported.
+     * Not enabled by default.
+     * @param executor the executor or {@code null} to verify all the references
+     *      on the calling thread
+     * @return this profile
+     */
+    public XadesVerificationProfile withReferenceVerificationExecutor(Executor executor)
+    {
+        this.referenceVerificationExecutor = executor;
+        return this;
+    }
+
     /**********************************************/
     /************ Custom verification *************/
     /**********************************************/
@@ -17,7 +17,9 @@
 package xades4j.verification;
 
 import com.google.inject.Inject;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -25,13 +27,16 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import org.apache.xml.security.algorithms.SignatureAlgorithm;
 import org.apache.xml.security.exceptions.XMLSecurityException;
-import org.apache.xml.security.signature.Reference;
-import org.apache.xml.security.signature.SignedInfo;
 import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.utils.SignerOutputStream;
+import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
 import org.apache.xml.security.utils.resolver.implementations.ResolverAnonymous;
+import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import xades4j.properties.QualifyingProperty;
@@ -43,11 +48,11 @@ import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.UnsignedProperties;
 import xades4j.production.XadesSignatureFormatExtender;
 import xades4j.properties.SignatureTimeStampProperty;
-import xades4j.properties.data.SignatureTimeStampData;
 import xades4j.properties.data.SigningCertificateData;
 import xades4j.providers.CertificateValidationProvider;
 import xades4j.providers.ValidationData;
 import xades4j.providers.X500NameStyleProvider;
+import xades4j.utils.ReferenceContentsCache;
 import xades4j.utils.CollectionUtils;
 import xades4j.utils.ObjectUtils;
 import xades4j.utils.PropertiesUtils;
@@ -77,6 +82,8 @@ class XadesVerifierImpl implements XadesVerifier
     private final Set<CustomSignatureVerifier> customSigVerifiers;
     private final X500NameStyleProvider x500NameStyleProvider;
     private boolean secureValidation;
+    private long referenceContentsCacheSize;
+    private Executor referenceVerificationExecutor;
 
     @Inject
     protected XadesVerifierImpl(
@@ -100,6 +107,8 @@ class XadesVerifierImpl implements XadesVerifier
         this.customSigVerifiers = customSigVerifiers;
         this.x500NameStyleProvider = x500NameStyleProvider;
         this.secureValidation = false;
+        this.referenceContentsCacheSize = -1;
+        this.referenceVerificationExecutor = null;
     }
 
     void setAcceptUnknownProperties(boolean accept)
@@ -112,8 +121,37 @@ class XadesVerifierImpl implements XadesVerifier
         this.secureValidation = secureValidation;
     }
 
+    void setReferenceContentsCacheSize(long maxInMemoryBytes)
+    {
+        this.referenceContentsCacheSize = maxInMemoryBytes;
+    }
+
+    void setPropertyVerificationExecutor(Executor executor)
+    {
+        this.qualifyingPropertiesVerifier.setExecutor(executor);
+    }
+
+    void setReferenceVerificationExecutor(Executor executor)
+    {
+        this.referenceVerificationExecutor = executor;
+    }
+
     @Override
     public XAdESVerificationResult verify(Element signatureElem, SignatureSpecificVerificationOptions verificationOptions) throws XAdES4jException
+    {
+        return verify(signatureElem, verificationOptions, new Object());
+    }
+
+    /**
+     * Verifies a signature whose document may be accessed concurrently by
+     * other verifiers (e.g. a counter signature). The given lock is held while
+     * the document is accessed and is also used by the property verifiers; it
+     * is not held during the certification path validation.
+     */
+    XAdESVerificationResult verify(
+            Element signatureElem,
+            SignatureSpecificVerificationOptions verificationOptions,
+            Object documentLock) throws XAdES4jException
     {
         if (null == signatureElem)
         {
@@ -125,67 +163,80 @@ class XadesVerifierImpl implements XadesVerifier
             verificationOptions = SignatureSpecificVerificationOptions.empty;
         }
 
-        /* Unmarshal the signature */
-
         XMLSignature signature;
-        try
-        {
-            signature = new XMLSignature(signatureElem, verificationOptions.getBaseUri(), this.secureValidation);
-        } catch (XMLSecurityException ex)
-        {
-            throw new UnmarshalException("Bad XML signature", ex);
-        }
+        ReferencesRes referencesRes;
+        Collection<PropertyDataObject> qualifPropsData;
 
-        String signatureId = signature.getId();
-        if (null == signatureId)
+        synchronized (documentLock)
         {
-            throw new UnmarshalException("XML signature doesn't have an Id");
-        }
+            /* Unmarshal the signature */
+
+            try
+            {
+                signature = new XMLSignature(signatureElem, verificationOptions.getBaseUri(), this.secureValidation);
+            } catch (XMLSecurityException ex)
+            {
+                throw new UnmarshalException("Bad XML signature", ex);
+            }
 
-        ReferencesRes referencesRes = SignatureUtils.processReferences(signature);
+            String signatureId = signature.getId();
+            if (null == signatureId)
+            {
+                throw new UnmarshalException("XML signature doesn't have an Id");
+            }
 
-        /* Apply early verifiers */
+            referencesRes = SignatureUtils.processReferences(signature);
 
-        RawSignatureVerifierContext rawCtx = new RawSignatureVerifierContext(signature);
-        for (RawSignatureVerifier rawSignatureVerifier : this.rawSigVerifiers)
-        {
-            rawSignatureVerifier.verify(rawCtx);
-        }
+            /* Apply early verifiers */
+
+            RawSignatureVerifierContext rawCtx = new RawSignatureVerifierContext(signature);
+            for (RawSignatureVerifier rawSignatureVerifier : this.rawSigVerifiers)
+            {
+                rawSignatureVerifier.verify(rawCtx);
+            }
 
-        /* Get and check the QualifyingProperties element */
+            /* Get and check the QualifyingProperties element */
 
-        Element qualifyingPropsElem = SignatureUtils.getQualifyingPropertiesElement(signature);
-        SignatureUtils.checkSignedPropertiesIncorporation(qualifyingPropsElem, referencesRes.signedPropsReference);
+            Element qualifyingPropsElem = SignatureUtils.getQualifyingPropertiesElement(signature);
+            SignatureUtils.checkSignedPropertiesIncorporation(qualifyingPropsElem, referencesRes.signedPropsReference);
 
-        // Check the QualifyingProperties 'Target' attribute.
-        Node targetAttr = qualifyingPropsElem.getAttributeNodeNS(null, QualifyingProperty.TARGET_ATTR);
-        if (null == targetAttr)
-        {
-            targetAttr = qualifyingPropsElem.getAttributeNodeNS(QualifyingProperty.XADES_XMLNS, QualifyingProperty.TARGET_ATTR);
+            // Check the QualifyingProperties 'Target' attribute.
+            Node targetAttr = qualifyingPropsElem.getAttributeNodeNS(null, QualifyingProperty.TARGET_ATTR);
             if (null == targetAttr)
             {
-                throw new QualifyingPropertiesIncorporationException("QualifyingProperties Target attribute not present");
+                targetAttr = qualifyingPropsElem.getAttributeNodeNS(QualifyingProperty.XADES_XMLNS, QualifyingProperty.TARGET_ATTR);
+                if (null == targetAttr)
+                {
+                    throw new QualifyingPropertiesIncorporationException("QualifyingProperties Target attribute not present");
+                }
+            }
+            String targetValue = targetAttr.getNodeValue();
+            if (null == targetValue
+                    || !targetValue.startsWith("#")
+                    || !targetValue.substring(1).equals(signatureId))
+            {
+                throw new QualifyingPropertiesIncorporationException("QualifyingProperties target doesn't match the signature's Id");
             }
-        }
-        String targetValue = targetAttr.getNodeValue();
-        if (null == targetValue
-                || !targetValue.startsWith("#")
-                || !targetValue.substring(1).equals(signatureId))
-        {
-            throw new QualifyingPropertiesIncorporationException("QualifyingProperties target doesn't match the signature's Id");
-        }
 
-        /* Unmarshal the qualifying properties */
+            /* Unmarshal the qualifying properties */
 
-        QualifPropsDataCollectorImpl propsDataCollector = new QualifPropsDataCollectorImpl();
-        qualifPropsUnmarshaller.unmarshalProperties(qualifyingPropsElem, propsDataCollector);
-        Collection<PropertyDataObject> qualifPropsData = propsDataCollector.getPropertiesData();
+            QualifPropsDataCollectorImpl propsDataCollector = new QualifPropsDataCollectorImpl();
+            qualifPropsUnmarshaller.unmarshalProperties(qualifyingPropsElem, propsDataCollector);
+            qualifPropsData = propsDataCollector.getPropertiesData();
+        }
 
         /* Certification path */
 
-        Date validationDate = getValidationDate(qualifPropsData, signature, verificationOptions);
+        // Properties that don't depend on the certification path (namely the
+        // signature time-stamp) are verified first.
+        Collection<PropertyInfo> propsBeforeCertPath = verifyPropertiesBeforeCertificationPath(qualifPropsData, signature, documentLock);
+        Date validationDate = getValidationDate(propsBeforeCertPath, verificationOptions);
         CertRef signingCertRefAttempt = tryGetSigningCertificateRef(qualifPropsData);
-        KeyInfoRes keyInfoRes = KeyInfoProcessor.process(signature.getKeyInfo(), signingCertRefAttempt, this.x500NameStyleProvider);
+        KeyInfoRes keyInfoRes;
+        synchronized (documentLock)
+        {
+            keyInfoRes = KeyInfoProcessor.process(signature.getKeyInfo(), signingCertRefAttempt, this.x500NameStyleProvider);
+        }
         ValidationData certValidationRes = this.certificateValidator.validate(
                 keyInfoRes.certSelector,
                 validationDate,
@@ -199,38 +250,58 @@ class XadesVerifierImpl implements XadesVerifier
         /* Signature verification */
 
         // Core XML-DSIG verification.
-        doCoreVerification(signature, verificationOptions, validationCert);
-
-        // Create the properties verification context.
-        QualifyingPropertyVerificationContext qPropsCtx = new QualifyingPropertyVerificationContext(
-                signature,
-                new QualifyingPropertyVerificationContext.CertificationChainData(
-                certValidationRes.getCerts(),
-                certValidationRes.getCrls(),
-                keyInfoRes.issuerSerial,
-                this.x500NameStyleProvider),
-                /**/
-                new QualifyingPropertyVerificationContext.SignedObjectsData(
-                referencesRes.dataObjsReferences,
-                signature));
-
-        // Verify the properties. Data structure verification is included.
-        Collection<PropertyInfo> props = this.qualifyingPropertiesVerifier.verifyProperties(qualifPropsData, qPropsCtx);
+        synchronized (documentLock)
+        {
+            doCoreVerification(signature, verificationOptions, validationCert, this.referenceVerificationExecutor);
+        }
 
-        XAdESVerificationResult res = new XAdESVerificationResult(
-                XAdESFormChecker.checkForm(props),
-                signature,
-                certValidationRes,
-                props,
-                referencesRes.dataObjsReferences);
+        ReferenceContentsCache refsCache = this.referenceContentsCacheSize < 0 ? null : new ReferenceContentsCache(this.referenceContentsCacheSize);
+        try
+        {
+            // Create the properties verification context.
+            QualifyingPropertyVerificationContext qPropsCtx = new QualifyingPropertyVerificationContext(
+                    signature,
+                    new QualifyingPropertyVerificationContext.CertificationChainData(
+                    certValidationRes.getCerts(),
+                    certValidationRes.getCrls(),
+                    certValidationRes.getOcspResponses(),
+                    keyInfoRes.issuerSerial,
+                    this.x500NameStyleProvider),
+                    /**/
+                    new QualifyingPropertyVerificationContext.SignedObjectsData(
+                    referencesRes.dataObjsReferences,
+                    signature),
+                    refsCache,
+                    documentLock);
+
+            // Verify the remaining properties. Data structure verification is included.
+            Collection<PropertyInfo> props = this.qualifyingPropertiesVerifier.verifyProperties(qualifPropsData, qPropsCtx, propsBeforeCertPath);
+
+            XAdESVerificationResult res = new XAdESVerificationResult(
+                    XAdESFormChecker.checkForm(props),
+                    signature,
+                    certValidationRes,
+                    props,
+                    referencesRes.dataObjsReferences);
+
+            // Apply the custom signature verifiers.
+            synchronized (documentLock)
+            {
+                for (CustomSignatureVerifier customVer : this.customSigVerifiers)
+                {
+                    customVer.verify(res, qPropsCtx);
+                }
+            }
 
-        // Apply the custom signature verifiers.
-        for (CustomSignatureVerifier customVer : this.customSigVerifiers)
+            return res;
+        }
+        finally
         {
-            customVer.verify(res, qPropsCtx);
+            if (refsCache != null)
+            {
+                refsCache.clear();
+            }
         }
-
-        return res;
     }
     
     /*************************************************************************************/
@@ -253,44 +324,53 @@ class XadesVerifierImpl implements XadesVerifier
         return null;
     }
 
-    private Date getValidationDate(
+    private Collection<PropertyInfo> verifyPropertiesBeforeCertificationPath(
             Collection<PropertyDataObject> qualifPropsData,
             XMLSignature signature,
-            SignatureSpecificVerificationOptions verificationOptions) throws XAdES4jException
+            Object documentLock) throws XAdES4jException
     {
-        List sigTsData = CollectionUtils.filterByType(qualifPropsData, SignatureTimeStampData.class);
-
-        // If no signature time-stamp is present, use the current date.
-        if (sigTsData.isEmpty())
-        {
-            return verificationOptions.getDefaultVerificationDate();
-        }
-
-        // TODO support multiple SignatureTimeStamps (section 7.3 last paragraph of Standard v.1.4.2)
-        // This is a temporary solution.
-        // - Properties should probably be verified in two stages (before and after cert path creation).
-        // - Had to remove the custom structure verifier that checked if the SigningCertificate data was present.
+        // The certification path isn't known yet and the verifiers applied
+        // on this stage don't use the signed data objects.
         QualifyingPropertyVerificationContext ctx = new QualifyingPropertyVerificationContext(
                 signature,
                 new QualifyingPropertyVerificationContext.CertificationChainData(
                 new ArrayList<X509Certificate>(0),
                 new ArrayList<X509CRL>(0),
+                new ArrayList<OCSPResp>(0),
                 null,
                 this.x500NameStyleProvider),
                 /**/
                 new QualifyingPropertyVerificationContext.SignedObjectsData(
                 new ArrayList<RawDataObjectDesc>(0),
-                signature));
-        Collection<PropertyInfo> props = this.qualifyingPropertiesVerifier.verifyProperties(sigTsData, ctx);
-        QualifyingProperty sigTs = props.iterator().next().getProperty();
+                signature),
+                null,
+                documentLock);
+        return this.qualifyingPropertiesVerifier.verifyPropertiesBeforeCertificationPath(qualifPropsData, ctx);
+    }
+
+    private static Date getValidationDate(
+            Collection<PropertyInfo> propsBeforeCertPath,
+            SignatureSpecificVerificationOptions verificationOptions)
+    {
+        // TODO support multiple SignatureTimeStamps (section 7.3 last paragraph of Standard v.1.4.2)
+        // All the time-stamps are verified but the first one is used.
+        for (PropertyInfo p : propsBeforeCertPath)
+        {
+            if (p.getProperty() instanceof SignatureTimeStampProperty)
+            {
+                return ((SignatureTimeStampProperty) p.getProperty()).getTime();
+            }
+        }
 
-        return ((SignatureTimeStampProperty) sigTs).getTime();
+        // If no signature time-stamp is present, use the current date.
+        return verificationOptions.getDefaultVerificationDate();
     }
 
     private static void doCoreVerification(
             XMLSignature signature,
             SignatureSpecificVerificationOptions verificationOptions,
-            X509Certificate validationCert) throws XAdES4jXMLSigException, InvalidSignatureException
+            X509Certificate validationCert,
+            Executor referenceVerificationExecutor) throws XAdES4jXMLSigException, InvalidSignatureException
     {
         List<ResourceResolver> resolvers = verificationOptions.getResolvers();
         if(!CollectionUtils.nullOrEmpty(resolvers))
@@ -309,43 +389,48 @@ class XadesVerifierImpl implements XadesVerifier
 
         try
         {
-            if (signature.checkSignatureValue(validationCert))
+            // The signature value and each reference are verified only once.
+            // The references are verified even if the signature value is
+            // invalid, because the first invalid reference is reported instead.
+            boolean signatureValueValid = checkSignatureValue(signature, validationCert);
+            int invalidRefIx = ReferencesVerifier.verifyReferences(signature.getSignedInfo(), referenceVerificationExecutor);
+            if (invalidRefIx >= 0)
             {
-                return;
+                throw new ReferenceValueException(signature, signature.getSignedInfo().item(invalidRefIx));
+            }
+            if (!signatureValueValid)
+            {
+                throw new SignatureValueException(signature);
             }
         }
-        catch (XMLSignatureException ex)
+        catch (XMLSecurityException ex)
         {
             throw new XAdES4jXMLSigException("Error verifying the signature", ex);
         }
+    }
 
+    /**
+     * Verifies the signature value over SignedInfo, as in {@code XMLSignature.checkSignatureValue},
+     * but without verifying the references.
+     */
+    private static boolean checkSignatureValue(
+            XMLSignature signature,
+            X509Certificate validationCert) throws XMLSecurityException
+    {
+        SignatureAlgorithm sa = signature.getSignedInfo().getSignatureAlgorithm();
+        sa.initVerify(validationCert.getPublicKey());
         try
         {
-            /* Failure due to the signature value or references validation? */
-
-            if (signature.getSignedInfo().verifyReferences())
-            // References are OK; this is a problem on the signature value
-            // itself.
-            {
-                throw new SignatureValueException(signature);
-            } else
-            {
-                // References are NOT OK; get the first invalid Reference.
-                SignedInfo si = signature.getSignedInfo();
-                for (int i = 0; i < si.getLength(); i++)
-                {
-                    Reference r = si.item(i);
-                    if (!r.verify())
-                    {
-                        throw new ReferenceValueException(signature, r);
-                    }
-                }
-            }
+            OutputStream so = new UnsyncBufferedOutputStream(new SignerOutputStream(sa));
+            signature.getSignedInfo().signInOctetStream(so);
+            so.close();
         }
-        catch (XMLSecurityException ex)
+        catch (IOException ex)
         {
-            throw new XAdES4jXMLSigException("Error verifying the references", ex);
+            // Not thrown by SignerOutputStream.
+            throw new XMLSignatureException(ex);
         }
+        return sa.verify(signature.getSignatureValue());
     }
 
     /*************************************************************************************/
@@ -22,12 +22,17 @@ import javax.xml.datatype.DatatypeFactory;
 import org.w3c.dom.Document;
 import xades4j.properties.data.CRLRef;
 import xades4j.properties.data.CompleteRevocationRefsData;
+import xades4j.properties.data.OCSPRef;
 import xades4j.properties.data.PropertyDataObject;
 import xades4j.xml.bind.xades.XmlCRLIdentifierType;
 import xades4j.xml.bind.xades.XmlCRLRefType;
 import xades4j.xml.bind.xades.XmlCRLRefsType;
 import xades4j.xml.bind.xades.XmlCompleteRevocationRefsType;
 import xades4j.xml.bind.xades.XmlDigestAlgAndValueType;
+import xades4j.xml.bind.xades.XmlOCSPIdentifierType;
+import xades4j.xml.bind.xades.XmlOCSPRefType;
+import xades4j.xml.bind.xades.XmlOCSPRefsType;
+import xades4j.xml.bind.xades.XmlResponderIDType;
 import xades4j.xml.bind.xades.XmlUnsignedPropertiesType;
 import xades4j.xml.bind.xmldsig.XmlDigestMethodType;
 
@@ -45,9 +50,11 @@ class ToXmlCompleteRevocRefsConverter implements UnsignedPropertyDataToXmlConver
     {
         CompleteRevocationRefsData complRevocRefsData = (CompleteRevocationRefsData)propData;
 
-        // Only CRL refs are supported.
+        // CRL and OCSP refs are supported.
         XmlCRLRefsType xmlCRLRefs = new XmlCRLRefsType();
         List<XmlCRLRefType> xmlCRLRefsList = xmlCRLRefs.getCRLRef();
+        XmlOCSPRefsType xmlOCSPRefs = new XmlOCSPRefsType();
+        List<XmlOCSPRefType> xmlOCSPRefsList = xmlOCSPRefs.getOCSPRef();
         try
         {
             for (CRLRef crlRef : complRevocRefsData.getCrlRefs())
@@ -69,14 +76,39 @@ class ToXmlCompleteRevocRefsConverter implements UnsignedPropertyDataToXmlConver
 
                 xmlCRLRefsList.add(xmlCrlRef);
             }
+
+            for (OCSPRef ocspRef : complRevocRefsData.getOcspRefs())
+            {
+                XmlResponderIDType xmlResponderId = new XmlResponderIDType();
+                xmlResponderId.setByName(ocspRef.responderIdByName);
+                xmlResponderId.setByKey(ocspRef.responderIdByKey);
+
+                XmlOCSPIdentifierType xmlOcspId = new XmlOCSPIdentifierType();
+                xmlOcspId.setResponderID(xmlResponderId);
+                xmlOcspId.setProducedAt(DatatypeFactory.newInstance().newXMLGregorianCalendar(ocspRef.producedAt));
+
+                XmlDigestAlgAndValueType xmlDigest = new XmlDigestAlgAndValueType();
+                XmlDigestMethodType xmlDigestMethod = new XmlDigestMethodType();
+                xmlDigestMethod.setAlgorithm(ocspRef.digestAlgUri);
+                xmlDigest.setDigestValue(ocspRef.digestValue);
+                xmlDigest.setDigestMethod(xmlDigestMethod);
+
+                XmlOCSPRefType xmlOcspRef = new XmlOCSPRefType();
+                xmlOcspRef.setOCSPIdentifier(xmlOcspId);
+                xmlOcspRef.setDigestAlgAndValue(xmlDigest);
+
+                xmlOCSPRefsList.add(xmlOcspRef);
+            }
         } catch (DatatypeConfigurationException ex)
         {
             throw new UnsupportedOperationException(ex.getMessage(), ex);
         }
 
         XmlCompleteRevocationRefsType xmlComplRevocRefs = new XmlCompleteRevocationRefsType();
-        // Only CRL refs are supported.
-        xmlComplRevocRefs.setCRLRefs(xmlCRLRefs);
+        if (!xmlCRLRefsList.isEmpty())
+            xmlComplRevocRefs.setCRLRefs(xmlCRLRefs);
+        if (!xmlOCSPRefsList.isEmpty())
+            xmlComplRevocRefs.setOCSPRefs(xmlOCSPRefs);
         xmlProps.getUnsignedSignatureProperties().setCompleteRevocationRefs(xmlComplRevocRefs);
     }
 }
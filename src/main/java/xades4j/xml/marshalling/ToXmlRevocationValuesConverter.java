@@ -23,6 +23,7 @@ import xades4j.properties.data.PropertyDataObject;
 import xades4j.properties.data.RevocationValuesData;
 import xades4j.xml.bind.xades.XmlCRLValuesType;
 import xades4j.xml.bind.xades.XmlEncapsulatedPKIDataType;
+import xades4j.xml.bind.xades.XmlOCSPValuesType;
 import xades4j.xml.bind.xades.XmlRevocationValuesType;
 import xades4j.xml.bind.xades.XmlUnsignedPropertiesType;
 
@@ -38,19 +39,40 @@ class ToXmlRevocationValuesConverter implements UnsignedPropertyDataToXmlConvert
             XmlUnsignedPropertiesType xmlProps,
             Document doc)
     {
-        Collection<byte[]> crlValues = ((RevocationValuesData)propData).getData();
+        RevocationValuesData revocValuesData = (RevocationValuesData)propData;
+        Collection<byte[]> crlValues = revocValuesData.getData();
+        Collection<byte[]> ocspValues = revocValuesData.getOcspData();
 
         XmlRevocationValuesType xmlRevocValues = new XmlRevocationValuesType();
-        XmlCRLValuesType xmlCRLValues = new XmlCRLValuesType();
-        xmlRevocValues.setCRLValues(xmlCRLValues);
 
-        List xmlCRLs = xmlCRLValues.getEncapsulatedCRLValue();
+        if (!crlValues.isEmpty() || ocspValues.isEmpty())
+        {
+            XmlCRLValuesType xmlCRLValues = new XmlCRLValuesType();
+            xmlRevocValues.setCRLValues(xmlCRLValues);
+
+            List xmlCRLs = xmlCRLValues.getEncapsulatedCRLValue();
+
+            for (byte[] encodCrl : crlValues)
+            {
+                XmlEncapsulatedPKIDataType xmlEncodCert = new XmlEncapsulatedPKIDataType();
+                xmlEncodCert.setValue(encodCrl);
+                xmlCRLs.add(xmlEncodCert);
+            }
+        }
 
-        for (byte[] encodCrl : crlValues)
+        if (!ocspValues.isEmpty())
         {
-            XmlEncapsulatedPKIDataType xmlEncodCert = new XmlEncapsulatedPKIDataType();
-            xmlEncodCert.setValue(encodCrl);
-            xmlCRLs.add(xmlEncodCert);
+            XmlOCSPValuesType xmlOCSPValues = new XmlOCSPValuesType();
+            xmlRevocValues.setOCSPValues(xmlOCSPValues);
+
+            List<XmlEncapsulatedPKIDataType> xmlOCSPs = xmlOCSPValues.getEncapsulatedOCSPValue();
+
+            for (byte[] encodOcsp : ocspValues)
+            {
+                XmlEncapsulatedPKIDataType xmlEncodOcsp = new XmlEncapsulatedPKIDataType();
+                xmlEncodOcsp.setValue(encodOcsp);
+                xmlOCSPs.add(xmlEncodOcsp);
+            }
         }
 
         xmlProps.getUnsignedSignatureProperties().setRevocationValues(xmlRevocValues);
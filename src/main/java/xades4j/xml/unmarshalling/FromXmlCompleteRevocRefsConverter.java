@@ -19,10 +19,14 @@ package xades4j.xml.unmarshalling;
 import xades4j.properties.CompleteRevocationRefsProperty;
 import xades4j.properties.data.CRLRef;
 import xades4j.properties.data.CompleteRevocationRefsData;
+import xades4j.properties.data.OCSPRef;
 import xades4j.xml.bind.xades.XmlCRLIdentifierType;
 import xades4j.xml.bind.xades.XmlCRLRefType;
 import xades4j.xml.bind.xades.XmlCRLRefsType;
 import xades4j.xml.bind.xades.XmlCompleteRevocationRefsType;
+import xades4j.xml.bind.xades.XmlOCSPIdentifierType;
+import xades4j.xml.bind.xades.XmlOCSPRefType;
+import xades4j.xml.bind.xades.XmlOCSPRefsType;
 import xades4j.xml.bind.xades.XmlUnsignedSignaturePropertiesType;
 
 /**
@@ -40,24 +44,44 @@ class FromXmlCompleteRevocRefsConverter implements UnsignedSigPropFromXmlConv
         if (null == xmlCompleteRevocRefs)
             return;
 
-        if (xmlCompleteRevocRefs.getOCSPRefs() != null || xmlCompleteRevocRefs.getOtherRefs() != null)
-            throw new PropertyUnmarshalException("Only CRL references are supported", CompleteRevocationRefsProperty.PROP_NAME);
+        if (xmlCompleteRevocRefs.getOtherRefs() != null)
+            throw new PropertyUnmarshalException("Only CRL and OCSP references are supported", CompleteRevocationRefsProperty.PROP_NAME);
 
         XmlCRLRefsType xmlCRLRefs = xmlCompleteRevocRefs.getCRLRefs();
-        if (null == xmlCRLRefs)
-            throw new PropertyUnmarshalException("CRL references not present", CompleteRevocationRefsProperty.PROP_NAME);
+        XmlOCSPRefsType xmlOCSPRefs = xmlCompleteRevocRefs.getOCSPRefs();
+        if (null == xmlCRLRefs && null == xmlOCSPRefs)
+            throw new PropertyUnmarshalException("CRL and OCSP references not present", CompleteRevocationRefsProperty.PROP_NAME);
 
         CompleteRevocationRefsData complRevocRefsData = new CompleteRevocationRefsData();
 
-        for (XmlCRLRefType xmlCRLRef : xmlCRLRefs.getCRLRef())
+        if (xmlCRLRefs != null)
         {
-            XmlCRLIdentifierType xmlCrlId = xmlCRLRef.getCRLIdentifier();
-            complRevocRefsData.addCRLRef(new CRLRef(
-                    xmlCrlId.getIssuer(),
-                    xmlCrlId.getNumber(),
-                    xmlCRLRef.getDigestAlgAndValue().getDigestMethod().getAlgorithm(),
-                    xmlCRLRef.getDigestAlgAndValue().getDigestValue(),
-                    xmlCrlId.getIssueTime().toGregorianCalendar()));
+            for (XmlCRLRefType xmlCRLRef : xmlCRLRefs.getCRLRef())
+            {
+                XmlCRLIdentifierType xmlCrlId = xmlCRLRef.getCRLIdentifier();
+                complRevocRefsData.addCRLRef(new CRLRef(
+                        xmlCrlId.getIssuer(),
+                        xmlCrlId.getNumber(),
+                        xmlCRLRef.getDigestAlgAndValue().getDigestMethod().getAlgorithm(),
+                        xmlCRLRef.getDigestAlgAndValue().getDigestValue(),
+                        xmlCrlId.getIssueTime().toGregorianCalendar()));
+            }
+        }
+
+        if (xmlOCSPRefs != null)
+        {
+            for (XmlOCSPRefType xmlOCSPRef : xmlOCSPRefs.getOCSPRef())
+            {
+                XmlOCSPIdentifierType xmlOcspId = xmlOCSPRef.getOCSPIdentifier();
+                if (null == xmlOCSPRef.getDigestAlgAndValue())
+                    throw new PropertyUnmarshalException("OCSP references without digest are not supported", CompleteRevocationRefsProperty.PROP_NAME);
+                complRevocRefsData.addOCSPRef(new OCSPRef(
+                        xmlOcspId.getResponderID().getByName(),
+                        xmlOcspId.getResponderID().getByKey(),
+                        xmlOcspId.getProducedAt().toGregorianCalendar(),
+                        xmlOCSPRef.getDigestAlgAndValue().getDigestMethod().getAlgorithm(),
+                        xmlOCSPRef.getDigestAlgAndValue().getDigestValue()));
+            }
         }
 
         propertyDataCollector.setCompleteRevocRefs(complRevocRefsData);
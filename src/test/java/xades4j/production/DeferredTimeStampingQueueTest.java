@@ -0,0 +1,396 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import static org.junit.Assert.*;
+import xades4j.algorithms.EnvelopedSignatureTransform;
+import xades4j.properties.DataObjectDesc;
+import xades4j.properties.QualifyingProperty;
+import xades4j.properties.SignatureTimeStampProperty;
+import xades4j.providers.ValidationDataProvider;
+import xades4j.providers.TimeStampTokenGenerationException;
+import xades4j.providers.TimeStampTokenProvider;
+import xades4j.providers.ValidationData;
+import xades4j.utils.XadesProfileResolutionException;
+
+/**
+ *
+ * @author Luís
+ */
+public class DeferredTimeStampingQueueTest extends SignerTestBase
+{
+    /**
+     * Returns dummy tokens after failing a given number of times.
+     */
+    static class FlakyTimeStampTokenProvider implements TimeStampTokenProvider
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        private final int failures;
+
+        FlakyTimeStampTokenProvider(int failures)
+        {
+            this.failures = failures;
+        }
+
+        @Override
+        public TimeStampTokenRes getTimeStampToken(byte[] tsDigestInput, String digestAlgUri) throws TimeStampTokenGenerationException
+        {
+            if (calls.incrementAndGet() <= failures)
+            {
+                throw new TimeStampTokenGenerationException("TSA unavailable");
+            }
+            return new TimeStampTokenRes(new byte[] { 1, 2, 3 }, new Date());
+        }
+    }
+
+    static class CollectingListener implements DeferredTimeStampListener
+    {
+        final Map<String, Document> timeStamped = new ConcurrentHashMap<>();
+        final Map<String, DeferredTimeStampingException> failed = new ConcurrentHashMap<>();
+        final CountDownLatch done;
+
+        CollectingListener(int expected)
+        {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void timeStamped(String signatureId, Document document)
+        {
+            timeStamped.put(signatureId, document);
+            done.countDown();
+        }
+
+        @Override
+        public void failed(String signatureId, DeferredTimeStampingException cause)
+        {
+            failed.put(signatureId, cause);
+            done.countDown();
+        }
+    }
+
+    static class NoValidationDataProvider implements ValidationDataProvider
+    {
+        @Override
+        public ValidationData getValidationData(List<X509Certificate> certChainFragment)
+        {
+            return null;
+        }
+    }
+
+    private File storeDir;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        storeDir = File.createTempFile("deferred", "");
+        storeDir.delete();
+    }
+
+    private static XadesSignatureFormatExtender newExtender(TimeStampTokenProvider tsProvider) throws Exception
+    {
+        return new XadesFormatExtenderProfile().withTimeStampTokenProvider(tsProvider).getFormatExtender();
+    }
+
+    private static String sign(DeferredTimeStampingQueue queue, Document doc) throws Exception
+    {
+        XadesSigner signer = new XadesTSigningProfile(keyingProviderMy)
+                .withDeferredTimeStamping(queue)
+                .newSigner();
+        DataObjectDesc dataObjRef = new DataObjectReference("").withTransform(new EnvelopedSignatureTransform());
+        return signer.sign(new SignedDataObjects(dataObjRef), doc.getDocumentElement()).getSignature().getId();
+    }
+
+    private static boolean hasSignatureTimeStamp(Document doc)
+    {
+        return doc.getElementsByTagNameNS(QualifyingProperty.XADES_XMLNS, SignatureTimeStampProperty.PROP_NAME).getLength() > 0;
+    }
+
+    @Test
+    public void testDeferredTimeStampWithRetries() throws Exception
+    {
+        System.out.println("deferredTimeStampWithRetries");
+
+        FlakyTimeStampTokenProvider tsProvider = new FlakyTimeStampTokenProvider(2);
+        CollectingListener listener = new CollectingListener(1);
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+        DeferredTimeStampingQueue queue = new DeferredTimeStampingQueue(
+                newExtender(tsProvider), store, listener, 1, 5, 10, 100);
+
+        Document doc = getTestDocument();
+        String signatureId = sign(queue, doc);
+
+        // Signed without the time-stamp and stored.
+        assertFalse(hasSignatureTimeStamp(doc));
+        assertEquals(1, store.loadAll().size());
+        assertEquals(0, tsProvider.calls.get());
+
+        queue.start();
+        try
+        {
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        } finally
+        {
+            queue.shutdown();
+        }
+
+        assertEquals(3, tsProvider.calls.get());
+        assertTrue(listener.failed.isEmpty());
+        Document timeStamped = listener.timeStamped.get(signatureId);
+        assertNotNull(timeStamped);
+        assertTrue(hasSignatureTimeStamp(timeStamped));
+        assertTrue(queue.awaitTermination(5000));
+        assertTrue(store.loadAll().isEmpty());
+        assertEquals(0, queue.getPendingCount());
+
+        outputDocument(timeStamped, "document.signed.t.deferred.xml");
+    }
+
+    @Test
+    public void testMaxAttempts() throws Exception
+    {
+        System.out.println("maxAttempts");
+
+        FlakyTimeStampTokenProvider tsProvider = new FlakyTimeStampTokenProvider(Integer.MAX_VALUE);
+        CollectingListener listener = new CollectingListener(1);
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+        DeferredTimeStampingQueue queue = new DeferredTimeStampingQueue(
+                newExtender(tsProvider), store, listener, 2, 3, 10, 100);
+        queue.start();
+        try
+        {
+            String signatureId = sign(queue, getTestDocument());
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+
+            assertEquals(3, tsProvider.calls.get());
+            assertTrue(listener.failed.containsKey(signatureId));
+            assertTrue(store.loadAll().isEmpty());
+        } finally
+        {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void testResumeFromStore() throws Exception
+    {
+        System.out.println("resumeFromStore");
+
+        FlakyTimeStampTokenProvider tsProvider = new FlakyTimeStampTokenProvider(0);
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+
+        // Enqueued but never started.
+        DeferredTimeStampingQueue first = new DeferredTimeStampingQueue(
+                newExtender(tsProvider), store, new CollectingListener(0));
+        String signatureId1 = sign(first, getTestDocument());
+        String signatureId2 = sign(first, getTestDocument());
+
+        CollectingListener listener = new CollectingListener(2);
+        DeferredTimeStampingQueue second = new DeferredTimeStampingQueue(
+                newExtender(tsProvider), new FileSystemDeferredTimeStampStore(storeDir), listener);
+        second.start();
+        try
+        {
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        } finally
+        {
+            second.shutdown();
+        }
+
+        assertTrue(hasSignatureTimeStamp(listener.timeStamped.get(signatureId1)));
+        assertTrue(hasSignatureTimeStamp(listener.timeStamped.get(signatureId2)));
+    }
+
+    @Test
+    public void testStartWhileEnqueuing() throws Exception
+    {
+        System.out.println("startWhileEnqueuing");
+
+        FlakyTimeStampTokenProvider tsProvider = new FlakyTimeStampTokenProvider(0);
+        CollectingListener listener = new CollectingListener(1);
+        final DeferredTimeStampingQueue[] queue = new DeferredTimeStampingQueue[1];
+        final CountDownLatch started = new CountDownLatch(1);
+        // Starts the queue right after the entry is saved, before the enqueue
+        // completes.
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir)
+        {
+            @Override
+            public void save(DeferredTimeStampEntry entry) throws IOException
+            {
+                super.save(entry);
+                new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            queue[0].start();
+                        } catch (DeferredTimeStampingException ex)
+                        {
+                        }
+                        started.countDown();
+                    }
+                }.start();
+                try
+                {
+                    started.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex)
+                {
+                    throw new IOException(ex);
+                }
+            }
+        };
+        queue[0] = new DeferredTimeStampingQueue(newExtender(tsProvider), store, listener, 2, 5, 10, 100);
+
+        try
+        {
+            sign(queue[0], getTestDocument());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+            Thread.sleep(200);
+        } finally
+        {
+            queue[0].shutdown();
+        }
+
+        // Scheduled either by the enqueue or by the start, but not both.
+        assertEquals(1, tsProvider.calls.get());
+    }
+
+    @Test
+    public void testListenerFailureIsNotRetried() throws Exception
+    {
+        System.out.println("listenerFailureIsNotRetried");
+
+        FlakyTimeStampTokenProvider tsProvider = new FlakyTimeStampTokenProvider(0);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+        DeferredTimeStampingQueue queue = new DeferredTimeStampingQueue(
+                newExtender(tsProvider), store, new DeferredTimeStampListener()
+                {
+                    @Override
+                    public void timeStamped(String signatureId, Document document)
+                    {
+                        delivered.countDown();
+                        throw new IllegalStateException("Listener failure");
+                    }
+
+                    @Override
+                    public void failed(String signatureId, DeferredTimeStampingException cause)
+                    {
+                        failures.incrementAndGet();
+                    }
+                }, 1, 5, 10, 100);
+        queue.start();
+        try
+        {
+            sign(queue, getTestDocument());
+            assertTrue(delivered.await(10, TimeUnit.SECONDS));
+            Thread.sleep(200);
+        } finally
+        {
+            queue.shutdown();
+        }
+        assertTrue(queue.awaitTermination(5000));
+
+        assertEquals(1, tsProvider.calls.get());
+        assertEquals(0, failures.get());
+        assertEquals(0, queue.getPendingCount());
+        // Delivered again on the next start.
+        assertEquals(1, store.loadAll().size());
+    }
+
+    @Test
+    public void testLoadAllSkipsCorruptEntries() throws Exception
+    {
+        System.out.println("loadAllSkipsCorruptEntries");
+
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+        store.save(new DeferredTimeStampEntry("good", new byte[] { 1, 2, 3 }, 0));
+        store.save(new DeferredTimeStampEntry("bad", new byte[] { 1, 2, 3 }, 0));
+
+        // Truncate one of the entries.
+        FileOutputStream out = new FileOutputStream(new File(storeDir, "bad.dts"));
+        out.write(new byte[] { 0, 3, 'b' });
+        out.close();
+
+        assertEquals(1, store.loadAll().size());
+        assertEquals("good", store.loadAll().iterator().next().getSignatureId());
+        assertFalse(new File(storeDir, "bad.dts").exists());
+        assertTrue(new File(storeDir, "bad.dts.corrupt").exists());
+    }
+
+    @Test
+    public void testLoadAllRestoresBackup() throws Exception
+    {
+        System.out.println("loadAllRestoresBackup");
+
+        FileSystemDeferredTimeStampStore store = new FileSystemDeferredTimeStampStore(storeDir);
+        store.save(new DeferredTimeStampEntry("id", new byte[] { 1, 2, 3 }, 1));
+
+        // As if the process stopped in the middle of replacing the entry.
+        assertTrue(new File(storeDir, "id.dts").renameTo(new File(storeDir, "id.dts.bak")));
+
+        assertEquals(1, store.loadAll().size());
+        assertEquals(1, store.loadAll().iterator().next().getAttempts());
+        assertFalse(new File(storeDir, "id.dts.bak").exists());
+    }
+
+    @Test(expected = XadesProfileResolutionException.class)
+    public void testDeferredTimeStampingWithXadesC() throws Exception
+    {
+        System.out.println("deferredTimeStampingWithXadesC");
+
+        DeferredTimeStampingQueue queue = new DeferredTimeStampingQueue(
+                newExtender(new FlakyTimeStampTokenProvider(0)),
+                new FileSystemDeferredTimeStampStore(storeDir),
+                new CollectingListener(0));
+        new XadesCSigningProfile(keyingProviderMy, new NoValidationDataProvider())
+                .withDeferredTimeStamping(queue)
+                .newSigner();
+    }
+
+    @Test(expected = XadesProfileResolutionException.class)
+    public void testDeferredTimeStampingBindingWithXadesC() throws Exception
+    {
+        System.out.println("deferredTimeStampingBindingWithXadesC");
+
+        DeferredTimeStampingQueue queue = new DeferredTimeStampingQueue(
+                newExtender(new FlakyTimeStampTokenProvider(0)),
+                new FileSystemDeferredTimeStampStore(storeDir),
+                new CollectingListener(0));
+        new XadesCSigningProfile(keyingProviderMy, new NoValidationDataProvider())
+                .withBinding(DeferredTimeStampingQueue.class, queue)
+                .newSigner();
+    }
+}
@@ -28,6 +28,10 @@ import xades4j.properties.DataObjectDesc;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import xades4j.verification.VerifierTestBase;
+import xades4j.verification.XAdESForm;
+import xades4j.verification.XAdESVerificationResult;
+import xades4j.verification.XadesVerificationProfile;
 import static org.junit.Assert.*;
 
 /**
@@ -74,6 +78,37 @@ public class OtherSignerTests extends SignerTestBase
         assertEquals(1, resolverSpi.resolveCount);
     }
 
+    @Test
+    public void testSignWithSignerTemplate() throws Exception
+    {
+        System.out.println("signWithSignerTemplate");
+
+        XadesSigner signer = new XadesBesSigningProfile(keyingProviderMy)
+                .withBasicSignatureOptions(new BasicSignatureOptions()
+                    .includeSigningCertificate(SigningCertificateMode.FULL_CHAIN)
+                    .includeIssuerSerial(true)
+                    .signKeyInfo(true))
+                .withSignerTemplate(true)
+                .newSigner();
+
+        for (int i = 0; i < 2; i++)
+        {
+            Document doc = getTestDocument();
+            Element root = doc.getDocumentElement();
+            DataObjectDesc obj1 = new DataObjectReference('#' + root.getAttribute("Id")).withTransform(new EnvelopedSignatureTransform());
+
+            XadesSignatureResult res = signer.sign(new SignedDataObjects(obj1), root);
+
+            assertSame(doc, res.getSignature().getSignedInfo().getSignatureMethodElement().getOwnerDocument());
+            assertEquals(3, res.getSignature().getKeyInfo().itemX509Data(0).lengthCertificate());
+
+            XAdESVerificationResult verifRes = new XadesVerificationProfile(VerifierTestBase.validationProviderMySigs)
+                    .newVerifier()
+                    .verify(res.getSignature().getElement(), null);
+            assertEquals(XAdESForm.BES, verifRes.getSignatureForm());
+        }
+    }
+
     class MyResolverSpi extends ResourceResolverSpi
     {
         private int resolveCount = 0;
@@ -0,0 +1,91 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import org.junit.Before;
+import org.junit.Test;
+import xades4j.properties.SignatureTimeStampProperty;
+import xades4j.properties.SignerRoleProperty;
+import xades4j.properties.SigningTimeProperty;
+import xades4j.utils.UtilsBindingsModule;
+import xades4j.xml.marshalling.MarshallingBindingsModule;
+import xades4j.xml.marshalling.algorithms.AlgorithmParametersBindingsModule;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class PropertyDataGeneratorsMapperImplTest
+{
+    private PropertyDataGeneratorsMapperImpl sut;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        sut = new PropertyDataGeneratorsMapperImpl(Guice.createInjector(new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(new TypeLiteral<PropertyDataObjectGenerator<SigningTimeProperty>>()
+                {
+                }).to(DataGenSigningTime.class).in(Singleton.class);
+            }
+        }));
+    }
+
+    @Test
+    public void testGetGenerator() throws Exception
+    {
+        System.out.println("getGenerator");
+
+        PropertyDataObjectGenerator<SigningTimeProperty> gen1 = sut.getGenerator(new SigningTimeProperty());
+        PropertyDataObjectGenerator<SigningTimeProperty> gen2 = sut.getGenerator(new SigningTimeProperty());
+        assertTrue(gen1 instanceof DataGenSigningTime);
+        assertSame(gen1, gen2);
+    }
+
+    @Test
+    public void testGetBuiltInGeneratorIsShared() throws Exception
+    {
+        System.out.println("getBuiltInGeneratorIsShared");
+
+        PropertyDataGeneratorsMapperImpl mapper = new PropertyDataGeneratorsMapperImpl(Guice.createInjector(
+                new DefaultProductionBindingsModule(),
+                new MarshallingBindingsModule(),
+                new UtilsBindingsModule(),
+                new AlgorithmParametersBindingsModule()));
+
+        PropertyDataObjectGenerator<SignatureTimeStampProperty> gen1 = mapper.getGenerator(new SignatureTimeStampProperty());
+        PropertyDataObjectGenerator<SignatureTimeStampProperty> gen2 = mapper.getGenerator(new SignatureTimeStampProperty());
+        assertTrue(gen1 instanceof DataGenSigTimeStamp);
+        assertSame(gen1, gen2);
+    }
+
+    @Test(expected = PropertyDataGeneratorNotAvailableException.class)
+    public void testGetGeneratorNotAvailable() throws Exception
+    {
+        System.out.println("getGeneratorNotAvailable");
+
+        sut.getGenerator(new SignerRoleProperty());
+    }
+}
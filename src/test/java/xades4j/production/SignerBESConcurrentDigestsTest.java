@@ -0,0 +1,196 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.production;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.resolver.ResourceResolver;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import xades4j.verification.SignatureSpecificVerificationOptions;
+import xades4j.verification.VerifierTestBase;
+import xades4j.verification.XAdESForm;
+import xades4j.verification.XAdESVerificationResult;
+import xades4j.verification.XadesVerificationProfile;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class SignerBESConcurrentDigestsTest extends SignerTestBase
+{
+    private static final int N_REFS = 100;
+    private static final int REF_SIZE = 128 * 1024;
+
+    private static ExecutorService[] executors;
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        executors = new ExecutorService[]
+        {
+            Executors.newFixedThreadPool(1),
+            Executors.newFixedThreadPool(4),
+            Executors.newFixedThreadPool(16)
+        };
+
+        for (int i = 0; i < N_REFS; i++)
+        {
+            byte[] data = new byte[REF_SIZE];
+            Arrays.fill(data, (byte) i);
+            InMemoryResolverSpi.data.put("xades4j:ref/" + i, data);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        for (ExecutorService executor : executors)
+        {
+            executor.shutdown();
+        }
+        InMemoryResolverSpi.data.clear();
+    }
+
+    @Test
+    public void testSignConcurrentDigests() throws Exception
+    {
+        System.out.println("signConcurrentDigests");
+
+        Document expectedDoc = getNewDocument();
+        new XadesBesSigningProfile(keyingProviderMy).newSigner().sign(newDataObjects(), expectedDoc);
+        List<String> expectedDigests = getDataObjectsDigestValues(expectedDoc);
+
+        for (ExecutorService executor : executors)
+        {
+            XadesSigner signer = new XadesBesSigningProfile(keyingProviderMy)
+                    .withReferenceDigestExecutor(executor)
+                    .newSigner();
+            Document doc = getNewDocument();
+
+            InMemoryResolverSpi.resolveCount.set(0);
+            signer.sign(newDataObjects(), doc);
+
+            // Each reference is resolved (and digested) once.
+            assertEquals(N_REFS, InMemoryResolverSpi.resolveCount.get());
+            assertEquals(expectedDigests, getDataObjectsDigestValues(doc));
+
+            XAdESVerificationResult res = new XadesVerificationProfile(VerifierTestBase.validationProviderMySigs)
+                    .newVerifier()
+                    .verify(doc.getDocumentElement(), new SignatureSpecificVerificationOptions().useResourceResolver(new ResourceResolver(new InMemoryResolverSpi())));
+            assertEquals(XAdESForm.BES, res.getSignatureForm());
+        }
+    }
+
+    @Ignore("Benchmark")
+    @Test
+    public void testSignConcurrentDigestsBenchmark() throws Exception
+    {
+        System.out.println("signConcurrentDigestsBenchmark");
+
+        XadesSigner[] signers = new XadesSigner[executors.length + 1];
+        String[] names = new String[signers.length];
+        signers[0] = new XadesBesSigningProfile(keyingProviderMy).newSigner();
+        names[0] = "calling thread";
+        for (int i = 0; i < executors.length; i++)
+        {
+            signers[i + 1] = new XadesBesSigningProfile(keyingProviderMy).withReferenceDigestExecutor(executors[i]).newSigner();
+            names[i + 1] = String.format("%d-thread pool", (int) Math.pow(4, i));
+        }
+
+        for (int s = 0; s < signers.length; s++)
+        {
+            // Warm-up
+            signers[s].sign(newDataObjects(), getNewDocument());
+
+            int nSignatures = 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < nSignatures; i++)
+            {
+                signers[s].sign(newDataObjects(), getNewDocument());
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%d references (%s): %.2f ms/signature%n", N_REFS, names[s], elapsed / 1e6 / nSignatures);
+        }
+    }
+
+    private static SignedDataObjects newDataObjects()
+    {
+        SignedDataObjects dataObjs = new SignedDataObjects().withResourceResolver(new ResourceResolver(new InMemoryResolverSpi()));
+        for (int i = 0; i < N_REFS; i++)
+        {
+            dataObjs.withSignedDataObject(new DataObjectReference("xades4j:ref/" + i));
+        }
+        return dataObjs;
+    }
+
+    private static List<String> getDataObjectsDigestValues(Document doc)
+    {
+        List<String> digests = new ArrayList<>(N_REFS);
+        NodeList refs = doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_REFERENCE);
+        for (int i = 0; i < refs.getLength(); i++)
+        {
+            Element ref = (Element) refs.item(i);
+            if (ref.getAttribute(Constants._ATT_URI).startsWith("xades4j:"))
+            {
+                digests.add(ref.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_DIGESTVALUE).item(0).getTextContent());
+            }
+        }
+        return digests;
+    }
+
+    public static class InMemoryResolverSpi extends ResourceResolverSpi
+    {
+        static final ConcurrentHashMap<String, byte[]> data = new ConcurrentHashMap<>();
+        static final AtomicInteger resolveCount = new AtomicInteger();
+
+        @Override
+        public XMLSignatureInput engineResolveURI(ResourceResolverContext context)
+        {
+            resolveCount.incrementAndGet();
+            return new XMLSignatureInput(data.get(context.attr.getValue()));
+        }
+
+        @Override
+        public boolean engineCanResolveURI(ResourceResolverContext context)
+        {
+            return context.attr != null && data.containsKey(context.attr.getValue());
+        }
+
+        @Override
+        public boolean engineIsThreadSafe()
+        {
+            return true;
+        }
+    }
+}
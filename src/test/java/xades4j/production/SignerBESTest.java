@@ -17,6 +17,10 @@
 package xades4j.production;
 
 import java.io.File;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
 import xades4j.algorithms.EnvelopedSignatureTransform;
 import xades4j.properties.DataObjectDesc;
 import xades4j.properties.AllDataObjsCommitmentTypeProperty;
@@ -31,8 +35,13 @@ import xades4j.algorithms.XPath2FilterTransform.XPath2Filter;
 import xades4j.algorithms.XPathTransform;
 import xades4j.properties.CounterSignatureProperty;
 import xades4j.properties.SignerRoleProperty;
+import xades4j.providers.KeyingDataProvider;
+import xades4j.providers.SigningCertChainException;
+import xades4j.providers.SigningKeyException;
 import xades4j.providers.SignaturePropertiesCollector;
 import xades4j.providers.SignaturePropertiesProvider;
+import xades4j.verification.UnexpectedJCAException;
+import static org.junit.Assert.*;
 
 /**
  *
@@ -144,4 +153,72 @@ public class SignerBESTest extends SignerTestBase
         
         outputDocument(doc, "detached.bes.xml");
     }
+
+    @Test
+    public void testSignBatch() throws Exception
+    {
+        System.out.println("signBatch");
+
+        Document doc1 = getTestDocument();
+        Document doc2 = getTestDocument();
+        Document doc3 = getTestDocument();
+        XadesBatchSigner signer = new XadesBesSigningProfile(keyingProviderMy).newBatchSigner();
+
+        SignedDataObjects dataObjs1 = new SignedDataObjects(new DataObjectReference('#' + doc1.getDocumentElement().getAttribute("Id")).withTransform(new EnvelopedSignatureTransform()));
+        SignedDataObjects dataObjs2 = new SignedDataObjects(new DataObjectReference("#unknownId"));
+        SignedDataObjects dataObjs3 = new SignedDataObjects(new DataObjectReference('#' + doc3.getDocumentElement().getAttribute("Id")).withTransform(new EnvelopedSignatureTransform()));
+
+        XadesBatchSignatureResult res = signer.signBatch(
+                Arrays.asList(dataObjs1, dataObjs2, dataObjs3),
+                Arrays.asList(doc1.getDocumentElement(), doc2.getDocumentElement(), doc3.getDocumentElement()));
+
+        assertEquals(3, res.size());
+        assertTrue(res.hasErrors());
+        assertNotNull(res.getResult(0));
+        assertNull(res.getResult(1));
+        assertNotNull(res.getError(1));
+        assertNotNull(res.getResult(2));
+        // The failed signature is not left on the document.
+        assertEquals(0, doc2.getElementsByTagNameNS("http://www.w3.org/2000/09/xmldsig#", "Signature").getLength());
+
+        outputDocument(doc1, "document.signed.bes.batch1.xml");
+        outputDocument(doc3, "document.signed.bes.batch3.xml");
+    }
+
+    @Test
+    public void testSignBatchObtainsKeyingDataOnce() throws Exception
+    {
+        System.out.println("signBatchObtainsKeyingDataOnce");
+
+        final int[] chainCount = new int[1], keyCount = new int[1];
+        KeyingDataProvider keyingProvider = new KeyingDataProvider()
+        {
+            @Override
+            public List<X509Certificate> getSigningCertificateChain() throws SigningCertChainException, UnexpectedJCAException
+            {
+                chainCount[0]++;
+                return keyingProviderMy.getSigningCertificateChain();
+            }
+
+            @Override
+            public PrivateKey getSigningKey(X509Certificate signingCert) throws SigningKeyException, UnexpectedJCAException
+            {
+                keyCount[0]++;
+                return keyingProviderMy.getSigningKey(signingCert);
+            }
+        };
+        XadesBatchSigner signer = new XadesBesSigningProfile(keyingProvider).newBatchSigner();
+
+        Document doc1 = getTestDocument();
+        Document doc2 = getTestDocument();
+        XadesBatchSignatureResult res = signer.signBatch(
+                Arrays.asList(
+                    new SignedDataObjects(new DataObjectReference('#' + doc1.getDocumentElement().getAttribute("Id")).withTransform(new EnvelopedSignatureTransform())),
+                    new SignedDataObjects(new DataObjectReference('#' + doc2.getDocumentElement().getAttribute("Id")).withTransform(new EnvelopedSignatureTransform()))),
+                Arrays.asList(doc1.getDocumentElement(), doc2.getDocumentElement()));
+
+        assertFalse(res.hasErrors());
+        assertEquals(1, chainCount[0]);
+        assertEquals(1, keyCount[0]);
+    }
 }
@@ -17,6 +17,19 @@
 package xades4j.production;
 
 import com.google.inject.Inject;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -27,8 +40,11 @@ import xades4j.properties.SignaturePolicyImpliedProperty;
 import xades4j.providers.MessageDigestEngineProvider;
 import xades4j.providers.SignaturePolicyInfoProvider;
 import xades4j.providers.impl.DefaultAlgorithmsProviderEx;
+import xades4j.providers.impl.DirectKeyingDataProvider;
 import xades4j.providers.impl.FirstCertificateSelector;
 import xades4j.providers.impl.HttpTimeStampTokenProvider;
+import xades4j.providers.impl.LocalTSAData;
+import xades4j.providers.impl.LocalTimeStampTokenProvider;
 import xades4j.providers.impl.PKCS11KeyStoreKeyingDataProvider;
 import xades4j.providers.impl.TSAHttpData;
 
@@ -102,6 +118,60 @@ public class SignerTTest extends SignerTestBase
         outputDocument(doc, "document.signed.t.epes.xml");
     }
 
+    private static XadesSigner newLocalTSASigner() throws Exception
+    {
+        Date now = new Date();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        KeyPair tsaKeys = keyGen.generateKeyPair();
+        X500Name tsaName = new X500Name("CN=Local TSA");
+        JcaX509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
+                tsaName, BigInteger.ONE, now, new Date(now.getTime() + 24L * 60 * 60 * 1000),
+                tsaName, tsaKeys.getPublic());
+        certBuilder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        X509Certificate tsaCert = new JcaX509CertificateConverter().getCertificate(
+                certBuilder.build(new JcaContentSignerBuilder("SHA256withRSA").build(tsaKeys.getPrivate())));
+
+        return new XadesTSigningProfile(keyingProviderMy)
+                .withTimeStampTokenProvider(LocalTimeStampTokenProvider.class)
+                .withBinding(LocalTSAData.class, new LocalTSAData(new DirectKeyingDataProvider(tsaCert, tsaKeys.getPrivate()), "1.2.3.4"))
+                .newSigner();
+    }
+
+    @Test
+    public void testSignTWithLocalTSA() throws Exception
+    {
+        System.out.println("signTWithLocalTSA");
+
+        XadesSigner signer = newLocalTSASigner();
+        Document doc = getTestDocument();
+        new Enveloped(signer).sign(doc.getDocumentElement());
+        outputDocument(doc, "document.signed.t.localtsa.xml");
+    }
+
+    @Ignore("Benchmark")
+    @Test
+    public void testSignTWithLocalTSABenchmark() throws Exception
+    {
+        System.out.println("signTWithLocalTSABenchmark");
+
+        XadesSigner signer = newLocalTSASigner();
+
+        // Warm-up
+        for (int i = 0; i < 10; i++)
+        {
+            new Enveloped(signer).sign(getTestDocument().getDocumentElement());
+        }
+
+        int count = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++)
+        {
+            new Enveloped(signer).sign(getTestDocument().getDocumentElement());
+        }
+        System.out.printf("  %.1f XAdES-T signatures/s%n", count / ((System.nanoTime() - start) / 1e9));
+    }
+
     @Test
     public void testSignTPtCC() throws Exception
     {
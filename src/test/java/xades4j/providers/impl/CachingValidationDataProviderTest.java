@@ -0,0 +1,161 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.FileInputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.ValidationData;
+import xades4j.providers.ValidationDataException;
+import xades4j.providers.ValidationDataProvider;
+
+/**
+ *
+ * @author Luís
+ */
+public class CachingValidationDataProviderTest
+{
+    private static X509Certificate cert;
+    private static X509Certificate issuerCert;
+    private static X509CRL crl;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        cert = (X509Certificate) cf.generateCertificate(new FileInputStream("./src/test/cert/csrc.nist/End Certificate CP.02.01.crt"));
+        issuerCert = (X509Certificate) cf.generateCertificate(new FileInputStream("./src/test/cert/csrc.nist/Intermediate Certificate 2 CP.02.01.crt"));
+        crl = (X509CRL) cf.generateCRL(new FileInputStream("./src/test/cert/csrc.nist/Intermediate CRL 2 CP.02.01.crl"));
+    }
+
+    private static class CountingProvider implements ValidationDataProvider
+    {
+        volatile int calls;
+
+        @Override
+        public ValidationData getValidationData(List<X509Certificate> certChainFragment) throws ValidationDataException
+        {
+            calls++;
+            return new ValidationData(Arrays.asList(cert, issuerCert), Arrays.asList(crl));
+        }
+    }
+
+    @Test
+    public void testGetValidationDataCached() throws Exception
+    {
+        System.out.println("getValidationDataCached");
+
+        CountingProvider delegate = new CountingProvider();
+        CachingValidationDataProvider instance = new CachingValidationDataProvider(delegate);
+
+        ValidationData first = instance.getValidationData(Arrays.asList(cert));
+        ValidationData second = instance.getValidationData(Arrays.asList(cert));
+        assertSame(first, second);
+        assertEquals(1, delegate.calls);
+
+        instance.getValidationData(Arrays.asList(cert, issuerCert));
+        assertEquals(2, delegate.calls);
+
+        instance.clear();
+        instance.getValidationData(Arrays.asList(cert));
+        assertEquals(3, delegate.calls);
+    }
+
+    @Test
+    public void testGetExpiry() throws Exception
+    {
+        System.out.println("getExpiry");
+
+        ValidationData data = new ValidationData(Arrays.asList(cert, issuerCert), Arrays.asList(crl));
+        long expected = Math.min(crl.getNextUpdate().getTime(),
+                Math.min(cert.getNotAfter().getTime(), issuerCert.getNotAfter().getTime()));
+        assertEquals(expected, CachingValidationDataProvider.getExpiry(data, System.currentTimeMillis(), 0));
+    }
+
+    @Test
+    public void testGetValidationDataWithoutNextUpdate() throws Exception
+    {
+        System.out.println("getValidationDataWithoutNextUpdate");
+
+        final ValidationData noRevocationData = new ValidationData(Arrays.asList(cert, issuerCert));
+        CountingProvider delegate = new CountingProvider()
+        {
+            @Override
+            public ValidationData getValidationData(List<X509Certificate> certChainFragment) throws ValidationDataException
+            {
+                calls++;
+                return noRevocationData;
+            }
+        };
+        CachingValidationDataProvider instance = new CachingValidationDataProvider(delegate);
+
+        // Not cached by default.
+        instance.getValidationData(Arrays.asList(cert));
+        instance.getValidationData(Arrays.asList(cert));
+        assertEquals(2, delegate.calls);
+
+        instance.setMaxAgeWithoutNextUpdate(60 * 1000);
+        instance.getValidationData(Arrays.asList(cert));
+        instance.getValidationData(Arrays.asList(cert));
+        assertEquals(3, delegate.calls);
+
+        long now = System.currentTimeMillis();
+        assertEquals(now + 1000, CachingValidationDataProvider.getExpiry(noRevocationData, now, 1000));
+        assertEquals(Math.min(cert.getNotAfter().getTime(), issuerCert.getNotAfter().getTime()),
+                CachingValidationDataProvider.getExpiry(noRevocationData, now, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws Exception
+    {
+        System.out.println("backgroundRefresh");
+
+        CountingProvider delegate = new CountingProvider();
+        long expiry = CachingValidationDataProvider.getExpiry(delegate.getValidationData(null), System.currentTimeMillis(), 0);
+        delegate.calls = 0;
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            // Refresh about 300 ms from now.
+            long refreshBefore = expiry - System.currentTimeMillis() - 300;
+            CachingValidationDataProvider instance = new CachingValidationDataProvider(delegate, executor, refreshBefore);
+
+            instance.getValidationData(Arrays.asList(cert));
+            instance.getValidationData(Arrays.asList(cert));
+            assertEquals(1, delegate.calls);
+
+            Thread.sleep(1000);
+            assertEquals(2, delegate.calls);
+
+            // The refreshed data wasn't used, so it isn't refreshed again.
+            Thread.sleep(1000);
+            assertEquals(2, delegate.calls);
+        } finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
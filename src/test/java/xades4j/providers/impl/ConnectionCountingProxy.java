@@ -0,0 +1,136 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP relay for tests that counts the connections it accepts, i.e. the
+ * connections that the clients open to the server behind it.
+ *
+ * @author Luís
+ */
+class ConnectionCountingProxy
+{
+    private final ServerSocket serverSocket;
+    private final int targetPort;
+    private final ExecutorService executor;
+    final AtomicInteger acceptedConnections = new AtomicInteger();
+
+    ConnectionCountingProxy(int targetPort) throws IOException
+    {
+        this.targetPort = targetPort;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+        this.executor = Executors.newCachedThreadPool();
+        this.executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                acceptLoop();
+            }
+        });
+    }
+
+    /**
+     * Gets the URL that goes through this proxy for a URL of the target server.
+     */
+    String proxiedUrl(String url) throws IOException
+    {
+        return "http://localhost:" + serverSocket.getLocalPort() + new URL(url).getPath();
+    }
+
+    void stop()
+    {
+        try
+        {
+            serverSocket.close();
+        } catch (IOException ex)
+        {
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop()
+    {
+        while (!serverSocket.isClosed())
+        {
+            try
+            {
+                Socket client = serverSocket.accept();
+                acceptedConnections.incrementAndGet();
+                Socket target = new Socket("localhost", targetPort);
+                client.setTcpNoDelay(true);
+                target.setTcpNoDelay(true);
+                relay(client, target);
+                relay(target, client);
+            } catch (IOException ex)
+            {
+                // Closed.
+            }
+        }
+    }
+
+    private void relay(final Socket from, final Socket to)
+    {
+        executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    InputStream in = from.getInputStream();
+                    OutputStream out = to.getOutputStream();
+                    byte[] buffer = new byte[4096];
+                    int len;
+                    while ((len = in.read(buffer)) > -1)
+                    {
+                        out.write(buffer, 0, len);
+                        out.flush();
+                    }
+                } catch (IOException ex)
+                {
+                    // The other direction closed the sockets.
+                } finally
+                {
+                    close(from);
+                    close(to);
+                }
+            }
+        });
+    }
+
+    private static void close(Socket s)
+    {
+        try
+        {
+            s.close();
+        } catch (IOException ex)
+        {
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertStore;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.CannotBuildCertificationPathException;
+
+/**
+ *
+ * @author Luís
+ */
+public class CrlSerialIndexTest
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static KeyPair caKeys;
+    private static X509Certificate caCert;
+    private static X509Certificate endCert;
+    private static Date now;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        now = new Date();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(1024);
+        caKeys = keyGen.generateKeyPair();
+        X500Name caName = new X500Name("CN=Test CA");
+
+        JcaX509v3CertificateBuilder caBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.ONE, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                caName, caKeys.getPublic());
+        caBuilder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        caCert = sign(caBuilder, caKeys.getPrivate());
+
+        JcaX509v3CertificateBuilder endBuilder = new JcaX509v3CertificateBuilder(
+                caName, new BigInteger("123456789012345678901234567890"), new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                new X500Name("CN=Test End"), keyGen.generateKeyPair().getPublic());
+        endCert = sign(endBuilder, caKeys.getPrivate());
+    }
+
+    private static X509Certificate sign(JcaX509v3CertificateBuilder builder, PrivateKey key) throws Exception
+    {
+        return new JcaX509CertificateConverter().getCertificate(
+                builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(key)));
+    }
+
+    private static X509CRL createCRL(BigInteger... revoked) throws Exception
+    {
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(new X500Name("CN=Test CA"), new Date(now.getTime() - DAY));
+        builder.setNextUpdate(new Date(now.getTime() + DAY));
+        for (BigInteger s : revoked)
+        {
+            builder.addCRLEntry(s, new Date(now.getTime() - 1000), CRLReason.keyCompromise);
+        }
+        return new JcaX509CRLConverter().getCRL(
+                builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate())));
+    }
+
+    private static File tempIndexFile() throws Exception
+    {
+        File f = File.createTempFile("xades4j", ".crlidx");
+        f.deleteOnExit();
+        return f;
+    }
+
+    @Test
+    public void testIsRevoked() throws Exception
+    {
+        System.out.println("isRevoked");
+
+        BigInteger[] revoked = new BigInteger[200];
+        for (int i = 0; i < revoked.length; i++)
+        {
+            // Serials with different lengths, not in order.
+            revoked[i] = BigInteger.valueOf(i * 7919L % 1000).shiftLeft(i % 70);
+        }
+        X509CRL crl = createCRL(revoked);
+
+        File f = tempIndexFile();
+        CrlSerialIndex index = CrlSerialIndex.compile(crl, caCert, f);
+        assertEquals(crl.getRevokedCertificates().size(), index.size());
+        assertEquals(caCert.getSubjectX500Principal(), index.getIssuer());
+        assertTrue(index.isValidAt(now));
+        assertFalse(index.isValidAt(new Date(now.getTime() + 2 * DAY)));
+
+        for (BigInteger s : revoked)
+        {
+            assertTrue(index.isRevoked(s, now));
+            assertFalse(index.isRevoked(s, new Date(now.getTime() - 2000)));
+            assertFalse(index.isRevoked(s.add(BigInteger.ONE).shiftLeft(200), now));
+        }
+        assertFalse(index.isRevoked(BigInteger.valueOf(-1), now));
+
+        // Reopen the compiled file.
+        CrlSerialIndex reopened = CrlSerialIndex.open(f);
+        assertEquals(index.size(), reopened.size());
+        assertTrue(reopened.isRevoked(revoked[42], now));
+        assertEquals(crl.getNextUpdate(), reopened.getNextUpdate());
+    }
+
+    @Test
+    public void testValidateWithIndexes() throws Exception
+    {
+        System.out.println("validateWithIndexes");
+
+        KeyStore ks = KeyStore.getInstance("jks");
+        ks.load(null);
+        ks.setCertificateEntry("ca", caCert);
+        CertStore certs = CertStore.getInstance("Collection", new CollectionCertStoreParameters(Collections.singleton(endCert)));
+
+        X509CertSelector certSelector = new X509CertSelector();
+        certSelector.setCertificate(endCert);
+
+        PKIXCertificateValidationProvider instance = new PKIXCertificateValidationProvider(ks, true, certs);
+        CrlSerialIndex notRevoked = CrlSerialIndex.compile(createCRL(BigInteger.TEN), caCert, tempIndexFile());
+        instance.setCrlSerialIndexes(Arrays.asList(notRevoked));
+        assertEquals(2, instance.validate(certSelector, now, null).getCerts().size());
+
+        CrlSerialIndex revoked = CrlSerialIndex.compile(createCRL(BigInteger.TEN, endCert.getSerialNumber()), caCert, tempIndexFile());
+        instance.setCrlSerialIndexes(Arrays.asList(revoked));
+        try
+        {
+            instance.validate(certSelector, now, null);
+            fail("The certificate is revoked");
+        } catch (CannotBuildCertificationPathException ex)
+        {
+        }
+
+        // No index for the issuer.
+        instance.setCrlSerialIndexes(Collections.<CrlSerialIndex>emptyList());
+        try
+        {
+            instance.validate(certSelector, now, null);
+            fail("There's no valid CRL");
+        } catch (CannotBuildCertificationPathException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testValidateWithIndexesWithoutCollectingCrls() throws Exception
+    {
+        System.out.println("validateWithIndexesWithoutCollectingCrls");
+
+        KeyStore ks = KeyStore.getInstance("jks");
+        ks.load(null);
+        ks.setCertificateEntry("ca", caCert);
+        X509CRL crl = createCRL(BigInteger.TEN);
+        CertStore certsAndCrls = CertStore.getInstance("Collection", new CollectionCertStoreParameters(Arrays.asList(endCert, crl)));
+
+        X509CertSelector certSelector = new X509CertSelector();
+        certSelector.setCertificate(endCert);
+
+        PKIXCertificateValidationProvider instance = new PKIXCertificateValidationProvider(ks, true, certsAndCrls);
+        CrlSerialIndex index = CrlSerialIndex.compile(crl, caCert, tempIndexFile());
+
+        instance.setCrlSerialIndexes(Arrays.asList(index));
+        assertEquals(1, instance.validate(certSelector, now, null).getCrls().size());
+
+        instance.setCrlSerialIndexes(Arrays.asList(index), false);
+        assertTrue(instance.validate(certSelector, now, null).getCrls().isEmpty());
+    }
+
+    @Test(expected = java.security.cert.CRLException.class)
+    public void testCompileWithWrongIssuerKey() throws Exception
+    {
+        System.out.println("compileWithWrongIssuerKey");
+
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(1024);
+        PublicKey otherKey = keyGen.generateKeyPair().getPublic();
+        X500Name caName = new X500Name("CN=Test CA");
+        X509Certificate otherCa = sign(new JcaX509v3CertificateBuilder(
+                caName, BigInteger.ONE, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                caName, otherKey), caKeys.getPrivate());
+
+        CrlSerialIndex.compile(createCRL(BigInteger.TEN), otherCa, tempIndexFile());
+    }
+}
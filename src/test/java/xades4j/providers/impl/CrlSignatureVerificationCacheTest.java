@@ -0,0 +1,79 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.io.FileInputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class CrlSignatureVerificationCacheTest
+{
+    private static X509CRL crl;
+    private static X509CRL otherCrl;
+    private static X509Certificate issuerCert;
+    private static X509Certificate otherCert;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        crl = (X509CRL) cf.generateCRL(new FileInputStream("./src/test/cert/csrc.nist/Intermediate CRL 1 CP.02.01.crl"));
+        otherCrl = (X509CRL) cf.generateCRL(new FileInputStream("./src/test/cert/csrc.nist/Intermediate CRL 2 CP.02.01.crl"));
+        issuerCert = (X509Certificate) cf.generateCertificate(new FileInputStream("./src/test/cert/csrc.nist/Intermediate Certificate 1 CP.02.01.crt"));
+        otherCert = (X509Certificate) cf.generateCertificate(new FileInputStream("./src/test/cert/csrc.nist/Intermediate Certificate 2 CP.02.01.crt"));
+    }
+
+    @Test
+    public void testIsVerified() throws Exception
+    {
+        System.out.println("isVerified");
+
+        CrlSignatureVerificationCache instance = new CrlSignatureVerificationCache();
+        long now = System.currentTimeMillis();
+        assertFalse(instance.isVerified(crl, issuerCert.getPublicKey(), now));
+
+        instance.verified(crl, issuerCert.getPublicKey());
+        assertTrue(instance.isVerified(crl, issuerCert.getPublicKey(), now));
+        // Same encoding, different instance.
+        X509CRL sameCrl = (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(
+                new FileInputStream("./src/test/cert/csrc.nist/Intermediate CRL 1 CP.02.01.crl"));
+        assertTrue(instance.isVerified(sameCrl, issuerCert.getPublicKey(), now));
+
+        assertFalse(instance.isVerified(crl, otherCert.getPublicKey(), now));
+        assertFalse(instance.isVerified(otherCrl, issuerCert.getPublicKey(), now));
+    }
+
+    @Test
+    public void testEvictedAtNextUpdate() throws Exception
+    {
+        System.out.println("evictedAtNextUpdate");
+
+        CrlSignatureVerificationCache instance = new CrlSignatureVerificationCache();
+        instance.verified(crl, issuerCert.getPublicKey());
+        assertFalse(instance.isVerified(crl, issuerCert.getPublicKey(), crl.getNextUpdate().getTime()));
+        // The entry was removed.
+        assertFalse(instance.isVerified(crl, issuerCert.getPublicKey(), System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.security.MessageDigest;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.junit.Test;
+import xades4j.UnsupportedAlgorithmException;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class DefaultMessageDigestProviderTest
+{
+    @Test
+    public void testGetEngineReturnsIndependentEngines() throws Exception
+    {
+        System.out.println("getEngineReturnsIndependentEngines");
+
+        DefaultMessageDigestProvider instance = new DefaultMessageDigestProvider();
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest("data".getBytes());
+
+        MessageDigest md1 = instance.getEngine(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        md1.update("garbage".getBytes());
+        MessageDigest md2 = instance.getEngine(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        MessageDigest md3 = instance.getEngine(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+
+        assertNotSame(md2, md3);
+        assertEquals("SHA-256", md2.getAlgorithm());
+        assertArrayEquals(expected, md2.digest("data".getBytes()));
+        assertArrayEquals(expected, md3.digest("data".getBytes()));
+    }
+
+    @Test(expected = UnsupportedAlgorithmException.class)
+    public void testGetEngineUnknownAlgorithm() throws Exception
+    {
+        System.out.println("getEngineUnknownAlgorithm");
+
+        new DefaultMessageDigestProvider().getEngine("http://unknown.alg");
+    }
+}
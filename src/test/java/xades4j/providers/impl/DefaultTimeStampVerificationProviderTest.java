@@ -19,10 +19,26 @@ package xades4j.providers.impl;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.security.KeyStore;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.CertificateValidationException;
+import xades4j.providers.CertificateValidationProvider;
 import xades4j.providers.TimeStampTokenDigestException;
 import xades4j.providers.TimeStampTokenVerificationException;
+import xades4j.providers.ValidationData;
 import xades4j.utils.StreamUtils;
+import xades4j.verification.UnexpectedJCAException;
 import xades4j.verification.VerifierTestBase;
 
 /**
@@ -67,6 +83,108 @@ public class DefaultTimeStampVerificationProviderTest extends VerifierTestBase
         doVerifyToken(tsDigestInput, tsToken);
     }
 
+    @Test
+    public void testVerifyTokenConcurrently() throws Exception
+    {
+        System.out.println("verifyTokenConcurrently");
+
+        final byte[] tsDigestInput = "TestDigestInput".getBytes();
+        final byte[] tsToken = getTestToken();
+        final DefaultTimeStampVerificationProvider timeStampVerificationProvider = createProvider();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Date>> results = new ArrayList<Future<Date>>();
+            for (int i = 0; i < 64; i++)
+            {
+                results.add(executor.submit(new Callable<Date>()
+                {
+                    @Override
+                    public Date call() throws Exception
+                    {
+                        return timeStampVerificationProvider.verifyToken(tsToken, tsDigestInput);
+                    }
+                }));
+            }
+
+            Date expected = results.get(0).get();
+            for (Future<Date> r : results)
+            {
+                assertEquals(expected, r.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVerifyTokenCached() throws Exception
+    {
+        System.out.println("verifyTokenCached");
+
+        byte[] tsDigestInput = "TestDigestInput".getBytes();
+        byte[] tsToken = getTestToken();
+        final PKIXCertificateValidationProvider pkixProvider = createCertificateValidationProvider();
+        final AtomicInteger validations = new AtomicInteger();
+        CertificateValidationProvider countingProvider = new CertificateValidationProvider()
+        {
+            @Override
+            public ValidationData validate(X509CertSelector certSelector, Date validationDate, Collection<X509Certificate> otherCerts) throws CertificateValidationException, UnexpectedJCAException
+            {
+                validations.incrementAndGet();
+                return pkixProvider.validate(certSelector, validationDate, otherCerts);
+            }
+        };
+
+        DefaultTimeStampVerificationProvider instance = new DefaultTimeStampVerificationProvider(
+                countingProvider,
+                new DefaultMessageDigestProvider());
+        TimeStampVerificationCache cache = new TimeStampVerificationCache(10, 60 * 1000);
+        instance.setVerificationCache(cache);
+
+        Date first = instance.verifyToken(tsToken, tsDigestInput);
+        Date second = instance.verifyToken(tsToken.clone(), tsDigestInput);
+        assertEquals(first, second);
+        assertEquals(1, validations.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+
+        // The message imprint is still checked for cached tokens.
+        try
+        {
+            instance.verifyToken(tsToken, "Invalid".getBytes());
+            fail("Different digest input should fail");
+        } catch (TimeStampTokenDigestException ex)
+        {
+        }
+        assertEquals(1, validations.get());
+
+        instance.setVerificationCache(null);
+        instance.verifyToken(tsToken, tsDigestInput);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testVerifyTokenCacheExpiry() throws Exception
+    {
+        System.out.println("verifyTokenCacheExpiry");
+
+        byte[] tsDigestInput = "TestDigestInput".getBytes();
+        byte[] tsToken = getTestToken();
+        DefaultTimeStampVerificationProvider instance = createProvider();
+        TimeStampVerificationCache cache = new TimeStampVerificationCache(10, 0);
+        instance.setVerificationCache(cache);
+
+        instance.verifyToken(tsToken, tsDigestInput);
+        Thread.sleep(5);
+        instance.verifyToken(tsToken, tsDigestInput);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
     private byte[] getTestToken() throws Exception
     {
         // The 'tstoken' file contains an encoded time stamp token issued by
@@ -82,13 +200,19 @@ public class DefaultTimeStampVerificationProviderTest extends VerifierTestBase
 
     private void doVerifyToken(byte[] tsDigestInput, byte[] tsToken) throws Exception
     {
-        KeyStore ks = createAndLoadJKSKeyStore("gva/trustAnchor", "password");
-        PKIXCertificateValidationProvider certificateValidationProvider = new PKIXCertificateValidationProvider(ks, false);
+        createProvider().verifyToken(tsToken, tsDigestInput);
+    }
 
-        DefaultTimeStampVerificationProvider timeStampVerificationProvider = new DefaultTimeStampVerificationProvider(
-                certificateValidationProvider,
+    private DefaultTimeStampVerificationProvider createProvider() throws Exception
+    {
+        return new DefaultTimeStampVerificationProvider(
+                createCertificateValidationProvider(),
                 new DefaultMessageDigestProvider());
+    }
 
-        timeStampVerificationProvider.verifyToken(tsToken, tsDigestInput);
+    private PKIXCertificateValidationProvider createCertificateValidationProvider() throws Exception
+    {
+        KeyStore ks = createAndLoadJKSKeyStore("gva/trustAnchor", "password");
+        return new PKIXCertificateValidationProvider(ks, false);
     }
 }
@@ -16,13 +16,246 @@
  */
 package xades4j.providers.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
-import static org.junit.Assert.assertNotNull;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import static org.junit.Assert.*;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import xades4j.production.Enveloped;
+import xades4j.production.XadesSigner;
+import xades4j.production.XadesSigningProfile;
+import xades4j.production.XadesTSigningProfile;
+import xades4j.providers.KeyingDataProvider;
 import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
+import xades4j.utils.SignatureServicesTestBase;
 
 public class HttpTimeStampTokenProviderTest
 {
+    private static LocalTSAServer server;
+    private static LocalTSAServer.Endpoint tsa;
+    private static LocalTSAServer.Endpoint closingTsa;
+    private static ConnectionCountingProxy proxy;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        server = new LocalTSAServer();
+        tsa = server.addEndpoint("/tsa");
+        closingTsa = server.addEndpoint("/tsa-close");
+        closingTsa.closeConnections = true;
+        proxy = new ConnectionCountingProxy(new URL(tsa.url).getPort());
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        proxy.stop();
+        server.stop();
+    }
+
+    private static long timeRequests(HttpTimeStampTokenProvider provider, int count) throws Exception
+    {
+        byte[] tsDigestInput = "TestDigestInput".getBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++)
+        {
+            TimeStampTokenRes result = provider.getTimeStampToken(tsDigestInput, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+            assertNotNull(result.encodedTimeStampToken);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception
+    {
+        System.out.println("connectionReuse");
+
+        HttpTimeStampTokenProvider keepAlive = new HttpTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new TSAHttpData(proxy.proxiedUrl(tsa.url), null, null, 5000, 5000, 1));
+        HttpTimeStampTokenProvider noKeepAlive = new HttpTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new TSAHttpData(proxy.proxiedUrl(closingTsa.url), null, null, 5000, 5000, 1));
+
+        // Without keep-alive first, since both go through the same host and
+        // port and an idle keep-alive connection would be reused.
+        int count = 20;
+        proxy.acceptedConnections.set(0);
+        timeRequests(noKeepAlive, count);
+        assertEquals(count, proxy.acceptedConnections.get());
+
+        proxy.acceptedConnections.set(0);
+        timeRequests(keepAlive, count);
+        assertEquals(1, proxy.acceptedConnections.get());
+    }
+
+    @Ignore("Benchmark")
+    @Test
+    public void testConnectionReuseBenchmark() throws Exception
+    {
+        System.out.println("connectionReuseBenchmark");
+
+        HttpTimeStampTokenProvider keepAlive = new HttpTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new TSAHttpData(tsa.url, null, null, 5000, 5000, 1));
+        HttpTimeStampTokenProvider noKeepAlive = new HttpTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new TSAHttpData(closingTsa.url, null, null, 5000, 5000, 1));
+
+        // Warm-up
+        timeRequests(keepAlive, 20);
+        timeRequests(noKeepAlive, 20);
+
+        int count = 100;
+        long keepAliveTime = timeRequests(keepAlive, count);
+        long noKeepAliveTime = timeRequests(noKeepAlive, count);
+
+        System.out.printf("  keep-alive:    %.3f ms/request%n", keepAliveTime / 1e6 / count);
+        System.out.printf("  no keep-alive: %.3f ms/request%n", noKeepAliveTime / 1e6 / count);
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception
+    {
+        System.out.println("maxConnections");
+
+        final HttpTimeStampTokenProvider instance = new HttpTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new TSAHttpData(tsa.url, null, null, 5000, 5000, 2));
+
+        tsa.maxInFlight.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(executor.submit(new Callable<Long>()
+                {
+                    @Override
+                    public Long call() throws Exception
+                    {
+                        return timeRequests(instance, 10);
+                    }
+                }));
+            }
+            for (Future<Long> r : results)
+            {
+                r.get();
+            }
+        } finally
+        {
+            executor.shutdown();
+        }
+
+        assertTrue(tsa.maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void testMaxConnectionsSharedBySigners() throws Exception
+    {
+        System.out.println("maxConnectionsSharedBySigners");
+
+        KeyingDataProvider keyingProvider = new FileSystemKeyStoreKeyingDataProvider(
+                "JKS", SignatureServicesTestBase.toPlatformSpecificCertDirFilePath("my/LG.jks"),
+                new FirstCertificateSelector(),
+                new DirectPasswordProvider("mykeypass"),
+                new DirectPasswordProvider("mykeypass"), true);
+        XadesSigningProfile profile = new XadesTSigningProfile(keyingProvider)
+                .withBinding(TSAHttpData.class, new TSAHttpData(tsa.url, null, null, 5000, 5000, 1));
+        final XadesSigner[] signers =
+        {
+            profile.newSigner(), profile.newSigner()
+        };
+
+        tsa.maxInFlight.set(0);
+        tsa.delay = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+            {
+                final XadesSigner signer = signers[i % signers.length];
+                // The documents are parsed here since the parser isn't thread-safe.
+                final Document[] docs =
+                {
+                    SignatureServicesTestBase.getDocument("document.xml"),
+                    SignatureServicesTestBase.getDocument("document.xml"),
+                    SignatureServicesTestBase.getDocument("document.xml")
+                };
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for (Document doc : docs)
+                        {
+                            new Enveloped(signer).sign(doc.getDocumentElement());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> r : results)
+            {
+                r.get();
+            }
+        } finally
+        {
+            tsa.delay = 0;
+            executor.shutdown();
+        }
+
+        assertEquals(1, tsa.maxInFlight.get());
+    }
+
+    @Test
+    public void testReadResponse() throws Exception
+    {
+        System.out.println("readResponse");
+
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+
+        assertArrayEquals(data, HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(data), data.length));
+        assertArrayEquals(data, HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(data), -1));
+        assertArrayEquals(new byte[0], HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(data), 0));
+
+        byte[] large = new byte[200 * 1024];
+        large[large.length - 1] = 1;
+        assertArrayEquals(large, HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(large), large.length));
+        try
+        {
+            // A bogus length doesn't cause a huge allocation.
+            HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(data), Integer.MAX_VALUE);
+            fail("Truncated response should fail");
+        } catch (IOException ex)
+        {
+        }
+        try
+        {
+            HttpTimeStampTokenProvider.readResponse(new ByteArrayInputStream(data), data.length + 1);
+            fail("Truncated response should fail");
+        } catch (IOException ex)
+        {
+        }
+    }
+
     @Test
     public void testGetTimeStampToken() throws Exception
     {
@@ -0,0 +1,116 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.math.BigInteger;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import xades4j.providers.CertificateValidationProvider;
+import xades4j.providers.ValidationDataException;
+
+/**
+ * In-process OCSP responder, signed by a CA, for tests.
+ * @author Luís
+ */
+class LocalOCSPResponder
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private final X509Certificate caCert;
+    private final PrivateKey caKey;
+    final Set<BigInteger> revoked = new HashSet<BigInteger>();
+    final List<OCSPResp> responses = new ArrayList<OCSPResp>();
+
+    LocalOCSPResponder(X509Certificate caCert, PrivateKey caKey)
+    {
+        this.caCert = caCert;
+        this.caKey = caKey;
+    }
+
+    synchronized byte[] respond(byte[] encodedRequest) throws Exception
+    {
+        Date now = new Date();
+        X509CertificateHolder caHolder = new JcaX509CertificateHolder(caCert);
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(caHolder.getSubject()));
+        for (Req r : new OCSPReq(encodedRequest).getRequestList())
+        {
+            CertificateID id = r.getCertID();
+            CertificateStatus status = revoked.contains(id.getSerialNumber())
+                    ? new RevokedStatus(new Date(now.getTime() - 1000), CRLReason.keyCompromise)
+                    : CertificateStatus.GOOD;
+            builder.addResponse(id, status, new Date(now.getTime() - 1000), new Date(now.getTime() + DAY), null);
+        }
+        OCSPResp resp = new OCSPRespBuilder().build(
+                OCSPRespBuilder.SUCCESSFUL,
+                builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKey), new X509CertificateHolder[] { caHolder }, now));
+        responses.add(resp);
+        return resp.getEncoded();
+    }
+
+    /**
+     * Gets a response for a certificate issued by the CA.
+     */
+    OCSPResp respondFor(X509Certificate cert) throws Exception
+    {
+        CertificateID id = new CertificateID(
+                new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new JcaX509CertificateHolder(caCert),
+                cert.getSerialNumber());
+        return new OCSPResp(respond(new OCSPReqBuilder().addRequest(id).build().getEncoded()));
+    }
+
+    /**
+     * Creates an {@code OCSPValidationDataProvider} that uses this responder.
+     */
+    OCSPValidationDataProvider newValidationDataProvider(CertificateValidationProvider certValidationProvider)
+    {
+        return new OCSPValidationDataProvider(certValidationProvider, "http://localhost/ocsp")
+        {
+            @Override
+            protected byte[] getResponse(String url, byte[] encodedRequest) throws ValidationDataException
+            {
+                try
+                {
+                    return respond(encodedRequest);
+                } catch (Exception ex)
+                {
+                    throw new ValidationDataException("Responder error", ex);
+                }
+            }
+        };
+    }
+}
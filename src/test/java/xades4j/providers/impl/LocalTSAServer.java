@@ -0,0 +1,171 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * Stand-in HTTP TSA for tests, backed by {@link LocalTimeStampTokenProvider}. Each endpoint can be configured to close
+ * connections, delay responses or fail.
+ *
+ * @author Luís
+ */
+class LocalTSAServer
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private final HttpServer server;
+    private final LocalTimeStampTokenProvider tsaProvider;
+
+    LocalTSAServer() throws Exception
+    {
+        this.tsaProvider = new LocalTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new LocalTSAData(createTSAKeyingData(true), "1.2.3.4"));
+
+        // Avoid Nagle delays on persistent connections.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    /**
+     * Creates a self-signed TSA certificate and key.
+     * @param timeStampingUsage whether the certificate has the (critical)
+     *      time-stamping extended key usage required for TSAs
+     */
+    static DirectKeyingDataProvider createTSAKeyingData(boolean timeStampingUsage) throws Exception
+    {
+        Date now = new Date();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(1024);
+        KeyPair tsaKeys = keyGen.generateKeyPair();
+        X500Name tsaName = new X500Name("CN=Test TSA");
+
+        JcaX509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
+                tsaName, BigInteger.ONE, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                tsaName, tsaKeys.getPublic());
+        if (timeStampingUsage)
+        {
+            certBuilder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        }
+        X509Certificate tsaCert = new JcaX509CertificateConverter().getCertificate(
+                certBuilder.build(new JcaContentSignerBuilder("SHA256withRSA").build(tsaKeys.getPrivate())));
+        return new DirectKeyingDataProvider(tsaCert, tsaKeys.getPrivate());
+    }
+
+    Endpoint addEndpoint(String path)
+    {
+        Endpoint endpoint = new Endpoint("http://localhost:" + server.getAddress().getPort() + path);
+        server.createContext(path, endpoint);
+        return endpoint;
+    }
+
+    void stop()
+    {
+        server.stop(0);
+    }
+
+    class Endpoint implements HttpHandler
+    {
+        final String url;
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile boolean closeConnections;
+        volatile boolean fail;
+        volatile long delay;
+
+        private Endpoint(String url)
+        {
+            this.url = url;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            requests.incrementAndGet();
+
+            int current = inFlight.incrementAndGet();
+            while (true)
+            {
+                int max = maxInFlight.get();
+                if (current <= max || maxInFlight.compareAndSet(max, current))
+                {
+                    break;
+                }
+            }
+
+            byte[] response;
+            try (InputStream in = exchange.getRequestBody())
+            {
+                byte[] request = HttpTimeStampTokenProvider.readResponse(in, -1);
+                if (delay > 0)
+                {
+                    Thread.sleep(delay);
+                }
+                response = fail ? null : tsaProvider.getResponse(request);
+            } catch (Exception ex)
+            {
+                throw new IOException(ex);
+            } finally
+            {
+                // Before the client can get the response and issue another request.
+                inFlight.decrementAndGet();
+            }
+
+            if (closeConnections)
+            {
+                exchange.getResponseHeaders().add("Connection", "close");
+            }
+            if (response == null)
+            {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/timestamp-reply");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(response);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.TimeStampTokenGenerationException;
+import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
+
+/**
+ *
+ * @author Luís
+ */
+public class LocalTimeStampTokenProviderTest
+{
+    @Test
+    public void testGetTimeStampTokenConcurrently() throws Exception
+    {
+        System.out.println("getTimeStampTokenConcurrently");
+
+        DirectKeyingDataProvider keyingData = LocalTSAServer.createTSAKeyingData(true);
+        final X509Certificate tsaCert = keyingData.getSigningCertificateChain().get(0);
+        final LocalTimeStampTokenProvider instance = new LocalTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new LocalTSAData(keyingData, "1.2.3.4"));
+
+        final int threads = 8, tokensPerThread = 50;
+        final Set<BigInteger> serialNumbers = Collections.synchronizedSet(new HashSet<BigInteger>());
+        final Set<BigInteger> nonces = Collections.synchronizedSet(new HashSet<BigInteger>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for (int j = 0; j < tokensPerThread; j++)
+                        {
+                            TimeStampTokenRes res = instance.getTimeStampToken(
+                                    ("input" + j).getBytes(), MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+                            TimeStampToken token = new TimeStampToken(new CMSSignedData(res.encodedTimeStampToken));
+                            token.validate(new JcaSimpleSignerInfoVerifierBuilder().build(tsaCert));
+                            assertEquals("1.2.3.4", token.getTimeStampInfo().getPolicy().getId());
+                            serialNumbers.add(token.getTimeStampInfo().getSerialNumber());
+                            nonces.add(token.getTimeStampInfo().getNonce());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> r : results)
+            {
+                r.get();
+            }
+        } finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * tokensPerThread, serialNumbers.size());
+        assertEquals(threads * tokensPerThread, nonces.size());
+    }
+
+    @Test(expected = TimeStampTokenGenerationException.class)
+    public void testInvalidTSACertificate() throws Exception
+    {
+        System.out.println("invalidTSACertificate");
+
+        LocalTimeStampTokenProvider instance = new LocalTimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new LocalTSAData(LocalTSAServer.createTSAKeyingData(false), "1.2.3.4"));
+        instance.getTimeStampToken("input".getBytes(), MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+    }
+}
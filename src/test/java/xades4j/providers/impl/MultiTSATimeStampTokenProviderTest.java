@@ -0,0 +1,231 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.TimeStampTokenGenerationException;
+import xades4j.providers.TimeStampTokenProvider.TimeStampTokenRes;
+
+/**
+ *
+ * @author Luís
+ */
+public class MultiTSATimeStampTokenProviderTest
+{
+    private LocalTSAServer server;
+    private LocalTSAServer.Endpoint tsa1;
+    private LocalTSAServer.Endpoint tsa2;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        server = new LocalTSAServer();
+        tsa1 = server.addEndpoint("/tsa1");
+        tsa2 = server.addEndpoint("/tsa2");
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop();
+    }
+
+    private static TimeStampTokenRes getToken(MultiTSATimeStampTokenProvider instance) throws TimeStampTokenGenerationException
+    {
+        return instance.getTimeStampToken("TestDigestInput".getBytes(), MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+    }
+
+    @Test
+    public void testFailover() throws Exception
+    {
+        System.out.println("failover");
+
+        tsa1.fail = true;
+        MultiTSATimeStampTokenProvider instance = new MultiTSATimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new MultiTSAHttpData()
+                        .withTSA(new TSAHttpData(tsa1.url), 10)
+                        .withTSA(new TSAHttpData(tsa2.url), 1));
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertNotNull(getToken(instance).encodedTimeStampToken);
+        }
+
+        List<TSAStatistics> stats = instance.getStatistics();
+        assertEquals(tsa1.url, stats.get(0).getUrl());
+        assertTrue(stats.get(0).getErrorCount() > 0);
+        // Failing TSAs are moved to the end after a few errors.
+        assertTrue(stats.get(0).getErrorCount() < 10);
+        assertEquals(10, stats.get(1).getRequestCount());
+        assertEquals(0, stats.get(1).getErrorCount());
+        assertTrue(stats.get(1).getLatencyPercentile95() >= 0);
+    }
+
+    @Test(expected = TimeStampTokenGenerationException.class)
+    public void testAllFail() throws Exception
+    {
+        System.out.println("allFail");
+
+        tsa1.fail = true;
+        tsa2.fail = true;
+        MultiTSATimeStampTokenProvider instance = new MultiTSATimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new MultiTSAHttpData()
+                        .withTSA(new TSAHttpData(tsa1.url), 1)
+                        .withTSA(new TSAHttpData(tsa2.url), 1));
+        getToken(instance);
+    }
+
+    @Test
+    public void testHedgedRequest() throws Exception
+    {
+        System.out.println("hedgedRequest");
+
+        tsa1.delay = 2000;
+        MultiTSATimeStampTokenProvider instance = new MultiTSATimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new MultiTSAHttpData()
+                        .withTSA(new TSAHttpData(tsa1.url), 1000000)
+                        .withTSA(new TSAHttpData(tsa2.url), 1)
+                        .withHedgeDelay(50));
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++)
+        {
+            assertNotNull(getToken(instance).encodedTimeStampToken);
+        }
+        assertTrue(System.currentTimeMillis() - start < 2000);
+
+        List<TSAStatistics> stats = instance.getStatistics();
+        assertEquals(3, stats.get(1).getHedgedRequestCount());
+        assertEquals(3, tsa2.requests.get());
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception
+    {
+        System.out.println("concurrencyLimit");
+
+        tsa1.delay = 100;
+        final MultiTSATimeStampTokenProvider instance = new MultiTSATimeStampTokenProvider(
+                new DefaultMessageDigestProvider(),
+                new MultiTSAHttpData()
+                        .withTSA(new TSAHttpData(tsa1.url, null, null, 0, 0, 1), 1000000)
+                        .withTSA(new TSAHttpData(tsa2.url), 1)
+                        .withHedgeDelay(0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<TimeStampTokenRes>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(executor.submit(new Callable<TimeStampTokenRes>()
+                {
+                    @Override
+                    public TimeStampTokenRes call() throws Exception
+                    {
+                        return getToken(instance);
+                    }
+                }));
+            }
+            for (Future<TimeStampTokenRes> r : results)
+            {
+                assertNotNull(r.get().encodedTimeStampToken);
+            }
+        } finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(1, tsa1.maxInFlight.get());
+        // Requests that found the first TSA busy went to the second one.
+        assertTrue(tsa2.requests.get() > 0);
+        assertEquals(0, instance.getStatistics().get(1).getHedgedRequestCount());
+    }
+
+    @Test
+    public void testStateSharedByProviders() throws Exception
+    {
+        System.out.println("stateSharedByProviders");
+
+        tsa1.delay = 100;
+        MultiTSAHttpData tsasData = new MultiTSAHttpData()
+                .withTSA(new TSAHttpData(tsa1.url, null, null, 0, 0, 1), 1000000)
+                .withTSA(new TSAHttpData(tsa2.url), 1)
+                .withHedgeDelay(0);
+        // E.g. the providers of two signers created from the same profile.
+        final MultiTSATimeStampTokenProvider[] instances =
+        {
+            new MultiTSATimeStampTokenProvider(new DefaultMessageDigestProvider(), tsasData),
+            new MultiTSATimeStampTokenProvider(new DefaultMessageDigestProvider(), tsasData)
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<TimeStampTokenRes>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                final MultiTSATimeStampTokenProvider instance = instances[i % instances.length];
+                results.add(executor.submit(new Callable<TimeStampTokenRes>()
+                {
+                    @Override
+                    public TimeStampTokenRes call() throws Exception
+                    {
+                        return getToken(instance);
+                    }
+                }));
+            }
+            for (Future<TimeStampTokenRes> r : results)
+            {
+                assertNotNull(r.get().encodedTimeStampToken);
+            }
+        } finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(1, tsa1.maxInFlight.get());
+        for (MultiTSATimeStampTokenProvider instance : instances)
+        {
+            List<TSAStatistics> stats = instance.getStatistics();
+            assertEquals(8, stats.get(0).getRequestCount() + stats.get(1).getRequestCount());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddTSAAfterUse() throws Exception
+    {
+        System.out.println("addTSAAfterUse");
+
+        MultiTSAHttpData tsasData = new MultiTSAHttpData().withTSA(new TSAHttpData(tsa1.url), 1);
+        new MultiTSATimeStampTokenProvider(new DefaultMessageDigestProvider(), tsasData);
+        tsasData.withTSA(new TSAHttpData(tsa2.url), 1);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.CertStore;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.apache.xml.security.utils.Constants;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import static org.junit.Assert.*;
+import xades4j.production.Enveloped;
+import xades4j.production.XadesCSigningProfile;
+import xades4j.production.XadesSigner;
+import xades4j.properties.CompleteRevocationRefsProperty;
+import xades4j.providers.CannotBuildCertificationPathException;
+import xades4j.providers.ValidationData;
+import xades4j.utils.SignatureServicesTestBase;
+import xades4j.verification.XAdESForm;
+import xades4j.verification.XAdESVerificationResult;
+import xades4j.verification.XadesVerificationProfile;
+
+/**
+ *
+ * @author Luís
+ */
+public class OCSPCertificateValidationProviderTest
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static KeyPair caKeys;
+    private static X509Certificate caCert;
+    private static KeyPair endKeys;
+    private static X509Certificate endCert;
+    private static KeyPair tsaKeys;
+    private static X509Certificate tsaCert;
+    private static PKIXCertificateValidationProvider pathValidationProvider;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        Date now = new Date();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(1024);
+        caKeys = keyGen.generateKeyPair();
+        X500Name caName = new X500Name("CN=Test OCSP CA");
+
+        JcaX509v3CertificateBuilder caBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.ONE, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                caName, caKeys.getPublic());
+        caBuilder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        caCert = new JcaX509CertificateConverter().getCertificate(caBuilder.build(signer()));
+
+        endKeys = keyGen.generateKeyPair();
+        JcaX509v3CertificateBuilder endBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.TEN, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                new X500Name("CN=Test OCSP End"), endKeys.getPublic());
+        endCert = new JcaX509CertificateConverter().getCertificate(endBuilder.build(signer()));
+
+        tsaKeys = keyGen.generateKeyPair();
+        JcaX509v3CertificateBuilder tsaBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.valueOf(11), new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                new X500Name("CN=Test OCSP TSA"), tsaKeys.getPublic());
+        tsaBuilder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        tsaCert = new JcaX509CertificateConverter().getCertificate(tsaBuilder.build(signer()));
+
+        KeyStore ks = KeyStore.getInstance("jks");
+        ks.load(null);
+        ks.setCertificateEntry("ca", caCert);
+        CertStore certs = CertStore.getInstance("Collection", new CollectionCertStoreParameters(Arrays.asList(endCert, tsaCert)));
+        pathValidationProvider = new PKIXCertificateValidationProvider(ks, false, certs);
+    }
+
+    private static ContentSigner signer() throws Exception
+    {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate());
+    }
+
+    private static X509CertSelector endCertSelector()
+    {
+        X509CertSelector certSelector = new X509CertSelector();
+        certSelector.setCertificate(endCert);
+        return certSelector;
+    }
+
+    @Test
+    public void testValidate() throws Exception
+    {
+        System.out.println("validate");
+
+        LocalOCSPResponder responder = new LocalOCSPResponder(caCert, caKeys.getPrivate());
+        OCSPResp resp = responder.respondFor(endCert);
+        OCSPResp otherResp = responder.respondFor(tsaCert);
+
+        OCSPCertificateValidationProvider instance = new OCSPCertificateValidationProvider(pathValidationProvider, Arrays.asList(otherResp, resp));
+        ValidationData result = instance.validate(endCertSelector(), new Date(), null);
+        assertEquals(2, result.getCerts().size());
+        assertEquals(1, result.getOcspResponses().size());
+        assertSame(resp, result.getOcspResponses().iterator().next());
+    }
+
+    @Test(expected = CannotBuildCertificationPathException.class)
+    public void testValidateWithoutResponse() throws Exception
+    {
+        System.out.println("validateWithoutResponse");
+
+        OCSPCertificateValidationProvider instance = new OCSPCertificateValidationProvider(pathValidationProvider, Collections.<OCSPResp>emptyList());
+        instance.validate(endCertSelector(), new Date(), null);
+    }
+
+    @Test(expected = CannotBuildCertificationPathException.class)
+    public void testValidateRevoked() throws Exception
+    {
+        System.out.println("validateRevoked");
+
+        LocalOCSPResponder responder = new LocalOCSPResponder(caCert, caKeys.getPrivate());
+        responder.revoked.add(endCert.getSerialNumber());
+        responder.respondFor(endCert);
+
+        OCSPCertificateValidationProvider instance = new OCSPCertificateValidationProvider(pathValidationProvider, responder.responses);
+        instance.validate(endCertSelector(), new Date(), null);
+    }
+
+    @Test
+    public void testSignAndVerifyCWithOcspRefs() throws Exception
+    {
+        System.out.println("signAndVerifyCWithOcspRefs");
+
+        LocalOCSPResponder responder = new LocalOCSPResponder(caCert, caKeys.getPrivate());
+        OCSPValidationDataProvider validationDataProvider = responder.newValidationDataProvider(pathValidationProvider);
+        XadesSigner signer = new XadesCSigningProfile(new DirectKeyingDataProvider(endCert, endKeys.getPrivate()), validationDataProvider)
+                .withTimeStampTokenProvider(LocalTimeStampTokenProvider.class)
+                .withBinding(LocalTSAData.class, new LocalTSAData(new DirectKeyingDataProvider(tsaCert, tsaKeys.getPrivate()), "1.2.3.4"))
+                .newSigner();
+
+        Document doc = SignatureServicesTestBase.getNewDocument();
+        Element root = doc.createElementNS("http://test.xades4j", "t:root");
+        root.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:t", "http://test.xades4j");
+        doc.appendChild(root);
+        new Enveloped(signer).sign(root);
+        assertEquals(1, responder.responses.size());
+
+        // The verifier also needs the status of the TSA certificate.
+        validationDataProvider.getValidationData(Arrays.asList(tsaCert));
+
+        Element signatureElem = (Element) doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+        XAdESVerificationResult res = new XadesVerificationProfile(new OCSPCertificateValidationProvider(pathValidationProvider, responder.responses))
+                .newVerifier()
+                .verify(signatureElem, null);
+
+        assertEquals(XAdESForm.C, res.getSignatureForm());
+        CompleteRevocationRefsProperty revocRefs = res.getPropertiesFilter().getOfType(CompleteRevocationRefsProperty.class).iterator().next();
+        assertTrue(revocRefs.getCrls().isEmpty());
+        assertEquals(1, revocRefs.getOcspResponses().size());
+        assertSame(responder.responses.get(0), revocRefs.getOcspResponses().iterator().next());
+    }
+}
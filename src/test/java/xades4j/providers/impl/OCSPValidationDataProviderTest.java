@@ -0,0 +1,116 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.providers.impl;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.CertStore;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import xades4j.providers.ValidationData;
+import xades4j.providers.ValidationDataException;
+
+/**
+ *
+ * @author Luís
+ */
+public class OCSPValidationDataProviderTest
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static KeyPair caKeys;
+    private static X509Certificate caCert;
+    private static X509Certificate endCert;
+    private static PKIXCertificateValidationProvider certValidationProvider;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        Date now = new Date();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(1024);
+        caKeys = keyGen.generateKeyPair();
+        X500Name caName = new X500Name("CN=Test OCSP CA");
+
+        JcaX509v3CertificateBuilder caBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.ONE, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                caName, caKeys.getPublic());
+        caBuilder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        caCert = new JcaX509CertificateConverter().getCertificate(caBuilder.build(signer()));
+
+        JcaX509v3CertificateBuilder endBuilder = new JcaX509v3CertificateBuilder(
+                caName, BigInteger.TEN, new Date(now.getTime() - DAY), new Date(now.getTime() + DAY),
+                new X500Name("CN=Test OCSP End"), keyGen.generateKeyPair().getPublic());
+        endCert = new JcaX509CertificateConverter().getCertificate(endBuilder.build(signer()));
+
+        KeyStore ks = KeyStore.getInstance("jks");
+        ks.load(null);
+        ks.setCertificateEntry("ca", caCert);
+        CertStore certs = CertStore.getInstance("Collection", new CollectionCertStoreParameters(Collections.singleton(endCert)));
+        certValidationProvider = new PKIXCertificateValidationProvider(ks, false, certs);
+    }
+
+    private static ContentSigner signer() throws Exception
+    {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate());
+    }
+
+    @Test
+    public void testGetValidationData() throws Exception
+    {
+        System.out.println("getValidationData");
+
+        LocalOCSPResponder responder = new LocalOCSPResponder(caCert, caKeys.getPrivate());
+        OCSPValidationDataProvider instance = responder.newValidationDataProvider(certValidationProvider);
+        ValidationData result = instance.getValidationData(Arrays.asList(endCert));
+        assertEquals(2, result.getCerts().size());
+        assertEquals(1, result.getOcspResponses().size());
+        assertEquals(OCSPResp.SUCCESSFUL, result.getOcspResponses().iterator().next().getStatus());
+        assertEquals(1, responder.responses.size());
+
+        // The response is cached until next update.
+        ValidationData other = instance.getValidationData(Arrays.asList(endCert));
+        assertSame(result.getOcspResponses().iterator().next(), other.getOcspResponses().iterator().next());
+        assertEquals(1, responder.responses.size());
+    }
+
+    @Test(expected = ValidationDataException.class)
+    public void testGetValidationDataRevoked() throws Exception
+    {
+        System.out.println("getValidationDataRevoked");
+
+        LocalOCSPResponder responder = new LocalOCSPResponder(caCert, caKeys.getPrivate());
+        responder.revoked.add(endCert.getSerialNumber());
+        responder.newValidationDataProvider(certValidationProvider).getValidationData(Arrays.asList(endCert));
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import xades4j.providers.CannotBuildCertificationPathException;
 import xades4j.providers.ValidationData;
 import xades4j.utils.FileSystemDirectoryCertStore;
 
@@ -93,4 +94,82 @@ public class PKIXCertificateValidationProviderTest
         assertEquals(result.getCerts().size(), 4);
         assertEquals(result.getCrls().size(), 3);
     }
+
+    @Test
+    public void testValidateWithPathCache() throws Exception
+    {
+        System.out.println("validateWithPathCache");
+
+        FileSystemDirectoryCertStore certStore = new FileSystemDirectoryCertStore("./src/test/cert/csrc.nist");
+        KeyStore ks = KeyStore.getInstance("jks");
+        FileInputStream fis = new FileInputStream("./src/test/cert/csrc.nist/trustAnchor");
+        ks.load(fis, "password".toCharArray());
+        fis.close();
+
+        PKIXCertificateValidationProvider instance = new PKIXCertificateValidationProvider(ks, true, certStore.getStore());
+        CertificationPathCache cache = new CertificationPathCache(10, 60 * 60 * 1000);
+        instance.setPathCache(cache);
+
+        X509CertSelector certSelector = new X509CertSelector();
+        certSelector.setSubject(new X500Principal("CN = User1-CP.02.01,OU = Testing,OU = DoD,O = U.S. Government,C = US"));
+        Collection<X509Certificate> otherCerts = Collections.emptyList();
+        Date now = new Date();
+
+        // The leaf certificate isn't known up-front; the cache isn't used.
+        ValidationData result = instance.validate(certSelector, now, otherCerts);
+        assertEquals(0, cache.getHits() + cache.getMisses());
+
+        certSelector = new X509CertSelector();
+        certSelector.setCertificate(result.getCerts().get(0));
+
+        ValidationData first = instance.validate(certSelector, now, otherCerts);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        ValidationData second = instance.validate(certSelector, new Date(now.getTime() + 1000), otherCerts);
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+
+        // Outside the validation date window.
+        ValidationData third = instance.validate(certSelector, new Date(now.getTime() - 2 * 60 * 60 * 1000), otherCerts);
+        assertNotSame(first, third);
+        assertEquals(2, cache.getMisses());
+        assertEquals(4, third.getCerts().size());
+    }
+
+    @Test
+    public void testRefreshTrustAnchors() throws Exception
+    {
+        System.out.println("refreshTrustAnchors");
+
+        FileSystemDirectoryCertStore certStore = new FileSystemDirectoryCertStore("./src/test/cert/my");
+        KeyStore ks = KeyStore.getInstance("jks");
+        FileInputStream fis = new FileInputStream("./src/test/cert/my/myStore");
+        ks.load(fis, "mystorepass".toCharArray());
+        fis.close();
+
+        KeyStore otherKs = KeyStore.getInstance("jks");
+        fis = new FileInputStream("./src/test/cert/csrc.nist/trustAnchor");
+        otherKs.load(fis, "password".toCharArray());
+        fis.close();
+
+        X509CertSelector certSelector = new X509CertSelector();
+        certSelector.setSubject(new X500Principal("CN = Luis Goncalves,OU = CC,O = ISEL,C = PT"));
+        Collection<X509Certificate> otherCerts = Collections.emptyList();
+
+        PKIXCertificateValidationProvider instance = new PKIXCertificateValidationProvider(ks, false, certStore.getStore());
+        assertEquals(3, instance.validate(certSelector, new Date(), otherCerts).getCerts().size());
+
+        instance.refreshTrustAnchors(otherKs);
+        try
+        {
+            instance.validate(certSelector, new Date(), otherCerts);
+            fail("The previous trust anchors shouldn't be used");
+        } catch (CannotBuildCertificationPathException ex)
+        {
+        }
+
+        instance.refreshTrustAnchors(ks);
+        assertEquals(3, instance.validate(certSelector, new Date(), otherCerts).getCerts().size());
+    }
 }
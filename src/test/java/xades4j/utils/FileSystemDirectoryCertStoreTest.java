@@ -16,6 +16,12 @@
  */
 package xades4j.utils;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateException;
 import java.util.Collection;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -57,4 +63,85 @@ public class FileSystemDirectoryCertStoreTest {
         Collection crls = certStore.getStore().getCRLs(null);
         assertEquals(crls.size(), 3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReload() throws Exception
+    {
+        System.out.println("reload");
+
+        File dir = File.createTempFile("xades4j", "certs");
+        dir.delete();
+        dir.mkdir();
+        File subDir = new File(dir, "crls");
+        subDir.mkdir();
+        try
+        {
+            copy("End Certificate CP.02.01.crt", dir);
+            copy("Intermediate Certificate 1 CP.02.01.crt", dir);
+            copy("Intermediate CRL 1 CP.02.01.crl", subDir);
+
+            FileSystemDirectoryCertStore certStore = new FileSystemDirectoryCertStore(dir.getPath());
+            CertStore store = certStore.getStore();
+            assertEquals(2, store.getCertificates(null).size());
+            assertEquals(1, store.getCRLs(null).size());
+
+            assertFalse(certStore.reload());
+
+            copy("Intermediate Certificate 2 CP.02.01.crt", dir);
+            copy("Intermediate CRL 2 CP.02.01.crl", subDir);
+            new File(dir, "End Certificate CP.02.01.crt").delete();
+            assertTrue(certStore.reload());
+            assertEquals(2, store.getCertificates(null).size());
+            assertEquals(2, store.getCRLs(null).size());
+            assertEquals(2, certStore.getReloadCount());
+
+            FileOutputStream fos = new FileOutputStream(new File(dir, "invalid.crt"));
+            fos.write(new byte[] { 1, 2, 3 });
+            fos.close();
+            try
+            {
+                certStore.reload();
+                fail("Reload should fail");
+            } catch (CertificateException ex)
+            {
+                assertSame(ex, certStore.getLastReloadFailure());
+            }
+            assertEquals(1, certStore.getFailedReloadCount());
+            // The previous contents are kept.
+            assertEquals(2, store.getCertificates(null).size());
+        } finally
+        {
+            deleteDir(dir);
+        }
+    }
+
+    private static void copy(String nistFile, File dir) throws IOException
+    {
+        FileInputStream is = new FileInputStream("./src/test/cert/csrc.nist/" + nistFile);
+        FileOutputStream os = new FileOutputStream(new File(dir, nistFile));
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = is.read(buf)) != -1)
+        {
+            os.write(buf, 0, n);
+        }
+        is.close();
+        os.close();
+    }
+
+    private static void deleteDir(File dir)
+    {
+        for (File f : dir.listFiles())
+        {
+            if (f.isDirectory())
+            {
+                deleteDir(f);
+            }
+            else
+            {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import java.io.FileInputStream;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLSelector;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class IndexedCertStoreSpiTest
+{
+    private static final String[] FILES =
+    {
+        "End Certificate CP.02.01.crt",
+        "Intermediate Certificate 1 CP.02.01.crt",
+        "Intermediate Certificate 2 CP.02.01.crt",
+        "Trust Anchor CP.01.01.crt",
+        "Intermediate CRL 1 CP.02.01.crl",
+        "Intermediate CRL 2 CP.02.01.crl",
+        "Trust Anchor CRL CP.01.01.crl"
+    };
+
+    private static List<Object> content;
+    private static CertStore collectionStore;
+    private static CertStore indexedStore;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        content = new ArrayList<Object>();
+        for (String f : FILES)
+        {
+            FileInputStream fis = new FileInputStream("./src/test/cert/csrc.nist/" + f);
+            content.add(f.endsWith(".crl") ? cf.generateCRL(fis) : cf.generateCertificate(fis));
+            fis.close();
+        }
+        collectionStore = CertStore.getInstance("Collection", new CollectionCertStoreParameters(content));
+        indexedStore = IndexedCertStoreSpi.newCertStore(content);
+    }
+
+    @Test
+    public void testGetCertificatesByIndexedCriteria() throws Exception
+    {
+        System.out.println("getCertificatesByIndexedCriteria");
+
+        for (Object o : content)
+        {
+            if (!(o instanceof X509Certificate))
+            {
+                continue;
+            }
+            X509Certificate cert = (X509Certificate) o;
+
+            X509CertSelector bySubject = new X509CertSelector();
+            bySubject.setSubject(cert.getSubjectX500Principal());
+            assertSameResults(bySubject, cert);
+
+            X509CertSelector byIssuerSerial = new X509CertSelector();
+            byIssuerSerial.setIssuer(cert.getIssuerX500Principal());
+            byIssuerSerial.setSerialNumber(cert.getSerialNumber());
+            assertSameResults(byIssuerSerial, cert);
+
+            X509CertSelector byCert = new X509CertSelector();
+            byCert.setCertificate(cert);
+            assertSameResults(byCert, cert);
+
+            byte[] ski = cert.getExtensionValue("2.5.29.14");
+            if (ski != null)
+            {
+                X509CertSelector bySki = new X509CertSelector();
+                bySki.setSubjectKeyIdentifier(ASN1OctetString.getInstance(ski).getOctets());
+                assertSameResults(bySki, cert);
+            }
+        }
+    }
+
+    @Test
+    public void testGetCertificatesByOtherCriteria() throws Exception
+    {
+        System.out.println("getCertificatesByOtherCriteria");
+
+        X509CertSelector selector = new X509CertSelector();
+        selector.setBasicConstraints(0);
+        assertEquals(
+                new HashSet<Object>(collectionStore.getCertificates(selector)),
+                new HashSet<Object>(indexedStore.getCertificates(selector)));
+        assertEquals(4, indexedStore.getCertificates(null).size());
+    }
+
+    @Test
+    public void testGetCRLs() throws Exception
+    {
+        System.out.println("getCRLs");
+
+        for (Object o : content)
+        {
+            if (!(o instanceof X509CRL))
+            {
+                continue;
+            }
+            X509CRL crl = (X509CRL) o;
+            X509CRLSelector selector = new X509CRLSelector();
+            selector.addIssuer(crl.getIssuerX500Principal());
+            Collection indexed = indexedStore.getCRLs(selector);
+            assertTrue(indexed.contains(crl));
+            assertEquals(new HashSet<Object>(collectionStore.getCRLs(selector)), new HashSet<Object>(indexed));
+        }
+        assertEquals(3, indexedStore.getCRLs(new X509CRLSelector()).size());
+        assertEquals(3, indexedStore.getCRLs(null).size());
+    }
+
+    private static void assertSameResults(X509CertSelector selector, X509Certificate expected) throws Exception
+    {
+        Collection indexed = indexedStore.getCertificates(selector);
+        assertTrue(indexed.contains(expected));
+        assertEquals(new HashSet<Object>(collectionStore.getCertificates(selector)), new HashSet<Object>(indexed));
+    }
+}
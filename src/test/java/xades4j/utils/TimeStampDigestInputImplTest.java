@@ -0,0 +1,100 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.utils;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.security.MessageDigest;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import xades4j.algorithms.CanonicalXMLWithoutComments;
+import xades4j.providers.MessageDigestEngineProvider;
+import xades4j.providers.impl.DefaultMessageDigestProvider;
+import xades4j.xml.marshalling.algorithms.AlgorithmParametersBindingsModule;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class TimeStampDigestInputImplTest extends SignatureServicesTestBase
+{
+    private TimeStampDigestInputFactoryEx factory;
+    private Document doc;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        factory = (TimeStampDigestInputFactoryEx) Guice.createInjector(
+                new UtilsBindingsModule(),
+                new AlgorithmParametersBindingsModule(),
+                new AbstractModule()
+                {
+                    @Override
+                    protected void configure()
+                    {
+                        bind(MessageDigestEngineProvider.class).to(DefaultMessageDigestProvider.class);
+                    }
+                }).getInstance(TimeStampDigestInputFactory.class);
+
+        doc = getNewDocument();
+        Element root = doc.createElementNS("http://test.xades4j", "t:root");
+        root.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:t", "http://test.xades4j");
+        root.appendChild(doc.createElementNS("http://test.xades4j", "t:child")).setTextContent("value");
+        doc.appendChild(root);
+    }
+
+    @Test
+    public void testStreamingDigestMatchesBufferedInput() throws Exception
+    {
+        System.out.println("streamingDigestMatchesBufferedInput");
+
+        TimeStampDigestInput buffered = factory.newTimeStampDigestInput(new CanonicalXMLWithoutComments());
+        buffered.addNode(doc.getDocumentElement());
+        buffered.addNode(doc.getDocumentElement().getFirstChild());
+
+        StreamingTimeStampDigestInput streaming = factory.newStreamingTimeStampDigestInput(
+                new CanonicalXMLWithoutComments(),
+                null,
+                MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256,
+                MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA1);
+        streaming.addNode(doc.getDocumentElement());
+        streaming.addNode(doc.getDocumentElement().getFirstChild());
+
+        byte[] bytes = buffered.getBytes();
+        assertTrue(bytes.length > 0);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(bytes), streaming.getDigest(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256));
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(bytes), streaming.getDigest(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamingInputIsFinishedByGetDigest() throws Exception
+    {
+        System.out.println("streamingInputIsFinishedByGetDigest");
+
+        StreamingTimeStampDigestInput streaming = factory.newStreamingTimeStampDigestInput(
+                new CanonicalXMLWithoutComments(),
+                null,
+                MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        streaming.addNode(doc.getDocumentElement());
+        streaming.getDigest(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        streaming.addNode(doc.getDocumentElement());
+    }
+}
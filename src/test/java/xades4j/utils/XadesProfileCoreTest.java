@@ -21,6 +21,7 @@ import java.util.Map;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Module;
+import com.google.inject.Singleton;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -92,6 +93,11 @@ class E
 
 }
 
+@Singleton
+class F
+{
+}
+
 /**
  *
  * @author Luís
@@ -191,4 +197,23 @@ public class XadesProfileCoreTest
         assertEquals(AImpl1.class, e.as.get("A1").getClass());
         assertEquals(AImpl2.class, e.as.get("A2").getClass());
     }
+
+    @Test
+    public void testInjectorReusedUntilBindingsChange() throws Exception
+    {
+        System.out.println("injectorReusedUntilBindingsChange");
+
+        Module[] overridableModules = new Module[0];
+        Module[] sealedModules = new Module[0];
+        XadesProfileCore instance = new XadesProfileCore();
+
+        F f1 = instance.getInstance(F.class, overridableModules, sealedModules);
+        F f2 = instance.getInstance(F.class, overridableModules, sealedModules);
+        assertSame(f1, f2);
+
+        instance.addBinding(A.class, AImpl1.class);
+        F f3 = instance.getInstance(F.class, overridableModules, sealedModules);
+        assertNotSame(f1, f3);
+        assertTrue(instance.getInstance(A.class, overridableModules, sealedModules) instanceof AImpl1);
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import xades4j.properties.QualifyingProperty;
+import xades4j.properties.SigningTimeProperty;
+import xades4j.properties.data.SignerRoleData;
+import xades4j.properties.data.SigningTimeData;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class QualifyingPropertyVerifiersMapperImplTest
+{
+    private static final AtomicInteger verifiersCreated = new AtomicInteger();
+    private QualifyingPropertyVerifiersMapperImpl sut;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        verifiersCreated.set(0);
+        sut = new QualifyingPropertyVerifiersMapperImpl(Guice.createInjector(new AbstractModule()
+        {
+            @Override
+            protected void configure()
+            {
+                bind(new TypeLiteral<QualifyingPropertyVerifier<SigningTimeData>>()
+                {
+                }).to(TestSigningTimeVerifier.class);
+            }
+        }));
+    }
+
+    @Test
+    public void testIsCertificationPathIndependent() throws Exception
+    {
+        System.out.println("isCertificationPathIndependent");
+
+        SigningTimeData data = new SigningTimeData(Calendar.getInstance());
+        assertTrue(sut.isCertificationPathIndependent(data));
+        assertTrue(sut.isCertificationPathIndependent(data));
+        assertEquals(0, verifiersCreated.get());
+
+        assertTrue(sut.getVerifier(data) instanceof TestSigningTimeVerifier);
+        assertEquals(1, verifiersCreated.get());
+    }
+
+    @Test(expected = QualifyingPropertyVerifierNotAvailableException.class)
+    public void testIsCertificationPathIndependentNotAvailable() throws Exception
+    {
+        System.out.println("isCertificationPathIndependentNotAvailable");
+
+        sut.isCertificationPathIndependent(new SignerRoleData(Collections.<String>emptyList()));
+    }
+
+    static class TestSigningTimeVerifier implements CertificationPathIndependentVerifier<SigningTimeData>
+    {
+        TestSigningTimeVerifier()
+        {
+            verifiersCreated.incrementAndGet();
+        }
+
+        @Override
+        public QualifyingProperty verify(
+                SigningTimeData propData,
+                QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
+        {
+            return new SigningTimeProperty(propData.getSigningTime());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * XAdES4j - A Java library for generation and verification of XAdES signatures.
+ * Copyright (C) 2026 Luis Goncalves.
+ *
+ * XAdES4j is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or any later version.
+ *
+ * XAdES4j is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along
+ * with XAdES4j. If not, see <http://www.gnu.org/licenses/>.
+ */
+package xades4j.verification;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.resolver.ResourceResolver;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import xades4j.production.DataObjectReference;
+import xades4j.production.SignedDataObjects;
+import xades4j.production.XadesBesSigningProfile;
+import xades4j.providers.KeyingDataProvider;
+import xades4j.providers.impl.DirectPasswordProvider;
+import xades4j.providers.impl.FileSystemKeyStoreKeyingDataProvider;
+import xades4j.providers.impl.FirstCertificateSelector;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Luís
+ */
+public class ReferencesVerifierTest extends VerifierTestBase
+{
+    private static final int N_REFS = 500;
+    private static final int REF_SIZE = 16 * 1024;
+
+    private static ExecutorService executor;
+    private static Element signatureElem;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        executor = Executors.newFixedThreadPool(4);
+
+        KeyingDataProvider keyingProvider = new FileSystemKeyStoreKeyingDataProvider("JKS",
+                toPlatformSpecificCertDirFilePath("my/LG.jks"),
+                new FirstCertificateSelector(),
+                new DirectPasswordProvider("mykeypass"),
+                new DirectPasswordProvider("mykeypass"), true);
+
+        SignedDataObjects dataObjs = new SignedDataObjects().withResourceResolver(new ResourceResolver(new InMemoryResolverSpi()));
+        for (int i = 0; i < N_REFS; i++)
+        {
+            String uri = "xades4j:ref/" + i;
+            byte[] data = new byte[REF_SIZE];
+            Arrays.fill(data, (byte) i);
+            InMemoryResolverSpi.data.put(uri, data);
+            dataObjs.withSignedDataObject(new DataObjectReference(uri));
+        }
+
+        Document doc = getNewDocument();
+        new XadesBesSigningProfile(keyingProvider).newSigner().sign(dataObjs, doc);
+        signatureElem = doc.getDocumentElement();
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        executor.shutdown();
+        InMemoryResolverSpi.data.clear();
+    }
+
+    @Test
+    public void testVerifyDetachedReferences() throws Exception
+    {
+        System.out.println("verifyDetachedReferences");
+
+        for (XadesVerifier verifier : newVerifiers())
+        {
+            InMemoryResolverSpi.resolveCount.set(0);
+            XAdESVerificationResult res = verifier.verify(signatureElem, newOptions());
+
+            assertEquals(XAdESForm.BES, res.getSignatureForm());
+            // Each reference is resolved (and digested) once.
+            assertEquals(N_REFS, InMemoryResolverSpi.resolveCount.get());
+        }
+    }
+
+    @Test
+    public void testVerifyDetachedReferencesInvalid() throws Exception
+    {
+        System.out.println("verifyDetachedReferencesInvalid");
+
+        byte[] original7 = InMemoryResolverSpi.data.put("xades4j:ref/7", new byte[1]);
+        byte[] original300 = InMemoryResolverSpi.data.put("xades4j:ref/300", new byte[1]);
+        try
+        {
+            for (XadesVerifier verifier : newVerifiers())
+            {
+                InMemoryResolverSpi.resolveCount.set(0);
+                try
+                {
+                    verifier.verify(signatureElem, newOptions());
+                    fail("Expected ReferenceValueException");
+                }
+                catch (ReferenceValueException ex)
+                {
+                    assertEquals("xades4j:ref/7", ex.getReference().getURI());
+                }
+                // Diagnosing the failure doesn't need the references again.
+                assertEquals(N_REFS, InMemoryResolverSpi.resolveCount.get());
+            }
+        }
+        finally
+        {
+            InMemoryResolverSpi.data.put("xades4j:ref/7", original7);
+            InMemoryResolverSpi.data.put("xades4j:ref/300", original300);
+        }
+    }
+
+    @Ignore("Benchmark")
+    @Test
+    public void testVerifyDetachedReferencesBenchmark() throws Exception
+    {
+        System.out.println("verifyDetachedReferencesBenchmark");
+
+        XadesVerifier[] verifiers = newVerifiers();
+        String[] names =
+        {
+            "calling thread", "executor"
+        };
+        for (int v = 0; v < verifiers.length; v++)
+        {
+            // Warm-up
+            verifiers[v].verify(signatureElem, newOptions());
+
+            int nVerifications = 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < nVerifications; i++)
+            {
+                verifiers[v].verify(signatureElem, newOptions());
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%d references (%s): %.2f ms/verification%n", N_REFS, names[v], elapsed / 1e6 / nVerifications);
+        }
+    }
+
+    private static XadesVerifier[] newVerifiers() throws Exception
+    {
+        return new XadesVerifier[]
+        {
+            new XadesVerificationProfile(VerifierTestBase.validationProviderMySigs).newVerifier(),
+            new XadesVerificationProfile(VerifierTestBase.validationProviderMySigs).withReferenceVerificationExecutor(executor).newVerifier()
+        };
+    }
+
+    private static SignatureSpecificVerificationOptions newOptions()
+    {
+        return new SignatureSpecificVerificationOptions().useResourceResolver(new ResourceResolver(new InMemoryResolverSpi()));
+    }
+
+    public static class InMemoryResolverSpi extends ResourceResolverSpi
+    {
+        static final ConcurrentHashMap<String, byte[]> data = new ConcurrentHashMap<>();
+        static final AtomicInteger resolveCount = new AtomicInteger();
+
+        @Override
+        public XMLSignatureInput engineResolveURI(ResourceResolverContext context)
+        {
+            resolveCount.incrementAndGet();
+            return new XMLSignatureInput(data.get(context.attr.getValue()));
+        }
+
+        @Override
+        public boolean engineCanResolveURI(ResourceResolverContext context)
+        {
+            return context.attr != null && data.containsKey(context.attr.getValue());
+        }
+
+        @Override
+        public boolean engineIsThreadSafe()
+        {
+            return true;
+        }
+    }
+}
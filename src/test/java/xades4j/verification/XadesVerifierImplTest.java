@@ -19,14 +19,29 @@ package xades4j.verification;
 import java.io.File;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -38,7 +53,21 @@ import xades4j.properties.CertificateValuesProperty;
 import xades4j.properties.QualifyingProperty;
 import xades4j.properties.RevocationValuesProperty;
 import xades4j.properties.SigAndRefsTimeStampProperty;
+import xades4j.properties.SignatureTimeStampProperty;
+import xades4j.properties.data.CustomPropertiesDataObjsStructureVerifier;
+import xades4j.properties.data.DataObjectFormatData;
+import xades4j.properties.data.PropertyDataObject;
+import xades4j.properties.data.SignatureTimeStampData;
+import xades4j.properties.data.SigningTimeData;
 import xades4j.providers.CannotBuildCertificationPathException;
+import xades4j.providers.CertificateValidationException;
+import xades4j.providers.CertificateValidationProvider;
+import xades4j.providers.TimeStampTokenVerificationException;
+import xades4j.providers.TimeStampVerificationProvider;
+import xades4j.providers.ValidationData;
+import xades4j.providers.impl.DefaultMessageDigestProvider;
+import xades4j.providers.impl.DefaultTimeStampVerificationProvider;
+import xades4j.utils.DataGetter;
 
 /**
  *
@@ -64,6 +93,25 @@ public class XadesVerifierImplTest extends VerifierTestBase
         assertEquals(XAdESForm.BES, f);
     }
 
+    @Test
+    public void testVerifyBESWithReferenceContentsCache() throws Exception
+    {
+        System.out.println("verifyBESWithReferenceContentsCache");
+        verificationProfile.withReferenceContentsCache(1024 * 1024);
+        XAdESForm f = verifySignature("document.signed.bes.xml", verificationProfile);
+        assertEquals(XAdESForm.BES, f);
+    }
+
+    @Test
+    public void testVerifyBESWithReferenceContentsCacheOnDisk() throws Exception
+    {
+        System.out.println("verifyBESWithReferenceContentsCacheOnDisk");
+        // No data is kept in memory; the cache uses temporary files.
+        verificationProfile.withReferenceContentsCache(0);
+        XAdESForm f = verifySignature("document.signed.bes.xml", verificationProfile);
+        assertEquals(XAdESForm.BES, f);
+    }
+
     @Test
     public void testVerifyBESWithoutKeyInfo() throws Exception
     {
@@ -216,6 +264,338 @@ public class XadesVerifierImplTest extends VerifierTestBase
         assertEquals(XAdESForm.T, f);
     }
 
+    @Test
+    public void testVerifyPropertiesConcurrently() throws Exception
+    {
+        System.out.println("verifyPropertiesConcurrently");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            verificationProfile.withPolicyDocumentProvider(VerifierTestBase.policyDocumentFinder);
+            XadesVerifier sequentialVerifier = verificationProfile.newVerifier();
+            XadesVerifier concurrentVerifier = verificationProfile.withPropertyVerificationExecutor(executor).newVerifier();
+
+            String[] sigFileNames =
+            {
+                "document.signed.bes.xml", "document.signed.bes.cs.cs.xml", "document.signed.epes_1.xml", "document.signed.t.epes.xml"
+            };
+            for (String sigFileName : sigFileNames)
+            {
+                for (int i = 0; i < 10; i++)
+                {
+                    XAdESVerificationResult expected = sequentialVerifier.verify(getSigElement(getDocument(sigFileName)), null);
+                    XAdESVerificationResult actual = concurrentVerifier.verify(getSigElement(getDocument(sigFileName)), null);
+
+                    assertEquals(expected.getSignatureForm(), actual.getSignatureForm());
+                    assertEquals(getPropertyNames(expected), getPropertyNames(actual));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVerifyPropertiesConcurrentlyReportsFirstError() throws Exception
+    {
+        System.out.println("verifyPropertiesConcurrentlyReportsFirstError");
+
+        // The failing properties are SigningTime and DataObjectFormat. The
+        // first one on the properties order takes longer to fail.
+        final List<PropertyDataObject> failingProps = new ArrayList<>();
+        verificationProfile.withGlobalDataObjsStructureVerifier(new CustomPropertiesDataObjsStructureVerifier()
+        {
+            @Override
+            public void verifiy(DataGetter<PropertyDataObject> dataObjsGetter)
+            {
+                failingProps.clear();
+                for (PropertyDataObject p : dataObjsGetter.getAll())
+                {
+                    if (p instanceof SigningTimeData || p instanceof DataObjectFormatData)
+                    {
+                        failingProps.add(p);
+                    }
+                }
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            verificationProfile
+                    .withPropertyVerificationExecutor(executor)
+                    .withQualifyingPropertyVerifier(SigningTimeData.class, new FailingVerifier<SigningTimeData>(failingProps))
+                    .withQualifyingPropertyVerifier(DataObjectFormatData.class, new FailingVerifier<DataObjectFormatData>(failingProps));
+
+            verifySignature("document.signed.bes.xml", verificationProfile);
+            fail("Expected an exception");
+        }
+        catch (TestInvalidPropertyException ex)
+        {
+            assertSame(failingProps.get(0), ex.propData);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testVerifyPropertiesConcurrentlyDoesntLockDocument() throws Exception
+    {
+        System.out.println("verifyPropertiesConcurrentlyDoesntLockDocument");
+
+        final Document doc = getDocument("document.signed.bes.cs.xml");
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch verified = new CountDownLatch(1);
+        // The application may use the document as a monitor.
+        Thread holder = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                synchronized (doc)
+                {
+                    locked.countDown();
+                    try
+                    {
+                        verified.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException ex)
+                    {
+                    }
+                }
+            }
+        });
+        holder.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            XAdESVerificationResult res = verificationProfile
+                    .withPropertyVerificationExecutor(executor)
+                    .newVerifier()
+                    .verify(getSigElement(doc), null);
+            assertEquals(XAdESForm.BES, res.getSignatureForm());
+            assertTrue(holder.isAlive());
+        }
+        finally
+        {
+            verified.countDown();
+            executor.shutdown();
+        }
+        holder.join();
+    }
+
+    private static List<String> getPropertyNames(XAdESVerificationResult res)
+    {
+        // The order of the unmarshalled properties isn't the same across
+        // verifications of the same document.
+        List<String> names = new ArrayList<>();
+        for (PropertyInfo p : res.getPropertiesAndData())
+        {
+            names.add(p.getProperty().getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    static class FailingVerifier<TData extends PropertyDataObject> implements ConcurrentQualifyingPropertyVerifier<TData>
+    {
+        private final List<PropertyDataObject> failingProps;
+
+        FailingVerifier(List<PropertyDataObject> failingProps)
+        {
+            this.failingProps = failingProps;
+        }
+
+        @Override
+        public QualifyingProperty verify(TData propData, QualifyingPropertyVerificationContext ctx) throws InvalidPropertyException
+        {
+            if (failingProps.get(0) == propData)
+            {
+                try
+                {
+                    Thread.sleep(200);
+                }
+                catch (InterruptedException ex)
+                {
+                }
+            }
+            throw new TestInvalidPropertyException(propData);
+        }
+    }
+
+    static class TestInvalidPropertyException extends InvalidPropertyException
+    {
+        final PropertyDataObject propData;
+
+        TestInvalidPropertyException(PropertyDataObject propData)
+        {
+            this.propData = propData;
+        }
+
+        @Override
+        protected String getVerificationMessage()
+        {
+            return "Test error";
+        }
+
+        @Override
+        public String getPropertyName()
+        {
+            return propData.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    public void testVerifyTSignatureTimeStampVerifiedOnce() throws Exception
+    {
+        System.out.println("verifyTSignatureTimeStampVerifiedOnce");
+        verifyRepeatedly("document.signed.t.bes.xml", VerifierTestBase.validationProviderMySigs, XAdESForm.T, 2);
+        verifyRepeatedly("document.signed.t.epes.xml", VerifierTestBase.validationProviderMySigs, XAdESForm.T, 2);
+    }
+
+    @Test
+    public void testVerifyCSignatureTimeStampVerifiedOnce() throws Exception
+    {
+        System.out.println("verifyCSignatureTimeStampVerifiedOnce");
+        verifyRepeatedly("document.signed.c.xml", VerifierTestBase.validationProviderNist, XAdESForm.C, 2);
+    }
+
+    @Test
+    public void testVerifyTWithCustomSignatureTimeStampVerifier() throws Exception
+    {
+        System.out.println("verifyTWithCustomSignatureTimeStampVerifier");
+
+        final Date tsTime = new Date(System.currentTimeMillis() - 60 * 1000);
+        final AtomicInteger tsVerifications = new AtomicInteger();
+        final List<Date> validationDates = new ArrayList<>();
+
+        XadesVerifier verifier = new XadesVerificationProfile(new CertificateValidationProvider()
+        {
+            @Override
+            public ValidationData validate(X509CertSelector certSelector, Date validationDate, Collection<X509Certificate> otherCerts) throws CertificateValidationException, UnexpectedJCAException
+            {
+                validationDates.add(validationDate);
+                return VerifierTestBase.validationProviderMySigs.validate(certSelector, validationDate, otherCerts);
+            }
+        })
+                // Not a CertificationPathIndependentVerifier.
+                .withQualifyingPropertyVerifier(SignatureTimeStampData.class, new QualifyingPropertyVerifier<SignatureTimeStampData>()
+                {
+                    @Override
+                    public QualifyingProperty verify(SignatureTimeStampData propData, QualifyingPropertyVerificationContext ctx)
+                    {
+                        tsVerifications.incrementAndGet();
+                        SignatureTimeStampProperty p = new SignatureTimeStampProperty();
+                        p.setTime(tsTime);
+                        return p;
+                    }
+                })
+                .newVerifier();
+
+        XAdESVerificationResult res = verifier.verify(getSigElement(getDocument("document.signed.t.bes.xml")), null);
+
+        assertEquals(XAdESForm.T, res.getSignatureForm());
+        assertEquals(1, tsVerifications.get());
+        // The certification path is validated at the time-stamp time.
+        assertEquals(Collections.singletonList(tsTime), validationDates);
+    }
+
+    @Test
+    public void testVerifyTTimeStampTokensCachedAcrossVerifications() throws Exception
+    {
+        System.out.println("verifyTTimeStampTokensCachedAcrossVerifications");
+
+        final AtomicInteger validations = new AtomicInteger();
+        XadesVerifier verifier = new XadesVerificationProfile(new CertificateValidationProvider()
+        {
+            @Override
+            public ValidationData validate(X509CertSelector certSelector, Date validationDate, Collection<X509Certificate> otherCerts) throws CertificateValidationException, UnexpectedJCAException
+            {
+                validations.incrementAndGet();
+                return VerifierTestBase.validationProviderMySigs.validate(certSelector, validationDate, otherCerts);
+            }
+        }).newVerifier();
+
+        // Signer and TSA certificates.
+        assertEquals(XAdESForm.T, verifier.verify(getSigElement(getDocument("document.signed.t.bes.xml")), null).getSignatureForm());
+        assertEquals(2, validations.get());
+
+        // The time-stamp token was verified by the first verification; only
+        // the signer certificate is validated.
+        assertEquals(XAdESForm.T, verifier.verify(getSigElement(getDocument("document.signed.t.bes.xml")), null).getSignatureForm());
+        assertEquals(3, validations.get());
+    }
+
+    @Ignore("Benchmark")
+    @Test
+    public void testVerificationBenchmark() throws Exception
+    {
+        System.out.println("verificationBenchmark");
+        final int nVerifications = 20;
+        String[] sigFileNames = { "document.signed.t.bes.xml", "document.signed.t.epes.xml" };
+        for (String sigFileName : sigFileNames)
+        {
+            long elapsed = verifyRepeatedly(sigFileName, VerifierTestBase.validationProviderMySigs, XAdESForm.T, nVerifications);
+            System.out.printf("%s: %.2f ms/verification%n", sigFileName, elapsed / 1e6 / nVerifications);
+        }
+        long elapsed = verifyRepeatedly("document.signed.c.xml", VerifierTestBase.validationProviderNist, XAdESForm.C, nVerifications);
+        System.out.printf("%s: %.2f ms/verification%n", "document.signed.c.xml", elapsed / 1e6 / nVerifications);
+    }
+
+    /**
+     * Verifies a signature a number of times, checking that the signature
+     * time-stamp token is verified once per verification.
+     * @return the elapsed time in nanoseconds, excluding the warm-up
+     */
+    private static long verifyRepeatedly(
+            String sigFileName,
+            CertificateValidationProvider certValidator,
+            XAdESForm expectedForm,
+            int nVerifications) throws Exception
+    {
+        final DefaultTimeStampVerificationProvider tsVerifier = new DefaultTimeStampVerificationProvider(
+                certValidator, new DefaultMessageDigestProvider());
+        // Each verification of the time-stamp should do the actual work.
+        tsVerifier.setVerificationCache(null);
+        final AtomicInteger tokenVerifications = new AtomicInteger();
+
+        XadesVerifier verifier = new XadesVerificationProfile(certValidator)
+                .withTimeStampTokenVerifier(new TimeStampVerificationProvider()
+                {
+                    @Override
+                    public Date verifyToken(byte[] timeStampToken, byte[] tsDigestInput) throws TimeStampTokenVerificationException
+                    {
+                        tokenVerifications.incrementAndGet();
+                        return tsVerifier.verifyToken(timeStampToken, tsDigestInput);
+                    }
+                })
+                .newVerifier();
+        Element signatureNode = getSigElement(getDocument(sigFileName));
+
+        // Warm-up
+        assertEquals(expectedForm, verifier.verify(signatureNode, null).getSignatureForm());
+        tokenVerifications.set(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < nVerifications; i++)
+        {
+            verifier.verify(signatureNode, null);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // The samples have a single signature time-stamp.
+        assertEquals(nVerifications, tokenVerifications.get());
+        return elapsed;
+    }
+
     @Test
     public void testVerifyC() throws Exception
     {